@@ -235,6 +235,13 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String LOXODROME = "gov.nasa.worldwind.avkey.Loxodrome";
 
     final String MAP_SCALE = "gov.nasa.worldwind.avkey.MapScale";
+    /**
+     * The configuration key for the size in bytes of the memory-mapped second level cache of decoded elevation tiles.
+     * A value of zero or an absent value disables the cache.
+     *
+     * @see gov.nasa.worldwind.cache.MappedTileCache
+     */
+    final String MAPPED_TILE_CACHE_SIZE = "gov.nasa.worldwind.avkey.MappedTileCacheSize";
     final String MARS_ELEVATION_MODEL_CLASS_NAME = "gov.nasa.worldwind.avkey.MarsElevationModelClassName";
     final String MARS_ELEVATION_MODEL_CONFIG_FILE = "gov.nasa.worldwind.avkey.MarsElevationModelConfigFile";
 
@@ -248,7 +255,25 @@ public interface AVKey // TODO: Eliminate unused constants, if any
 
     final String MAX_ACTIVE_ALTITUDE = "gov.nasa.worldwind.avkey.MaxActiveAltitude";
     final String MAX_MESSAGE_REPEAT = "gov.nasa.worldwind.avkey.MaxMessageRepeat";
+    /**
+     * The configuration key naming the {@link gov.nasa.worldwind.cache.MemoryCache} class used for WorldWind's shared
+     * memory caches. The class must have a public constructor taking the low water level and the capacity as
+     * <code>long</code> arguments.
+     *
+     * @see gov.nasa.worldwind.cache.BasicMemoryCacheSet#createMemoryCache(long, long)
+     */
+    final String MEMORY_CACHE_CLASS_NAME = "gov.nasa.worldwind.avkey.MemoryCacheClassName";
     final String MEMORY_CACHE_SET_CLASS_NAME = "gov.nasa.worldwind.avkey.MemoryCacheSetClassName";
+    /**
+     * Indicates the capacity, in bytes, of the memory cache of composed MIL-STD-2525 icons. When used as a key, the
+     * corresponding value must be a number.
+     */
+    final String MIL_STD_2525_ICON_CACHE_SIZE = "gov.nasa.worldwind.avkey.MilStd2525IconCacheSize";
+    /**
+     * Indicates whether composed MIL-STD-2525 icons are persisted in the data file store. When used as a key, the
+     * corresponding value must be a boolean.
+     */
+    final String MIL_STD_2525_ICON_FILE_CACHE = "gov.nasa.worldwind.avkey.MilStd2525IconFileCache";
     /**
      * Indicates the location that MIL-STD-2525 tactical symbols and tactical point graphics retrieve their icons from.
      * When used as a key, the corresponding value must be a string indicating a URL to a remote server, a URL to a
@@ -367,6 +392,12 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String RASTER_PIXEL = "gov.nasa.worldwind.avkey.RasterPixel";
     final String RASTER_PIXEL_IS_AREA = "gov.nasa.worldwind.avkey.RasterPixelIsArea";
     final String RASTER_PIXEL_IS_POINT = "gov.nasa.worldwind.avkey.RasterPixelIsPoint";
+    /**
+     * Indicates whether the rectangular tessellator computes tile geometry on the task service rather than on the
+     * rendering thread.
+     */
+    final String RECTANGULAR_TESSELLATOR_BACKGROUND_GEOMETRY =
+        "gov.nasa.worldwind.avkey.RectangularTessellatorBackgroundGeometry";
     final String RECTANGULAR_TESSELLATOR_MAX_LEVEL = "gov.nasa.worldwind.avkey.RectangularTessellatorMaxLevel";
     final String REPAINT = "gov.nasa.worldwind.avkey.Repaint";
     final String REPEAT_NONE = "gov.nasa.worldwind.avkey.RepeatNone";
@@ -385,11 +416,27 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     /** Does not modify the item size when the window changes size. */
     final String RESIZE_KEEP_FIXED_SIZE = "gov.nasa.worldwind.CompassLayer.ResizeKeepFixedSize";
     final String RETAIN_LEVEL_ZERO_TILES = "gov.nasa.worldwind.avkey.RetainLevelZeroTiles";
+    /**
+     * The configuration key for the maximum number of retrievals that {@link
+     * gov.nasa.worldwind.retrieve.PriorityRetrievalService} runs concurrently against a single host.
+     */
+    final String RETRIEVAL_HOST_CONNECTION_LIMIT = "gov.nasa.worldwind.avkey.RetrievalHostConnectionLimit";
     final String RETRIEVAL_POOL_SIZE = "gov.nasa.worldwind.avkey.RetrievalPoolSize";
     final String RETRIEVE_PROPERTIES_FROM_SERVICE = "gov.nasa.worldwind.avkey.RetrievePropertiesFromService";
     final String RETRIEVAL_QUEUE_SIZE = "gov.nasa.worldwind.avkey.RetrievalQueueSize";
     final String RETRIEVAL_QUEUE_STALE_REQUEST_LIMIT = "gov.nasa.worldwind.avkey.RetrievalStaleRequestLimit";
     final String RETRIEVAL_SERVICE_CLASS_NAME = "gov.nasa.worldwind.avkey.RetrievalServiceClassName";
+    /**
+     * The configuration key indicating whether {@link gov.nasa.worldwind.retrieve.BasicRetrievalService} runs
+     * retrievals on virtual threads. Virtual threads are used only when the Java platform supports them.
+     */
+    final String RETRIEVAL_USE_VIRTUAL_THREADS = "gov.nasa.worldwind.avkey.RetrievalUseVirtualThreads";
+    /**
+     * The configuration key for the maximum number of retrievals that run concurrently when retrievals run on virtual
+     * threads. Used in place of {@link #RETRIEVAL_POOL_SIZE} in that mode. Pending retrievals are ordered by priority
+     * only once this many are running, so larger values trade priority ordering for concurrency.
+     */
+    final String RETRIEVAL_VIRTUAL_THREAD_POOL_SIZE = "gov.nasa.worldwind.avkey.RetrievalVirtualThreadPoolSize";
     final String RETRIEVER_FACTORY_LOCAL = "gov.nasa.worldwind.avkey.RetrieverFactoryLocal";
     final String RETRIEVER_FACTORY_REMOTE = "gov.nasa.worldwind.avkey.RetrieverFactoryRemote";
     final String RETRIEVER_STATE = "gov.nasa.worldwind.avkey.RetrieverState";
@@ -466,6 +513,11 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String TASK_POOL_SIZE = "gov.nasa.worldwind.avkey.TaskPoolSize";
     final String TASK_QUEUE_SIZE = "gov.nasa.worldwind.avkey.TaskQueueSize";
     final String TASK_SERVICE_CLASS_NAME = "gov.nasa.worldwind.avkey.TaskServiceClassName";
+    /**
+     * The configuration key indicating whether {@link gov.nasa.worldwind.util.ThreadedTaskService} runs tasks on
+     * virtual threads. Virtual threads are used only when the Java platform supports them.
+     */
+    final String TASK_USE_VIRTUAL_THREADS = "gov.nasa.worldwind.avkey.TaskUseVirtualThreads";
     final String TEXT = "gov.nasa.worldwind.avkey.Text";
     final String TEXT_EFFECT_NONE = "gov.nasa.worldwind.avkey.TextEffectNone";
     final String TEXT_EFFECT_OUTLINE = "gov.nasa.worldwind.avkey.TextEffectOutline";
@@ -482,9 +534,21 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String TILED_RASTER_PRODUCER_LARGE_DATASET_THRESHOLD =
         "gov.nasa.worldwind.avkey.TiledRasterProducerLargeDatasetThreshold";
     final String TILED_RASTER_PRODUCER_LIMIT_MAX_LEVEL = "gov.nasa.worldwind.avkey.TiledRasterProducer.LimitMaxLevel";
+    /**
+     * The number of threads a {@link gov.nasa.worldwind.data.TiledRasterProducer} uses to build its tile pyramid. A
+     * value of 1, the default, builds the pyramid sequentially.
+     */
+    final String TILED_RASTER_PRODUCER_PARALLELISM = "gov.nasa.worldwind.avkey.TiledRasterProducerParallelism";
     final String TILT = "gov.nasa.worldwind.avkey.Tilt";
     final String TITLE = "gov.nasa.worldwind.avkey.Title";
     final String TOP = "gov.nasa.worldwind.avkey.Top";
+    /**
+     * Indicates whether a {@link gov.nasa.worldwind.layers.BasicTiledImageLayer} transcodes its tile images to textures
+     * that load without decoding.
+     *
+     * @see gov.nasa.worldwind.layers.BasicTiledImageLayer#setTranscodeTextures(boolean)
+     */
+    final String TRANSCODE_TEXTURES = "gov.nasa.worldwind.avkey.TranscodeTextures";
     final String TRANSPARENCY_COLORS = "gov.nasa.worldwind.avkey.TransparencyColors";
     final String TREE = "gov.nasa.worldwind.avkey.Tree";
     final String TREE_NODE = "gov.nasa.worldwind.avkey.TreeNode";
@@ -531,6 +595,9 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String VISIBILITY_ACTION_RELEASE = "gov.nasa.worldwind.avkey.VisibilityActionRelease";
     final String VISIBILITY_ACTION_RETAIN = "gov.nasa.worldwind.avkey.VisibilityActionRetain";
 
+    final String VPF_MEMORY_MAPPED_TABLES = "gov.nasa.worldwind.avkey.VPFMemoryMappedTables";
+    final String VPF_TABLE_CACHE_SIZE = "gov.nasa.worldwind.avkey.VPFTableCacheSize";
+
     final String WAKEUP_TIMEOUT = "gov.nasa.worldwind.avkey.WakeupTimeout";
     final String WEB_VIEW_FACTORY = "gov.nasa.worldwind.avkey.WebViewFactory";
     final String WEST = "gov.nasa.worldwind.avkey.West";
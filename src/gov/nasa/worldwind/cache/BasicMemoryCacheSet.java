@@ -27,6 +27,9 @@
  */
 package gov.nasa.worldwind.cache;
 
+import gov.nasa.worldwind.Configuration;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.exception.WWRuntimeException;
 import gov.nasa.worldwind.util.*;
 
 import java.util.*;
@@ -40,6 +43,37 @@ public class BasicMemoryCacheSet implements MemoryCacheSet
 {
     private ConcurrentHashMap<String, MemoryCache> caches = new ConcurrentHashMap<String, MemoryCache>();
 
+    /**
+     * Creates a memory cache of the class named by the {@link AVKey#MEMORY_CACHE_CLASS_NAME} configuration value. A
+     * {@link BasicMemoryCache} is created if no class is configured. The configured class must have a public
+     * constructor taking the low water level and the capacity, in that order, as <code>long</code> arguments.
+     *
+     * @param loWater  the low water level of the new cache.
+     * @param capacity the maximum capacity of the new cache.
+     *
+     * @return a new memory cache.
+     *
+     * @throws WWRuntimeException if the configured class cannot be instantiated.
+     */
+    public static MemoryCache createMemoryCache(long loWater, long capacity)
+    {
+        String className = Configuration.getStringValue(AVKey.MEMORY_CACHE_CLASS_NAME);
+        if (className == null || className.trim().length() == 0)
+            return new BasicMemoryCache(loWater, capacity);
+
+        try
+        {
+            Class<?> c = Class.forName(className.trim());
+            return (MemoryCache) c.getConstructor(long.class, long.class).newInstance(loWater, capacity);
+        }
+        catch (Exception e)
+        {
+            String message = Logging.getMessage("WorldWind.ExceptionCreatingComponent", className);
+            Logging.logger().severe(message);
+            throw new WWRuntimeException(message, e);
+        }
+    }
+
     public synchronized boolean containsCache(String key)
     {
         return this.caches.containsKey(key);
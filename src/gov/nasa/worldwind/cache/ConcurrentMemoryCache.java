@@ -0,0 +1,539 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link MemoryCache} intended for caches shared by many threads, such as the elevation and texture tile caches.
+ * Lookups via {@link #getObject(Object)} and {@link #contains(Object)} do not acquire a lock. Instead of reordering the
+ * cache's recency list on every lookup, <code>getObject</code> records the accessed entry in one of several striped,
+ * bounded access buffers. The buffers are drained in batches by whichever thread next holds the eviction lock: a
+ * thread adding or removing entries, or a reading thread that finds its buffer nearly full and can acquire the lock
+ * without waiting.
+ * <p>
+ * Recency is therefore approximate. Accesses recorded while a buffer is full are dropped, and eviction orders entries
+ * by the last access that was drained rather than the last access that occurred. Capacity and low water accounting
+ * are exact: additions, removals and evictions are serialized by the eviction lock, and eviction removes least
+ * recently used entries until the used capacity is at or below the low water level, as {@link BasicMemoryCache}
+ * does.
+ * <p>
+ * Cache listeners are notified of every removed entry on the thread that removed it, while the eviction lock is held.
+ */
+public class ConcurrentMemoryCache implements MemoryCache
+{
+    /** The number of access buffers. Must be a power of two. */
+    protected static final int NUM_BUFFERS = 16;
+    /** The number of entries each access buffer holds. Must be a power of two. */
+    protected static final int BUFFER_SIZE = 64;
+    /** The number of pending accesses in a buffer that causes a reading thread to attempt a drain. */
+    protected static final int DRAIN_THRESHOLD = BUFFER_SIZE / 2;
+
+    protected static class CacheEntry
+    {
+        protected final Object key;
+        protected final Object clientObject;
+        protected final long clientObjectSize;
+        // Recency list links. Guarded by the eviction lock. An entry is in the list when previous is non-null.
+        protected CacheEntry previous;
+        protected CacheEntry next;
+
+        protected CacheEntry(Object key, Object clientObject, long clientObjectSize)
+        {
+            this.key = key;
+            this.clientObject = clientObject;
+            this.clientObjectSize = clientObjectSize;
+        }
+
+        public String toString()
+        {
+            return key.toString() + " " + clientObject.toString() + " " + clientObjectSize;
+        }
+    }
+
+    /**
+     * A bounded ring of recently accessed entries. Reading threads claim slots by advancing <code>writeCount</code>;
+     * the thread holding the eviction lock consumes them by advancing <code>readCount</code>.
+     */
+    protected static class AccessBuffer
+    {
+        protected final AtomicReferenceArray<CacheEntry> slots = new AtomicReferenceArray<CacheEntry>(BUFFER_SIZE);
+        protected final AtomicLong writeCount = new AtomicLong();
+        protected volatile long readCount;
+
+        /**
+         * Records an access unless the buffer is full.
+         *
+         * @param entry the accessed entry.
+         *
+         * @return the number of accesses pending in the buffer after this one, or -1 if the access was dropped.
+         */
+        protected long record(CacheEntry entry)
+        {
+            long write = this.writeCount.get();
+            long pending = write - this.readCount;
+            if (pending >= BUFFER_SIZE || !this.writeCount.compareAndSet(write, write + 1))
+                return -1; // full or contended; recency is approximate so the access is simply dropped
+
+            this.slots.lazySet((int) (write & (BUFFER_SIZE - 1)), entry);
+            return pending + 1;
+        }
+    }
+
+    protected final ConcurrentHashMap<Object, CacheEntry> entries;
+    protected final CopyOnWriteArrayList<MemoryCache.CacheListener> listeners;
+    protected final AccessBuffer[] buffers;
+    protected final AtomicLong capacity = new AtomicLong();
+    protected final AtomicLong currentUsedCapacity = new AtomicLong();
+    protected volatile long lowWater;
+    protected String name = "";
+
+    /** Serializes changes to the recency list and the used capacity. */
+    protected final ReentrantLock evictionLock = new ReentrantLock();
+    /** Sentinel of the recency list. Its <code>next</code> entry is the least recently used. */
+    protected final CacheEntry head;
+
+    /**
+     * Constructs a new cache using <code>capacity</code> for maximum size, and <code>loWater</code> for the low water.
+     *
+     * @param loWater  the low water level.
+     * @param capacity the maximum capacity.
+     */
+    public ConcurrentMemoryCache(long loWater, long capacity)
+    {
+        this.entries = new ConcurrentHashMap<Object, CacheEntry>();
+        this.listeners = new CopyOnWriteArrayList<MemoryCache.CacheListener>();
+        this.capacity.set(capacity);
+        this.lowWater = loWater;
+
+        this.buffers = new AccessBuffer[NUM_BUFFERS];
+        for (int i = 0; i < NUM_BUFFERS; i++)
+        {
+            this.buffers[i] = new AccessBuffer();
+        }
+
+        this.head = new CacheEntry(null, null, 0);
+        this.head.previous = this.head;
+        this.head.next = this.head;
+    }
+
+    /** @return the number of objects currently stored in this cache. */
+    public int getNumObjects()
+    {
+        return this.entries.size();
+    }
+
+    /** @return the capacity of the cache. */
+    public long getCapacity()
+    {
+        return this.capacity.get();
+    }
+
+    /** @return the number of cache units that the cache currently holds. */
+    public long getUsedCapacity()
+    {
+        return this.currentUsedCapacity.get();
+    }
+
+    /** @return the amount of free space left in the cache (in cache units). */
+    public long getFreeCapacity()
+    {
+        return Math.max(this.capacity.get() - this.currentUsedCapacity.get(), 0);
+    }
+
+    public void setName(String name)
+    {
+        this.name = name != null ? name : "";
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Adds a  cache listener, MemoryCache listeners are used to notify classes when an item is removed from the cache.
+     *
+     * @param listener The new <code>CacheListener</code>.
+     *
+     * @throws IllegalArgumentException is <code>listener</code> is null.
+     */
+    public void addCacheListener(MemoryCache.CacheListener listener)
+    {
+        if (listener == null)
+        {
+            String message = Logging.getMessage("BasicMemoryCache.nullListenerAdded");
+            Logging.logger().warning(message);
+            throw new IllegalArgumentException(message);
+        }
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Removes a cache listener, objects using this listener will no longer receive notification of cache events.
+     *
+     * @param listener The <code>CacheListener</code> to remove.
+     *
+     * @throws IllegalArgumentException if <code>listener</code> is null.
+     */
+    public void removeCacheListener(MemoryCache.CacheListener listener)
+    {
+        if (listener == null)
+        {
+            String message = Logging.getMessage("BasicMemoryCache.nullListenerRemoved");
+            Logging.logger().warning(message);
+            throw new IllegalArgumentException(message);
+        }
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Sets the new capacity for the cache. As with {@link BasicMemoryCache#setCapacity(long)}, entries already in the
+     * cache are not removed until space is next needed, and the low water level is left unchanged.
+     *
+     * @param newCapacity the new capacity of the cache.
+     */
+    public void setCapacity(long newCapacity)
+    {
+        this.capacity.set(newCapacity);
+    }
+
+    /**
+     * Sets the new low water level in cache units. When the cache fills, it removes items until it reaches the low
+     * water level. The low water level is ignored if it is negative or not less than the capacity.
+     *
+     * @param loWater the new low water level.
+     */
+    public void setLowWater(long loWater)
+    {
+        if (loWater < this.capacity.get() && loWater >= 0)
+        {
+            this.lowWater = loWater;
+        }
+    }
+
+    /**
+     * Returns the low water level in cache units. When the cache fills, it removes items until it reaches the low water
+     * level.
+     *
+     * @return the low water level.
+     */
+    public long getLowWater()
+    {
+        return this.lowWater;
+    }
+
+    /**
+     * Returns true if the cache contains the item referenced by key. This method does not acquire a lock and does not
+     * mark the item as accessed.
+     *
+     * @param key The key of a specific object.
+     *
+     * @return true if the cache holds the item referenced by key.
+     *
+     * @throws IllegalArgumentException if <code>key</code> is null.
+     */
+    public boolean contains(Object key)
+    {
+        if (key == null)
+        {
+            String msg = Logging.getMessage("nullValue.KeyIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        return this.entries.containsKey(key);
+    }
+
+    /**
+     * Adds an object to the cache. The add fails if the object or key is null, or if the size is zero, negative or
+     * greater than the maximmum capacity.
+     *
+     * @param key              The unique reference key that identifies this object.
+     * @param clientObject     The actual object to be cached.
+     * @param clientObjectSize The size of the object in cache units.
+     *
+     * @return returns true if clientObject was added, false otherwise.
+     */
+    public boolean add(Object key, Object clientObject, long clientObjectSize)
+    {
+        long cap = this.capacity.get();
+
+        if (key == null || clientObject == null || clientObjectSize <= 0 || clientObjectSize > cap)
+        {
+            String message = Logging.getMessage("BasicMemoryCache.CacheItemNotAdded");
+
+            if (clientObjectSize > cap)
+            {
+                message += " - " + Logging.getMessage("BasicMemoryCache.ItemTooLargeForCache");
+            }
+
+            Logging.logger().warning(message);
+
+            return false;
+        }
+
+        CacheEntry entry = new CacheEntry(key, clientObject, clientObjectSize);
+
+        this.evictionLock.lock();
+        try
+        {
+            this.drainBuffers();
+
+            CacheEntry existing = this.entries.get(key);
+            if (existing != null) // replacing
+            {
+                this.removeEntry(existing);
+            }
+
+            if (this.currentUsedCapacity.get() + clientObjectSize > cap)
+            {
+                this.makeSpace(clientObjectSize);
+            }
+
+            this.currentUsedCapacity.addAndGet(clientObjectSize);
+            this.entries.put(key, entry);
+            this.linkLast(entry);
+        }
+        finally
+        {
+            this.evictionLock.unlock();
+        }
+
+        return true;
+    }
+
+    public boolean add(Object key, Cacheable clientObject)
+    {
+        return this.add(key, clientObject, clientObject.getSizeInBytes());
+    }
+
+    /**
+     * Remove the object reference by key from the cache. If no object with the corresponding key is found, this method
+     * returns immediately.
+     *
+     * @param key the key of the object to be removed.
+     */
+    public void remove(Object key)
+    {
+        if (key == null)
+        {
+            Logging.logger().finer("nullValue.KeyIsNull");
+
+            return;
+        }
+
+        if (!this.entries.containsKey(key))
+            return;
+
+        this.evictionLock.lock();
+        try
+        {
+            CacheEntry entry = this.entries.get(key);
+            if (entry != null)
+                this.removeEntry(entry);
+        }
+        finally
+        {
+            this.evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Obtain the object referenced by key without removing it. This method does not acquire a lock. The access is
+     * recorded in an access buffer and applied to the cache's recency order later.
+     *
+     * @param key The key for the object to be found.
+     *
+     * @return the object referenced by key if it is present, null otherwise.
+     */
+    public Object getObject(Object key)
+    {
+        if (key == null)
+        {
+            Logging.logger().finer("nullValue.KeyIsNull");
+
+            return null;
+        }
+
+        CacheEntry entry = this.entries.get(key);
+        if (entry == null)
+            return null;
+
+        long pending = this.bufferForCurrentThread().record(entry);
+        if (pending >= DRAIN_THRESHOLD && this.evictionLock.tryLock())
+        {
+            try
+            {
+                this.drainBuffers();
+            }
+            finally
+            {
+                this.evictionLock.unlock();
+            }
+        }
+
+        return entry.clientObject;
+    }
+
+    /** Empties the cache. */
+    public void clear()
+    {
+        this.evictionLock.lock();
+        try
+        {
+            this.drainBuffers();
+
+            for (CacheEntry entry : this.entries.values())
+            {
+                this.removeEntry(entry);
+            }
+        }
+        finally
+        {
+            this.evictionLock.unlock();
+        }
+    }
+
+    protected AccessBuffer bufferForCurrentThread()
+    {
+        long id = Thread.currentThread().getId();
+        return this.buffers[(int) ((id ^ (id >>> 16)) & (NUM_BUFFERS - 1))];
+    }
+
+    /** Applies the accesses recorded in the access buffers to the recency list. */
+    protected void drainBuffers() // MUST BE CALLED WITH THE EVICTION LOCK HELD
+    {
+        for (AccessBuffer buffer : this.buffers)
+        {
+            long read = buffer.readCount;
+            long write = buffer.writeCount.get();
+
+            for (; read < write; read++)
+            {
+                int index = (int) (read & (BUFFER_SIZE - 1));
+                CacheEntry entry = buffer.slots.get(index);
+                if (entry == null)
+                    break; // the slot was claimed but its entry is not yet visible; drain it next time
+
+                buffer.slots.lazySet(index, null);
+
+                if (entry.previous != null) // skip entries removed since the access was recorded
+                {
+                    unlink(entry);
+                    this.linkLast(entry);
+                }
+            }
+
+            buffer.readCount = read;
+        }
+    }
+
+    /**
+     * Removes <code>entry</code> from the cache and notifies the cache listeners. To remove an entry using its key, use
+     * <code>remove()</code>.
+     *
+     * @param entry The entry (as opposed to key) of the item to be removed.
+     */
+    protected void removeEntry(CacheEntry entry) // MUST BE CALLED WITH THE EVICTION LOCK HELD
+    {
+        if (this.entries.remove(entry.key, entry))
+        {
+            unlink(entry);
+            this.currentUsedCapacity.addAndGet(-entry.clientObjectSize);
+
+            for (MemoryCache.CacheListener listener : this.listeners)
+            {
+                try
+                {
+                    listener.entryRemoved(entry.key, entry.clientObject);
+                }
+                catch (Exception e)
+                {
+                    listener.removalException(e, entry.key, entry.clientObject);
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes at least <code>spaceRequired</code> space in the cache. If spaceRequired is less than (capacity-lowWater),
+     * makes more space. Entries are removed in least recently used order.
+     *
+     * @param spaceRequired the amount of space required.
+     */
+    protected void makeSpace(long spaceRequired) // MUST BE CALLED WITH THE EVICTION LOCK HELD
+    {
+        if (spaceRequired > this.capacity.get() || spaceRequired < 0)
+            return;
+
+        while (this.getFreeCapacity() < spaceRequired || this.getUsedCapacity() > this.lowWater)
+        {
+            if (this.head.next == this.head) // the cache is empty
+                break;
+
+            this.removeEntry(this.head.next);
+        }
+    }
+
+    protected void linkLast(CacheEntry entry)
+    {
+        entry.previous = this.head.previous;
+        entry.next = this.head;
+        this.head.previous.next = entry;
+        this.head.previous = entry;
+    }
+
+    protected static void unlink(CacheEntry entry)
+    {
+        if (entry.previous == null)
+            return;
+
+        entry.previous.next = entry.next;
+        entry.next.previous = entry.previous;
+        entry.previous = null;
+        entry.next = null;
+    }
+
+    /**
+     * a <code>String</code> representation of this object is returned.&nbsp; This representation consists of maximum
+     * size, current used capacity and number of currently cached items.
+     *
+     * @return a <code>String</code> representation of this object.
+     */
+    @Override
+    public String toString()
+    {
+        return "MemoryCache " + this.name + " max size = " + this.getCapacity() + " current size = "
+            + this.currentUsedCapacity.get() + " number of items: " + this.getNumObjects();
+    }
+}
@@ -0,0 +1,442 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.*;
+
+/**
+ * A fixed size cache of tile payloads held in a memory-mapped file rather than on the Java heap. The cache is intended
+ * as a second level below a {@link MemoryCache}: tiles that have already been read and decoded are written to the
+ * cache, so a tile that later falls out of the memory cache can be restored without reading and decoding its file in
+ * the {@link FileStore} again.
+ * <p>
+ * The cache's arena is divided into equally sized segments, each mapped independently when it is first written.
+ * Payloads are appended to the current segment. When a payload does not fit, the cache advances to the next segment,
+ * recycling it and discarding every payload it held if it has been used before. The cache therefore discards payloads
+ * in the order they were written, and its storage never grows beyond the capacity specified at construction.
+ * <p>
+ * {@link #get(TileKey)} returns a read-only view of a payload in the arena without copying it. The view is valid only
+ * until the payload's segment is recycled; callers that keep the payload, or that read it while other threads may be
+ * writing, should use {@link #copy(TileKey)}, which detects payloads recycled during the copy.
+ * <p>
+ * Writes are serialized. Reads do not acquire a lock and may proceed concurrently with writes.
+ */
+public class MappedTileCache
+{
+    /** The default size in bytes of each mapped segment. */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+    protected static class Slot
+    {
+        protected final TileKey key;
+        protected final int segment;
+        protected final int offset;
+        protected final int length;
+        protected final long generation;
+
+        protected Slot(TileKey key, int segment, int offset, int length, long generation)
+        {
+            this.key = key;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.generation = generation;
+        }
+    }
+
+    protected final File file;
+    protected final RandomAccessFile randomAccessFile;
+    protected final FileChannel channel;
+    protected final int segmentSize;
+    protected final AtomicReferenceArray<MappedByteBuffer> segments;
+    /** Incremented each time a segment is recycled. Used to detect views of recycled payloads. */
+    protected final AtomicLongArray generations;
+    protected final ConcurrentHashMap<TileKey, Slot> index = new ConcurrentHashMap<TileKey, Slot>();
+    protected final AtomicLong usedCapacity = new AtomicLong();
+
+    // The following are guarded by writeLock.
+    protected final Object writeLock = new Object();
+    protected final List<List<Slot>> segmentSlots;
+    protected int writeSegment;
+    protected int writeOffset;
+
+    /**
+     * Constructs a cache backed by a temporary file that is deleted when the cache is disposed or the virtual machine
+     * exits.
+     *
+     * @param capacity the cache capacity in bytes. The capacity is rounded down to a multiple of the default segment
+     *                 size, but is at least one segment.
+     *
+     * @throws IllegalArgumentException if the capacity is less than 1.
+     * @throws WWRuntimeException       if the backing file cannot be created.
+     */
+    public MappedTileCache(long capacity)
+    {
+        this(null, capacity, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Constructs a cache backed by a specified file. The file's current contents are ignored and overwritten.
+     *
+     * @param file        the backing file, or null to create a temporary file that is deleted when the cache is
+     *                    disposed or the virtual machine exits.
+     * @param capacity    the cache capacity in bytes. The capacity is rounded down to a multiple of the segment size,
+     *                    but is at least one segment.
+     * @param segmentSize the size in bytes of each mapped segment. This is also the largest payload the cache holds.
+     *
+     * @throws IllegalArgumentException if the capacity or segment size is less than 1.
+     * @throws WWRuntimeException       if the backing file cannot be created or opened.
+     */
+    public MappedTileCache(File file, long capacity, int segmentSize)
+    {
+        if (capacity < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "capacity=" + capacity);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (segmentSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "segmentSize=" + segmentSize);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        try
+        {
+            if (file == null)
+            {
+                file = File.createTempFile("wwj-tiles-", ".cache");
+                file.deleteOnExit();
+            }
+
+            this.file = file;
+            this.randomAccessFile = new RandomAccessFile(file, "rw");
+            this.channel = this.randomAccessFile.getChannel();
+        }
+        catch (IOException e)
+        {
+            String message = Logging.getMessage("generic.ExceptionAttemptingToWriteTo", file);
+            Logging.logger().severe(message);
+            throw new WWRuntimeException(message, e);
+        }
+
+        int numSegments = (int) Math.max(1, Math.min(Integer.MAX_VALUE, capacity / segmentSize));
+        this.segmentSize = segmentSize;
+        this.segments = new AtomicReferenceArray<MappedByteBuffer>(numSegments);
+        this.generations = new AtomicLongArray(numSegments);
+        this.segmentSlots = new ArrayList<List<Slot>>(numSegments);
+        for (int i = 0; i < numSegments; i++)
+        {
+            this.segmentSlots.add(new ArrayList<Slot>());
+        }
+    }
+
+    /** @return the cache capacity in bytes. */
+    public long getCapacity()
+    {
+        return (long) this.segments.length() * this.segmentSize;
+    }
+
+    /** @return the total size in bytes of the payloads currently in the cache. */
+    public long getUsedCapacity()
+    {
+        return this.usedCapacity.get();
+    }
+
+    /** @return the number of payloads currently in the cache. */
+    public int getNumObjects()
+    {
+        return this.index.size();
+    }
+
+    /** @return the size in bytes of each mapped segment, which is also the largest payload the cache holds. */
+    public int getSegmentSize()
+    {
+        return this.segmentSize;
+    }
+
+    /**
+     * Indicates whether the cache holds a payload for a specified tile.
+     *
+     * @param key the tile's key.
+     *
+     * @return true if the cache holds a payload for the tile, otherwise false.
+     *
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public boolean contains(TileKey key)
+    {
+        if (key == null)
+        {
+            String msg = Logging.getMessage("nullValue.KeyIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        return this.index.containsKey(key);
+    }
+
+    /**
+     * Copies a tile's payload into the cache, replacing any payload already held for the tile. The payload buffer's
+     * position and limit are not modified.
+     *
+     * @param key     the tile's key.
+     * @param payload the bytes between the buffer's position and limit are written to the cache.
+     *
+     * @return true if the payload was added, false if it is empty or larger than the segment size.
+     *
+     * @throws IllegalArgumentException if the key or payload is null.
+     * @throws WWRuntimeException       if a segment of the backing file cannot be mapped.
+     */
+    public boolean put(TileKey key, ByteBuffer payload)
+    {
+        if (key == null)
+        {
+            String msg = Logging.getMessage("nullValue.KeyIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (payload == null)
+        {
+            String msg = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        int length = payload.remaining();
+        if (length == 0 || length > this.segmentSize)
+            return false;
+
+        synchronized (this.writeLock)
+        {
+            if (this.writeOffset + length > this.segmentSize || this.segments.get(this.writeSegment) == null)
+            {
+                if (this.segments.get(this.writeSegment) != null)
+                    this.writeSegment = (this.writeSegment + 1) % this.segments.length();
+
+                this.recycleSegment(this.writeSegment);
+                this.writeOffset = 0;
+            }
+
+            ByteBuffer dest = this.segments.get(this.writeSegment).duplicate();
+            dest.position(this.writeOffset);
+            dest.put(payload.duplicate());
+
+            Slot slot = new Slot(key, this.writeSegment, this.writeOffset, length,
+                this.generations.get(this.writeSegment));
+            this.segmentSlots.get(this.writeSegment).add(slot);
+            this.writeOffset += length;
+
+            Slot previous = this.index.put(key, slot);
+            this.usedCapacity.addAndGet(length - (previous != null ? previous.length : 0));
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns a read-only view of a tile's payload in the cache's arena. The payload is not copied. The view's contents
+     * become undefined if the payload's segment is recycled while the view is in use; see {@link #copy(TileKey)}.
+     *
+     * @param key the tile's key.
+     *
+     * @return a read-only view of the payload whose position is 0 and whose limit is the payload length, or null if
+     *         the cache does not hold a payload for the tile.
+     *
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public ByteBuffer get(TileKey key)
+    {
+        if (key == null)
+        {
+            String msg = Logging.getMessage("nullValue.KeyIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        Slot slot = this.index.get(key);
+        if (slot == null)
+            return null;
+
+        ByteBuffer view = this.sliceOf(slot);
+        return this.isCurrent(slot) ? view : null;
+    }
+
+    /**
+     * Copies a tile's payload from the cache into a new heap buffer. Unlike the view returned by {@link
+     * #get(TileKey)}, the copy remains valid after the payload's segment is recycled.
+     *
+     * @param key the tile's key.
+     *
+     * @return a new buffer containing the payload, whose position is 0 and whose limit is the payload length, or null
+     *         if the cache does not hold a payload for the tile or the payload was recycled during the copy.
+     *
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public ByteBuffer copy(TileKey key)
+    {
+        if (key == null)
+        {
+            String msg = Logging.getMessage("nullValue.KeyIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        Slot slot = this.index.get(key);
+        if (slot == null)
+            return null;
+
+        ByteBuffer copy = ByteBuffer.allocate(slot.length);
+        copy.put(this.sliceOf(slot));
+        copy.flip();
+
+        return this.isCurrent(slot) ? copy : null;
+    }
+
+    /**
+     * Removes a tile's payload from the cache. The payload's storage is reclaimed when its segment is recycled.
+     *
+     * @param key the tile's key.
+     */
+    public void remove(TileKey key)
+    {
+        if (key == null)
+            return;
+
+        synchronized (this.writeLock)
+        {
+            Slot slot = this.index.remove(key);
+            if (slot != null)
+                this.usedCapacity.addAndGet(-slot.length);
+        }
+    }
+
+    /** Removes all payloads from the cache. */
+    public void clear()
+    {
+        synchronized (this.writeLock)
+        {
+            for (int i = 0; i < this.segments.length(); i++)
+            {
+                this.generations.incrementAndGet(i);
+                this.segmentSlots.get(i).clear();
+            }
+
+            this.index.clear();
+            this.usedCapacity.set(0);
+            this.writeSegment = 0;
+            this.writeOffset = 0;
+        }
+    }
+
+    /**
+     * Removes all payloads from the cache, closes the backing file and deletes it. The cache must not be used after
+     * this method is called.
+     */
+    public void dispose()
+    {
+        synchronized (this.writeLock)
+        {
+            this.clear();
+
+            for (int i = 0; i < this.segments.length(); i++)
+            {
+                this.segments.set(i, null);
+            }
+
+            WWIO.closeStream(this.randomAccessFile, this.file.getPath());
+
+            if (!this.file.delete())
+                this.file.deleteOnExit(); // the mapping may prevent deletion until the buffers are collected
+        }
+    }
+
+    protected ByteBuffer sliceOf(Slot slot)
+    {
+        ByteBuffer view = this.segments.get(slot.segment).asReadOnlyBuffer();
+        view.limit(slot.offset + slot.length);
+        view.position(slot.offset);
+        return view.slice();
+    }
+
+    protected boolean isCurrent(Slot slot)
+    {
+        return this.generations.get(slot.segment) == slot.generation;
+    }
+
+    /**
+     * Discards every payload held in a segment and prepares the segment to receive new payloads, mapping it if it has
+     * not been used before.
+     *
+     * @param segment the index of the segment to recycle.
+     */
+    protected void recycleSegment(int segment) // MUST BE CALLED WITHIN SYNCHRONIZED
+    {
+        this.generations.incrementAndGet(segment);
+
+        for (Slot slot : this.segmentSlots.get(segment))
+        {
+            if (this.index.remove(slot.key, slot))
+                this.usedCapacity.addAndGet(-slot.length);
+        }
+        this.segmentSlots.get(segment).clear();
+
+        if (this.segments.get(segment) == null)
+        {
+            try
+            {
+                this.segments.set(segment, this.channel.map(FileChannel.MapMode.READ_WRITE,
+                    (long) segment * this.segmentSize, this.segmentSize));
+            }
+            catch (IOException e)
+            {
+                String message = Logging.getMessage("generic.ExceptionAttemptingToWriteTo", this.file);
+                Logging.logger().severe(message);
+                throw new WWRuntimeException(message, e);
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MappedTileCache " + this.file + " max size = " + this.getCapacity() + " current size = "
+            + this.getUsedCapacity() + " number of items: " + this.getNumObjects();
+    }
+}
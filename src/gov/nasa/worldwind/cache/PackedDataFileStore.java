@@ -0,0 +1,1150 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.Disposable;
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link FileStore} that keeps cached tiles in a small number of large, append-only pack files rather than in one
+ * file per tile. The pack files and their index live in the directory {@link #PACK_DIRECTORY_NAME} of the write
+ * location. The index maps each tile path to the pack, offset and length of the tile's contents; it is read through a
+ * memory mapping when the store opens and is held in memory thereafter, so {@link #findFile(String, boolean)} and
+ * {@link #containsFile(String)} answer packed tiles without any file system calls. Pack files are memory-mapped for
+ * reading, and packed tiles are returned as {@link #URL_PROTOCOL} URLs that read directly from the mapping.
+ * <p>
+ * Layers and elevation models use this store without modification. {@link #newFile(String)} returns a file in the
+ * write location as usual. Files whose path has the form of a tile path (see {@link #isPackable(String)}) are moved
+ * into the current pack once they've been left unmodified for the settle time, and are served from their loose file
+ * until then. {@link #flush()} packs those files immediately. Configuration documents and other files stay loose, so
+ * the directory-listing methods continue to discover installed data sets.
+ * <p>
+ * Any number of threads may read concurrently. Writes to the packs and index are serialized. Replacing or removing a
+ * packed tile leaves its old contents in the pack until {@link #compact()} rewrites the live tiles into new packs.
+ * <p>
+ * Only one store at a time, in this or any other process, may write to a pack directory. The first store to open the
+ * directory holds a lock on the file {@link #LOCK_FILE_NAME} until it's disposed. Stores that open the directory while
+ * it's locked are read-only (see {@link #isReadOnly()}): they serve the tiles that were packed when they opened, leave
+ * new files loose in the write location, and never modify the packs or the index.
+ * Existing directory caches are packed with {@link #importDirectory(File, boolean)} and unpacked with {@link
+ * #exportDirectory(File)}.
+ * <p>
+ * Select this store by specifying its class name for {@link gov.nasa.worldwind.avlist.AVKey#DATA_FILE_STORE_CLASS_NAME}
+ * in the WorldWind configuration.
+ */
+public class PackedDataFileStore extends BasicDataFileStore implements Disposable
+{
+    /** The protocol of URLs referencing packed files. */
+    public static final String URL_PROTOCOL = "wwpack";
+    /** The name of the directory in the write location that holds the pack files and their index. */
+    public static final String PACK_DIRECTORY_NAME = "PackedTiles";
+    /** The default size in bytes at which a new pack file is started. */
+    public static final long DEFAULT_MAX_PACK_SIZE = 1L << 30;
+    /** The default time in milliseconds that a new file must be left unmodified before it's packed. */
+    public static final long DEFAULT_SETTLE_TIME = 10000L;
+
+    /** The name of the file in the pack directory that's locked by the store writing to the packs. */
+    public static final String LOCK_FILE_NAME = "lock";
+
+    protected static final String INDEX_FILE_NAME = "index.dat";
+    protected static final String PACK_FILE_PREFIX = "pack-";
+    protected static final String PACK_FILE_SUFFIX = ".dat";
+    protected static final int INDEX_MAGIC = 0x5757504B; // "WWPK"
+    protected static final int INDEX_VERSION = 1;
+    protected static final int INDEX_HEADER_SIZE = 8;
+    // Index records following the name: pack number, offset, length and modification time.
+    protected static final int INDEX_RECORD_SIZE = 4 + 8 + 4 + 8;
+    protected static final int REMOVED = -1;
+    protected static final Pattern TILE_PATH_PATTERN = Pattern.compile(".*/\\d+/\\d+/\\d+_\\d+\\.\\w+");
+
+    /** The location of a packed file's contents. */
+    protected static class Entry
+    {
+        protected final int pack;
+        protected final long offset;
+        protected final int length;
+        protected final long lastModified;
+
+        protected Entry(int pack, long offset, int length, long lastModified)
+        {
+            this.pack = pack;
+            this.offset = offset;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /** A pack file, mapped read-only up to the size it had when last mapped. */
+    protected static class Pack
+    {
+        protected final int number;
+        protected final File file;
+        protected final RandomAccessFile randomAccessFile;
+        protected final FileChannel channel;
+        protected volatile MappedByteBuffer mapping;
+
+        protected Pack(int number, File file, boolean readOnly) throws IOException
+        {
+            this.number = number;
+            this.file = file;
+            this.randomAccessFile = new RandomAccessFile(file, readOnly ? "r" : "rw");
+            this.channel = this.randomAccessFile.getChannel();
+        }
+
+        protected ByteBuffer read(long offset, int length) throws IOException
+        {
+            MappedByteBuffer buffer = this.mapping;
+            if (buffer == null || offset + length > buffer.capacity())
+                buffer = this.remap(offset + length);
+
+            ByteBuffer slice = buffer.duplicate();
+            slice.limit((int) offset + length).position((int) offset);
+            return slice.slice().asReadOnlyBuffer();
+        }
+
+        protected synchronized MappedByteBuffer remap(long minSize) throws IOException
+        {
+            if (this.mapping == null || this.mapping.capacity() < minSize)
+                this.mapping = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, this.channel.size());
+
+            return this.mapping;
+        }
+
+        protected void close()
+        {
+            WWIO.closeStream(this.randomAccessFile, this.file.getPath());
+            this.mapping = null;
+        }
+    }
+
+    protected final ConcurrentHashMap<String, Entry> index = new ConcurrentHashMap<String, Entry>();
+    protected final ConcurrentHashMap<Integer, Pack> packs = new ConcurrentHashMap<Integer, Pack>();
+    /** New loose files that are to be packed, and the time they were created. */
+    protected final ConcurrentHashMap<String, Long> pendingFiles = new ConcurrentHashMap<String, Long>();
+    protected final AtomicBoolean packingFiles = new AtomicBoolean();
+    protected final URLStreamHandler urlHandler = new PackURLStreamHandler();
+    protected File packDirectory;
+    protected long maxPackSize = DEFAULT_MAX_PACK_SIZE;
+    protected long settleTime = DEFAULT_SETTLE_TIME;
+    protected volatile long nextPackTime;
+
+    // The following are guarded by writeLock.
+    protected final Object writeLock = new Object();
+    protected RandomAccessFile indexFile;
+    protected FileChannel indexChannel;
+    protected Pack writePack;
+    protected RandomAccessFile lockFile;
+    protected FileLock lock;
+    protected volatile boolean readOnly;
+
+    /**
+     * Create an instance from the file store configuration, as {@link BasicDataFileStore#BasicDataFileStore()} does,
+     * and open the packs in its write location.
+     *
+     * @throws IllegalStateException if the configuration file name cannot be determined from {@link
+     *                               gov.nasa.worldwind.Configuration} or the configuration file cannot be found.
+     */
+    public PackedDataFileStore()
+    {
+        super();
+        this.openPacks();
+    }
+
+    /**
+     * Create an instance to manage a specified directory, and open the packs in that directory.
+     *
+     * @param directoryPath the directory to manage as a file store.
+     */
+    public PackedDataFileStore(File directoryPath)
+    {
+        super(directoryPath);
+        this.openPacks();
+    }
+
+    /** @return the size in bytes at which a new pack file is started. */
+    public long getMaxPackSize()
+    {
+        return this.maxPackSize;
+    }
+
+    /**
+     * Specifies the size in bytes at which a new pack file is started. Pack files are mapped into memory in their
+     * entirety, so the size is limited to 2GB.
+     *
+     * @param maxPackSize the size at which a new pack file is started.
+     *
+     * @throws IllegalArgumentException if the size is less than 1 or greater than {@link Integer#MAX_VALUE}.
+     */
+    public void setMaxPackSize(long maxPackSize)
+    {
+        if (maxPackSize < 1 || maxPackSize > Integer.MAX_VALUE)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "maxPackSize=" + maxPackSize);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.maxPackSize = maxPackSize;
+    }
+
+    /** @return the time in milliseconds that a new file must be left unmodified before it's packed. */
+    public long getSettleTime()
+    {
+        return this.settleTime;
+    }
+
+    /**
+     * Specifies the time in milliseconds that a new file must be left unmodified before it's packed. The time must
+     * exceed the time taken to write a file returned by {@link #newFile(String)}.
+     *
+     * @param settleTime the time a new file must be left unmodified before it's packed.
+     *
+     * @throws IllegalArgumentException if the time is negative.
+     */
+    public void setSettleTime(long settleTime)
+    {
+        if (settleTime < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "settleTime=" + settleTime);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.settleTime = settleTime;
+    }
+
+    /** @return the number of files held in the packs. */
+    public int getNumPackedFiles()
+    {
+        return this.index.size();
+    }
+
+    /**
+     * Indicates whether this store is read-only because another store, possibly in another process, was writing to the
+     * pack directory when this store opened it. A read-only store serves the files that were packed when it opened,
+     * but doesn't pack new files or modify the packs or the index.
+     *
+     * @return true if this store doesn't write to the packs, otherwise false.
+     */
+    public boolean isReadOnly()
+    {
+        return this.readOnly;
+    }
+
+    /**
+     * Indicates whether a file is held in the packs.
+     *
+     * @param fileName the file's path in the store.
+     *
+     * @return true if the file is packed, otherwise false.
+     */
+    public boolean isPacked(String fileName)
+    {
+        return fileName != null && this.index.containsKey(makeKey(fileName));
+    }
+
+    /**
+     * Indicates whether files with a specified path are moved into the packs. This returns true for tile paths of the
+     * form <code>dataset/level/row/row_column.suffix</code>. Subclasses may override this method to pack other
+     * files; packed files can only be read through their URL, so files that are read as {@link File}s must not be
+     * packed.
+     *
+     * @param fileName the file's path in the store, with '/' separators.
+     *
+     * @return true if the file is to be packed, otherwise false.
+     */
+    protected boolean isPackable(String fileName)
+    {
+        return TILE_PATH_PATTERN.matcher(fileName).matches();
+    }
+
+    protected static String makeKey(String fileName)
+    {
+        String key = fileName.replace('\\', '/');
+        while (key.startsWith("/"))
+        {
+            key = key.substring(1);
+        }
+
+        return key;
+    }
+
+    //**************************************************************//
+    //********************  File Store Contents  *******************//
+    //**************************************************************//
+
+    @Override
+    public boolean containsFile(String fileName)
+    {
+        return this.isPacked(fileName) || super.containsFile(fileName);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Packed files are found before files in the store's locations, and are returned as {@link #URL_PROTOCOL} URLs.
+     */
+    @Override
+    public URL findFile(String fileName, boolean checkClassPath)
+    {
+        if (fileName != null)
+        {
+            String key = makeKey(fileName);
+            if (this.index.containsKey(key))
+            {
+                URL url = this.makeURL(key);
+                if (url != null)
+                    return url;
+            }
+        }
+
+        return super.findFile(fileName, checkClassPath);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If the file is packable it's moved into the packs after it's been left unmodified for the settle time. Calling
+     * this method also packs any earlier files that have settled.
+     */
+    @Override
+    public File newFile(String fileName)
+    {
+        File file = super.newFile(fileName);
+
+        if (file != null && this.packDirectory != null && !this.readOnly)
+        {
+            String key = makeKey(fileName);
+            if (this.isPackable(key))
+                this.pendingFiles.put(key, System.currentTimeMillis());
+
+            if (System.currentTimeMillis() >= this.nextPackTime)
+                this.packPendingFiles(false);
+        }
+
+        return file;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Packed files are removed from the index. Their contents remain in the pack until it's compacted.
+     */
+    @Override
+    public void removeFile(URL url)
+    {
+        if (url != null && URL_PROTOCOL.equals(url.getProtocol()))
+        {
+            String key = this.keyFor(url);
+            if (key != null)
+                this.removePackedFile(key);
+            return;
+        }
+
+        super.removeFile(url);
+    }
+
+    /**
+     * Returns the contents of a packed file. The returned buffer is a read-only view of the pack's memory mapping.
+     *
+     * @param fileName the file's path in the store.
+     *
+     * @return the file's contents, or null if the file is not packed.
+     *
+     * @throws IOException if the pack cannot be read.
+     */
+    public ByteBuffer readPackedFile(String fileName) throws IOException
+    {
+        if (fileName == null)
+        {
+            String message = Logging.getMessage("nullValue.FilePathIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        String key = makeKey(fileName);
+
+        // Compaction may replace the pack between reading the index and reading the pack. Read the index again if so.
+        for (int attempt = 0; attempt < 2; attempt++)
+        {
+            Entry entry = this.index.get(key);
+            if (entry == null)
+                return null;
+
+            Pack pack = this.packs.get(entry.pack);
+            if (pack != null)
+                return pack.read(entry.offset, entry.length);
+        }
+
+        return null;
+    }
+
+    /**
+     * Adds a file to the packs, replacing any packed file of the same name.
+     *
+     * @param fileName     the file's path in the store.
+     * @param contents     the file's contents, from the buffer's position to its limit. The position is not changed.
+     * @param lastModified the file's modification time, used to determine whether the file has expired.
+     *
+     * @throws IllegalArgumentException if the file name or contents are null.
+     * @throws IllegalStateException    if the store has no write location or is read-only.
+     * @throws IOException              if the file cannot be written to the pack.
+     */
+    public void writePackedFile(String fileName, ByteBuffer contents, long lastModified) throws IOException
+    {
+        if (fileName == null)
+        {
+            String message = Logging.getMessage("nullValue.FilePathIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (contents == null)
+        {
+            String message = Logging.getMessage("nullValue.ByteBufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.packDirectory == null)
+        {
+            String message = Logging.getMessage("FileStore.NoWriteLocation");
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+
+        if (this.readOnly)
+        {
+            String message = Logging.getMessage("FileStore.PackDirectoryReadOnly", this.packDirectory);
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+
+        String key = makeKey(fileName);
+        synchronized (this.writeLock)
+        {
+            if (this.writePack == null || this.writePack.channel.size() + contents.remaining() > this.maxPackSize)
+                this.writePack = this.createPack(this.nextPackNumber());
+
+            long offset = this.writePack.channel.size();
+            Entry entry = new Entry(this.writePack.number, offset, contents.remaining(), lastModified);
+            writeFully(this.writePack.channel, contents.duplicate(), offset);
+            this.appendIndexRecord(key, entry);
+            this.index.put(key, entry);
+        }
+    }
+
+    protected void removePackedFile(String key)
+    {
+        synchronized (this.writeLock)
+        {
+            // A read-only store stops serving the file, but leaves the index to the store that writes it.
+            if (this.index.remove(key) == null || this.readOnly)
+                return;
+
+            try
+            {
+                this.appendIndexRecord(key, new Entry(REMOVED, 0, 0, 0));
+            }
+            catch (IOException e)
+            {
+                String message = Logging.getMessage("FileStore.ExceptionRemovingFile", key);
+                Logging.logger().log(Level.SEVERE, message, e);
+            }
+        }
+    }
+
+    //**************************************************************//
+    //********************  Packing  *******************************//
+    //**************************************************************//
+
+    /**
+     * Packs all new loose files created by {@link #newFile(String)}, regardless of the settle time. The caller must
+     * ensure that no files returned by <code>newFile</code> are being written.
+     */
+    public void flush()
+    {
+        this.packPendingFiles(true);
+    }
+
+    protected void packPendingFiles(boolean ignoreSettleTime)
+    {
+        // Only one thread packs files at a time; other threads continue without waiting.
+        if (!this.packingFiles.compareAndSet(false, true))
+            return;
+
+        try
+        {
+            long now = System.currentTimeMillis();
+            this.nextPackTime = now + this.settleTime;
+
+            for (Map.Entry<String, Long> pending : this.pendingFiles.entrySet())
+            {
+                String key = pending.getKey();
+                File file = new File(makeAbsolutePath(this.getWriteLocation(), key));
+
+                // Files not yet written stay pending, as do files that couldn't be packed, so they're retried later.
+                if (!file.isFile())
+                    continue;
+
+                if (!ignoreSettleTime && (now - pending.getValue() < this.settleTime
+                    || now - file.lastModified() < this.settleTime))
+                    continue;
+
+                if (this.packLooseFile(key, file, true))
+                    this.pendingFiles.remove(key);
+            }
+        }
+        finally
+        {
+            this.packingFiles.set(false);
+        }
+    }
+
+    @SuppressWarnings({"ResultOfMethodCallIgnored"})
+    protected boolean packLooseFile(String key, File file, boolean deleteFile)
+    {
+        if (!file.isFile() || this.readOnly)
+            return false;
+
+        try
+        {
+            long lastModified = file.lastModified();
+            ByteBuffer contents = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+
+            // Leave the file loose if it's modified while being read; it's still served from the write location.
+            if (file.lastModified() != lastModified || file.length() != contents.remaining())
+                return false;
+
+            this.writePackedFile(key, contents, lastModified);
+        }
+        catch (IOException e)
+        {
+            String message = Logging.getMessage("generic.ExceptionAttemptingToWriteTo", file);
+            Logging.logger().log(Level.SEVERE, message, e);
+            return false;
+        }
+
+        if (deleteFile)
+            file.delete();
+
+        return true;
+    }
+
+    /**
+     * Rewrites the live packed files into new packs, discarding the contents of replaced and removed files. Readers
+     * may continue to read during compaction; writers wait until compaction completes. Does nothing if the store is
+     * read-only.
+     *
+     * @return the number of bytes reclaimed.
+     *
+     * @throws IOException if the new packs or index cannot be written.
+     */
+    @SuppressWarnings({"ResultOfMethodCallIgnored"})
+    public long compact() throws IOException
+    {
+        if (this.packDirectory == null || this.readOnly)
+            return 0;
+
+        synchronized (this.writeLock)
+        {
+            List<Pack> oldPacks = new ArrayList<Pack>(this.packs.values());
+            long oldSize = 0;
+            for (Pack pack : oldPacks)
+            {
+                oldSize += pack.channel.size();
+            }
+
+            // Copy the live files into new packs, and write their index to a temporary file.
+            Map<String, Entry> newIndex = new HashMap<String, Entry>();
+            List<Pack> newPacks = new ArrayList<Pack>();
+            File tempIndexFile = new File(this.packDirectory, INDEX_FILE_NAME + ".tmp");
+            RandomAccessFile tempIndex = new RandomAccessFile(tempIndexFile, "rw");
+            try
+            {
+                FileChannel tempIndexChannel = tempIndex.getChannel();
+                tempIndexChannel.truncate(0);
+                writeIndexHeader(tempIndexChannel);
+
+                Pack pack = null;
+                int packNumber = this.nextPackNumber();
+                for (Map.Entry<String, Entry> e : this.index.entrySet())
+                {
+                    ByteBuffer contents = this.readPackedFile(e.getKey());
+                    if (contents == null)
+                        continue;
+
+                    if (pack == null || pack.channel.size() + contents.remaining() > this.maxPackSize)
+                    {
+                        pack = this.createPack(packNumber++);
+                        newPacks.add(pack);
+                    }
+
+                    long offset = pack.channel.size();
+                    Entry entry = new Entry(pack.number, offset, contents.remaining(), e.getValue().lastModified);
+                    writeFully(pack.channel, contents, offset);
+                    writeFully(tempIndexChannel, makeIndexRecord(e.getKey(), entry), tempIndexChannel.size());
+                    newIndex.put(e.getKey(), entry);
+                }
+
+                tempIndexChannel.force(true);
+            }
+            catch (IOException e)
+            {
+                for (Pack pack : newPacks)
+                {
+                    this.packs.remove(pack.number);
+                    pack.close();
+                    pack.file.delete();
+                }
+                throw e;
+            }
+            finally
+            {
+                WWIO.closeStream(tempIndex, tempIndexFile.getPath());
+            }
+
+            // Replace the index, then switch readers to the new packs and delete the old ones. Packs that are still
+            // mapped may not be deletable on some platforms; those are deleted when the store is next opened.
+            WWIO.closeStream(this.indexFile, INDEX_FILE_NAME);
+            Files.move(tempIndexFile.toPath(), new File(this.packDirectory, INDEX_FILE_NAME).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.openIndexFile();
+
+            this.index.putAll(newIndex);
+            this.writePack = newPacks.isEmpty() ? null : newPacks.get(newPacks.size() - 1);
+            long newSize = 0;
+            for (Pack pack : newPacks)
+            {
+                newSize += pack.channel.size();
+            }
+
+            for (Pack pack : oldPacks)
+            {
+                this.packs.remove(pack.number);
+                pack.close();
+                pack.file.delete();
+            }
+
+            return oldSize - newSize;
+        }
+    }
+
+    /**
+     * Adds the files in a directory cache to this store. Packable files are added to the packs, and other files, such
+     * as configuration documents, are copied to the write location. A read-only store copies all files to the write
+     * location. Directory caches in the write location can be
+     * packed in place by specifying the write location and deleting the imported files.
+     *
+     * @param directory       the root of the directory cache.
+     * @param deleteImported  true to delete each file once it's been imported, otherwise false.
+     *
+     * @return the number of files added to the packs.
+     *
+     * @throws IllegalArgumentException if the directory is null.
+     * @throws IOException              if the directory cannot be read.
+     */
+    public int importDirectory(File directory, boolean deleteImported) throws IOException
+    {
+        if (directory == null)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        final Path root = directory.toPath();
+        final List<Path> files = new ArrayList<Path>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>()
+        {
+            public FileVisitResult preVisitDirectory(Path dir, java.nio.file.attribute.BasicFileAttributes attrs)
+            {
+                return (packDirectory != null && dir.toFile().equals(packDirectory)) ? FileVisitResult.SKIP_SUBTREE
+                    : FileVisitResult.CONTINUE;
+            }
+
+            public FileVisitResult visitFile(Path file, java.nio.file.attribute.BasicFileAttributes attrs)
+            {
+                files.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        int count = 0;
+        for (Path path : files)
+        {
+            String key = makeKey(root.relativize(path).toString());
+            if (this.packDirectory != null && !this.readOnly && this.isPackable(key))
+            {
+                if (this.packLooseFile(key, path.toFile(), deleteImported))
+                    count++;
+            }
+            else
+            {
+                File target = this.newFile(key);
+                if (target != null && !target.getAbsoluteFile().equals(path.toFile().getAbsoluteFile()))
+                {
+                    Files.copy(path, target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.COPY_ATTRIBUTES);
+                    if (deleteImported)
+                        Files.delete(path);
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Writes each packed file to a directory cache, as a file of the same path relative to the directory. Each file's
+     * modification time is that of the packed file.
+     *
+     * @param directory the root of the directory cache.
+     *
+     * @return the number of files written.
+     *
+     * @throws IllegalArgumentException if the directory is null.
+     * @throws IOException              if a file cannot be written.
+     */
+    @SuppressWarnings({"ResultOfMethodCallIgnored"})
+    public int exportDirectory(File directory) throws IOException
+    {
+        if (directory == null)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int count = 0;
+        for (Map.Entry<String, Entry> e : this.index.entrySet())
+        {
+            ByteBuffer contents = this.readPackedFile(e.getKey());
+            if (contents == null)
+                continue;
+
+            File file = new File(directory, e.getKey());
+            file.getParentFile().mkdirs();
+            WWIO.saveBuffer(contents, file);
+            file.setLastModified(e.getValue().lastModified);
+            count++;
+        }
+
+        return count;
+    }
+
+    /** Closes the pack and index files and releases the pack directory lock. The store cannot be used afterwards. */
+    public void dispose()
+    {
+        synchronized (this.writeLock)
+        {
+            for (Pack pack : this.packs.values())
+            {
+                pack.close();
+            }
+
+            this.packs.clear();
+            this.index.clear();
+            this.writePack = null;
+            WWIO.closeStream(this.indexFile, INDEX_FILE_NAME);
+            this.indexFile = null;
+            this.indexChannel = null;
+            this.packDirectory = null;
+
+            // Closing the lock file releases the lock.
+            WWIO.closeStream(this.lockFile, LOCK_FILE_NAME);
+            this.lockFile = null;
+            this.lock = null;
+        }
+    }
+
+    //**************************************************************//
+    //********************  Pack and Index Files  ******************//
+    //**************************************************************//
+
+    @SuppressWarnings({"ResultOfMethodCallIgnored"})
+    protected void openPacks()
+    {
+        File writeLocation = this.getWriteLocation();
+        if (writeLocation == null)
+            return;
+
+        File directory = new File(writeLocation, PACK_DIRECTORY_NAME);
+        if (!directory.exists() && !directory.mkdirs())
+        {
+            String message = Logging.getMessage("generic.CannotCreateFile", directory);
+            Logging.logger().severe(message);
+            return;
+        }
+
+        synchronized (this.writeLock)
+        {
+            try
+            {
+                this.packDirectory = directory;
+                this.readOnly = !this.lockPackDirectory();
+                if (this.readOnly)
+                {
+                    String message = Logging.getMessage("FileStore.PackDirectoryReadOnly", directory);
+                    Logging.logger().warning(message);
+                }
+
+                this.openIndexFile();
+                this.readIndex();
+
+                // Open the packs the index refers to. A writable store deletes any others, which are left over from an
+                // interrupted compaction. A read-only store leaves them, because the writing store may have created
+                // them since it last wrote the index.
+                Set<Integer> packNumbers = new HashSet<Integer>();
+                for (Entry entry : this.index.values())
+                {
+                    packNumbers.add(entry.pack);
+                }
+
+                File[] files = directory.listFiles();
+                for (File file : files != null ? files : new File[0])
+                {
+                    String name = file.getName();
+                    if (!name.startsWith(PACK_FILE_PREFIX) || !name.endsWith(PACK_FILE_SUFFIX))
+                        continue;
+
+                    int number = Integer.parseInt(
+                        name.substring(PACK_FILE_PREFIX.length(), name.length() - PACK_FILE_SUFFIX.length()));
+                    if (packNumbers.contains(number))
+                        this.packs.put(number, new Pack(number, file, this.readOnly));
+                    else if (!this.readOnly)
+                        file.delete();
+                }
+
+                for (Pack pack : this.readOnly ? Collections.<Pack>emptyList() : this.packs.values())
+                {
+                    if (this.writePack == null || pack.number > this.writePack.number)
+                        this.writePack = pack;
+                }
+            }
+            catch (IOException | RuntimeException e)
+            {
+                // Continue without packing; files are written to and read from the write location as usual.
+                String message = Logging.getMessage("generic.ExceptionAttemptingToReadFrom", directory);
+                Logging.logger().log(Level.SEVERE, message, e);
+                this.dispose();
+            }
+        }
+    }
+
+    /**
+     * Attempts to lock the pack directory for writing by this store. The lock is held until the store is disposed.
+     *
+     * @return true if the lock was acquired, or false if another store holds it.
+     *
+     * @throws IOException if the lock file cannot be opened.
+     */
+    protected boolean lockPackDirectory() throws IOException
+    {
+        this.lockFile = new RandomAccessFile(new File(this.packDirectory, LOCK_FILE_NAME), "rw");
+        try
+        {
+            this.lock = this.lockFile.getChannel().tryLock();
+        }
+        catch (OverlappingFileLockException e)
+        {
+            this.lock = null; // another store in this process holds the lock
+        }
+
+        if (this.lock == null)
+        {
+            WWIO.closeStream(this.lockFile, LOCK_FILE_NAME);
+            this.lockFile = null;
+        }
+
+        return this.lock != null;
+    }
+
+    protected void openIndexFile() throws IOException
+    {
+        File file = new File(this.packDirectory, INDEX_FILE_NAME);
+        if (this.readOnly)
+        {
+            // A read-only store has an empty index until the writing store creates the index file.
+            if (!file.exists())
+                return;
+
+            this.indexFile = new RandomAccessFile(file, "r");
+            this.indexChannel = this.indexFile.getChannel();
+            return;
+        }
+
+        this.indexFile = new RandomAccessFile(file, "rw");
+        this.indexChannel = this.indexFile.getChannel();
+        if (this.indexChannel.size() == 0)
+            writeIndexHeader(this.indexChannel);
+    }
+
+    protected void readIndex() throws IOException
+    {
+        // The index file of a read-only store may not exist yet, or may not have its header yet.
+        if (this.indexChannel == null || this.indexChannel.size() < INDEX_HEADER_SIZE && this.readOnly)
+            return;
+
+        long size = this.indexChannel.size();
+        MappedByteBuffer buffer = this.indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        if (buffer.getInt() != INDEX_MAGIC || buffer.getInt() != INDEX_VERSION)
+        {
+            String message = Logging.getMessage("FileStore.InvalidPackIndex", INDEX_FILE_NAME);
+            throw new IOException(message);
+        }
+
+        while (buffer.remaining() >= 2)
+        {
+            int recordStart = buffer.position();
+            int nameLength = buffer.getShort() & 0xFFFF;
+            if (buffer.remaining() < nameLength + INDEX_RECORD_SIZE)
+            {
+                // Discard a record truncated by an interrupted write. A read-only store may also see a record that
+                // the writing store hasn't finished writing; it ignores the record and leaves the index unchanged.
+                if (!this.readOnly)
+                    this.indexChannel.truncate(recordStart);
+                break;
+            }
+
+            byte[] name = new byte[nameLength];
+            buffer.get(name);
+            String key = new String(name, StandardCharsets.UTF_8);
+            Entry entry = new Entry(buffer.getInt(), buffer.getLong(), buffer.getInt(), buffer.getLong());
+            if (entry.pack == REMOVED)
+                this.index.remove(key);
+            else
+                this.index.put(key, entry);
+        }
+    }
+
+    protected static void writeIndexHeader(FileChannel channel) throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_SIZE);
+        header.putInt(INDEX_MAGIC).putInt(INDEX_VERSION).flip();
+        writeFully(channel, header, 0);
+    }
+
+    protected static ByteBuffer makeIndexRecord(String key, Entry entry)
+    {
+        byte[] name = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(2 + name.length + INDEX_RECORD_SIZE);
+        record.putShort((short) name.length).put(name);
+        record.putInt(entry.pack).putLong(entry.offset).putInt(entry.length).putLong(entry.lastModified);
+        record.flip();
+        return record;
+    }
+
+    protected void appendIndexRecord(String key, Entry entry) throws IOException
+    {
+        writeFully(this.indexChannel, makeIndexRecord(key, entry), this.indexChannel.size());
+    }
+
+    protected int nextPackNumber()
+    {
+        int number = 0;
+        for (Integer n : this.packs.keySet())
+        {
+            number = Math.max(number, n + 1);
+        }
+
+        return number;
+    }
+
+    protected Pack createPack(int number) throws IOException
+    {
+        File file = new File(this.packDirectory, String.format("%s%05d%s", PACK_FILE_PREFIX, number,
+            PACK_FILE_SUFFIX));
+        Pack pack = new Pack(number, file, false);
+        pack.channel.truncate(0);
+        this.packs.put(number, pack);
+        return pack;
+    }
+
+    protected static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    //**************************************************************//
+    //********************  Packed File URLs  **********************//
+    //**************************************************************//
+
+    protected URL makeURL(String key)
+    {
+        try
+        {
+            // Encode the path as an opaque URI, so that paths containing spaces and other reserved characters form
+            // valid URIs.
+            return new URL(null, new URI(URL_PROTOCOL, key, null).toASCIIString(), this.urlHandler);
+        }
+        catch (URISyntaxException | MalformedURLException e)
+        {
+            String message = Logging.getMessage("FileStore.ExceptionCreatingURLForFile", key);
+            Logging.logger().log(Level.SEVERE, message, e);
+            return null;
+        }
+    }
+
+    protected String keyFor(URL url)
+    {
+        try
+        {
+            return new URI(url.toString()).getSchemeSpecificPart();
+        }
+        catch (URISyntaxException e)
+        {
+            String message = Logging.getMessage("generic.MalformedURL", url);
+            Logging.logger().log(Level.SEVERE, message, e);
+            return null;
+        }
+    }
+
+    protected class PackURLStreamHandler extends URLStreamHandler
+    {
+        protected URLConnection openConnection(URL url)
+        {
+            return new PackURLConnection(url);
+        }
+    }
+
+    /** Reads a packed file. The connection reports the packed file's length and modification time. */
+    protected class PackURLConnection extends URLConnection
+    {
+        protected Entry entry;
+
+        protected PackURLConnection(URL url)
+        {
+            super(url);
+        }
+
+        public void connect() throws IOException
+        {
+            if (this.connected)
+                return;
+
+            String key = keyFor(this.url);
+            this.entry = (key != null) ? index.get(key) : null;
+            if (this.entry == null)
+                throw new FileNotFoundException(this.url.toString());
+
+            this.connected = true;
+        }
+
+        public InputStream getInputStream() throws IOException
+        {
+            this.connect();
+
+            ByteBuffer contents = readPackedFile(keyFor(this.url));
+            if (contents == null)
+                throw new FileNotFoundException(this.url.toString());
+
+            return new ByteBufferInputStream(contents);
+        }
+
+        public long getContentLengthLong()
+        {
+            try
+            {
+                this.connect();
+                return this.entry.length;
+            }
+            catch (IOException e)
+            {
+                return -1;
+            }
+        }
+
+        public long getLastModified()
+        {
+            try
+            {
+                this.connect();
+                return this.entry.lastModified;
+            }
+            catch (IOException e)
+            {
+                return 0;
+            }
+        }
+
+        public String getContentType()
+        {
+            return WWIO.makeMimeTypeForSuffix(WWIO.getSuffix(this.url.toString()));
+        }
+    }
+
+    protected static class ByteBufferInputStream extends InputStream
+    {
+        protected final ByteBuffer buffer;
+
+        protected ByteBufferInputStream(ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        public int read()
+        {
+            return this.buffer.hasRemaining() ? (this.buffer.get() & 0xFF) : -1;
+        }
+
+        public int read(byte[] b, int off, int len)
+        {
+            if (len == 0)
+                return 0;
+
+            if (!this.buffer.hasRemaining())
+                return -1;
+
+            len = Math.min(len, this.buffer.remaining());
+            this.buffer.get(b, off, len);
+            return len;
+        }
+
+        public int available()
+        {
+            return this.buffer.remaining();
+        }
+    }
+}
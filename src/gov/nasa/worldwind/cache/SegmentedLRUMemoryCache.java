@@ -0,0 +1,514 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link MemoryCache} that tracks entry recency with a segmented LRU policy. Entries enter a <i>probationary</i>
+ * segment when added and are promoted to a <i>protected</i> segment the first time they are requested via {@link
+ * #getObject(Object)}. When the protected segment grows beyond its share of the capacity, its least recently used
+ * entries are demoted back to the probationary segment. Eviction removes entries from the least recently used end of
+ * the probationary segment first, and from the protected segment only when the probationary segment is empty.
+ * <p>
+ * Each segment is a doubly linked list threaded through the cache entries, so adding, accessing and evicting an entry
+ * all take constant time. Unlike {@link BasicMemoryCache}, making space does not copy and sort the cache's entries.
+ * Entries touched only once, such as tiles passed over while the view moves, are evicted before entries that are
+ * requested repeatedly.
+ * <p>
+ * Cache listeners are notified of every removed entry, including entries replaced by {@link #add(Object, Object,
+ * long)} and entries evicted to make space, exactly as they are by <code>BasicMemoryCache</code>.
+ */
+public class SegmentedLRUMemoryCache implements MemoryCache
+{
+    /** The default fraction of the cache capacity available to the protected segment. */
+    protected static final double DEFAULT_PROTECTED_RATIO = 0.8;
+
+    protected static class CacheEntry
+    {
+        protected Object key;
+        protected Object clientObject;
+        protected long clientObjectSize;
+        protected boolean isProtected;
+        protected CacheEntry previous;
+        protected CacheEntry next;
+
+        protected CacheEntry(Object key, Object clientObject, long clientObjectSize)
+        {
+            this.key = key;
+            this.clientObject = clientObject;
+            this.clientObjectSize = clientObjectSize;
+        }
+
+        public String toString()
+        {
+            return key.toString() + " " + clientObject.toString() + " " + clientObjectSize
+                + (this.isProtected ? " protected" : " probationary");
+        }
+    }
+
+    protected ConcurrentHashMap<Object, CacheEntry> entries;
+    protected CopyOnWriteArrayList<MemoryCache.CacheListener> listeners;
+    protected AtomicLong capacity = new AtomicLong();
+    protected AtomicLong currentUsedCapacity = new AtomicLong();
+    protected long lowWater;
+    protected double protectedRatio = DEFAULT_PROTECTED_RATIO;
+    protected String name = "";
+
+    /** Sentinel of the probationary segment. Its <code>next</code> entry is the least recently used. */
+    protected final CacheEntry probationary = createSentinel();
+    /** Sentinel of the protected segment. Its <code>next</code> entry is the least recently used. */
+    protected final CacheEntry protectedSegment = createSentinel();
+    /** The sum of the sizes of all entries in the protected segment. Guarded by <code>lock</code>. */
+    protected long protectedUsedCapacity;
+
+    protected final Object lock = new Object();
+
+    /**
+     * Constructs a new cache using <code>capacity</code> for maximum size, and <code>loWater</code> for the low water.
+     *
+     * @param loWater  the low water level.
+     * @param capacity the maximum capacity.
+     */
+    public SegmentedLRUMemoryCache(long loWater, long capacity)
+    {
+        this.entries = new ConcurrentHashMap<Object, CacheEntry>();
+        this.listeners = new CopyOnWriteArrayList<MemoryCache.CacheListener>();
+        this.capacity.set(capacity);
+        this.lowWater = loWater;
+    }
+
+    protected static CacheEntry createSentinel()
+    {
+        CacheEntry sentinel = new CacheEntry(null, null, 0);
+        sentinel.previous = sentinel;
+        sentinel.next = sentinel;
+        return sentinel;
+    }
+
+    /** @return the number of objects currently stored in this cache. */
+    public int getNumObjects()
+    {
+        return this.entries.size();
+    }
+
+    /** @return the capacity of the cache. */
+    public long getCapacity()
+    {
+        return this.capacity.get();
+    }
+
+    /** @return the number of cache units that the cache currently holds. */
+    public long getUsedCapacity()
+    {
+        return this.currentUsedCapacity.get();
+    }
+
+    /** @return the amount of free space left in the cache (in cache units). */
+    public long getFreeCapacity()
+    {
+        return Math.max(this.capacity.get() - this.currentUsedCapacity.get(), 0);
+    }
+
+    public void setName(String name)
+    {
+        this.name = name != null ? name : "";
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Returns the fraction of the cache capacity available to entries that have been requested at least once since
+     * they were added.
+     *
+     * @return the protected segment's fraction of the capacity, in the range [0, 1].
+     */
+    public double getProtectedRatio()
+    {
+        return this.protectedRatio;
+    }
+
+    /**
+     * Specifies the fraction of the cache capacity available to entries that have been requested at least once since
+     * they were added. The remainder of the capacity is reserved for newly added entries. A value of 0 degrades this
+     * cache to a plain LRU cache in which the most recently added or requested entries are retained.
+     *
+     * @param ratio the protected segment's fraction of the capacity, in the range [0, 1].
+     *
+     * @throws IllegalArgumentException if <code>ratio</code> is less than 0 or greater than 1.
+     */
+    public void setProtectedRatio(double ratio)
+    {
+        if (ratio < 0 || ratio > 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "ratio=" + ratio);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        synchronized (this.lock)
+        {
+            this.protectedRatio = ratio;
+            this.trimProtectedSegment();
+        }
+    }
+
+    /**
+     * Adds a  cache listener, MemoryCache listeners are used to notify classes when an item is removed from the cache.
+     *
+     * @param listener The new <code>CacheListener</code>.
+     *
+     * @throws IllegalArgumentException is <code>listener</code> is null.
+     */
+    public void addCacheListener(MemoryCache.CacheListener listener)
+    {
+        if (listener == null)
+        {
+            String message = Logging.getMessage("BasicMemoryCache.nullListenerAdded");
+            Logging.logger().warning(message);
+            throw new IllegalArgumentException(message);
+        }
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Removes a cache listener, objects using this listener will no longer receive notification of cache events.
+     *
+     * @param listener The <code>CacheListener</code> to remove.
+     *
+     * @throws IllegalArgumentException if <code>listener</code> is null.
+     */
+    public void removeCacheListener(MemoryCache.CacheListener listener)
+    {
+        if (listener == null)
+        {
+            String message = Logging.getMessage("BasicMemoryCache.nullListenerRemoved");
+            Logging.logger().warning(message);
+            throw new IllegalArgumentException(message);
+        }
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Sets the new capacity for the cache. As with {@link BasicMemoryCache#setCapacity(long)}, entries already in the
+     * cache are not removed until space is next needed, and the low water level is left unchanged.
+     *
+     * @param newCapacity the new capacity of the cache.
+     */
+    public void setCapacity(long newCapacity)
+    {
+        synchronized (this.lock)
+        {
+            this.capacity.set(newCapacity);
+            this.trimProtectedSegment();
+        }
+    }
+
+    /**
+     * Sets the new low water level in cache units. When the cache fills, it removes items until it reaches the low
+     * water level. The low water level is ignored if it is negative or not less than the capacity.
+     *
+     * @param loWater the new low water level.
+     */
+    public void setLowWater(long loWater)
+    {
+        if (loWater < this.capacity.get() && loWater >= 0)
+        {
+            this.lowWater = loWater;
+        }
+    }
+
+    /**
+     * Returns the low water level in cache units. When the cache fills, it removes items until it reaches the low water
+     * level.
+     *
+     * @return the low water level.
+     */
+    public long getLowWater()
+    {
+        return this.lowWater;
+    }
+
+    /**
+     * Returns true if the cache contains the item referenced by key. This method does not mark the item as accessed.
+     *
+     * @param key The key of a specific object.
+     *
+     * @return true if the cache holds the item referenced by key.
+     *
+     * @throws IllegalArgumentException if <code>key</code> is null.
+     */
+    public boolean contains(Object key)
+    {
+        if (key == null)
+        {
+            String msg = Logging.getMessage("nullValue.KeyIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        return this.entries.containsKey(key);
+    }
+
+    /**
+     * Adds an object to the cache. The add fails if the object or key is null, or if the size is zero, negative or
+     * greater than the maximmum capacity. New objects are placed in the probationary segment.
+     *
+     * @param key              The unique reference key that identifies this object.
+     * @param clientObject     The actual object to be cached.
+     * @param clientObjectSize The size of the object in cache units.
+     *
+     * @return returns true if clientObject was added, false otherwise.
+     */
+    public boolean add(Object key, Object clientObject, long clientObjectSize)
+    {
+        long cap = this.capacity.get();
+
+        if (key == null || clientObject == null || clientObjectSize <= 0 || clientObjectSize > cap)
+        {
+            String message = Logging.getMessage("BasicMemoryCache.CacheItemNotAdded");
+
+            if (clientObjectSize > cap)
+            {
+                message += " - " + Logging.getMessage("BasicMemoryCache.ItemTooLargeForCache");
+            }
+
+            Logging.logger().warning(message);
+
+            return false;
+        }
+
+        CacheEntry entry = new CacheEntry(key, clientObject, clientObjectSize);
+
+        synchronized (this.lock)
+        {
+            CacheEntry existing = this.entries.get(key);
+            if (existing != null) // replacing
+            {
+                this.removeEntry(existing);
+            }
+
+            if (this.currentUsedCapacity.get() + clientObjectSize > cap)
+            {
+                this.makeSpace(clientObjectSize);
+            }
+
+            this.currentUsedCapacity.addAndGet(clientObjectSize);
+            this.entries.put(entry.key, entry);
+            linkLast(this.probationary, entry);
+        }
+
+        return true;
+    }
+
+    public boolean add(Object key, Cacheable clientObject)
+    {
+        return this.add(key, clientObject, clientObject.getSizeInBytes());
+    }
+
+    /**
+     * Remove the object reference by key from the cache. If no object with the corresponding key is found, this method
+     * returns immediately.
+     *
+     * @param key the key of the object to be removed.
+     */
+    public void remove(Object key)
+    {
+        if (key == null)
+        {
+            Logging.logger().finer("nullValue.KeyIsNull");
+
+            return;
+        }
+
+        synchronized (this.lock)
+        {
+            CacheEntry entry = this.entries.get(key);
+            if (entry != null)
+                this.removeEntry(entry);
+        }
+    }
+
+    /**
+     * Obtain the object referenced by key without removing it. The object is moved to the most recently used position
+     * of the protected segment.
+     *
+     * @param key The key for the object to be found.
+     *
+     * @return the object referenced by key if it is present, null otherwise.
+     */
+    public Object getObject(Object key)
+    {
+        if (key == null)
+        {
+            Logging.logger().finer("nullValue.KeyIsNull");
+
+            return null;
+        }
+
+        synchronized (this.lock)
+        {
+            CacheEntry entry = this.entries.get(key);
+
+            if (entry == null)
+                return null;
+
+            unlink(entry);
+            linkLast(this.protectedSegment, entry);
+
+            if (!entry.isProtected)
+            {
+                entry.isProtected = true;
+                this.protectedUsedCapacity += entry.clientObjectSize;
+                this.trimProtectedSegment();
+            }
+
+            return entry.clientObject;
+        }
+    }
+
+    /** Empties the cache. */
+    public void clear()
+    {
+        synchronized (this.lock)
+        {
+            for (CacheEntry entry : this.entries.values())
+            {
+                this.removeEntry(entry);
+            }
+        }
+    }
+
+    /**
+     * Removes <code>entry</code> from the cache and notifies the cache listeners. To remove an entry using its key, use
+     * <code>remove()</code>.
+     *
+     * @param entry The entry (as opposed to key) of the item to be removed.
+     */
+    protected void removeEntry(CacheEntry entry) // MUST BE CALLED WITHIN SYNCHRONIZED
+    {
+        if (this.entries.remove(entry.key) != null) // returns null if entry does not exist
+        {
+            unlink(entry);
+            if (entry.isProtected)
+                this.protectedUsedCapacity -= entry.clientObjectSize;
+            this.currentUsedCapacity.addAndGet(-entry.clientObjectSize);
+
+            for (MemoryCache.CacheListener listener : this.listeners)
+            {
+                try
+                {
+                    listener.entryRemoved(entry.key, entry.clientObject);
+                }
+                catch (Exception e)
+                {
+                    listener.removalException(e, entry.key, entry.clientObject);
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes at least <code>spaceRequired</code> space in the cache. If spaceRequired is less than (capacity-lowWater),
+     * makes more space. Entries are removed from the least recently used end of the probationary segment, then from
+     * the least recently used end of the protected segment.
+     *
+     * @param spaceRequired the amount of space required.
+     */
+    protected void makeSpace(long spaceRequired) // MUST BE CALLED WITHIN SYNCHRONIZED
+    {
+        if (spaceRequired > this.capacity.get() || spaceRequired < 0)
+            return;
+
+        while (this.getFreeCapacity() < spaceRequired || this.getUsedCapacity() > this.lowWater)
+        {
+            CacheEntry victim = this.probationary.next != this.probationary ? this.probationary.next
+                : this.protectedSegment.next;
+            if (victim == this.protectedSegment) // both segments are empty
+                break;
+
+            this.removeEntry(victim);
+        }
+    }
+
+    /**
+     * Demotes the least recently used entries of the protected segment to the most recently used end of the
+     * probationary segment until the protected segment fits within its share of the capacity.
+     */
+    protected void trimProtectedSegment() // MUST BE CALLED WITHIN SYNCHRONIZED
+    {
+        long protectedCapacity = (long) (this.protectedRatio * this.capacity.get());
+
+        while (this.protectedUsedCapacity > protectedCapacity && this.protectedSegment.next != this.protectedSegment)
+        {
+            CacheEntry entry = this.protectedSegment.next;
+            unlink(entry);
+            entry.isProtected = false;
+            this.protectedUsedCapacity -= entry.clientObjectSize;
+            linkLast(this.probationary, entry);
+        }
+    }
+
+    protected static void linkLast(CacheEntry sentinel, CacheEntry entry)
+    {
+        entry.previous = sentinel.previous;
+        entry.next = sentinel;
+        sentinel.previous.next = entry;
+        sentinel.previous = entry;
+    }
+
+    protected static void unlink(CacheEntry entry)
+    {
+        if (entry.previous == null)
+            return;
+
+        entry.previous.next = entry.next;
+        entry.next.previous = entry.previous;
+        entry.previous = null;
+        entry.next = null;
+    }
+
+    /**
+     * a <code>String</code> representation of this object is returned.&nbsp; This representation consists of maximum
+     * size, current used capacity and number of currently cached items.
+     *
+     * @return a <code>String</code> representation of this object.
+     */
+    @Override
+    public String toString()
+    {
+        return "MemoryCache " + this.name + " max size = " + this.getCapacity() + " current size = "
+            + this.currentUsedCapacity.get() + " number of items: " + this.getNumObjects();
+    }
+}
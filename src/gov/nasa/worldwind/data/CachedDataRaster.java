@@ -36,6 +36,7 @@ import gov.nasa.worldwind.util.*;
 
 import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.*;
 import java.util.logging.Level;
 
 /**
@@ -62,6 +63,9 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
 
     protected final Object rasterUsageLock = new Object();
     protected final Object rasterRetrievalLock = new Object();
+    // Tracks the threads currently drawing from or sub-setting this raster's cached data. Rasters evicted while in use
+    // are disposed when the last of those threads finishes.
+    protected final RasterUsage rasterUsage = new RasterUsage();
 
     protected String[] requiredKeys = new String[] {AVKey.SECTOR, AVKey.PIXEL_FORMAT};
 
@@ -107,7 +111,7 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
         this.rasterCache = cache;
         if (this.rasterCache != null)
         {
-            this.cacheListener = new CacheListener(this.dataSource);
+            this.cacheListener = new CacheListener(this.dataSource, this.rasterUsage);
             this.rasterCache.addCacheListener(this.cacheListener);
         }
     }
@@ -304,6 +308,7 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
     {
         synchronized (this.rasterUsageLock)
         {
+            this.rasterUsage.begin();
             try
             {
                 DataRaster[] rasters;
@@ -332,6 +337,10 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
                 String reason = this.composeExceptionReason(t);
                 Logging.logger().log(Level.SEVERE, reason, t);
             }
+            finally
+            {
+                this.rasterUsage.end();
+            }
         }
     }
 
@@ -339,6 +348,7 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
     {
         synchronized (this.rasterUsageLock)
         {
+            this.rasterUsage.begin();
             try
             {
                 DataRaster[] rasters;
@@ -362,6 +372,10 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
                 String reason = this.composeExceptionReason(t);
                 Logging.logger().log(Level.SEVERE, reason, t);
             }
+            finally
+            {
+                this.rasterUsage.end();
+            }
 
             String message = Logging.getMessage("generic.CannotCreateRaster", this.getDataSource());
             Logging.logger().severe(message);
@@ -432,13 +446,82 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
         }
     }
 
+    /**
+     * Counts the threads using a raster's cached data, and holds the rasters evicted from the cache while that data is
+     * in use. Those rasters are disposed when the count returns to zero, so that rasters backed by native resources are
+     * released without disposing them out from under a drawing operation.
+     */
+    protected static class RasterUsage
+    {
+        protected int count;
+        protected List<DataRaster[]> pendingDisposal = new ArrayList<DataRaster[]>();
+
+        public synchronized void begin()
+        {
+            this.count++;
+        }
+
+        /** Ends a use of the cached data. The last use to end disposes the rasters evicted while in use. */
+        public void end()
+        {
+            List<DataRaster[]> evicted;
+            synchronized (this)
+            {
+                if (--this.count > 0 || this.pendingDisposal.isEmpty())
+                    return;
+
+                evicted = this.pendingDisposal;
+                this.pendingDisposal = new ArrayList<DataRaster[]>();
+            }
+
+            for (DataRaster[] rasters : evicted)
+            {
+                disposeEvictedRasters(rasters);
+            }
+        }
+
+        /**
+         * Disposes rasters evicted from the cache, or defers their disposal until the cached data is no longer in use.
+         *
+         * @param rasters the evicted rasters.
+         */
+        public void evicted(DataRaster[] rasters)
+        {
+            synchronized (this)
+            {
+                if (this.count > 0)
+                {
+                    this.pendingDisposal.add(rasters);
+                    return;
+                }
+            }
+
+            disposeEvictedRasters(rasters);
+        }
+    }
+
+    protected static void disposeEvictedRasters(DataRaster[] rasters)
+    {
+        try
+        {
+            disposeRasters(rasters);
+        }
+        catch (Exception e)
+        {
+            String message = Logging.getMessage("generic.ExceptionWhileDisposing", Arrays.toString(rasters));
+            Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+        }
+    }
+
     private static class CacheListener implements MemoryCache.CacheListener
     {
         private Object key;
+        private RasterUsage usage;
 
-        private CacheListener(Object key)
+        private CacheListener(Object key, RasterUsage usage)
         {
             this.key = key;
+            this.usage = usage;
         }
 
         public void entryRemoved(Object key, Object clientObject)
@@ -453,15 +536,9 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
                 return;
             }
 
-            try
-            {
-                disposeRasters((DataRaster[]) clientObject);
-            }
-            catch (Exception e)
-            {
-                String message = Logging.getMessage("generic.ExceptionWhileDisposing", clientObject);
-                Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
-            }
+            // The rasters may be evicted while they're being drawn, either by another thread or while releasing
+            // memory. Their disposal is then deferred until the drawing operation ends.
+            this.usage.evicted((DataRaster[]) clientObject);
         }
 
         public void removalException(Throwable t, Object key, Object clientObject)
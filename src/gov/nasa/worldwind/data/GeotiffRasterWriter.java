@@ -27,7 +27,8 @@
  */
 package gov.nasa.worldwind.data;
 
-import gov.nasa.worldwind.formats.tiff.GeotiffWriter;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.formats.tiff.*;
 import gov.nasa.worldwind.util.Logging;
 
 import java.io.*;
@@ -41,11 +42,46 @@ public class GeotiffRasterWriter extends AbstractDataRasterWriter
     protected static final String[] geotiffMimeTypes = {"image/tiff", "image/geotiff"};
     protected static final String[] geotiffSuffixes = {"tif", "tiff", "gtif"};
 
+    protected int compression = Tiff.Compression.NONE;
+    protected int tileSize;
+
     public GeotiffRasterWriter()
     {
         super(geotiffMimeTypes, geotiffSuffixes);
     }
 
+    public int getCompression()
+    {
+        return this.compression;
+    }
+
+    /**
+     * Specifies the compression of written files; see {@link GeotiffWriter#setCompression(int)}. Compressed files are
+     * written with the predictor suited to the raster's samples.
+     *
+     * @param compression one of <code>Tiff.Compression.NONE</code>, <code>LZW</code> or <code>DEFLATE</code>.
+     */
+    public void setCompression(int compression)
+    {
+        this.compression = compression;
+    }
+
+    public int getTileSize()
+    {
+        return this.tileSize;
+    }
+
+    /**
+     * Specifies the size of square tiles in written files, or zero to write strips; see {@link
+     * GeotiffWriter#setTileSize(int, int)}.
+     *
+     * @param tileSize the tile width and height, a multiple of 16, or zero.
+     */
+    public void setTileSize(int tileSize)
+    {
+        this.tileSize = tileSize;
+    }
+
     protected boolean doCanWrite(DataRaster raster, String formatSuffix, File file)
     {
         return (raster != null) && (raster instanceof BufferedImageRaster || raster instanceof BufferWrapperRaster);
@@ -72,6 +108,14 @@ public class GeotiffRasterWriter extends AbstractDataRasterWriter
         try
         {
             writer = new GeotiffWriter(file);
+            writer.setCompression(this.compression);
+            writer.setTileSize(this.tileSize, this.tileSize);
+            if (this.compression != Tiff.Compression.NONE)
+            {
+                boolean isFloat = AVKey.FLOAT32.equals(raster.getValue(AVKey.DATA_TYPE))
+                    && AVKey.ELEVATION.equals(raster.getValue(AVKey.PIXEL_FORMAT));
+                writer.setPredictor(isFloat ? Tiff.Predictor.FLOATING_POINT : Tiff.Predictor.HORIZONTAL_DIFFERENCING);
+            }
             writer.write(raster);
         }
         finally
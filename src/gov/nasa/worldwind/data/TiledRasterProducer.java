@@ -48,6 +48,7 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
     private static final long DEFAULT_TILED_RASTER_PRODUCER_CACHE_SIZE = 300000000L; // ~300 megabytes
     private static final int DEFAULT_TILED_RASTER_PRODUCER_LARGE_DATASET_THRESHOLD = 3000; // 3000 pixels
     private static final int DEFAULT_WRITE_THREAD_POOL_SIZE = 2;
+    private static final int DEFAULT_TILED_RASTER_PRODUCER_PARALLELISM = 1; // Sequential production
     private static final int DEFAULT_TILE_WIDTH_AND_HEIGHT = 512;
     private static final int DEFAULT_SINGLE_LEVEL_TILE_WIDTH_AND_HEIGHT = 512;
     private static final double DEFAULT_LEVEL_ZERO_TILE_DELTA = 36d;
@@ -61,8 +62,12 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
     private final java.util.concurrent.Semaphore tileWriteSemaphore;
     private final Object fileLock = new Object();
     // Progress counters.
+    private final Object progressLock = new Object();
     private int tile;
     private int tileCount;
+    // Per-level production statistics: the number of tiles created and the nanoseconds spent creating them.
+    private java.util.concurrent.atomic.AtomicLongArray levelTileCounts;
+    private java.util.concurrent.atomic.AtomicLongArray levelTileNanos;
 
     private DataRasterReaderFactory readerFactory;
 
@@ -524,6 +529,13 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         // Setup the progress parameters.
         this.calculateTileCount(levelSet, params);
         this.startProgress();
+        this.levelTileCounts = new java.util.concurrent.atomic.AtomicLongArray(levelSet.getNumLevels());
+        this.levelTileNanos = new java.util.concurrent.atomic.AtomicLongArray(levelSet.getNumLevels());
+
+        int parallelism = this.getParallelism(params);
+        java.util.concurrent.ForkJoinPool pool = (parallelism > 1)
+            ? new java.util.concurrent.ForkJoinPool(parallelism) : null;
+        java.util.List<TileTask> tasks = new java.util.ArrayList<TileTask>();
 
         Sector sector = levelSet.getSector();
         Level level = levelSet.getFirstLevel();
@@ -554,16 +566,146 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
                     Angle t2 = t1.add(dLon);
 
                     Tile tile = new Tile(new Sector(p1, p2, t1, t2), level, row, col);
-                    DataRaster tileRaster = this.createTileRaster(levelSet, tile, params);
-                    // Write the top-level tile raster to disk.
-                    if (tileRaster != null)
-                        this.installTileRasterLater(levelSet, tile, tileRaster, params);
+                    if (pool != null)
+                    {
+                        // Build each level zero tile's subtree concurrently. The tasks write their descendants to
+                        // disk, and the level zero tile rasters are written below once their subtree is complete.
+                        TileTask task = new TileTask(levelSet, tile, params);
+                        pool.execute(task);
+                        tasks.add(task);
+                    }
+                    else
+                    {
+                        DataRaster tileRaster = this.createTileRaster(levelSet, tile, params);
+                        // Write the top-level tile raster to disk.
+                        if (tileRaster != null)
+                            this.installTileRasterLater(levelSet, tile, tileRaster, params);
+                    }
 
                     t1 = t2;
                 }
                 p1 = p2;
             }
         }
+
+        if (pool != null)
+        {
+            try
+            {
+                for (TileTask task : tasks)
+                {
+                    DataRaster tileRaster = task.join();
+                    // Write the top-level tile raster to disk.
+                    if (tileRaster != null)
+                        this.installTileRasterLater(levelSet, task.tile, tileRaster, params);
+                }
+            }
+            catch (java.io.UncheckedIOException e)
+            {
+                throw e.getCause();
+            }
+            finally
+            {
+                pool.shutdownNow();
+            }
+        }
+
+        this.logLevelThroughput(levelSet);
+    }
+
+    /**
+     * Returns the number of threads used to build the tile pyramid. The value is read from the production parameter
+     * {@link AVKey#TILED_RASTER_PRODUCER_PARALLELISM}, then from the configuration. A value of 1 or less builds the
+     * pyramid sequentially on the production thread.
+     *
+     * @param params the production parameters.
+     *
+     * @return the number of threads used to build the tile pyramid.
+     */
+    protected int getParallelism(AVList params)
+    {
+        Integer parallelism = (params != null)
+            ? AVListImpl.getIntegerValue(params, AVKey.TILED_RASTER_PRODUCER_PARALLELISM) : null;
+        if (parallelism == null)
+            parallelism = Configuration.getIntegerValue(AVKey.TILED_RASTER_PRODUCER_PARALLELISM,
+                DEFAULT_TILED_RASTER_PRODUCER_PARALLELISM);
+
+        return parallelism;
+    }
+
+    /**
+     * Creates one tile raster of the pyramid in a fork/join pool. Sub-tiles are forked and joined in the same order as
+     * {@link #drawDescendants(LevelSet, Tile, AVList)} visits them, and are composed into the tile's raster by the same
+     * {@link #composeTileRaster(LevelSet, Tile, Tile[], DataRaster[], AVList)}, so the tiles written are identical to
+     * those of sequential production. Tile rasters are held only until their parent is composed, and source rasters
+     * are shared through the producer's memory cache, which keeps memory bounded by the cache capacity plus the tiles
+     * in flight.
+     */
+    protected class TileTask extends java.util.concurrent.RecursiveTask<DataRaster>
+    {
+        protected final LevelSet levelSet;
+        protected final Tile tile;
+        protected final AVList params;
+
+        public TileTask(LevelSet levelSet, Tile tile, AVList params)
+        {
+            this.levelSet = levelSet;
+            this.tile = tile;
+            this.params = params;
+        }
+
+        protected DataRaster compute()
+        {
+            try
+            {
+                return this.createTileRaster();
+            }
+            catch (java.io.IOException e)
+            {
+                throw new java.io.UncheckedIOException(e);
+            }
+        }
+
+        protected DataRaster createTileRaster() throws java.io.IOException
+        {
+            // Exit if the caller has instructed us to stop production.
+            if (isStopped())
+                return null;
+
+            DataRaster tileRaster;
+
+            if (isFinalLevel(this.levelSet, this.tile.getLevelNumber(), this.params))
+            {
+                tileRaster = drawDataSources(this.levelSet, this.tile, dataRasterList, this.params);
+            }
+            else
+            {
+                Tile[] subTiles = createSubTiles(this.tile, this.levelSet.getLevel(this.tile.getLevelNumber() + 1));
+                TileTask[] subTasks = new TileTask[subTiles.length];
+                for (int index = 0; index < subTiles.length; index++)
+                {
+                    // If the sub-tile does not intersect the level set, then skip that sub-tile.
+                    if (subTiles[index].getSector().intersects(this.levelSet.getSector()))
+                    {
+                        subTasks[index] = new TileTask(this.levelSet, subTiles[index], this.params);
+                        subTasks[index].fork();
+                    }
+                }
+
+                DataRaster[] subRasters = new DataRaster[subTiles.length];
+                for (int index = subTasks.length - 1; index >= 0; index--)
+                {
+                    if (subTasks[index] != null)
+                        subRasters[index] = subTasks[index].join();
+                }
+
+                tileRaster = composeTileRaster(this.levelSet, this.tile, subTiles, subRasters, this.params);
+            }
+
+            updateProgress();
+
+            return tileRaster;
+        }
     }
 
     protected DataRaster createTileRaster(LevelSet levelSet, Tile tile, AVList params) throws java.io.IOException
@@ -593,6 +735,7 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
     protected DataRaster drawDataSources(LevelSet levelSet, Tile tile, Iterable<DataRaster> dataRasters, AVList params)
         throws java.io.IOException
     {
+        long startTime = System.nanoTime();
         DataRaster tileRaster = null;
 
         // Find the data sources that intersect this tile and intersect the LevelSet sector.
@@ -622,14 +765,13 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         //noinspection UnusedAssignment
         intersectingRasters = null;
 
+        this.recordTileProduction(tile, tileRaster, System.nanoTime() - startTime);
+
         return tileRaster;
     }
 
     protected DataRaster drawDescendants(LevelSet levelSet, Tile tile, AVList params) throws java.io.IOException
     {
-        DataRaster tileRaster = null;
-        boolean hasDescendants = false;
-
         // Recursively create sub-tile rasters.
         Tile[] subTiles = this.createSubTiles(tile, levelSet.getLevel(tile.getLevelNumber() + 1));
         DataRaster[] subRasters = new DataRaster[subTiles.length];
@@ -638,17 +780,40 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
             // If the sub-tile does not intersect the level set, then skip that sub-tile.
             if (subTiles[index].getSector().intersects(levelSet.getSector()))
             {
-                // Recursively create the sub-tile raster.
-                DataRaster subRaster = this.createTileRaster(levelSet, subTiles[index], params);
-                // If creating the sub-tile raster fails, then skip that sub-tile.
-                if (subRaster != null)
-                {
-                    subRasters[index] = subRaster;
-                    hasDescendants = true;
-                }
+                // Recursively create the sub-tile raster. If creating the sub-tile raster fails, then the sub-tile
+                // is skipped.
+                subRasters[index] = this.createTileRaster(levelSet, subTiles[index], params);
             }
         }
 
+        return this.composeTileRaster(levelSet, tile, subTiles, subRasters, params);
+    }
+
+    /**
+     * Renders a tile's sub-tile rasters into a new raster for the tile, then writes the sub-tile rasters to disk.
+     * Elements of <code>subRasters</code> are <code>null</code> for sub-tiles that have no data.
+     *
+     * @param levelSet   the level set being produced.
+     * @param tile       the tile to create a raster for.
+     * @param subTiles   the tile's sub-tiles.
+     * @param subRasters the sub-tile rasters, in the same order as <code>subTiles</code>.
+     * @param params     the production parameters.
+     *
+     * @return the tile's raster, or null if the tile has no data, its level is empty, or production has stopped.
+     */
+    protected DataRaster composeTileRaster(LevelSet levelSet, Tile tile, Tile[] subTiles, DataRaster[] subRasters,
+        AVList params)
+    {
+        long startTime = System.nanoTime();
+        DataRaster tileRaster = null;
+        boolean hasDescendants = false;
+
+        for (DataRaster subRaster : subRasters)
+        {
+            if (subRaster != null)
+                hasDescendants = true;
+        }
+
         // Exit if the caller has instructed us to stop production.
         if (this.isStopped())
             return null;
@@ -682,6 +847,8 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
                 this.installTileRasterLater(levelSet, subTiles[index], subRasters[index], params);
         }
 
+        this.recordTileProduction(tile, tileRaster, System.nanoTime() - startTime);
+
         return tileRaster;
     }
 
@@ -1257,8 +1424,50 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
 
     protected void updateProgress()
     {
-        double oldProgress = this.tile / (double) this.tileCount;
-        double newProgress = ++this.tile / (double) this.tileCount;
+        double oldProgress;
+        double newProgress;
+
+        // Tiles may complete concurrently when the pyramid is built in parallel.
+        synchronized (this.progressLock)
+        {
+            oldProgress = this.tile / (double) this.tileCount;
+            newProgress = ++this.tile / (double) this.tileCount;
+        }
+
         this.firePropertyChange(AVKey.PROGRESS, oldProgress, newProgress);
     }
+
+    protected void recordTileProduction(Tile tile, DataRaster tileRaster, long nanos)
+    {
+        if (tileRaster == null || this.levelTileCounts == null)
+            return;
+
+        this.levelTileCounts.incrementAndGet(tile.getLevelNumber());
+        this.levelTileNanos.addAndGet(tile.getLevelNumber(), nanos);
+    }
+
+    /**
+     * Logs the number of tiles created at each level, and the rate they were created at. Rates are computed from the
+     * time spent creating each tile, summed over all production threads, so they're comparable between sequential
+     * and parallel production.
+     *
+     * @param levelSet the level set that was produced.
+     */
+    protected void logLevelThroughput(LevelSet levelSet)
+    {
+        if (this.levelTileCounts == null || !Logging.logger().isLoggable(java.util.logging.Level.FINE))
+            return;
+
+        for (int i = 0; i < this.levelTileCounts.length(); i++)
+        {
+            long count = this.levelTileCounts.get(i);
+            if (count == 0)
+                continue;
+
+            double millis = this.levelTileNanos.get(i) / 1.0e6;
+            double tilesPerSecond = (millis > 0) ? 1000d * count / millis : 0d;
+            Logging.logger().fine(Logging.getMessage("TiledRasterProducer.LevelThroughput",
+                levelSet.getLevel(i).getLevelNumber(), count, millis, tilesPerSecond));
+        }
+    }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.formats.dds;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.*;
+
+/**
+ * Compresses the rows of 4x4 blocks of an image in parallel on the common fork/join pool. The rows are divided among
+ * tasks of at least {@link #MIN_BLOCK_ROWS} rows, and each task writes its blocks to its own region of the destination
+ * buffer, so the output is identical to compressing the rows in order on one thread. Each task allocates its scratch
+ * state once and reuses it for every block in its rows.
+ */
+class BlockRowCompression
+{
+    /** Compresses a range of block rows into a buffer, starting at the buffer's current position. */
+    interface BlockRowCompressor
+    {
+        /**
+         * Compresses a range of block rows. Implementations allocate any scratch state they need once per call.
+         *
+         * @param firstRow the first block row to compress.
+         * @param lastRow  one past the last block row to compress.
+         * @param buffer   the buffer that receives the compressed blocks.
+         */
+        void compressBlockRows(int firstRow, int lastRow, ByteBuffer buffer);
+    }
+
+    /** The fewest block rows compressed by one task. */
+    protected static final int MIN_BLOCK_ROWS = 8;
+
+    /**
+     * Compresses all block rows of an image into a buffer, starting at the buffer's current position, and advances the
+     * buffer's position past the compressed blocks.
+     *
+     * @param compressor   the compressor of block rows.
+     * @param numBlockRows the number of block rows in the image.
+     * @param blockRowSize the compressed size of one block row, in bytes.
+     * @param parallel     true to compress the rows in parallel, false to compress them on the calling thread.
+     * @param buffer       the buffer that receives the compressed blocks.
+     */
+    static void compress(BlockRowCompressor compressor, int numBlockRows, int blockRowSize, boolean parallel,
+        ByteBuffer buffer)
+    {
+        if (!parallel || numBlockRows < 2 * MIN_BLOCK_ROWS)
+        {
+            compressor.compressBlockRows(0, numBlockRows, buffer);
+            return;
+        }
+
+        int position = buffer.position();
+        ForkJoinPool.commonPool().invoke(new CompressAction(compressor, 0, numBlockRows, blockRowSize, position,
+            buffer));
+        buffer.position(position + numBlockRows * blockRowSize);
+    }
+
+    protected static class CompressAction extends RecursiveAction
+    {
+        protected final BlockRowCompressor compressor;
+        protected final int firstRow;
+        protected final int lastRow;
+        protected final int blockRowSize;
+        protected final int basePosition;
+        protected final ByteBuffer buffer;
+
+        public CompressAction(BlockRowCompressor compressor, int firstRow, int lastRow, int blockRowSize,
+            int basePosition, ByteBuffer buffer)
+        {
+            this.compressor = compressor;
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+            this.blockRowSize = blockRowSize;
+            this.basePosition = basePosition;
+            this.buffer = buffer;
+        }
+
+        protected void compute()
+        {
+            int numRows = this.lastRow - this.firstRow;
+            if (numRows >= 2 * MIN_BLOCK_ROWS)
+            {
+                int midRow = this.firstRow + numRows / 2;
+                invokeAll(
+                    new CompressAction(this.compressor, this.firstRow, midRow, this.blockRowSize, this.basePosition,
+                        this.buffer),
+                    new CompressAction(this.compressor, midRow, this.lastRow, this.blockRowSize, this.basePosition,
+                        this.buffer));
+                return;
+            }
+
+            // Each task writes through its own view of the shared buffer. Views don't inherit the byte order.
+            ByteBuffer view = this.buffer.duplicate().order(this.buffer.order());
+            view.position(this.basePosition + this.firstRow * this.blockRowSize);
+            this.compressor.compressBlockRows(this.firstRow, this.lastRow, view);
+        }
+    }
+}
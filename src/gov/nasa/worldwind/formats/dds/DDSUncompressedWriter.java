@@ -0,0 +1,128 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.formats.dds;
+
+import com.jogamp.opengl.util.texture.spi.DDSImage;
+import gov.nasa.worldwind.util.*;
+
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes images as uncompressed DDS files, which the JOGL DDS texture reader loads into texture data by mapping the
+ * file, without decoding any pixels. Images with alpha are written as 32 bit RGBA, and opaque images as 24 bit RGB.
+ * Unlike {@link DDSCompressor}, the pixels are stored losslessly and are not premultiplied by alpha, so the texture
+ * data read from the file matches that read from the original image.
+ */
+public class DDSUncompressedWriter
+{
+    public DDSUncompressedWriter()
+    {
+    }
+
+    /**
+     * Writes the specified <code>image</code> to an uncompressed DDS file, optionally including a chain of mipmap
+     * images. The pixels are written in the byte order that the JOGL DDS reader passes to OpenGL: RGBA for images with
+     * alpha and RGB for opaque images, with the top row first.
+     *
+     * @param image        the image to write.
+     * @param buildMipmaps true to write a chain of mipmap images following the image, otherwise false.
+     * @param file         the file to write.
+     *
+     * @throws IllegalArgumentException if either <code>image</code> or <code>file</code> is null.
+     * @throws IOException              if an error occurs while writing the file.
+     */
+    public void write(BufferedImage image, boolean buildMipmaps, File file) throws IOException
+    {
+        if (image == null)
+        {
+            String message = Logging.getMessage("nullValue.ImageIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (file == null)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        boolean hasAlpha = image.getColorModel().hasAlpha();
+        BufferedImage[] levels = buildMipmaps ? this.buildMipMaps(image) : new BufferedImage[] {image};
+
+        ByteBuffer[] levelBuffers = new ByteBuffer[levels.length];
+        for (int i = 0; i < levels.length; i++)
+        {
+            levelBuffers[i] = getPixels(levels[i], hasAlpha);
+        }
+
+        DDSImage ddsImage = DDSImage.createFromData(hasAlpha ? DDSImage.D3DFMT_A8R8G8B8 : DDSImage.D3DFMT_R8G8B8,
+            image.getWidth(), image.getHeight(), levelBuffers);
+        ddsImage.write(file);
+    }
+
+    protected BufferedImage[] buildMipMaps(BufferedImage image)
+    {
+        // Build the mipmap chain using a premultiplied alpha image format, for the reasons described in
+        // DDSCompressor.buildMipMaps. The pixels are read back with getRGB, which returns colors that are not
+        // premultiplied.
+        int maxLevel = ImageUtil.getMaxMipmapLevel(image.getWidth(), image.getHeight());
+
+        BufferedImage[] levels = ImageUtil.buildMipmaps(image, BufferedImage.TYPE_INT_ARGB_PRE, maxLevel);
+        levels[0] = image; // read the first level directly from the image rather than from a converted copy
+
+        return levels;
+    }
+
+    protected static ByteBuffer getPixels(BufferedImage image, boolean hasAlpha)
+    {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        ByteBuffer buffer = ByteBuffer.allocate(width * height * (hasAlpha ? 4 : 3));
+
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++)
+        {
+            image.getRGB(0, y, width, 1, row, 0, width);
+
+            for (int x = 0; x < width; x++)
+            {
+                int argb = row[x];
+                buffer.put((byte) (argb >> 16));
+                buffer.put((byte) (argb >> 8));
+                buffer.put((byte) argb);
+                if (hasAlpha)
+                    buffer.put((byte) (argb >>> 24));
+            }
+        }
+
+        buffer.rewind();
+        return buffer;
+    }
+}
@@ -89,6 +89,34 @@ public class DXT3Compressor implements DXTCompressor
             throw new IllegalArgumentException(message);
         }
 
+        final java.awt.image.BufferedImage compressImage = image;
+        final DXTCompressionAttributes compressAttributes = attributes;
+        int numBlockRows = (image.getHeight() + 3) / 4;
+        int blockRowSize = 16 * ((image.getWidth() + 3) / 4);
+
+        BlockRowCompression.compress(new BlockRowCompression.BlockRowCompressor()
+        {
+            public void compressBlockRows(int firstRow, int lastRow, java.nio.ByteBuffer buffer)
+            {
+                compressBlockRowsDXT3(compressImage, compressAttributes, firstRow, lastRow, buffer);
+            }
+        }, numBlockRows, blockRowSize, attributes.isEnableParallelCompression(), buffer);
+    }
+
+    /**
+     * Compresses a range of rows of 4x4 blocks of an image, writing the compressed blocks to the buffer at its current
+     * position. The scratch state used to compress each block is allocated once per call. This method may be called
+     * concurrently for disjoint row ranges, provided each call writes to its own view of the buffer.
+     *
+     * @param image      the image to compress.
+     * @param attributes the attributes that may affect the compression.
+     * @param firstRow   the first block row to compress.
+     * @param lastRow    one past the last block row to compress.
+     * @param buffer     the buffer that will receive the compressed output.
+     */
+    protected void compressBlockRowsDXT3(java.awt.image.BufferedImage image, DXTCompressionAttributes attributes,
+        int firstRow, int lastRow, java.nio.ByteBuffer buffer)
+    {
         ColorBlock4x4 colorBlock = new ColorBlock4x4();
         ColorBlockExtractor colorBlockExtractor = this.getColorBlockExtractor(image);
 
@@ -96,9 +124,9 @@ public class DXT3Compressor implements DXTCompressor
         BlockDXT3Compressor dxt3Compressor = new BlockDXT3Compressor();
 
         int width = image.getWidth();
-        int height = image.getHeight();
+        int height = Math.min(image.getHeight(), 4 * lastRow);
 
-        for (int j = 0; j < height; j += 4)
+        for (int j = 4 * firstRow; j < height; j += 4)
         {
             for (int i = 0; i < width; i += 4)
             {
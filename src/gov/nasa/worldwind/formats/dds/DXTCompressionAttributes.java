@@ -43,6 +43,7 @@ public class DXTCompressionAttributes
     private boolean enableDXT1Alpha;
     private int dxt1AlphaThreshold;
     private String colorBlockCompressionType;
+    private boolean enableParallelCompression;
 
     protected static final int DEFAULT_DXT1_TRANSPARENCY_THRESHOLD = 128;
 
@@ -54,6 +55,7 @@ public class DXTCompressionAttributes
         this.enableDXT1Alpha = false;
         this.dxt1AlphaThreshold = DEFAULT_DXT1_TRANSPARENCY_THRESHOLD;
         this.colorBlockCompressionType = COLOR_BLOCK_COMPRESSION_EUCLIDEAN_DISTANCE;
+        this.enableParallelCompression = true;
     }
 
     public boolean isBuildMipmaps()
@@ -115,4 +117,20 @@ public class DXTCompressionAttributes
     {
         this.colorBlockCompressionType = compressionType;
     }
+
+    /**
+     * Indicates whether the DXT compressors compress rows of blocks in parallel on the common fork/join pool. The
+     * compressed output is the same either way. Small images are always compressed on the calling thread.
+     *
+     * @return true if parallel compression is enabled, otherwise false.
+     */
+    public boolean isEnableParallelCompression()
+    {
+        return this.enableParallelCompression;
+    }
+
+    public void setEnableParallelCompression(boolean enable)
+    {
+        this.enableParallelCompression = enable;
+    }
 }
@@ -0,0 +1,564 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.formats.geojson;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.formats.json.*;
+import gov.nasa.worldwind.util.*;
+import org.codehaus.jackson.*;
+
+import java.io.*;
+import java.nio.DoubleBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reads the features of a GeoJSON document one at a time, without building the document's object tree. Where {@link
+ * GeoJSONDoc} holds every feature and every coordinate in memory before returning, this reader hands each feature of a
+ * FeatureCollection's <code>features</code> array to a {@link GeoJSONFeatureVisitor} as soon as it is parsed, and then
+ * discards it. Feature coordinates are parsed into a primitive buffer that is reused for the next feature, so memory use
+ * is bounded by the largest feature rather than by the size of the document.
+ * <p>
+ * Features may also be read in parallel. The calling thread then scans the document for the boundaries of each feature
+ * without parsing it, and hands batches of features to worker threads that parse and visit them concurrently. The
+ * number of batches in flight is bounded, so memory use remains independent of the document's size.
+ * <p>
+ * A document whose root is a single Feature is visited as one feature.
+ *
+ * @see GeoJSONDoc
+ */
+public class GeoJSONFeatureReader implements Closeable
+{
+    protected static final int INITIAL_COORDINATE_CAPACITY = 4096;
+    protected static final int DEFAULT_BATCH_SIZE = 1 << 20; // 1 MB of feature text per parallel batch.
+    protected static final int READ_BUFFER_SIZE = 1 << 16;
+    protected static final byte[] FEATURES_KEY = GeoJSONConstants.FIELD_FEATURES.getBytes(StandardCharsets.US_ASCII);
+
+    protected InputStream stream;
+    protected String displayName;
+    protected AVList collectionFields;
+    protected int batchSize = DEFAULT_BATCH_SIZE;
+
+    public GeoJSONFeatureReader(Object source)
+    {
+        if (WWUtil.isEmpty(source))
+        {
+            String message = Logging.getMessage("nullValue.SourceIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        try
+        {
+            this.displayName = WWIO.getSourcePath(source);
+            this.stream = WWIO.openStream(source);
+        }
+        catch (Exception e)
+        {
+            String message = Logging.getMessage("generic.ExceptionWhileReading", this.displayName);
+            Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+            throw new WWRuntimeException(message, e);
+        }
+    }
+
+    /**
+     * Returns the fields of the document's root object other than its <code>features</code> array, such as its
+     * <code>type</code>, <code>bbox</code> or <code>crs</code>. This is available after features have been read in
+     * sequence, and after a document whose root is a single Feature has been read in parallel. It is null after the
+     * features of a FeatureCollection have been read in parallel.
+     *
+     * @return the root object's fields, or null if they have not been read.
+     */
+    public AVList getCollectionFields()
+    {
+        return this.collectionFields;
+    }
+
+    /**
+     * Reads the document's features in order on the calling thread, passing each to the specified visitor.
+     *
+     * @param visitor the visitor to pass features to.
+     *
+     * @throws IOException if an exception occurs while reading the document.
+     */
+    public void readFeatures(GeoJSONFeatureVisitor visitor) throws IOException
+    {
+        this.readFeatures(1, visitor);
+    }
+
+    /**
+     * Reads the document's features, passing each to the specified visitor. When <code>parallelism</code> is greater
+     * than one, features are parsed and visited concurrently on that many threads, in no particular order.
+     *
+     * @param parallelism the number of threads to parse features with.
+     * @param visitor     the visitor to pass features to.
+     *
+     * @throws IllegalArgumentException if the visitor is null or the parallelism is less than one.
+     * @throws IOException              if an exception occurs while reading the document.
+     */
+    public void readFeatures(int parallelism, GeoJSONFeatureVisitor visitor) throws IOException
+    {
+        if (visitor == null)
+        {
+            String message = Logging.getMessage("nullValue.VisitorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (parallelism < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "parallelism=" + parallelism);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.stream == null)
+        {
+            Logging.logger().warning(Logging.getMessage("generic.ParserUninitialized", this.displayName));
+            return;
+        }
+
+        if (parallelism > 1)
+            this.readFeaturesInParallel(parallelism, visitor);
+        else
+            this.readFeaturesInSequence(visitor);
+    }
+
+    public void close()
+    {
+        if (this.stream != null)
+        {
+            WWIO.closeStream(this.stream, this.displayName);
+            this.stream = null;
+        }
+    }
+
+    protected JSONEventParserContext createEventParserContext(JsonParser parser,
+        ReusableCoordinateParser coordinateParser) throws IOException
+    {
+        GeoJSONEventParserContext ctx = new GeoJSONEventParserContext(parser);
+        ctx.registerParser(GeoJSONConstants.FIELD_COORDINATES, coordinateParser);
+        return ctx;
+    }
+
+    //**************************************************************//
+    //********************  Sequential Reading  ********************//
+    //**************************************************************//
+
+    protected void readFeaturesInSequence(GeoJSONFeatureVisitor visitor) throws IOException
+    {
+        this.readFeaturesInSequence(this.stream, visitor);
+    }
+
+    protected void readFeaturesInSequence(InputStream stream, GeoJSONFeatureVisitor visitor) throws IOException
+    {
+        JsonParser parser = new JsonFactory().createJsonParser(stream);
+        ReusableCoordinateParser coordinateParser = new ReusableCoordinateParser();
+        JSONEventParserContext ctx = this.createEventParserContext(parser, coordinateParser);
+
+        if (!ctx.hasNext())
+            return;
+
+        JSONEvent event = ctx.nextEvent();
+        if (!event.isStartObject())
+        {
+            Logging.logger().warning(Logging.getMessage("generic.UnexpectedEvent", event));
+            return;
+        }
+
+        AVList fields = new AVListImpl();
+        boolean hasFeatures = false;
+
+        for (event = ctx.nextEvent(); ctx.hasNext(); event = ctx.nextEvent())
+        {
+            if (event == null)
+                continue;
+
+            if (event.isEndObject())
+                break;
+
+            if (!event.isFieldName())
+            {
+                Logging.logger().warning(Logging.getMessage("generic.UnexpectedEvent", event));
+                continue;
+            }
+
+            String name = event.getFieldName();
+            JSONEvent valueEvent = ctx.nextEvent();
+
+            if (GeoJSONConstants.FIELD_FEATURES.equals(name) && valueEvent.isStartArray())
+            {
+                // Stream the features array instead of collecting it.
+                this.readFeatureArray(ctx, valueEvent, coordinateParser, visitor);
+                hasFeatures = true;
+            }
+            else
+            {
+                ctx.pushFieldName(name);
+                fields.setValue(name, this.parseValue(ctx, valueEvent));
+                ctx.popFieldName();
+            }
+        }
+
+        this.collectionFields = fields;
+
+        // A document whose root is a single Feature has no features array. Visit the root itself.
+        if (!hasFeatures && GeoJSONConstants.TYPE_FEATURE.equals(fields.getValue(GeoJSONConstants.FIELD_TYPE)))
+            visitor.visitFeature(new GeoJSONFeature(fields));
+    }
+
+    /**
+     * Reads a features array, passing each feature to the visitor as soon as it has been parsed. The context is
+     * assumed to be positioned just after the array's start event, and is positioned just after the array's end event
+     * when this returns.
+     *
+     * @param ctx              the parser context.
+     * @param event            the array's start event.
+     * @param coordinateParser the context's coordinate parser, reset before each feature.
+     * @param visitor          the visitor to pass features to.
+     *
+     * @throws IOException if an exception occurs while reading the array.
+     */
+    protected void readFeatureArray(JSONEventParserContext ctx, JSONEvent event,
+        ReusableCoordinateParser coordinateParser, GeoJSONFeatureVisitor visitor) throws IOException
+    {
+        if (!event.isStartArray())
+        {
+            String message = Logging.getMessage("generic.InvalidEvent", event);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        for (event = ctx.nextEvent(); ctx.hasNext(); event = ctx.nextEvent())
+        {
+            if (event == null)
+                continue;
+
+            if (event.isEndArray())
+                break;
+
+            // The previous feature has been visited, so its coordinates can be overwritten.
+            coordinateParser.reset();
+
+            Object o = this.parseValue(ctx, event);
+            if (o instanceof GeoJSONFeature)
+                visitor.visitFeature((GeoJSONFeature) o);
+            else
+                Logging.logger().warning(Logging.getMessage("generic.UnexpectedObjectType", o));
+        }
+    }
+
+    protected Object parseValue(JSONEventParserContext ctx, JSONEvent event) throws IOException
+    {
+        if (event.isStartObject() || event.isStartArray())
+        {
+            JSONEventParser parser = ctx.allocate(event);
+            if (parser == null)
+                parser = ctx.getUnrecognizedParser();
+
+            return parser.parse(ctx, event);
+        }
+        else if (event.isScalarValue())
+        {
+            return event.asScalarValue();
+        }
+        else
+        {
+            Logging.logger().warning(Logging.getMessage("generic.UnexpectedEvent", event));
+            return null;
+        }
+    }
+
+    //**************************************************************//
+    //********************  Parallel Reading  **********************//
+    //**************************************************************//
+
+    /**
+     * Reads the document's features on a pool of threads. The calling thread scans the raw document for the root
+     * object's <code>features</code> array, tracking only nesting depth and string boundaries, and copies the text of
+     * each feature into a batch. Full batches are parsed by the pool as JSON arrays of features.
+     * <p>
+     * Until the <code>features</code> array is found, the root object's text is retained. If the document has no
+     * features array, such as when its root is a single Feature, the retained text is read in sequence instead.
+     *
+     * @param parallelism the number of threads to parse features with.
+     * @param visitor     the visitor to pass features to.
+     *
+     * @throws IOException if an exception occurs while reading the document.
+     */
+    protected void readFeaturesInParallel(int parallelism, final GeoJSONFeatureVisitor visitor) throws IOException
+    {
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        final ThreadLocal<ReusableCoordinateParser> coordinateParsers =
+            ThreadLocal.withInitial(ReusableCoordinateParser::new);
+        // Bound the number of batches waiting to be parsed, which bounds memory use.
+        final Semaphore permits = new Semaphore(2 * parallelism);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+
+        try
+        {
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
+            byte[] key = new byte[FEATURES_KEY.length];
+            int keyLength = 0;
+            boolean keyCapture = false, keyIsFeatures = false, keyOverflow = false;
+            boolean inString = false, escape = false;
+            boolean inFeatures = false, inFeature = false;
+            int depth = 0;
+            FeatureBatch batch = new FeatureBatch(this.batchSize);
+            // The document's text, retained until the features array is found. Released once it's found.
+            ByteArrayOutputStream rootText = new ByteArrayOutputStream();
+
+            int n;
+            while ((n = this.stream.read(buffer)) > 0 && failure.get() == null)
+            {
+                for (int i = 0; i < n; i++)
+                {
+                    byte b = buffer[i];
+
+                    if (inFeature)
+                        batch.append(b);
+
+                    if (inString)
+                    {
+                        if (escape)
+                        {
+                            escape = false;
+                        }
+                        else if (b == '\\')
+                        {
+                            escape = true;
+                        }
+                        else if (b == '"')
+                        {
+                            inString = false;
+                            keyCapture = false;
+                        }
+                        else if (keyCapture)
+                        {
+                            if (keyLength < key.length)
+                                key[keyLength++] = b;
+                            else
+                                keyOverflow = true;
+                        }
+                        continue;
+                    }
+
+                    if (b == '"')
+                    {
+                        inString = true;
+                        if (depth == 1)
+                        {
+                            // Capture strings in the root object, one of which may be the features key.
+                            keyCapture = true;
+                            keyLength = 0;
+                            keyOverflow = false;
+                        }
+                    }
+                    else if (b == ':' && depth == 1)
+                    {
+                        keyIsFeatures = !keyOverflow && keyLength == FEATURES_KEY.length
+                            && java.util.Arrays.equals(key, FEATURES_KEY);
+                    }
+                    else if (b == ',' && depth == 1)
+                    {
+                        keyIsFeatures = false;
+                    }
+                    else if (b == '{' || b == '[')
+                    {
+                        if (depth == 1 && b == '[' && keyIsFeatures)
+                        {
+                            inFeatures = true;
+                            rootText = null;
+                        }
+                        else if (inFeatures && depth == 2 && b == '{')
+                        {
+                            inFeature = true;
+                            batch.beginFeature();
+                            batch.append(b);
+                        }
+                        depth++;
+                    }
+                    else if (b == '}' || b == ']')
+                    {
+                        depth--;
+                        if (inFeature && depth == 2)
+                        {
+                            inFeature = false;
+                            if (batch.length >= this.batchSize)
+                            {
+                                this.submitBatch(executor, permits, batch, coordinateParsers, visitor, failure);
+                                batch = new FeatureBatch(this.batchSize);
+                            }
+                        }
+                        else if (inFeatures && depth == 1)
+                        {
+                            inFeatures = false;
+                            keyIsFeatures = false;
+                        }
+                    }
+                }
+
+                if (rootText != null)
+                    rootText.write(buffer, 0, n);
+            }
+
+            if (batch.numFeatures > 0 && failure.get() == null)
+                this.submitBatch(executor, permits, batch, coordinateParsers, visitor, failure);
+            else if (rootText != null && failure.get() == null)
+                this.readFeaturesInSequence(new ByteArrayInputStream(rootText.toByteArray()), visitor);
+        }
+        finally
+        {
+            executor.shutdown();
+            try
+            {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        Exception e = failure.get();
+        if (e instanceof IOException)
+            throw (IOException) e;
+        else if (e instanceof RuntimeException)
+            throw (RuntimeException) e;
+        else if (e != null)
+            throw new IOException(e);
+    }
+
+    protected void submitBatch(ExecutorService executor, final Semaphore permits, final FeatureBatch batch,
+        final ThreadLocal<ReusableCoordinateParser> coordinateParsers, final GeoJSONFeatureVisitor visitor,
+        final AtomicReference<Exception> failure) throws IOException
+    {
+        batch.finish();
+
+        try
+        {
+            permits.acquire();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+
+        executor.execute(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    if (failure.get() == null)
+                        parseBatch(batch, coordinateParsers.get(), visitor);
+                }
+                catch (Exception e)
+                {
+                    failure.compareAndSet(null, e);
+                }
+                finally
+                {
+                    permits.release();
+                }
+            }
+        });
+    }
+
+    protected void parseBatch(FeatureBatch batch, ReusableCoordinateParser coordinateParser,
+        GeoJSONFeatureVisitor visitor) throws IOException
+    {
+        JsonParser parser = new JsonFactory().createJsonParser(batch.bytes, 0, batch.length);
+        try
+        {
+            JSONEventParserContext ctx = this.createEventParserContext(parser, coordinateParser);
+            if (ctx.hasNext())
+                this.readFeatureArray(ctx, ctx.nextEvent(), coordinateParser, visitor);
+        }
+        finally
+        {
+            parser.close();
+        }
+    }
+
+    /** The text of consecutive features, accumulated as a JSON array. */
+    protected static class FeatureBatch
+    {
+        protected byte[] bytes;
+        protected int length;
+        protected int numFeatures;
+
+        public FeatureBatch(int capacity)
+        {
+            this.bytes = new byte[capacity + 1024];
+            this.bytes[this.length++] = '[';
+        }
+
+        public void beginFeature()
+        {
+            if (this.numFeatures++ > 0)
+                this.append((byte) ',');
+        }
+
+        public void append(byte b)
+        {
+            if (this.length == this.bytes.length)
+                this.bytes = java.util.Arrays.copyOf(this.bytes, 2 * this.bytes.length);
+
+            this.bytes[this.length++] = b;
+        }
+
+        public void finish()
+        {
+            this.append((byte) ']');
+        }
+    }
+
+    /**
+     * A coordinate parser that stores coordinates in a heap buffer backed by a primitive array, and that can be reset
+     * to reuse that buffer for the next feature. The buffer grows to fit the largest feature read and then stays that
+     * size.
+     */
+    protected static class ReusableCoordinateParser extends GeoJSONCoordinateParser
+    {
+        public void reset()
+        {
+            if (this.posBuffer != null)
+                this.posBuffer.clear();
+        }
+
+        @Override
+        protected DoubleBuffer allocatePositionBuffer(int capacity)
+        {
+            return DoubleBuffer.allocate(Math.max(capacity, INITIAL_COORDINATE_CAPACITY));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.formats.geojson;
+
+/**
+ * Receives features from a {@link GeoJSONFeatureReader}, one at a time. The coordinates of each feature's geometry are
+ * held in a buffer that the reader reuses for the next feature, so a feature's {@link GeoJSONPositionArray}s are valid
+ * only until {@link #visitFeature(GeoJSONFeature)} returns. Implementations must copy any positions they need to keep.
+ * <p>
+ * When features are read in parallel, <code>visitFeature</code> is called concurrently from multiple threads and in no
+ * particular order.
+ */
+public interface GeoJSONFeatureVisitor
+{
+    /**
+     * Called once for each feature read.
+     *
+     * @param feature the feature, whose coordinates are valid only until this method returns.
+     */
+    void visitFeature(GeoJSONFeature feature);
+}
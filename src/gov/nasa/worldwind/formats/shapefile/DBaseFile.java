@@ -65,10 +65,15 @@ public class DBaseFile extends AVListImpl
     protected Header header;
     protected DBaseField[] fields;
     // Source streams and read parameters.
+    protected File file;
     protected ReadableByteChannel channel;
     protected boolean open;
     protected int numRecordsRead;
     protected ByteBuffer recordBuffer;
+    // Field offsets within a record, computed on first use by getFieldOffset.
+    protected int[] fieldOffsets;
+    // Memory mapped records, created on first use by readRecord.
+    protected ByteBuffer mappedRecords;
 
     public DBaseFile(Object source)
     {
@@ -160,6 +165,34 @@ public class DBaseFile extends AVListImpl
         return this.fields;
     }
 
+    /**
+     * Returns the index of the field with the specified name, or -1 if this file has no such field. Field names are
+     * compared without regard to case.
+     *
+     * @param name the field name.
+     *
+     * @return the field's index in the array returned by {@link #getFields()}, or -1 if the field does not exist.
+     *
+     * @throws IllegalArgumentException if the name is null.
+     */
+    public int getFieldIndex(String name)
+    {
+        if (name == null)
+        {
+            String message = Logging.getMessage("nullValue.StringIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        for (int i = 0; i < this.fields.length; i++)
+        {
+            if (name.equalsIgnoreCase(this.fields[i].getName()))
+                return i;
+        }
+
+        return -1;
+    }
+
     public boolean hasNext()
     {
         return this.open && this.numRecordsRead < this.header.numberOfRecords;
@@ -204,6 +237,7 @@ public class DBaseFile extends AVListImpl
 
         this.open = false;
         this.recordBuffer = null;
+        this.mappedRecords = null;
     }
 
     //**************************************************************//
@@ -219,6 +253,8 @@ public class DBaseFile extends AVListImpl
             throw new FileNotFoundException(message);
         }
 
+        this.file = file;
+
         // DBase record reading performs about 200% better when the FileInputStream is wrapped in a BufferedInputStream.
         this.channel = Channels.newChannel(WWIO.getBufferedInputStream(new FileInputStream(file)));
         this.initialize();
@@ -446,6 +482,23 @@ public class DBaseFile extends AVListImpl
      * @throws IOException if the record cannot be read for any reason.
      */
     protected DBaseRecord readNextRecord() throws IOException
+    {
+        ByteBuffer buffer = this.readNextRecordBuffer();
+
+        // Create a record object from the record buffer.
+        return this.readRecordFromBuffer(buffer, this.numRecordsRead);
+    }
+
+    /**
+     * Reads the next record's raw content from this DBaseFile without decoding any of its fields. The returned buffer
+     * is reused by subsequent calls, and its position is set to the start of the record's deleted flag. This file is
+     * assumed to have one or more remaining records available.
+     *
+     * @return a buffer containing the record content.
+     *
+     * @throws IOException if the record cannot be read for any reason.
+     */
+    protected ByteBuffer readNextRecordBuffer() throws IOException
     {
         // Allocate a buffer to hold the record content.
         if (this.recordBuffer == null)
@@ -455,9 +508,144 @@ public class DBaseFile extends AVListImpl
         this.recordBuffer.limit(this.getRecordLength());
         this.recordBuffer.rewind();
         WWIO.readChannelToBuffer(this.channel, this.recordBuffer);
+        this.numRecordsRead++;
 
-        // Create a record object from the record buffer.
-        return this.readRecordFromBuffer(this.recordBuffer, ++this.numRecordsRead);
+        return this.recordBuffer;
+    }
+
+    /**
+     * Maps the record section of this DBaseFile into memory. Record <code>i</code> starts at byte <code>i *
+     * getRecordLength()</code> of the returned buffer. This returns null if this DBaseFile was not read from a file.
+     *
+     * @return a read-only buffer mapping this file's records, or null if the file cannot be mapped.
+     *
+     * @throws IOException if the file cannot be mapped for any reason.
+     */
+    protected ByteBuffer mapRecords() throws IOException
+    {
+        if (this.file == null)
+            return null;
+
+        long size = (long) this.getNumberOfRecords() * this.getRecordLength();
+        if (this.getHeaderLength() + size > this.file.length())
+            return null;
+
+        try (FileInputStream fis = new FileInputStream(this.file))
+        {
+            return fis.getChannel().map(FileChannel.MapMode.READ_ONLY, this.getHeaderLength(), size);
+        }
+    }
+
+    /**
+     * Reads the record at the specified index without disturbing sequential reading with {@link #nextRecord()}. This
+     * returns null if this DBaseFile's records cannot be memory mapped.
+     *
+     * @param recordIndex the record's zero-based index.
+     *
+     * @return a new {@link DBaseRecord} instance, or null if random access is not available.
+     *
+     * @throws IOException if the file cannot be mapped for any reason.
+     */
+    protected DBaseRecord readRecord(int recordIndex) throws IOException
+    {
+        if (this.mappedRecords == null)
+            this.mappedRecords = this.mapRecords();
+
+        if (this.mappedRecords == null)
+            return null;
+
+        ByteBuffer buffer = this.mappedRecords.duplicate();
+        buffer.position(recordIndex * this.getRecordLength());
+        buffer.limit(buffer.position() + this.getRecordLength());
+
+        return this.readRecordFromBuffer(buffer, recordIndex + 1);
+    }
+
+    /**
+     * Returns the offset of the specified field from the start of a record. The first field follows the record's one
+     * byte deleted flag.
+     *
+     * @param fieldIndex the field's index in the array returned by {@link #getFields()}.
+     *
+     * @return the field's byte offset within a record.
+     */
+    protected int getFieldOffset(int fieldIndex)
+    {
+        if (this.fieldOffsets == null)
+        {
+            int[] offsets = new int[this.fields.length];
+            int offset = 1; // Skip the deleted flag.
+            for (int i = 0; i < this.fields.length; i++)
+            {
+                offsets[i] = offset;
+                offset += this.fields[i].getLength();
+            }
+            this.fieldOffsets = offsets;
+        }
+
+        return this.fieldOffsets[fieldIndex];
+    }
+
+    /**
+     * Returns the length of this file's longest field. This is the size of the scratch array needed by {@link
+     * #readFieldValue(java.nio.ByteBuffer, int, int, byte[])}.
+     *
+     * @return the maximum field length, in bytes.
+     */
+    protected int getMaxFieldLength()
+    {
+        int maxFieldLength = 0;
+        for (DBaseField field : this.fields)
+        {
+            if (maxFieldLength < field.getLength())
+                maxFieldLength = field.getLength();
+        }
+
+        return maxFieldLength;
+    }
+
+    /**
+     * Decodes a single field value from a record held in the specified buffer, leaving the remaining fields
+     * untouched. The buffer is read with absolute gets, so its position is not modified and the buffer may be shared
+     * between threads. The value is parsed the same way as {@link DBaseRecord} parses it.
+     *
+     * @param buffer      the buffer containing the record.
+     * @param recordStart the position of the record's deleted flag in the buffer.
+     * @param fieldIndex  the field's index in the array returned by {@link #getFields()}.
+     * @param bytes       a scratch array at least {@link #getMaxFieldLength()} bytes long.
+     *
+     * @return the field's value, or null if the value is empty or cannot be parsed.
+     */
+    protected Object readFieldValue(ByteBuffer buffer, int recordStart, int fieldIndex, byte[] bytes)
+    {
+        DBaseField field = this.fields[fieldIndex];
+        int offset = recordStart + this.getFieldOffset(fieldIndex);
+
+        int length;
+        for (length = 0; length < field.getLength(); length++)
+        {
+            byte b = buffer.get(offset + length);
+            if (b == 0)
+                break;
+            bytes[length] = b;
+        }
+
+        if (this.isStringEmpty(bytes, length))
+            return null;
+
+        String value = this.decodeString(bytes, length).trim();
+
+        try
+        {
+            return DBaseRecord.parseFieldValue(field, value);
+        }
+        catch (Exception e)
+        {
+            // Log warning but keep reading.
+            Logging.logger().log(java.util.logging.Level.WARNING,
+                Logging.getMessage("SHP.FieldParsingError", field, value), e);
+            return null;
+        }
     }
 
     /**
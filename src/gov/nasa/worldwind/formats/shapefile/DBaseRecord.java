@@ -42,7 +42,9 @@ public class DBaseRecord extends AVListImpl
 {
     private boolean deleted = false;
     private int recordNumber;
-    private static final DateFormat dateformat = new SimpleDateFormat("yyyyMMdd");
+    // SimpleDateFormat is not thread safe, and records may be decoded concurrently by Shapefile.visitRecords.
+    private static final ThreadLocal<DateFormat> dateformat = ThreadLocal.withInitial(
+        () -> new SimpleDateFormat("yyyyMMdd"));
 
     public DBaseRecord(DBaseFile dbaseFile, ByteBuffer buffer, int recordNumber)
     {
@@ -114,27 +116,7 @@ public class DBaseRecord extends AVListImpl
 
             try
             {
-                if (field.getType() == DBaseField.TYPE_BOOLEAN)
-                {
-                    this.setValue(field.getName(), value.equalsIgnoreCase("T") || value.equalsIgnoreCase("Y"));
-                }
-                else if (field.getType() == DBaseField.TYPE_CHAR)
-                {
-                    this.setValue(field.getName(), value);
-                }
-                else if (field.getType() == DBaseField.TYPE_DATE)
-                {
-                    this.setValue(field.getName(), dateformat.parse(value));
-                }
-                else if (field.getType() == DBaseField.TYPE_NUMBER)
-                {
-                    // Parse the field value as a decimal number. Double.parseDouble ignores any leading or trailing
-                    // whitespace.
-                    if (field.getDecimals() > 0)
-                        this.setValue(field.getName(), Double.valueOf(value));
-                    else
-                        this.setValue(field.getName(), Long.valueOf(value));
-                }
+                this.setValue(field.getName(), parseFieldValue(field, value));
             }
             catch (Exception e)
             {
@@ -143,4 +125,43 @@ public class DBaseRecord extends AVListImpl
             }
         }
     }
+
+    /**
+     * Parses a trimmed, non-empty DBase field value according to the field's type. Boolean fields are returned as
+     * {@link Boolean}, character fields as {@link String}, date fields as {@link java.util.Date}, and number fields as
+     * {@link Double} when the field has decimals or {@link Long} otherwise. Fields of any other type return null.
+     *
+     * @param field the field describing the value.
+     * @param value the field value's text.
+     *
+     * @return the parsed value, or null if the field type is not recognized.
+     *
+     * @throws Exception if the value cannot be parsed as the field's type.
+     */
+    protected static Object parseFieldValue(DBaseField field, String value) throws Exception
+    {
+        if (field.getType() == DBaseField.TYPE_BOOLEAN)
+        {
+            return value.equalsIgnoreCase("T") || value.equalsIgnoreCase("Y");
+        }
+        else if (field.getType() == DBaseField.TYPE_CHAR)
+        {
+            return value;
+        }
+        else if (field.getType() == DBaseField.TYPE_DATE)
+        {
+            return dateformat.get().parse(value);
+        }
+        else if (field.getType() == DBaseField.TYPE_NUMBER)
+        {
+            // Parse the field value as a decimal number. Double.parseDouble ignores any leading or trailing
+            // whitespace.
+            if (field.getDecimals() > 0)
+                return Double.valueOf(value);
+            else
+                return Long.valueOf(value);
+        }
+
+        return null;
+    }
 }
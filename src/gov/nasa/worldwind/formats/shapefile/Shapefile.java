@@ -42,6 +42,8 @@ import java.net.*;
 import java.nio.*;
 import java.nio.channels.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 /**
@@ -140,6 +142,7 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
     protected static final String INDEX_FILE_SUFFIX = ".shx";
     protected static final String ATTRIBUTE_FILE_SUFFIX = ".dbf";
     protected static final String PROJECTION_FILE_SUFFIX = ".prj";
+    protected static final String SPATIAL_INDEX_FILE_SUFFIX = ".wwx";
 
     protected static final String[] SHAPE_CONTENT_TYPES
             = {
@@ -223,6 +226,11 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
     protected ByteBuffer recordHeaderBuffer;
     protected ByteBuffer recordContentBuffer;
     protected MappedByteBuffer mappedShpBuffer;
+    protected File file;
+    // Spatial index and record selection, used for random access to the records intersecting a sector.
+    protected ShapefileSpatialIndex spatialIndex;
+    protected int[] recordSelection;
+    protected int recordSelectionPosition;
 
     /**
      * Opens an Shapefile from a general source. The source type may be one of
@@ -540,6 +548,10 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
             return false;
         }
 
+        if (this.recordSelection != null) {
+            return this.recordSelectionPosition < this.recordSelection.length;
+        }
+
         int contentLength = this.header.fileLength - HEADER_LENGTH;
         return this.numBytesRead < contentLength;
     }
@@ -586,6 +598,10 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
             throw new IllegalStateException(message);
         }
 
+        if (this.recordSelection != null) {
+            return this.nextSelectedRecord();
+        }
+
         int contentLength = this.header.fileLength - HEADER_LENGTH;
         if (contentLength <= 0 || this.numBytesRead >= contentLength) {
             String message = Logging.getMessage("SHP.NoRecords", this.getStringValue(AVKey.DISPLAY_NAME));
@@ -607,6 +623,311 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
         return record;
     }
 
+    /**
+     * Indicates whether this Shapefile's records can be read in any order.
+     * Random access requires the Shapefile to be opened from a file that can
+     * be memory mapped, and to have an accompanying index (.shx) file.
+     *
+     * @return <code>true</code> if the Shapefile supports
+     * {@link #readRecord(int)}, {@link #selectRecords(Sector)} and
+     * {@link #setRecordSelection(Sector)}; <code>false</code> otherwise.
+     */
+    public boolean isRandomAccessSupported() {
+        return this.open && this.mappedShpBuffer != null && this.index != null;
+    }
+
+    /**
+     * Returns the Shapefile's spatial index of record bounding rectangles,
+     * loading it from the sidecar (.wwx) file next to the Shapefile, or
+     * building it from the records if the sidecar file does not exist or is
+     * out of date. A newly built index is written to the sidecar file when
+     * the Shapefile's directory is writable, so that subsequent readers can
+     * load it instead of scanning the records.
+     *
+     * @return the spatial index, or <code>null</code> if the Shapefile does
+     * not support random access.
+     *
+     * @throws WWRuntimeException if an exception occurs while building the
+     * index.
+     * @see #isRandomAccessSupported()
+     */
+    public ShapefileSpatialIndex getSpatialIndex() {
+        if (this.spatialIndex == null && this.isRandomAccessSupported()) {
+            this.spatialIndex = this.loadSpatialIndex();
+        }
+
+        return this.spatialIndex;
+    }
+
+    /**
+     * Returns the zero-based indices of the records whose bounding rectangles
+     * intersect the specified sector, in ascending order. The records are not
+     * read; use {@link #readRecord(int)} to read them.
+     *
+     * @param sector the sector to search.
+     *
+     * @return the indices of the intersecting records, or <code>null</code> if
+     * the Shapefile does not support random access.
+     *
+     * @throws IllegalArgumentException if the sector is null.
+     */
+    public int[] selectRecords(Sector sector) {
+        if (sector == null) {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        ShapefileSpatialIndex spatialIndex = this.getSpatialIndex();
+        return spatialIndex != null ? spatialIndex.search(sector) : null;
+    }
+
+    /**
+     * Limits {@link #hasNext()} and {@link #nextRecord()} to the records whose
+     * bounding rectangles intersect the specified sector. The selected records
+     * are read in file order by seeking directly to each one, so records
+     * outside the sector are never read. Specify <code>null</code> to clear
+     * the selection and resume sequential reading where it left off.
+     *
+     * @param sector the sector to select records in, or <code>null</code> to
+     * clear the selection.
+     *
+     * @throws IllegalStateException if a sector is specified and the Shapefile
+     * does not support random access.
+     * @see #isRandomAccessSupported()
+     */
+    public void setRecordSelection(Sector sector) {
+        if (sector == null) {
+            this.recordSelection = null;
+            this.recordSelectionPosition = 0;
+            return;
+        }
+
+        int[] selection = this.selectRecords(sector);
+        if (selection == null) {
+            String message = Logging.getMessage("SHP.RandomAccessUnsupported", this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+
+        this.recordSelection = selection;
+        this.recordSelectionPosition = 0;
+    }
+
+    /**
+     * Reads the record at the specified index by seeking to it through the
+     * Shapefile's index, without disturbing sequential reading. As with
+     * {@link #nextRecord()}, the record's points are added to the Shapefile's
+     * point buffer, and its attributes are attached when the Shapefile has an
+     * attribute file that can be memory mapped.
+     *
+     * @param recordIndex the record's zero-based index.
+     *
+     * @return the record.
+     *
+     * @throws IllegalArgumentException if the index is out of range.
+     * @throws IllegalStateException if the Shapefile does not support random
+     * access.
+     * @throws WWRuntimeException if an exception occurs while reading the
+     * record.
+     */
+    public ShapefileRecord readRecord(int recordIndex) {
+        if (!this.isRandomAccessSupported()) {
+            String message = Logging.getMessage("SHP.RandomAccessUnsupported", this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+
+        if (recordIndex < 0 || recordIndex >= this.getNumberOfRecords()) {
+            String message = Logging.getMessage("generic.indexOutOfRange", recordIndex);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        try {
+            return this.readRecordAt(recordIndex);
+        } catch (Exception e) {
+            String message = Logging.getMessage("SHP.ExceptionAttemptingToReadShapefileRecord",
+                    this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().log(Level.SEVERE, message, e);
+            throw new WWRuntimeException(message, e);
+        }
+    }
+
+    /**
+     * Visits the Shapefile's remaining records without creating a
+     * {@link ShapefileRecord} for each record. Each record is presented to the
+     * visitor as a reusable {@link ShapefileRecordView}, which reads point
+     * coordinates directly from the record's bytes and decodes only the
+     * requested attribute columns. Memory use is therefore independent of the
+     * number of records, and nothing is added to the Shapefile's point buffer.
+     * <p>
+     * When <code>parallelism</code> is greater than one, the Shapefile was
+     * opened from a file that could be memory mapped, it has an index, its
+     * attribute file (if any) can be memory mapped, and no records have been
+     * read yet, the records are divided among <code>parallelism</code> threads
+     * using the index's record offsets. In that case the visitor is called
+     * concurrently and records arrive in no particular order. Otherwise the
+     * records are visited in order on the calling thread.
+     * <p>
+     * After this method returns, {@link #hasNext()} returns
+     * <code>false</code>.
+     *
+     * @param attributeNames the names of the attribute columns to decode, or
+     * null to decode none.
+     * @param parallelism the maximum number of threads to visit records with.
+     * @param visitor the visitor to call for each record.
+     *
+     * @throws IllegalArgumentException if the visitor is null or the
+     * parallelism is less than one.
+     * @throws IllegalStateException if the Shapefile is closed.
+     * @throws WWRuntimeException if an exception occurs while reading or
+     * visiting a record.
+     */
+    public void visitRecords(String[] attributeNames, int parallelism, ShapefileRecordVisitor visitor) {
+        if (visitor == null) {
+            String message = Logging.getMessage("nullValue.VisitorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (parallelism < 1) {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "parallelism=" + parallelism);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (!this.open) {
+            String message = Logging.getMessage("SHP.ShapefileClosed", this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+
+        try {
+            ByteBuffer attributeRecords = null;
+            boolean parallel = parallelism > 1 && this.mappedShpBuffer != null && this.index != null
+                    && this.numBytesRead == 0 && this.getNumberOfRecords() > 1;
+            if (parallel && this.attributeFile != null) {
+                attributeRecords = this.attributeFile.numRecordsRead == 0 ? this.attributeFile.mapRecords() : null;
+                parallel = attributeRecords != null;
+            }
+
+            if (parallel) {
+                this.visitRecordsInParallel(attributeNames, parallelism, attributeRecords, visitor);
+            } else {
+                this.visitRecordsInSequence(attributeNames, visitor);
+            }
+        } catch (WWRuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            String message = Logging.getMessage("SHP.ExceptionAttemptingToReadShapefileRecord",
+                    this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().log(Level.SEVERE, message, e);
+            throw new WWRuntimeException(message, e);
+        }
+    }
+
+    /**
+     * Visits the Shapefile's remaining records in order on the calling thread.
+     *
+     * @param attributeNames the names of the attribute columns to decode, or
+     * null to decode none.
+     * @param visitor the visitor to call for each record.
+     *
+     * @throws IOException if a record cannot be read for any reason.
+     */
+    protected void visitRecordsInSequence(String[] attributeNames, ShapefileRecordVisitor visitor)
+            throws IOException {
+        ShapefileRecordView view = new ShapefileRecordView(this, this.attributeFile, attributeNames);
+
+        while (this.hasNext()) {
+            ByteBuffer buffer = this.readNextRecordBuffer();
+            try {
+                ByteBuffer attributes = null;
+                if (this.attributeFile != null && this.attributeFile.hasNext()) {
+                    attributes = this.attributeFile.readNextRecordBuffer();
+                }
+
+                view.set(buffer, buffer.position(), attributes, 0);
+                visitor.visitRecord(view);
+            } finally {
+                // Move the mapped buffer to the start of the next record and restore its limit to its capacity.
+                if (this.mappedShpBuffer != null) {
+                    this.mappedShpBuffer.position(this.mappedShpBuffer.limit());
+                    this.mappedShpBuffer.limit(this.mappedShpBuffer.capacity());
+                }
+            }
+
+            this.numRecordsRead++;
+        }
+    }
+
+    /**
+     * Visits all of the Shapefile's records on a pool of threads. Each thread
+     * claims runs of consecutive records and locates them with the Shapefile's
+     * index, so no thread depends on the records read by another.
+     *
+     * @param attributeNames the names of the attribute columns to decode, or
+     * null to decode none.
+     * @param parallelism the number of threads to visit records with.
+     * @param attributeRecords the attribute file's memory mapped records, or
+     * null if the Shapefile has no attributes.
+     * @param visitor the visitor to call for each record.
+     *
+     * @throws Exception if a record cannot be read or visited.
+     */
+    protected void visitRecordsInParallel(String[] attributeNames, int parallelism, ByteBuffer attributeRecords,
+            ShapefileRecordVisitor visitor) throws Exception {
+        int numRecords = this.getNumberOfRecords();
+        int numAttributeRecords = this.attributeFile != null ? this.attributeFile.getNumberOfRecords() : 0;
+        int attributeRecordLength = this.attributeFile != null ? this.attributeFile.getRecordLength() : 0;
+        int numThreads = Math.min(parallelism, numRecords);
+        int chunkSize = Math.max(1, Math.min(1024, numRecords / (4 * numThreads)));
+        AtomicInteger nextRecord = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>(numThreads);
+            for (int t = 0; t < numThreads; t++) {
+                futures.add(executor.submit(() -> {
+                    ShapefileRecordView view = new ShapefileRecordView(this, this.attributeFile, attributeNames);
+
+                    int start;
+                    while ((start = nextRecord.getAndAdd(chunkSize)) < numRecords) {
+                        int end = Math.min(start + chunkSize, numRecords);
+                        for (int i = start; i < end; i++) {
+                            ByteBuffer attributes = i < numAttributeRecords ? attributeRecords : null;
+                            view.set(this.mappedShpBuffer, this.index[2 * i], attributes, i * attributeRecordLength);
+                            visitor.visitRecord(view);
+                        }
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    nextRecord.set(numRecords); // Stop the remaining threads at their next run of records.
+                    Throwable cause = e.getCause();
+                    throw cause instanceof Exception ? (Exception) cause : e;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Mark every record as read, as though they had been read sequentially.
+        this.numRecordsRead = numRecords;
+        this.numBytesRead = this.header.fileLength - HEADER_LENGTH;
+        this.mappedShpBuffer.position(this.mappedShpBuffer.limit());
+        if (this.attributeFile != null) {
+            this.attributeFile.numRecordsRead = numAttributeRecords;
+        }
+    }
+
     /**
      * Closes the Shapefile, freeing any resources allocated during reading
      * except the buffer containing the Shapefile's points. This closes any
@@ -644,6 +965,7 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
         this.recordHeaderBuffer = null;
         this.recordContentBuffer = null;
         this.mappedShpBuffer = null;
+        this.recordSelection = null;
         this.open = false;
     }
 
@@ -678,6 +1000,8 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
             throw new FileNotFoundException(message);
         }
 
+        this.file = file;
+
         // Attempt to map the Shapefile into system memory in copy-on-write mode. We open in copy-on-write mode so that
         // the Shapefile reader and the application can change a record's point data without affecting the original
         // file. Although we never change the file's bytes on disk, the file must be accessible for reading and writing
@@ -1214,6 +1538,35 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
      * @throws IOException if the record cannot be read for any reason.
      */
     protected ShapefileRecord readNextRecord() throws IOException {
+        ByteBuffer buffer = this.readNextRecordBuffer();
+
+        ShapefileRecord record;
+        try {
+            record = this.readRecordFromBuffer(buffer);
+        } finally {
+            // Restore the mapped buffer's limit to its capacity.
+            if (this.mappedShpBuffer != null) {
+                this.mappedShpBuffer.limit(this.mappedShpBuffer.capacity());
+            }
+        }
+
+        return record;
+    }
+
+    /**
+     * Reads the next record's header and content from this Shapefile without
+     * interpreting them. The returned buffer's position is set to the start of
+     * the record header and its limit is set to the end of the record. When the
+     * Shapefile is memory mapped this returns the mapped buffer itself, and the
+     * caller is responsible for restoring its limit to its capacity; otherwise
+     * this returns a buffer that is reused by subsequent calls. This file is
+     * assumed to have one or more remaining records available.
+     *
+     * @return a buffer containing the record.
+     *
+     * @throws IOException if the record cannot be read for any reason.
+     */
+    protected ByteBuffer readNextRecordBuffer() throws IOException {
         ByteBuffer buffer;
 
         if (this.mappedShpBuffer != null) {
@@ -1264,19 +1617,144 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
             buffer = this.recordContentBuffer;
         }
 
+        return buffer;
+    }
+
+    /**
+     * Reads the record at the specified index from the memory mapped
+     * Shapefile, locating it with the Shapefile's index. The mapped buffer's
+     * position and limit are restored afterwards, so sequential reading is not
+     * disturbed.
+     *
+     * @param recordIndex the record's zero-based index.
+     *
+     * @return a {@link ShapefileRecord} instance.
+     *
+     * @throws IOException if the record's attributes cannot be read.
+     */
+    protected ShapefileRecord readRecordAt(int recordIndex) throws IOException {
+        int offset = this.index[2 * recordIndex];
+        int recordLength = ShapefileRecord.RECORD_HEADER_LENGTH + this.index[2 * recordIndex + 1];
+        int pos = this.mappedShpBuffer.position();
+
         ShapefileRecord record;
         try {
-            record = this.readRecordFromBuffer(buffer);
+            this.mappedShpBuffer.limit(this.mappedShpBuffer.capacity());
+            this.mappedShpBuffer.position(offset);
+            this.mappedShpBuffer.limit(offset + recordLength);
+            record = this.createRecord(this.mappedShpBuffer);
         } finally {
-            // Restore the mapped buffer's limit to its capacity.
-            if (this.mappedShpBuffer != null) {
-                this.mappedShpBuffer.limit(this.mappedShpBuffer.capacity());
-            }
+            this.mappedShpBuffer.limit(this.mappedShpBuffer.capacity());
+            this.mappedShpBuffer.position(pos);
+        }
+
+        if (record != null && this.attributeFile != null && recordIndex < this.attributeFile.getNumberOfRecords()) {
+            record.setAttributes(this.attributeFile.readRecord(recordIndex));
         }
 
         return record;
     }
 
+    /**
+     * Reads the next record in the current record selection.
+     *
+     * @return the next selected record.
+     *
+     * @throws IllegalStateException if no selected records remain.
+     * @throws WWRuntimeException if an exception occurs while reading the
+     * record.
+     * @see #setRecordSelection(Sector)
+     */
+    protected ShapefileRecord nextSelectedRecord() {
+        if (this.recordSelectionPosition >= this.recordSelection.length) {
+            String message = Logging.getMessage("SHP.NoRecords", this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+
+        ShapefileRecord record;
+        try {
+            record = this.readRecordAt(this.recordSelection[this.recordSelectionPosition++]);
+        } catch (Exception e) {
+            String message = Logging.getMessage("SHP.ExceptionAttemptingToReadShapefileRecord",
+                    this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().log(Level.SEVERE, message, e);
+            throw new WWRuntimeException(message, e);
+        }
+
+        this.numRecordsRead++;
+        return record;
+    }
+
+    //**************************************************************//
+    //********************  Spatial Index  *************************//
+    //**************************************************************//
+    /**
+     * Loads the Shapefile's spatial index from its sidecar file, or builds the
+     * index and attempts to write the sidecar file if it is missing or out of
+     * date. Failing to read or write the sidecar file is not an error; the
+     * index is then built and kept in memory.
+     *
+     * @return the spatial index.
+     */
+    protected ShapefileSpatialIndex loadSpatialIndex() {
+        File indexFile = this.file != null
+                ? new File(WWIO.replaceSuffix(this.file.getPath(), SPATIAL_INDEX_FILE_SUFFIX)) : null;
+
+        if (indexFile != null && indexFile.exists()) {
+            try {
+                ShapefileSpatialIndex spatialIndex = ShapefileSpatialIndex.read(indexFile, this.file.length(),
+                        this.file.lastModified());
+                if (spatialIndex != null && spatialIndex.getNumberOfRecords() == this.getNumberOfRecords()) {
+                    return spatialIndex;
+                }
+            } catch (IOException e) {
+                Logging.logger().log(Level.WARNING,
+                        Logging.getMessage("SHP.ExceptionAttemptingToReadSpatialIndex", indexFile.getPath()), e);
+            }
+        }
+
+        ShapefileSpatialIndex spatialIndex = this.buildSpatialIndex();
+
+        if (indexFile != null) {
+            try {
+                spatialIndex.write(indexFile, this.file.length(), this.file.lastModified());
+            } catch (IOException e) {
+                // The Shapefile's directory may be read-only. The index is still usable from memory.
+                Logging.logger().log(Level.FINE,
+                        Logging.getMessage("SHP.ExceptionAttemptingToWriteSpatialIndex", indexFile.getPath()), e);
+            }
+        }
+
+        return spatialIndex;
+    }
+
+    /**
+     * Builds a spatial index from the bounding rectangles of the Shapefile's
+     * records. Each record's rectangle is computed from its points in
+     * geographic coordinates. Records are located with the Shapefile's index,
+     * so sequential reading is not disturbed.
+     *
+     * @return a new spatial index.
+     */
+    protected ShapefileSpatialIndex buildSpatialIndex() {
+        int numRecords = this.getNumberOfRecords();
+        double[] bounds = new double[4 * numRecords];
+        boolean[] hasBounds = new boolean[numRecords];
+        double[] rect = new double[4];
+
+        ShapefileRecordView view = new ShapefileRecordView(this, null, null);
+        for (int i = 0; i < numRecords; i++) {
+            view.set(this.mappedShpBuffer, this.index[2 * i], null, 0);
+            if (view.getBoundingRectangle(rect)) {
+                System.arraycopy(rect, 0, bounds, 4 * i, 4);
+                hasBounds[i] = true;
+            }
+        }
+
+        return ShapefileSpatialIndex.build(numRecords, bounds, hasBounds);
+    }
+
     /**
      * Reads a {@link ShapefileRecord} instance from the given
      * {@link java.nio.ByteBuffer}, or null if the buffer contains a null
@@ -38,7 +38,11 @@ import org.w3c.dom.*;
 
 import javax.xml.xpath.*;
 import java.awt.*;
-import java.util.Map;
+import java.io.File;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
 
 /**
  * A factory that creates {@link gov.nasa.worldwind.layers.Layer} instances from
@@ -86,6 +90,16 @@ import java.util.Map;
  * polygons or extruded polygons. shapefiles containing points or multi-points
  * ignore the attribute delegate. The delegate is specified using {@link
  * #setAttributeDelegate(gov.nasa.worldwind.formats.shapefile.ShapefileRenderable.AttributeDelegate)}.
+ * <h1>Viewport Loading</h1>
+ * <p>
+ * Large shapefiles may be loaded lazily, a region at a time, by enabling
+ * viewport loading with {@link #setViewportLoading(boolean)} or a
+ * <code>ViewportLoading</code> element in the layer configuration. The layer
+ * then holds only the records intersecting the area around the current view,
+ * and reloads that area in the background when the view moves outside it.
+ * Viewport loading applies to shapefiles opened from a file that support
+ * random access (see {@link Shapefile#isRandomAccessSupported()}); other
+ * shapefiles are loaded entirely.
  *
  * @author tag
  * @version $Id: ShapefileLayerFactory.java 2348 2014-09-25 23:35:46Z dcollins $
@@ -125,6 +139,31 @@ public class ShapefileLayerFactory implements Factory, ShapefileRenderable.Attri
     protected PointPlacemarkAttributes normalPointAttributes;
     protected PointPlacemarkAttributes highlightPointAttributes;
     protected ShapefileRenderable.AttributeDelegate attributeDelegate;
+    protected boolean viewportLoading;
+
+    /**
+     * Indicates whether this factory loads shapefiles lazily, a region around
+     * the current view at a time.
+     *
+     * @return <code>true</code> if viewport loading is enabled;
+     * <code>false</code> otherwise.
+     */
+    public boolean isViewportLoading() {
+        return this.viewportLoading;
+    }
+
+    /**
+     * Specifies whether this factory loads shapefiles lazily, a region around
+     * the current view at a time, rather than reading every record up front.
+     * The shapefile's spatial index is loaded from, or written to, a sidecar
+     * file next to the shapefile. Disabled by default.
+     *
+     * @param viewportLoading <code>true</code> to enable viewport loading;
+     * <code>false</code> to load shapefiles entirely.
+     */
+    public void setViewportLoading(boolean viewportLoading) {
+        this.viewportLoading = viewportLoading;
+    }
 
     /**
      * Indicates the mappings between shapefile attribute names and av-list keys
@@ -543,6 +582,11 @@ public class ShapefileLayerFactory implements Factory, ShapefileRenderable.Attri
         element = WWXML.getElement(domElement, "HighlightPointAttributes", xpath);
         this.setHighlightPointAttributes(element != null ? this.collectPointAttributes(element) : null);
 
+        Boolean viewportLoading = WWXML.getBoolean(domElement, "ViewportLoading", xpath);
+        if (viewportLoading != null) {
+            this.setViewportLoading(viewportLoading);
+        }
+
         Double d = (Double) params.getValue(AVKey.OPACITY);
         if (d != null) {
             layer.setOpacity(d);
@@ -601,7 +645,11 @@ public class ShapefileLayerFactory implements Factory, ShapefileRenderable.Attri
                 Shapefile shp = null;
                 try {
                     shp = loadShapefile(shapefileSource);
-                    assembleShapefileLayer(shp, layer);
+                    if (mustLoadByViewport(shapefileSource, shp)) {
+                        assembleViewportShapefileLayer(shapefileSource, shp, layer);
+                    } else {
+                        assembleShapefileLayer(shp, layer);
+                    }
                 } catch (Exception e) {
                     if (callback != null) {
                         callback.exception(e);
@@ -628,6 +676,153 @@ public class ShapefileLayerFactory implements Factory, ShapefileRenderable.Attri
         this.addPropertiesForShapefile(shp, layer);
     }
 
+    /**
+     * Indicates whether a shapefile should be loaded a viewport region at a
+     * time. This is the case when viewport loading is enabled, the shapefile
+     * can be reopened from its source, and the shapefile has a spatial index.
+     * Calling this loads or builds the shapefile's spatial index.
+     *
+     * @param shapefileSource the shapefile's source.
+     * @param shp the shapefile opened from the source.
+     *
+     * @return <code>true</code> if the shapefile should be loaded by viewport;
+     * <code>false</code> otherwise.
+     */
+    protected boolean mustLoadByViewport(Object shapefileSource, Shapefile shp) {
+        return this.isViewportLoading()
+                && (shapefileSource instanceof File || shapefileSource instanceof String)
+                && shp.getSpatialIndex() != null;
+    }
+
+    protected void assembleViewportShapefileLayer(Object shapefileSource, Shapefile shp, RenderableLayer layer) {
+        layer.addRenderable(new ViewportRenderable(shapefileSource));
+        this.addPropertiesForShapefile(shp, layer);
+    }
+
+    /**
+     * A renderable that holds the shapefile records intersecting a region
+     * around the current view, and replaces them in the background with the
+     * records around a new region when the view moves outside the loaded one.
+     * Each region is read from a separate {@link Shapefile} instance that
+     * selects records with the shapefile's spatial index, so records outside
+     * the region are never read. The held renderables are pre-rendered as
+     * well as rendered, since shapefile polygons and polylines assemble their
+     * geometry during pre-rendering.
+     */
+    protected class ViewportRenderable extends WWObjectImpl implements PreRenderable, Renderable {
+
+        protected final Object shapefileSource;
+        protected final AtomicBoolean loading = new AtomicBoolean();
+        protected volatile Sector loadedSector;
+        protected volatile List<Renderable> renderables = Collections.emptyList();
+
+        public ViewportRenderable(Object shapefileSource) {
+            this.shapefileSource = shapefileSource;
+        }
+
+        public Sector getLoadedSector() {
+            return this.loadedSector;
+        }
+
+        @Override
+        public void preRender(DrawContext dc) {
+            this.updateRegion(dc);
+
+            for (Renderable renderable : this.renderables) {
+                if (renderable instanceof PreRenderable) {
+                    ((PreRenderable) renderable).preRender(dc);
+                }
+            }
+        }
+
+        @Override
+        public void render(DrawContext dc) {
+            this.updateRegion(dc);
+
+            for (Renderable renderable : this.renderables) {
+                renderable.render(dc);
+            }
+        }
+
+        /**
+         * Requests the region around the visible sector when the view has
+         * moved outside the loaded region and no region is currently loading.
+         *
+         * @param dc the current draw context.
+         */
+        protected void updateRegion(DrawContext dc) {
+            Sector visibleSector = dc.getVisibleSector();
+            if (visibleSector != null && !dc.isPickingMode()
+                    && (this.loadedSector == null || !this.loadedSector.contains(visibleSector))
+                    && this.loading.compareAndSet(false, true)) {
+                this.requestRegion(this.computeRegion(visibleSector));
+            }
+        }
+
+        /**
+         * Returns the region to load for a visible sector. The region extends
+         * the visible sector by half its size on each side, so that small view
+         * movements do not cause a reload.
+         *
+         * @param visibleSector the visible sector.
+         *
+         * @return the region to load.
+         */
+        protected Sector computeRegion(Sector visibleSector) {
+            double dLat = visibleSector.getDeltaLatDegrees() / 2;
+            double dLon = visibleSector.getDeltaLonDegrees() / 2;
+
+            return Sector.fromDegrees(
+                    Math.max(-90, visibleSector.getMinLatitude().degrees - dLat),
+                    Math.min(90, visibleSector.getMaxLatitude().degrees + dLat),
+                    Math.max(-180, visibleSector.getMinLongitude().degrees - dLon),
+                    Math.min(180, visibleSector.getMaxLongitude().degrees + dLon));
+        }
+
+        protected void requestRegion(final Sector region) {
+            WorldWind.getScheduledTaskService().addTask(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        loadRegion(region);
+                    } catch (Exception e) {
+                        Logging.logger().log(Level.WARNING,
+                                Logging.getMessage("SHP.ExceptionAttemptingToReadShapefile", shapefileSource), e);
+                    } finally {
+                        loading.set(false);
+                    }
+                }
+            });
+        }
+
+        protected void loadRegion(Sector region) {
+            Shapefile shp = loadShapefile(this.shapefileSource);
+            try {
+                shp.setRecordSelection(region);
+
+                // Assemble the region's renderables in a scratch layer, then take them over from it so that their
+                // property changes reach this renderable's layer.
+                RenderableLayer scratchLayer = new RenderableLayer();
+                addRenderablesForShapefile(shp, scratchLayer);
+
+                List<Renderable> list = new ArrayList<Renderable>();
+                for (Renderable renderable : scratchLayer.getRenderables()) {
+                    if (renderable instanceof AVList) {
+                        ((AVList) renderable).removePropertyChangeListener(scratchLayer);
+                        ((AVList) renderable).addPropertyChangeListener(this);
+                    }
+                    list.add(renderable);
+                }
+
+                this.renderables = list;
+                this.loadedSector = region;
+                this.firePropertyChange(AVKey.REPAINT, null, this);
+            } finally {
+                WWIO.closeStream(shp, this.shapefileSource.toString());
+            }
+        }
+    }
+
     protected AVList collectDBaseMappings(Element domElement, XPath xpath) {
         try {
             Element[] elements = WWXML.getElements(domElement, "AttributeMapping", xpath);
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.formats.shapefile;
+
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.geom.coords.UTMCoord;
+import gov.nasa.worldwind.util.Logging;
+
+import java.nio.*;
+
+/**
+ * A reusable, read-only view of a single Shapefile record, used by {@link Shapefile#visitRecords(String[], int,
+ * ShapefileRecordVisitor)} to stream records without allocating a {@link ShapefileRecord}, a point buffer, or a
+ * {@link DBaseRecord} for each record. A view reads point coordinates directly from the record's bytes, converting
+ * them to geographic coordinates as the Shapefile's coordinate system requires, and decodes only the attribute
+ * columns requested by the caller, and only when they're asked for.
+ * <p>
+ * The view is re-pointed at each record in turn and must not be retained outside of {@link
+ * ShapefileRecordVisitor#visitRecord(ShapefileRecordView)}.
+ */
+public class ShapefileRecordView {
+
+    protected static final int COORDINATES_UNSPECIFIED = 0;
+    protected static final int COORDINATES_GEOGRAPHIC = 1;
+    protected static final int COORDINATES_UTM = 2;
+
+    protected final Shapefile shapefile;
+    protected final DBaseFile attributeFile;
+    protected final String[] attributeNames;
+    protected final int[] attributeFields;
+    protected final byte[] fieldBytes;
+    protected final int coordinates;
+    protected final int utmZone;
+    protected final String utmHemisphere;
+
+    // The current record's source buffers. Record buffers are read through a little endian duplicate so that the
+    // caller's buffer order is left untouched.
+    protected ByteBuffer sourceBuffer;
+    protected ByteBuffer recordBuffer;
+    protected int recordStart;
+    protected ByteBuffer attributeBuffer;
+    protected int attributeStart;
+    // The current record's decoded header.
+    protected String shapeType;
+    protected int numberOfParts;
+    protected int numberOfPoints;
+    protected int partsOffset;
+    protected int pointsOffset;
+    protected int zOffset;
+
+    /**
+     * Creates a view over the records of the specified Shapefile.
+     *
+     * @param shapefile the Shapefile the records belong to.
+     * @param attributeFile the Shapefile's attribute file, or null if the
+     * Shapefile has no attributes.
+     * @param attributeNames the names of the attribute columns to expose, or
+     * null to expose none. Names the attribute file does not contain are
+     * exposed with null values.
+     *
+     * @throws IllegalArgumentException if the Shapefile is null.
+     */
+    protected ShapefileRecordView(Shapefile shapefile, DBaseFile attributeFile, String[] attributeNames) {
+        if (shapefile == null) {
+            String message = Logging.getMessage("nullValue.ShapefileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.shapefile = shapefile;
+        this.attributeFile = attributeFile;
+        this.attributeNames = attributeNames != null ? attributeNames.clone() : new String[0];
+        this.attributeFields = new int[this.attributeNames.length];
+        for (int i = 0; i < this.attributeNames.length; i++) {
+            this.attributeFields[i] = attributeFile != null ? attributeFile.getFieldIndex(this.attributeNames[i]) : -1;
+        }
+        this.fieldBytes = new byte[attributeFile != null ? attributeFile.getMaxFieldLength() : 0];
+
+        Object o = shapefile.getValue(AVKey.COORDINATE_SYSTEM);
+        if (!shapefile.hasKey(AVKey.COORDINATE_SYSTEM)) {
+            this.coordinates = COORDINATES_UNSPECIFIED;
+            this.utmZone = 0;
+            this.utmHemisphere = null;
+        } else if (AVKey.COORDINATE_SYSTEM_GEOGRAPHIC.equals(o)) {
+            this.coordinates = COORDINATES_GEOGRAPHIC;
+            this.utmZone = 0;
+            this.utmHemisphere = null;
+        } else if (AVKey.COORDINATE_SYSTEM_PROJECTED.equals(o)
+                && AVKey.PROJECTION_UTM.equals(shapefile.getValue(AVKey.PROJECTION_NAME))) {
+            this.coordinates = COORDINATES_UTM;
+            this.utmZone = (Integer) shapefile.getValue(AVKey.PROJECTION_ZONE);
+            this.utmHemisphere = (String) shapefile.getValue(AVKey.PROJECTION_HEMISPHERE);
+        } else {
+            // The coordinate system is validated during Shapefile initialization, so this should never happen.
+            throw new WWRuntimeException(Logging.getMessage("generic.UnsupportedCoordinateSystem", o));
+        }
+    }
+
+    /**
+     * Points this view at a record. The record's header and content start at
+     * <code>recordStart</code> in <code>records</code>, and its attributes
+     * start at <code>attributeStart</code> in <code>attributes</code>. Both
+     * buffers are read with absolute gets, so their positions are not modified.
+     *
+     * @param records the buffer containing the record.
+     * @param recordStart the position of the record's header.
+     * @param attributes the buffer containing the record's attributes, or null
+     * if the record has no attributes.
+     * @param attributeStart the position of the record's attributes.
+     *
+     * @throws WWRuntimeException if the record's shape type is not supported.
+     */
+    protected void set(ByteBuffer records, int recordStart, ByteBuffer attributes, int attributeStart) {
+        if (records != this.sourceBuffer) {
+            this.sourceBuffer = records;
+            this.recordBuffer = records.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            this.recordBuffer.clear(); // Span the whole buffer, not just the limit of the record it was created at.
+        }
+
+        this.recordStart = recordStart;
+        this.attributeBuffer = attributes;
+        this.attributeStart = attributeStart;
+
+        int type = this.recordBuffer.getInt(recordStart + 8);
+        this.shapeType = this.shapefile.getShapeType(type);
+        if (this.shapeType == null) {
+            throw new WWRuntimeException(Logging.getMessage("SHP.UnsupportedShapeType", type));
+        }
+
+        if (Shapefile.isPointType(this.shapeType)) {
+            this.numberOfParts = 1;
+            this.numberOfPoints = 1;
+            this.pointsOffset = recordStart + 12;
+            this.zOffset = this.pointsOffset + 16;
+        } else if (Shapefile.isMultiPointType(this.shapeType)) {
+            this.numberOfParts = 1;
+            this.numberOfPoints = this.recordBuffer.getInt(recordStart + 44);
+            this.pointsOffset = recordStart + 48;
+            this.zOffset = this.pointsOffset + 16 * this.numberOfPoints + 16; // Skip the z range.
+        } else if (Shapefile.isPolylineType(this.shapeType) || Shapefile.isPolygonType(this.shapeType)) {
+            this.numberOfParts = this.recordBuffer.getInt(recordStart + 44);
+            this.numberOfPoints = this.recordBuffer.getInt(recordStart + 48);
+            this.partsOffset = recordStart + 52;
+            this.pointsOffset = this.partsOffset + 4 * this.numberOfParts;
+            this.zOffset = this.pointsOffset + 16 * this.numberOfPoints + 16; // Skip the z range.
+        } else {
+            this.numberOfParts = 0;
+            this.numberOfPoints = 0;
+        }
+    }
+
+    /**
+     * Returns the record's one-based record number.
+     *
+     * @return the record number.
+     */
+    public int getRecordNumber() {
+        // The record header is big endian.
+        return Integer.reverseBytes(this.recordBuffer.getInt(this.recordStart));
+    }
+
+    /**
+     * Returns the record's shape type, one of the shape type constants defined
+     * by {@link Shapefile}.
+     *
+     * @return the record's shape type.
+     */
+    public String getShapeType() {
+        return this.shapeType;
+    }
+
+    /**
+     * Returns the number of parts in the record. Point and multi-point records
+     * have one part, and null records have none.
+     *
+     * @return the number of parts.
+     */
+    public int getNumberOfParts() {
+        return this.numberOfParts;
+    }
+
+    /**
+     * Returns the total number of points in the record.
+     *
+     * @return the number of points.
+     */
+    public int getNumberOfPoints() {
+        return this.numberOfPoints;
+    }
+
+    /**
+     * Returns the index of the first point in the specified part.
+     *
+     * @param partNumber the part's index, from 0 to <code>getNumberOfParts() -
+     * 1</code>.
+     *
+     * @return the index of the part's first point.
+     */
+    public int getFirstPointIndex(int partNumber) {
+        if (this.numberOfParts <= 1) {
+            return 0;
+        }
+
+        return this.recordBuffer.getInt(this.partsOffset + 4 * partNumber);
+    }
+
+    /**
+     * Returns the number of points in the specified part.
+     *
+     * @param partNumber the part's index, from 0 to <code>getNumberOfParts() -
+     * 1</code>.
+     *
+     * @return the number of points in the part.
+     */
+    public int getNumberOfPoints(int partNumber) {
+        int end = partNumber + 1 < this.numberOfParts ? this.getFirstPointIndex(partNumber + 1)
+                : this.numberOfPoints;
+        return end - this.getFirstPointIndex(partNumber);
+    }
+
+    /**
+     * Reads a point's coordinates into the specified array as an (X,Y) pair.
+     * Geographic and projected coordinates are returned as (longitude,
+     * latitude) in degrees, matching the layout of
+     * {@link Shapefile#getPointBuffer()}.
+     *
+     * @param index the point's index, from 0 to <code>getNumberOfPoints() -
+     * 1</code>.
+     * @param result an array of at least two elements to receive the point.
+     *
+     * @return <code>result</code>, containing the point's coordinates.
+     */
+    public double[] getPoint(int index, double[] result) {
+        int offset = this.pointsOffset + 16 * index;
+        double x = this.recordBuffer.getDouble(offset);
+        double y = this.recordBuffer.getDouble(offset + 8);
+
+        if (this.coordinates == COORDINATES_GEOGRAPHIC) {
+            if (x < -180 || x > 180) {
+                x = Angle.normalizedLongitude(Angle.fromDegrees(x)).degrees;
+            }
+            if (y < -90 || y > 90) {
+                y = Angle.normalizedLatitude(Angle.fromDegrees(y)).degrees;
+            }
+        } else if (this.coordinates == COORDINATES_UTM) {
+            LatLon location = UTMCoord.locationFromUTMCoord(this.utmZone, this.utmHemisphere, x, y, null);
+            x = location.getLongitude().degrees;
+            y = location.getLatitude().degrees;
+        }
+
+        result[0] = x;
+        result[1] = y;
+        return result;
+    }
+
+    /**
+     * Computes the record's bounding rectangle from its points, after they are
+     * converted to geographic coordinates. The rectangle is stored in the
+     * order (minLat, maxLat, minLon, maxLon), matching
+     * {@link ShapefileRecord#getBoundingRectangle()}.
+     *
+     * @param result an array of at least four elements to receive the
+     * rectangle.
+     *
+     * @return <code>true</code> if the record has points and the rectangle was
+     * computed; <code>false</code> otherwise.
+     */
+    public boolean getBoundingRectangle(double[] result) {
+        if (this.numberOfPoints <= 0) {
+            return false;
+        }
+
+        double[] point = new double[2];
+        result[0] = Double.MAX_VALUE;
+        result[1] = -Double.MAX_VALUE;
+        result[2] = Double.MAX_VALUE;
+        result[3] = -Double.MAX_VALUE;
+
+        for (int i = 0; i < this.numberOfPoints; i++) {
+            this.getPoint(i, point);
+            result[0] = Math.min(result[0], point[1]);
+            result[1] = Math.max(result[1], point[1]);
+            result[2] = Math.min(result[2], point[0]);
+            result[3] = Math.max(result[3], point[0]);
+        }
+
+        return true;
+    }
+
+    /**
+     * Indicates whether the record has z values.
+     *
+     * @return <code>true</code> if the record's shape type has z values and
+     * the record has points; <code>false</code> otherwise.
+     */
+    public boolean hasZ() {
+        return this.numberOfPoints > 0 && Shapefile.isZType(this.shapeType);
+    }
+
+    /**
+     * Returns a point's z value. This is valid only when {@link #hasZ()}
+     * returns <code>true</code>.
+     *
+     * @param index the point's index, from 0 to <code>getNumberOfPoints() -
+     * 1</code>.
+     *
+     * @return the point's z value.
+     */
+    public double getZ(int index) {
+        return this.recordBuffer.getDouble(this.zOffset + 8 * index);
+    }
+
+    /**
+     * Returns the names of the attribute columns exposed by this view, in the
+     * order they were requested.
+     *
+     * @return the attribute names.
+     */
+    public String[] getAttributeNames() {
+        return this.attributeNames.clone();
+    }
+
+    /**
+     * Decodes and returns the value of an attribute column. Only the columns
+     * passed to <code>visitRecords</code> are available. Values are typed as
+     * {@link DBaseRecord} types them.
+     *
+     * @param column the column's index in the requested attribute names.
+     *
+     * @return the attribute's value, or null if the value is empty or the
+     * column does not exist.
+     */
+    public Object getAttribute(int column) {
+        int field = this.attributeFields[column];
+        if (field < 0 || this.attributeBuffer == null) {
+            return null;
+        }
+
+        return this.attributeFile.readFieldValue(this.attributeBuffer, this.attributeStart, field, this.fieldBytes);
+    }
+
+    /**
+     * Decodes and returns the value of the named attribute. Only the columns
+     * passed to <code>visitRecords</code> are available.
+     *
+     * @param name the attribute's name.
+     *
+     * @return the attribute's value, or null if the value is empty or the
+     * attribute was not requested.
+     */
+    public Object getAttribute(String name) {
+        for (int i = 0; i < this.attributeNames.length; i++) {
+            if (this.attributeNames[i].equalsIgnoreCase(name)) {
+                return this.getAttribute(i);
+            }
+        }
+
+        return null;
+    }
+}
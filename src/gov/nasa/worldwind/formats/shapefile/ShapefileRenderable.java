@@ -266,6 +266,12 @@ public abstract class ShapefileRenderable extends WWObjectImpl
         this.assembleRecords(shapefile);
     }
 
+    /**
+     * Assembles the Shapefile's remaining records. When the Shapefile has a record selection, only the selected
+     * records are read; see {@link Shapefile#setRecordSelection(gov.nasa.worldwind.geom.Sector)}.
+     *
+     * @param shapefile the Shapefile to read records from.
+     */
     protected void assembleRecords(Shapefile shapefile)
     {
         this.records = new ArrayList<ShapefileRenderable.Record>();
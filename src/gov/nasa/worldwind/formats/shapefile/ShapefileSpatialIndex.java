@@ -0,0 +1,458 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.formats.shapefile;
+
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.Logging;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A static spatial index of Shapefile record bounding rectangles, used by
+ * {@link Shapefile#selectRecords(gov.nasa.worldwind.geom.Sector)} to find the
+ * records intersecting a sector without reading the records themselves.
+ * <p>
+ * The index is a packed R-tree. Records are sorted along a Hilbert curve by
+ * the center of their bounding rectangle and grouped into nodes of a fixed
+ * size, and nodes are grouped the same way up to a single root. The tree is
+ * stored as two flat arrays, which makes it compact and fast to write to and
+ * read from a sidecar file next to the Shapefile.
+ * <p>
+ * The sidecar file records the length and modification time of the Shapefile
+ * it was built from, so that an index made stale by changes to the Shapefile
+ * is rebuilt rather than used.
+ */
+public class ShapefileSpatialIndex {
+
+    protected static final int FILE_CODE = 0x57575349; // "WWSI"
+    protected static final int VERSION = 1;
+    protected static final int HEADER_LENGTH = 40;
+    protected static final int DEFAULT_NODE_SIZE = 16;
+    protected static final int HILBERT_MAX = (1 << 16) - 1;
+
+    protected final int numRecords;
+    protected final int numItems;
+    protected final int nodeSize;
+    // Bounding rectangles as (minLon, minLat, maxLon, maxLat) for every item followed by every node, level by level.
+    protected final double[] boxes;
+    // For an item, the record's index in the Shapefile. For a node, the position of its first child in boxes / 4.
+    protected final int[] indices;
+    // The end of each level in boxes / 4, from the items up to the root.
+    protected final int[] levelBounds;
+
+    protected ShapefileSpatialIndex(int numRecords, int numItems, int nodeSize, double[] boxes, int[] indices) {
+        this.numRecords = numRecords;
+        this.numItems = numItems;
+        this.nodeSize = nodeSize;
+        this.boxes = boxes;
+        this.indices = indices;
+        this.levelBounds = computeLevelBounds(numItems, nodeSize);
+    }
+
+    /**
+     * Builds an index over the specified record bounding rectangles.
+     * Rectangles are stored as consecutive (minLat, maxLat, minLon, maxLon)
+     * quadruples, the same order as
+     * {@link ShapefileRecord#getBoundingRectangle()}. Records with a null
+     * entry in <code>hasBounds</code> have no points and are never selected.
+     *
+     * @param numRecords the number of records in the Shapefile.
+     * @param bounds the records' bounding rectangles, four values per record.
+     * @param hasBounds which records have a bounding rectangle.
+     *
+     * @return a new index.
+     *
+     * @throws IllegalArgumentException if either array is null or too small.
+     */
+    public static ShapefileSpatialIndex build(int numRecords, double[] bounds, boolean[] hasBounds) {
+        if (bounds == null || bounds.length < 4 * numRecords) {
+            String message = Logging.getMessage("generic.ArrayInvalidLength", bounds != null ? bounds.length : 0);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (hasBounds == null || hasBounds.length < numRecords) {
+            String message = Logging.getMessage("generic.ArrayInvalidLength",
+                    hasBounds != null ? hasBounds.length : 0);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        // Collect the records that have bounds, along with the extent of all record bounds.
+        int numItems = 0;
+        int[] items = new int[numRecords];
+        double minLon = Double.MAX_VALUE, minLat = Double.MAX_VALUE;
+        double maxLon = -Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        for (int i = 0; i < numRecords; i++) {
+            if (!hasBounds[i]) {
+                continue;
+            }
+            items[numItems++] = i;
+            minLat = Math.min(minLat, bounds[4 * i]);
+            maxLat = Math.max(maxLat, bounds[4 * i + 1]);
+            minLon = Math.min(minLon, bounds[4 * i + 2]);
+            maxLon = Math.max(maxLon, bounds[4 * i + 3]);
+        }
+
+        int nodeSize = DEFAULT_NODE_SIZE;
+        int[] levelBounds = computeLevelBounds(numItems, nodeSize);
+        int numBoxes = levelBounds[levelBounds.length - 1];
+        double[] boxes = new double[4 * numBoxes];
+        int[] indices = new int[numBoxes];
+
+        // Sort the items by the Hilbert value of their centers. Sorting packed (hilbert, record) longs keeps this free
+        // of per-item objects. Record indices are non-negative ints, so they fit in the low 31 bits.
+        long[] keys = new long[numItems];
+        double width = maxLon > minLon ? maxLon - minLon : 1;
+        double height = maxLat > minLat ? maxLat - minLat : 1;
+        for (int i = 0; i < numItems; i++) {
+            int r = items[i];
+            double cx = (bounds[4 * r + 2] + bounds[4 * r + 3]) / 2;
+            double cy = (bounds[4 * r] + bounds[4 * r + 1]) / 2;
+            int x = (int) Math.floor(HILBERT_MAX * (cx - minLon) / width);
+            int y = (int) Math.floor(HILBERT_MAX * (cy - minLat) / height);
+            keys[i] = ((hilbert(x, y) & 0xFFFFFFFFL) << 31) | r;
+        }
+        Arrays.sort(keys);
+
+        for (int i = 0; i < numItems; i++) {
+            int r = (int) (keys[i] & Integer.MAX_VALUE);
+            boxes[4 * i] = bounds[4 * r + 2];
+            boxes[4 * i + 1] = bounds[4 * r];
+            boxes[4 * i + 2] = bounds[4 * r + 3];
+            boxes[4 * i + 3] = bounds[4 * r + 1];
+            indices[i] = r;
+        }
+
+        // Group each level's boxes into parent nodes, up to the root.
+        int pos = 0;
+        int end = numItems;
+        for (int level = 0; level < levelBounds.length - 1; level++) {
+            int parent = end;
+            while (pos < end) {
+                double nodeMinLon = Double.MAX_VALUE, nodeMinLat = Double.MAX_VALUE;
+                double nodeMaxLon = -Double.MAX_VALUE, nodeMaxLat = -Double.MAX_VALUE;
+                int first = pos;
+                for (int i = 0; i < nodeSize && pos < end; i++, pos++) {
+                    nodeMinLon = Math.min(nodeMinLon, boxes[4 * pos]);
+                    nodeMinLat = Math.min(nodeMinLat, boxes[4 * pos + 1]);
+                    nodeMaxLon = Math.max(nodeMaxLon, boxes[4 * pos + 2]);
+                    nodeMaxLat = Math.max(nodeMaxLat, boxes[4 * pos + 3]);
+                }
+                boxes[4 * parent] = nodeMinLon;
+                boxes[4 * parent + 1] = nodeMinLat;
+                boxes[4 * parent + 2] = nodeMaxLon;
+                boxes[4 * parent + 3] = nodeMaxLat;
+                indices[parent] = first;
+                parent++;
+            }
+            end = levelBounds[level + 1];
+        }
+
+        return new ShapefileSpatialIndex(numRecords, numItems, nodeSize, boxes, indices);
+    }
+
+    /**
+     * Returns the number of records in the Shapefile this index was built
+     * from.
+     *
+     * @return the number of records.
+     */
+    public int getNumberOfRecords() {
+        return this.numRecords;
+    }
+
+    /**
+     * Returns the indices of the records whose bounding rectangles intersect
+     * the specified sector, in ascending order. Reading the records in that
+     * order visits the Shapefile from front to back.
+     *
+     * @param sector the sector to search.
+     *
+     * @return the zero-based indices of the intersecting records.
+     *
+     * @throws IllegalArgumentException if the sector is null.
+     */
+    public int[] search(Sector sector) {
+        if (sector == null) {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.numItems == 0) {
+            return new int[0];
+        }
+
+        double minLon = sector.getMinLongitude().degrees;
+        double minLat = sector.getMinLatitude().degrees;
+        double maxLon = sector.getMaxLongitude().degrees;
+        double maxLat = sector.getMaxLatitude().degrees;
+
+        int[] results = new int[Math.min(this.numItems, 64)];
+        int numResults = 0;
+        int[] stack = new int[2 * 8 * this.levelBounds.length * this.nodeSize];
+        int stackSize = 0;
+
+        // Start at the root, the last box.
+        int nodePos = this.levelBounds[this.levelBounds.length - 1] - 1;
+        int level = this.levelBounds.length - 1;
+
+        while (true) {
+            int end = Math.min(nodePos + this.nodeSize, this.levelBounds[level]);
+
+            for (int pos = nodePos; pos < end; pos++) {
+                if (maxLon < this.boxes[4 * pos] || maxLat < this.boxes[4 * pos + 1]
+                        || minLon > this.boxes[4 * pos + 2] || minLat > this.boxes[4 * pos + 3]) {
+                    continue;
+                }
+
+                if (pos < this.numItems) {
+                    if (numResults == results.length) {
+                        results = Arrays.copyOf(results, Math.min(this.numItems, 2 * results.length));
+                    }
+                    results[numResults++] = this.indices[pos];
+                } else {
+                    if (stackSize == stack.length) {
+                        stack = Arrays.copyOf(stack, 2 * stack.length);
+                    }
+                    stack[stackSize++] = this.indices[pos];
+                    stack[stackSize++] = level - 1;
+                }
+            }
+
+            if (stackSize == 0) {
+                break;
+            }
+            level = stack[--stackSize];
+            nodePos = stack[--stackSize];
+        }
+
+        int[] selected = Arrays.copyOf(results, numResults);
+        Arrays.sort(selected);
+        return selected;
+    }
+
+    /**
+     * Writes this index to a sidecar file, recording the length and
+     * modification time of the Shapefile it describes.
+     *
+     * @param file the file to write.
+     * @param shapefileLength the length of the Shapefile, in bytes.
+     * @param shapefileLastModified the modification time of the Shapefile.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(File file, long shapefileLength, long shapefileLastModified) throws IOException {
+        if (file == null) {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + 8 * this.boxes.length + 4 * this.indices.length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(FILE_CODE);
+        buffer.putInt(VERSION);
+        buffer.putLong(shapefileLength);
+        buffer.putLong(shapefileLastModified);
+        buffer.putInt(this.numRecords);
+        buffer.putInt(this.numItems);
+        buffer.putInt(this.nodeSize);
+        buffer.putInt(this.indices.length);
+        buffer.asDoubleBuffer().put(this.boxes);
+        buffer.position(buffer.position() + 8 * this.boxes.length);
+        buffer.asIntBuffer().put(this.indices);
+        buffer.rewind();
+
+        // Write to a temporary file first so that a partially written index is never mistaken for a complete one.
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmpFile)) {
+            FileChannel channel = fos.getChannel();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        if (!tmpFile.renameTo(file)) {
+            file.delete();
+            if (!tmpFile.renameTo(file)) {
+                tmpFile.delete();
+                throw new IOException(Logging.getMessage("generic.CannotCreateFile", file));
+            }
+        }
+    }
+
+    /**
+     * Reads an index from a sidecar file. This returns null if the file is not
+     * an index file, or if it was built from a Shapefile with a different
+     * length or modification time.
+     *
+     * @param file the file to read.
+     * @param shapefileLength the current length of the Shapefile, in bytes.
+     * @param shapefileLastModified the current modification time of the
+     * Shapefile.
+     *
+     * @return the index, or null if the file is not a current index.
+     *
+     * @throws IOException if the file cannot be read.
+     */
+    public static ShapefileSpatialIndex read(File file, long shapefileLength, long shapefileLastModified)
+            throws IOException {
+        if (file == null) {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        try (FileInputStream fis = new FileInputStream(file)) {
+            FileChannel channel = fis.getChannel();
+            if (channel.size() < HEADER_LENGTH) {
+                return null;
+            }
+
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buffer.getInt() != FILE_CODE || buffer.getInt() != VERSION
+                    || buffer.getLong() != shapefileLength || buffer.getLong() != shapefileLastModified) {
+                return null;
+            }
+
+            int numRecords = buffer.getInt();
+            int numItems = buffer.getInt();
+            int nodeSize = buffer.getInt();
+            int numBoxes = buffer.getInt();
+            if (nodeSize < 2 || numItems < 0 || numItems > numRecords || buffer.remaining() != 36L * numBoxes) {
+                return null;
+            }
+
+            int[] levelBounds = computeLevelBounds(numItems, nodeSize);
+            if (numBoxes != levelBounds[levelBounds.length - 1]) {
+                return null;
+            }
+
+            double[] boxes = new double[4 * numBoxes];
+            int[] indices = new int[numBoxes];
+            buffer.asDoubleBuffer().get(boxes);
+            buffer.position(buffer.position() + 8 * boxes.length);
+            buffer.asIntBuffer().get(indices);
+
+            return new ShapefileSpatialIndex(numRecords, numItems, nodeSize, boxes, indices);
+        }
+    }
+
+    /**
+     * Returns the end of each level of the tree, counted in boxes, from the
+     * items up to the root.
+     *
+     * @param numItems the number of items in the tree.
+     * @param nodeSize the number of children per node.
+     *
+     * @return the level bounds.
+     */
+    protected static int[] computeLevelBounds(int numItems, int nodeSize) {
+        int[] levelBounds = new int[32];
+        int numLevels = 0;
+        int n = numItems;
+        int numBoxes = n;
+        levelBounds[numLevels++] = numBoxes;
+        do {
+            n = (n + nodeSize - 1) / nodeSize;
+            numBoxes += n;
+            levelBounds[numLevels++] = numBoxes;
+        } while (n > 1);
+
+        return Arrays.copyOf(levelBounds, numLevels);
+    }
+
+    /**
+     * Returns the position of a point along a Hilbert curve filling a 2^16 by
+     * 2^16 grid.
+     *
+     * @param x the point's x coordinate, from 0 to 2^16 - 1.
+     * @param y the point's y coordinate, from 0 to 2^16 - 1.
+     *
+     * @return the point's Hilbert value.
+     */
+    protected static int hilbert(int x, int y) {
+        int a = x ^ y;
+        int b = 0xFFFF ^ a;
+        int c = 0xFFFF ^ (x | y);
+        int d = x & (y ^ 0xFFFF);
+
+        int A = a | (b >> 1);
+        int B = (a >> 1) ^ a;
+        int C = ((c >> 1) ^ (b & (d >> 1))) ^ c;
+        int D = ((a & (c >> 1)) ^ (d >> 1)) ^ d;
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        A = ((a & (a >> 2)) ^ (b & (b >> 2)));
+        B = ((a & (b >> 2)) ^ (b & ((a ^ b) >> 2)));
+        C ^= ((a & (c >> 2)) ^ (b & (d >> 2)));
+        D ^= ((b & (c >> 2)) ^ ((a ^ b) & (d >> 2)));
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        A = ((a & (a >> 4)) ^ (b & (b >> 4)));
+        B = ((a & (b >> 4)) ^ (b & ((a ^ b) >> 4)));
+        C ^= ((a & (c >> 4)) ^ (b & (d >> 4)));
+        D ^= ((b & (c >> 4)) ^ ((a ^ b) & (d >> 4)));
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        C ^= ((a & (c >> 8)) ^ (b & (d >> 8)));
+        D ^= ((b & (c >> 8)) ^ ((a ^ b) & (d >> 8)));
+
+        a = C ^ (C >> 1);
+        b = D ^ (D >> 1);
+
+        int i0 = x ^ y;
+        int i1 = b | (0xFFFF ^ (i0 | a));
+
+        return (interleave(i1) << 1) | interleave(i0);
+    }
+
+    protected static int interleave(int x) {
+        x = (x | (x << 8)) & 0x00FF00FF;
+        x = (x | (x << 4)) & 0x0F0F0F0F;
+        x = (x | (x << 2)) & 0x33333333;
+        x = (x | (x << 1)) & 0x55555555;
+        return x;
+    }
+}
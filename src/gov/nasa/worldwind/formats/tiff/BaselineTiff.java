@@ -137,6 +137,13 @@ class BaselineTiff
                 Logging.logger().finest(e.toString());
             }
         }
+
+        // PlanarConfiguration is optional; most writers omit it for chunky images.
+        if (tiff.planarConfig == Tiff.Undefined)
+        {
+            tiff.planarConfig = Tiff.PlanarConfiguration.DEFAULT;
+        }
+
         return tiff;
     }
 
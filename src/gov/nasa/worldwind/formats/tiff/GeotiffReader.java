@@ -132,6 +132,32 @@ public class GeotiffReader implements Disposable {
         return this.doRead(imageIndex);
     }
 
+    /**
+     * Reads the part of an image that covers a sector. Only the strips or tiles that intersect the sector are read,
+     * which makes this the preferred way to pull a small region out of a large tiled (e.g. cloud optimized) GeoTIFF.
+     * <p>
+     * The returned raster covers the smallest whole-pixel window enclosing the sector, so its sector may be slightly
+     * larger than the one requested. Images in a projected coordinate system are read in full.
+     *
+     * @param imageIndex the index of the image to read.
+     * @param sector     the sector of interest.
+     *
+     * @return the raster covering <code>sector</code>, or null if the sector does not intersect the image.
+     *
+     * @throws IllegalArgumentException if the sector is null.
+     * @throws IOException              if the image cannot be read.
+     */
+    public DataRaster readDataRaster(int imageIndex, Sector sector) throws IOException {
+        if (sector == null) {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        checkImageIndex(imageIndex);
+        return this.doRead(imageIndex, sector);
+    }
+
     public BufferedImage read() throws IOException {
         return this.read(0);
     }
@@ -158,6 +184,10 @@ public class GeotiffReader implements Disposable {
     }
 
     public DataRaster doRead(int imageIndex) throws IOException {
+        return this.doRead(imageIndex, null);
+    }
+
+    protected DataRaster doRead(int imageIndex, Sector sector) throws IOException {
         checkImageIndex(imageIndex);
         AVList values = this.metadata.get(imageIndex);
 
@@ -167,8 +197,6 @@ public class GeotiffReader implements Disposable {
         byte[][] cmap = null;
         long[] stripCounts = null;
 
-        boolean tiffDifferencing = false;
-
         TiffIFDEntry[] ifd = this.tiffIFDs.get(imageIndex);
 
         BaselineTiff tiff = BaselineTiff.extract(ifd, this.tiffReader);
@@ -242,6 +270,13 @@ public class GeotiffReader implements Disposable {
             }
         }
 
+        // Tiled and compressed images, and windows of any image, are decoded block by block.
+        TiffIFDEntry compression = getByTag(ifd, Tiff.Tag.COMPRESSION);
+        if (sector != null || getByTag(ifd, Tiff.Tag.TILE_WIDTH) != null
+                || (compression != null && compression.asLong() != Tiff.Compression.NONE)) {
+            return this.readBlocks(ifd, tiff, cmap, values, sector);
+        }
+
         if (null == stripOffsets || 0 == stripOffsets.length) {
             String message = Logging.getMessage("GeotiffReader.MissingRequiredTag", "StripOffsets");
             Logging.logger().severe(message);
@@ -254,29 +289,6 @@ public class GeotiffReader implements Disposable {
             throw new IOException(message);
         }
 
-        TiffIFDEntry notToday = getByTag(ifd, Tiff.Tag.COMPRESSION);
-        boolean lzwCompressed = false;
-        if (notToday != null && notToday.asLong() == Tiff.Compression.LZW) {
-            lzwCompressed = true;
-            TiffIFDEntry predictorEntry = getByTag(ifd, Tiff.Tag.TIFF_PREDICTOR);
-            if ((predictorEntry != null) && (predictorEntry.asLong() != 0)) {
-                tiffDifferencing = true;
-            }
-        } else if (notToday != null && notToday.asLong() != Tiff.Compression.NONE) {
-            String message = Logging.getMessage("GeotiffReader.CompressionFormatNotSupported");
-            Logging.logger().severe(message);
-            throw new IOException(message);
-        }
-
-        notToday = getByTag(ifd, Tiff.Tag.TILE_WIDTH);
-        if (notToday != null) {
-            String message = Logging.getMessage("GeotiffReader.NoTiled");
-            Logging.logger().severe(message);
-            throw new IOException(message);
-        }
-
-        long offset = stripOffsets[0];
-
         if (values.getValue(AVKey.PIXEL_FORMAT) == AVKey.ELEVATION) {
             ByteBufferRaster raster = new ByteBufferRaster(tiff.width, tiff.height,
                     (Sector) values.getValue(AVKey.SECTOR), values);
@@ -376,36 +388,10 @@ public class GeotiffReader implements Disposable {
         } else if (values.getValue(AVKey.PIXEL_FORMAT) == AVKey.IMAGE
                 && values.getValue(AVKey.IMAGE_COLOR_FORMAT) == AVKey.COLOR) {
 
-            ColorModel colorModel = null;
+            ColorModel colorModel = this.createColorModel(tiff, cmap);
             WritableRaster raster;
             BufferedImage colorImage;
 
-            // make sure a DataBufferByte is going to do the trick
-            for (int bits : tiff.bitsPerSample) {
-                if (bits != 8) {
-                    String message = Logging.getMessage("GeotiffReader.Not8bit", bits);
-                    Logging.logger().warning(message);
-                    throw new IOException(message);
-                }
-            }
-
-            if (tiff.photometric == Tiff.Photometric.Color_RGB) {
-                int transparency = Transparency.OPAQUE;
-                boolean hasAlpha = false;
-
-                if (tiff.samplesPerPixel == Tiff.SamplesPerPixel.RGB) {
-                    transparency = Transparency.OPAQUE;
-                    hasAlpha = false;
-                } else if (tiff.samplesPerPixel == Tiff.SamplesPerPixel.RGBA) {
-                    transparency = Transparency.TRANSLUCENT;
-                    hasAlpha = true;
-                }
-                colorModel = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB), tiff.bitsPerSample,
-                        hasAlpha, false, transparency, DataBuffer.TYPE_BYTE);
-            } else if (tiff.photometric == Tiff.Photometric.Color_Palette) {
-                colorModel = new IndexColorModel(tiff.bitsPerSample[0], cmap[0].length, cmap[0], cmap[1], cmap[2]);
-            }
-
             int[] bankOffsets = new int[tiff.samplesPerPixel];
             for (int i = 0; i < tiff.samplesPerPixel; i++) {
                 bankOffsets[i] = i;
@@ -432,15 +418,8 @@ public class GeotiffReader implements Disposable {
             // Get the image data and make our Raster...
             byte[][] imageData;
             if (tiff.planarConfig == Tiff.PlanarConfiguration.CHUNKY) {
-                if (lzwCompressed && (tiff.samplesPerPixel > 2)) {
-                    imageData = new byte[1][tiff.width * tiff.height * tiff.samplesPerPixel];
-
-                    imageData[0] = this.tiffReader.readLZWCompressed(tiff.width, tiff.height, offset,
-                            tiff.samplesPerPixel, tiffDifferencing, stripOffsets, stripCounts);
-                } else {
-                    imageData = this.tiffReader.readPixelInterleaved8(tiff.width, tiff.height, tiff.samplesPerPixel,
-                            stripOffsets, stripCounts);
-                }
+                imageData = this.tiffReader.readPixelInterleaved8(tiff.width, tiff.height, tiff.samplesPerPixel,
+                        stripOffsets, stripCounts);
             } else {
                 imageData = this.tiffReader.readPlanar8(tiff.width, tiff.height, tiff.samplesPerPixel, stripOffsets,
                         stripCounts, tiff.rowsPerStrip);
@@ -466,6 +445,187 @@ public class GeotiffReader implements Disposable {
         throw new IOException(message);
     }
 
+    /**
+     * Reads an image, or the window of it that covers a sector, through a {@link TIFFBlockReader}. This handles tiled
+     * layouts and every supported compression.
+     */
+    private DataRaster readBlocks(TiffIFDEntry[] ifd, BaselineTiff tiff, byte[][] cmap, AVList values, Sector sector)
+            throws IOException {
+        int[] window = {0, 0, tiff.width, tiff.height};
+        if (sector != null) {
+            window = this.computePixelWindow(values, tiff.width, tiff.height, sector);
+            if (window == null) {
+                return null;
+            }
+            values = this.makeWindowMetadata(values, tiff.width, tiff.height, window);
+        }
+
+        int width = window[2];
+        int height = window[3];
+        TIFFBlockReader blocks = new TIFFBlockReader(this.theChannel, this.tiffReader.getByteOrder(), tiff, ifd);
+        ByteBuffer data = ByteBuffer.wrap(blocks.readWindow(window[0], window[1], width, height))
+                .order(blocks.getByteOrder());
+        int sampleBytes = blocks.getBytesPerSample();
+        int pixelBytes = blocks.getSamplesPerPixel() * sampleBytes;
+
+        if (values.getValue(AVKey.PIXEL_FORMAT) == AVKey.ELEVATION) {
+            if (sampleBytes > 4) {
+                String message = Logging.getMessage("Geotiff.UnsupportedDataTypeRaster", tiff.toString());
+                Logging.logger().severe(message);
+                throw new IOException(message);
+            }
+
+            ByteBufferRaster raster = new ByteBufferRaster(width, height, (Sector) values.getValue(AVKey.SECTOR),
+                    values);
+            boolean isFloat = values.getValue(AVKey.DATA_TYPE) == AVKey.FLOAT32;
+
+            int pos = 0;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++, pos += pixelBytes) {
+                    double value;
+                    switch (sampleBytes) {
+                        case 1:
+                            value = data.get(pos);
+                            break;
+                        case 2:
+                            value = data.getShort(pos);
+                            break;
+                        default:
+                            value = isFloat ? data.getFloat(pos) : data.getInt(pos);
+                            break;
+                    }
+                    raster.setDoubleAtPosition(y, x, value);
+                }
+            }
+
+            ElevationsUtil.rectify(raster);
+
+            return raster;
+        } else if (values.getValue(AVKey.PIXEL_FORMAT) == AVKey.IMAGE
+                && values.getValue(AVKey.IMAGE_COLOR_FORMAT) == AVKey.GRAYSCALE
+                && (sampleBytes == 1 || sampleBytes == 2)) {
+            BufferedImage grayImage = new BufferedImage(width, height,
+                    (sampleBytes == 1) ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_USHORT_GRAY);
+            WritableRaster wrRaster = grayImage.getRaster();
+
+            int pos = 0;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++, pos += pixelBytes) {
+                    int value = (sampleBytes == 1) ? 0xFF & data.get(pos) : 0xFFFF & data.getShort(pos);
+                    wrRaster.setSample(x, y, 0, value);
+                }
+            }
+
+            grayImage = ImageUtil.toCompatibleImage(grayImage);
+            return BufferedImageRaster.wrap(grayImage, values);
+        } else if (values.getValue(AVKey.PIXEL_FORMAT) == AVKey.IMAGE
+                && values.getValue(AVKey.IMAGE_COLOR_FORMAT) == AVKey.COLOR) {
+            ColorModel colorModel = this.createColorModel(tiff, cmap);
+
+            int[] bandOffsets = new int[tiff.samplesPerPixel];
+            for (int i = 0; i < tiff.samplesPerPixel; i++) {
+                bandOffsets[i] = i;
+            }
+
+            SampleModel sampleModel = new PixelInterleavedSampleModel(DataBuffer.TYPE_BYTE, width, height,
+                    tiff.samplesPerPixel, width * tiff.samplesPerPixel, bandOffsets);
+            DataBufferByte dataBuff = new DataBufferByte(data.array(), data.capacity());
+            WritableRaster raster = Raster.createWritableRaster(sampleModel, dataBuff, new Point(0, 0));
+
+            BufferedImage colorImage = new BufferedImage(colorModel, raster, false, null);
+            colorImage = ImageUtil.toCompatibleImage(colorImage);
+            return BufferedImageRaster.wrap(colorImage, values);
+        }
+
+        String message = Logging.getMessage("Geotiff.UnsupportedDataTypeRaster", tiff.toString());
+        Logging.logger().severe(message);
+        throw new IOException(message);
+    }
+
+    private ColorModel createColorModel(BaselineTiff tiff, byte[][] cmap) throws IOException {
+        // make sure a DataBufferByte is going to do the trick
+        for (int bits : tiff.bitsPerSample) {
+            if (bits != 8) {
+                String message = Logging.getMessage("GeotiffReader.Not8bit", bits);
+                Logging.logger().warning(message);
+                throw new IOException(message);
+            }
+        }
+
+        ColorModel colorModel = null;
+
+        if (tiff.photometric == Tiff.Photometric.Color_RGB) {
+            int transparency = Transparency.OPAQUE;
+            boolean hasAlpha = false;
+
+            if (tiff.samplesPerPixel == Tiff.SamplesPerPixel.RGB) {
+                transparency = Transparency.OPAQUE;
+                hasAlpha = false;
+            } else if (tiff.samplesPerPixel == Tiff.SamplesPerPixel.RGBA) {
+                transparency = Transparency.TRANSLUCENT;
+                hasAlpha = true;
+            }
+            colorModel = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB), tiff.bitsPerSample,
+                    hasAlpha, false, transparency, DataBuffer.TYPE_BYTE);
+        } else if (tiff.photometric == Tiff.Photometric.Color_Palette) {
+            colorModel = new IndexColorModel(tiff.bitsPerSample[0], cmap[0].length, cmap[0], cmap[1], cmap[2]);
+        }
+
+        return colorModel;
+    }
+
+    /**
+     * Computes the smallest pixel window {x, y, width, height} of a geographic image that encloses a sector, or
+     * returns null if the sector misses the image. Projected images always yield the full image.
+     */
+    private int[] computePixelWindow(AVList values, int width, int height, Sector sector) {
+        Sector imageSector = (Sector) values.getValue(AVKey.SECTOR);
+        if (imageSector == null || values.getValue(AVKey.COORDINATE_SYSTEM) != AVKey.COORDINATE_SYSTEM_GEOGRAPHIC) {
+            return new int[]{0, 0, width, height};
+        }
+
+        if (!imageSector.intersects(sector)) {
+            return null;
+        }
+
+        double pixelWidth = imageSector.getDeltaLonDegrees() / width;
+        double pixelHeight = imageSector.getDeltaLatDegrees() / height;
+        double minLon = imageSector.getMinLongitude().degrees;
+        double maxLat = imageSector.getMaxLatitude().degrees;
+
+        int x0 = (int) Math.floor((sector.getMinLongitude().degrees - minLon) / pixelWidth);
+        int x1 = (int) Math.ceil((sector.getMaxLongitude().degrees - minLon) / pixelWidth);
+        int y0 = (int) Math.floor((maxLat - sector.getMaxLatitude().degrees) / pixelHeight);
+        int y1 = (int) Math.ceil((maxLat - sector.getMinLatitude().degrees) / pixelHeight);
+
+        x0 = WWMath.clamp(x0, 0, width - 1);
+        y0 = WWMath.clamp(y0, 0, height - 1);
+        x1 = WWMath.clamp(x1, x0 + 1, width);
+        y1 = WWMath.clamp(y1, y0 + 1, height);
+
+        return new int[]{x0, y0, x1 - x0, y1 - y0};
+    }
+
+    private AVList makeWindowMetadata(AVList values, int width, int height, int[] window) {
+        if (window[2] == width && window[3] == height) {
+            return values;
+        }
+
+        Sector imageSector = (Sector) values.getValue(AVKey.SECTOR);
+        double pixelWidth = imageSector.getDeltaLonDegrees() / width;
+        double pixelHeight = imageSector.getDeltaLatDegrees() / height;
+        double minLon = imageSector.getMinLongitude().degrees + window[0] * pixelWidth;
+        double maxLat = imageSector.getMaxLatitude().degrees - window[1] * pixelHeight;
+
+        AVList windowValues = values.copy();
+        windowValues.setValue(AVKey.WIDTH, window[2]);
+        windowValues.setValue(AVKey.HEIGHT, window[3]);
+        windowValues.setValue(AVKey.SECTOR, Sector.fromDegrees(maxLat - window[3] * pixelHeight, maxLat,
+                minLon, minLon + window[2] * pixelWidth));
+        windowValues.setValue(AVKey.ORIGIN, LatLon.fromDegrees(maxLat, minLon));
+        return windowValues;
+    }
+
     /**
      * Returns true if georeferencing information was found in this file.
      * <p>
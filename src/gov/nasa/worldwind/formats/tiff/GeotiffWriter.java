@@ -50,12 +50,14 @@ public class GeotiffWriter
     private RandomAccessFile targetFile;
     private FileChannel theChannel;
 
-    // We need the size in bytes of various primitives...
-    private static final int INTEGER_SIZEOF = Integer.SIZE / Byte.SIZE;
-
     private static final int BufferedImage_TYPE_ELEVATION_SHORT16 = 9001;
     private static final int BufferedImage_TYPE_ELEVATION_FLOAT32 = 9002;
 
+    private int compression = Tiff.Compression.NONE;
+    private int predictor = Tiff.Predictor.NONE;
+    private int tileWidth;
+    private int tileHeight;
+
     public GeotiffWriter(String filename) throws IOException
     {
         if (null == filename || 0 == filename.trim().length())
@@ -98,9 +100,98 @@ public class GeotiffWriter
         }
 
         this.targetFile = new RandomAccessFile(file, "rw");
+        // Discard any previous content; a compressed image may be shorter than the file it replaces.
+        this.targetFile.setLength(0);
         this.theChannel = this.targetFile.getChannel();
     }
 
+    public int getCompression()
+    {
+        return this.compression;
+    }
+
+    /**
+     * Specifies the compression applied to the pixel data. The default is no compression.
+     *
+     * @param compression one of <code>Tiff.Compression.NONE</code>, <code>Tiff.Compression.LZW</code> or
+     *                    <code>Tiff.Compression.DEFLATE</code>.
+     *
+     * @throws IllegalArgumentException if the compression is not supported.
+     */
+    public void setCompression(int compression)
+    {
+        if (compression != Tiff.Compression.NONE && compression != Tiff.Compression.LZW
+            && compression != Tiff.Compression.DEFLATE)
+        {
+            String msg = Logging.getMessage("GeotiffWriter.CompressionNotSupported", compression);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.compression = compression;
+    }
+
+    public int getPredictor()
+    {
+        return this.predictor;
+    }
+
+    /**
+     * Specifies the predictor applied to the pixel data before compression. Predictors make smooth data such as
+     * elevations compress considerably better. <code>Tiff.Predictor.HORIZONTAL_DIFFERENCING</code> applies to integer
+     * samples and <code>Tiff.Predictor.FLOATING_POINT</code> to floating point samples. The default is
+     * <code>Tiff.Predictor.NONE</code>.
+     *
+     * @param predictor one of the <code>Tiff.Predictor</code> values.
+     *
+     * @throws IllegalArgumentException if the predictor is unknown.
+     */
+    public void setPredictor(int predictor)
+    {
+        if (predictor != Tiff.Predictor.NONE && predictor != Tiff.Predictor.HORIZONTAL_DIFFERENCING
+            && predictor != Tiff.Predictor.FLOATING_POINT)
+        {
+            String msg = Logging.getMessage("GeotiffReader.PredictorNotSupported", predictor);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.predictor = predictor;
+    }
+
+    public int getTileWidth()
+    {
+        return this.tileWidth;
+    }
+
+    public int getTileHeight()
+    {
+        return this.tileHeight;
+    }
+
+    /**
+     * Specifies a tiled layout for the pixel data. Readers can then decode any region of the image without reading
+     * whole rows. A size of zero selects the default strip layout.
+     *
+     * @param tileWidth  the tile width, a positive multiple of 16, or zero.
+     * @param tileHeight the tile height, a positive multiple of 16, or zero.
+     *
+     * @throws IllegalArgumentException if either dimension is not a multiple of 16, or only one is zero.
+     */
+    public void setTileSize(int tileWidth, int tileHeight)
+    {
+        boolean strips = tileWidth == 0 && tileHeight == 0;
+        if (!strips && (tileWidth <= 0 || tileHeight <= 0 || tileWidth % 16 != 0 || tileHeight % 16 != 0))
+        {
+            String msg = Logging.getMessage("GeotiffWriter.InvalidTileSize", tileWidth, tileHeight);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+    }
+
     public void close()
     {
         try
@@ -360,23 +451,21 @@ public class GeotiffWriter
         // write the image data...
         int numRows = image.getHeight();
         int numCols = image.getWidth();
-        int[] stripCounts = new int[numRows];
-        int[] stripOffsets = new int[numRows];
-        ByteBuffer dataBuff = ByteBuffer.allocateDirect(numCols * numBands);
+        TIFFBlockWriter blocks = this.createBlockWriter(numCols, numRows, numBands, 1, Tiff.SampleFormat.UNSIGNED);
+        ByteBuffer dataBuff = ByteBuffer.allocate(numCols * numBands);
         Raster rast = image.getRaster();
+        int[] rowData = null;
 
         for (int i = 0; i < numRows; i++)
         {
-            stripOffsets[i] = (int) this.theChannel.position();
-            stripCounts[i] = numCols * numBands;
-            int[] rowData = rast.getPixels(0, i, image.getWidth(), 1, (int[]) null);
+            rowData = rast.getPixels(0, i, image.getWidth(), 1, rowData);
             dataBuff.clear();
             for (int j = 0; j < numCols * numBands; j++)
             {
                 putUnsignedByte(dataBuff, rowData[j]);
             }
             dataBuff.flip();
-            this.theChannel.write(dataBuff);
+            blocks.writeRow(dataBuff);
         }
 
         // write out values for the tiff tags and build up the IFD. These are supposed to be sorted; for now
@@ -388,7 +477,6 @@ public class GeotiffWriter
 
         ifds.add(new TiffIFDEntry(Tiff.Tag.PLANAR_CONFIGURATION, Tiff.Type.SHORT, 1, Tiff.PlanarConfiguration.CHUNKY));
         ifds.add(new TiffIFDEntry(Tiff.Tag.SAMPLES_PER_PIXEL, Tiff.Type.SHORT, 1, numBands));
-        ifds.add(new TiffIFDEntry(Tiff.Tag.COMPRESSION, Tiff.Type.LONG, 1, Tiff.Compression.NONE));
         ifds.add(new TiffIFDEntry(Tiff.Tag.PHOTO_INTERPRETATION, Tiff.Type.SHORT, 1, Tiff.Photometric.Color_RGB));
 
         ifds.add(new TiffIFDEntry(Tiff.Tag.ORIENTATION, Tiff.Type.SHORT, 1, Tiff.Orientation.DEFAULT));
@@ -403,27 +491,7 @@ public class GeotiffWriter
         this.theChannel.write(ByteBuffer.wrap(this.getBytes(bps)));
         ifds.add(new TiffIFDEntry(Tiff.Tag.BITS_PER_SAMPLE, Tiff.Type.SHORT, numBands, offset));
 
-        offset = this.theChannel.position();
-        dataBuff = ByteBuffer.allocateDirect(stripOffsets.length * INTEGER_SIZEOF);
-        for (int stripOffset : stripOffsets)
-        {
-            dataBuff.putInt(stripOffset);
-        }
-        dataBuff.flip();
-        this.theChannel.write(dataBuff);
-        ifds.add(new TiffIFDEntry(Tiff.Tag.STRIP_OFFSETS, Tiff.Type.LONG, stripOffsets.length, offset));
-        ifds.add(new TiffIFDEntry(Tiff.Tag.ROWS_PER_STRIP, Tiff.Type.LONG, 1, 1));
-
-        offset = this.theChannel.position();
-        dataBuff.clear();
-        // stripOffsets and stripCounts are same length by design; can reuse the ByteBuffer...
-        for (int stripCount : stripCounts)
-        {
-            dataBuff.putInt(stripCount);
-        }
-        dataBuff.flip();
-        this.theChannel.write(dataBuff);
-        ifds.add(new TiffIFDEntry(Tiff.Tag.STRIP_BYTE_COUNTS, Tiff.Type.LONG, stripCounts.length, offset));
+        blocks.appendLayoutEntries(ifds);
 
         this.appendGeoTiff(ifds, params);
 
@@ -451,16 +519,15 @@ public class GeotiffWriter
         // write the image data...
         int numRows = image.getHeight();
         int numCols = image.getWidth();
-        int[] stripCounts = new int[numRows];
-        int[] stripOffsets = new int[numRows];
-        ByteBuffer dataBuff = ByteBuffer.allocateDirect(numCols * bytesPerSample);
+        TIFFBlockWriter blocks = this.createBlockWriter(numCols, numRows, numBands, bitsPerSample / Byte.SIZE,
+            Tiff.SampleFormat.UNSIGNED);
+        ByteBuffer dataBuff = ByteBuffer.allocate(numCols * bytesPerSample);
         Raster rast = image.getRaster();
+        int[] rowData = null;
 
         for (int i = 0; i < numRows; i++)
         {
-            stripOffsets[i] = (int) this.theChannel.position();
-            stripCounts[i] = numCols * bytesPerSample;
-            int[] rowData = rast.getPixels(0, i, image.getWidth(), 1, (int[]) null);
+            rowData = rast.getPixels(0, i, image.getWidth(), 1, rowData);
             dataBuff.clear();
 
             if (BufferedImage.TYPE_USHORT_GRAY == type)
@@ -478,7 +545,7 @@ public class GeotiffWriter
                 }
             }
             dataBuff.flip();
-            this.theChannel.write(dataBuff);
+            blocks.writeRow(dataBuff);
         }
 
         // write out values for the tiff tags and build up the IFD. These are supposed to be sorted; for now
@@ -488,38 +555,32 @@ public class GeotiffWriter
         ifds.add(new TiffIFDEntry(Tiff.Tag.IMAGE_WIDTH, Tiff.Type.LONG, 1, numCols));
         ifds.add(new TiffIFDEntry(Tiff.Tag.IMAGE_LENGTH, Tiff.Type.LONG, 1, numRows));
         ifds.add(new TiffIFDEntry(Tiff.Tag.BITS_PER_SAMPLE, Tiff.Type.SHORT, 1, bitsPerSample));
-        ifds.add(new TiffIFDEntry(Tiff.Tag.COMPRESSION, Tiff.Type.LONG, 1, Tiff.Compression.NONE));
         ifds.add(new TiffIFDEntry(Tiff.Tag.PHOTO_INTERPRETATION, Tiff.Type.SHORT, 1,
             Tiff.Photometric.Grayscale_BlackIsZero));
         ifds.add(new TiffIFDEntry(Tiff.Tag.SAMPLE_FORMAT, Tiff.Type.SHORT, 1, Tiff.SampleFormat.UNSIGNED));
+        ifds.add(new TiffIFDEntry(Tiff.Tag.SAMPLES_PER_PIXEL, Tiff.Type.SHORT, 1, numBands));
 
-        long offset = this.theChannel.position();
-        dataBuff = ByteBuffer.allocateDirect(stripOffsets.length * INTEGER_SIZEOF);
-        for (int stripOffset : stripOffsets)
-        {
-            dataBuff.putInt(stripOffset);
-        }
-        dataBuff.flip();
-        this.theChannel.write(dataBuff);
-        ifds.add(new TiffIFDEntry(Tiff.Tag.STRIP_OFFSETS, Tiff.Type.LONG, stripOffsets.length, offset));
+        blocks.appendLayoutEntries(ifds);
 
-        ifds.add(new TiffIFDEntry(Tiff.Tag.SAMPLES_PER_PIXEL, Tiff.Type.SHORT, 1, numBands));
-        ifds.add(new TiffIFDEntry(Tiff.Tag.ROWS_PER_STRIP, Tiff.Type.LONG, 1, 1));
+        this.appendGeoTiff(ifds, params);
 
-        offset = this.theChannel.position();
-        dataBuff.clear();  // stripOffsets and stripCounts are same length by design; can reuse the ByteBuffer...
+        this.writeIFDs(ifds);
+    }
 
-        for (int stripCount : stripCounts)
+    private TIFFBlockWriter createBlockWriter(int width, int height, int samplesPerPixel, int bytesPerSample,
+        int sampleFormat)
+    {
+        boolean isFloat = sampleFormat == Tiff.SampleFormat.IEEEFLOAT;
+        if ((this.predictor == Tiff.Predictor.HORIZONTAL_DIFFERENCING && isFloat)
+            || (this.predictor == Tiff.Predictor.FLOATING_POINT && !isFloat))
         {
-            dataBuff.putInt(stripCount);
+            String msg = Logging.getMessage("GeotiffWriter.PredictorNotApplicable", this.predictor, sampleFormat);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
         }
-        dataBuff.flip();
-        this.theChannel.write(dataBuff);
-        ifds.add(new TiffIFDEntry(Tiff.Tag.STRIP_BYTE_COUNTS, Tiff.Type.LONG, stripCounts.length, offset));
 
-        this.appendGeoTiff(ifds, params);
-
-        this.writeIFDs(ifds);
+        return new TIFFBlockWriter(this.theChannel, width, height, samplesPerPixel, bytesPerSample, this.compression,
+            this.predictor, this.tileWidth, this.tileHeight);
     }
 
     private void writeTiffHeader() throws IOException
@@ -1184,93 +1245,50 @@ public class GeotiffWriter
             throw new IllegalArgumentException(msg);
         }
 
-        int bytesPerSample = numBands * bitsPerSample / Byte.SIZE;
+        int bytesPerSample = (Tiff.BitsPerSample.RGB == bitsPerSample) ? 1 : bitsPerSample / Byte.SIZE;
 
         this.writeTiffHeader();
 
-        // write the image data...
+        // write the image data a row at a time, so the raster is never copied as a whole...
         int numRows = raster.getHeight();
         int numCols = raster.getWidth();
-        int[] stripCounts = new int[numRows];
-        int[] stripOffsets = new int[numRows];
 
         BufferWrapper srcBuffer = raster.getBuffer();
 
-        ByteBuffer dataBuff = ByteBuffer.allocateDirect(numCols * bytesPerSample);
+        TIFFBlockWriter blocks = this.createBlockWriter(numCols, numRows, samplesPerPixel, bytesPerSample,
+            sampleFormat);
+        ByteBuffer dataBuff = ByteBuffer.allocate(numCols * samplesPerPixel * bytesPerSample);
 
-        switch (bitsPerSample)
+        for (int y = 0; y < numRows; y++)
         {
-//            case Tiff.BitsPerSample.MONOCHROME_BYTE:
-            case Tiff.BitsPerSample.MONOCHROME_UINT8:
-            {
-                for (int y = 0; y < numRows; y++)
-                {
-                    stripOffsets[y] = (int) this.theChannel.position();
-                    stripCounts[y] = numCols * bytesPerSample;
-
-                    dataBuff.clear();
+            dataBuff.clear();
 
+            switch (bitsPerSample)
+            {
+//                case Tiff.BitsPerSample.MONOCHROME_BYTE:
+                case Tiff.BitsPerSample.MONOCHROME_UINT8:
                     for (int x = 0; x < numCols * numBands; x++)
                     {
                         dataBuff.put(srcBuffer.getByte(x + y * numCols));
                     }
+                    break;
 
-                    dataBuff.flip();
-                    this.theChannel.write(dataBuff);
-                }
-            }
-            break;
-
-//            case Tiff.BitsPerSample.MONOCHROME_UINT16:
-            case Tiff.BitsPerSample.ELEVATIONS_INT16:
-            {
-                for (int y = 0; y < numRows; y++)
-                {
-                    stripOffsets[y] = (int) this.theChannel.position();
-                    stripCounts[y] = numCols * bytesPerSample;
-
-                    dataBuff.clear();
-
+//                case Tiff.BitsPerSample.MONOCHROME_UINT16:
+                case Tiff.BitsPerSample.ELEVATIONS_INT16:
                     for (int x = 0; x < numCols * numBands; x++)
                     {
                         dataBuff.putShort(srcBuffer.getShort(x + y * numCols));
                     }
+                    break;
 
-                    dataBuff.flip();
-                    this.theChannel.write(dataBuff);
-                }
-            }
-            break;
-
-            case Tiff.BitsPerSample.ELEVATIONS_FLOAT32:
-            {
-                for (int y = 0; y < numRows; y++)
-                {
-                    stripOffsets[y] = (int) this.theChannel.position();
-                    stripCounts[y] = numCols * bytesPerSample;
-
-                    dataBuff.clear();
-
+                case Tiff.BitsPerSample.ELEVATIONS_FLOAT32:
                     for (int x = 0; x < numCols * numBands; x++)
                     {
                         dataBuff.putFloat(srcBuffer.getFloat(x + y * numCols));
                     }
+                    break;
 
-                    dataBuff.flip();
-                    this.theChannel.write(dataBuff);
-                }
-            }
-            break;
-
-            case Tiff.BitsPerSample.RGB:
-            {
-                for (int y = 0; y < numRows; y++)
-                {
-                    stripOffsets[y] = (int) this.theChannel.position();
-                    stripCounts[y] = numCols * bytesPerSample;
-
-                    dataBuff.clear();
-
+                case Tiff.BitsPerSample.RGB:
                     for (int x = 0; x < numCols; x++)
                     {
                         int color = srcBuffer.getInt(x + y * numCols);
@@ -1281,11 +1299,11 @@ public class GeotiffWriter
 //                        dataBuff.put(0xFF & (color >> 24)); // alpha
                         dataBuff.put(red).put(green).put(blue);
                     }
-                    dataBuff.flip();
-                    this.theChannel.write(dataBuff);
-                }
+                    break;
             }
-            break;
+
+            dataBuff.flip();
+            blocks.writeRow(dataBuff);
         }
 
         // write out values for the tiff tags and build up the IFD. These are supposed to be sorted; for now
@@ -1309,35 +1327,13 @@ public class GeotiffWriter
         else
             ifds.add(new TiffIFDEntry(Tiff.Tag.BITS_PER_SAMPLE, Tiff.Type.SHORT, 1, bitsPerSample));
 
-        ifds.add(new TiffIFDEntry(Tiff.Tag.COMPRESSION, Tiff.Type.LONG, 1, Tiff.Compression.NONE));
         ifds.add(new TiffIFDEntry(Tiff.Tag.PHOTO_INTERPRETATION, Tiff.Type.SHORT, 1, photometric));
         ifds.add(new TiffIFDEntry(Tiff.Tag.SAMPLES_PER_PIXEL, Tiff.Type.SHORT, 1, samplesPerPixel));
         ifds.add(new TiffIFDEntry(Tiff.Tag.ORIENTATION, Tiff.Type.SHORT, 1, Tiff.Orientation.DEFAULT));
         ifds.add(new TiffIFDEntry(Tiff.Tag.PLANAR_CONFIGURATION, Tiff.Type.SHORT, 1, Tiff.PlanarConfiguration.CHUNKY));
         ifds.add(new TiffIFDEntry(Tiff.Tag.SAMPLE_FORMAT, Tiff.Type.SHORT, 1, sampleFormat));
 
-        offset = this.theChannel.position();
-        dataBuff = ByteBuffer.allocateDirect(stripOffsets.length * INTEGER_SIZEOF);
-        for (int stripOffset : stripOffsets)
-        {
-            dataBuff.putInt(stripOffset);
-        }
-        dataBuff.flip();
-        this.theChannel.write(dataBuff);
-
-        ifds.add(new TiffIFDEntry(Tiff.Tag.STRIP_OFFSETS, Tiff.Type.LONG, stripOffsets.length, offset));
-        ifds.add(new TiffIFDEntry(Tiff.Tag.ROWS_PER_STRIP, Tiff.Type.LONG, 1, 1));
-
-        offset = this.theChannel.position();
-        dataBuff.clear();  // stripOffsets and stripCounts are same length by design; can reuse the ByteBuffer...
-        for (int stripCount : stripCounts)
-        {
-            dataBuff.putInt(stripCount);
-        }
-        dataBuff.flip();
-        this.theChannel.write(dataBuff);
-
-        ifds.add(new TiffIFDEntry(Tiff.Tag.STRIP_BYTE_COUNTS, Tiff.Type.LONG, stripCounts.length, offset));
+        blocks.appendLayoutEntries(ifds);
 
         this.appendGeoTiff(ifds, raster);
 
@@ -0,0 +1,594 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.formats.tiff;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.io.IOException;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.zip.*;
+
+/**
+ * This is a package private class that decodes the strips or tiles of a single TIFF image. Compressed blocks are
+ * inflated (DEFLATE), unpacked (PackBits) or LZW decoded, and horizontal and floating point predictors are undone.
+ * Only the blocks that intersect a requested pixel window are touched, and the block data is read through a memory
+ * mapping of the file, so a small window of a large tiled image costs little more than the tiles it covers.
+ * <p>
+ * Decoded samples are returned pixel interleaved in the byte order of the TIFF file, regardless of whether the image
+ * is stored chunky or planar.
+ */
+class TIFFBlockReader
+{
+    private static final int LZW_CLEAR_CODE = 256;
+    private static final int LZW_EOI_CODE = 257;
+    private static final int LZW_MAX_CODES = 4096;
+
+    private final FileChannel theChannel;
+    private final ByteOrder byteOrder;
+
+    private final int imageWidth;
+    private final int imageHeight;
+    private final int blockWidth;
+    private final int blockHeight;
+    private final int blocksAcross;
+    private final int blocksDown;
+    private final boolean tiled;
+    private final boolean planar;
+    private final int samplesPerPixel;
+    private final int bytesPerSample;
+    private final int compression;
+    private final int predictor;
+    private final long[] blockOffsets;
+    private final long[] blockCounts;
+
+    private ByteBuffer mappedFile;
+
+    public TIFFBlockReader(FileChannel fileChannel, ByteOrder byteOrder, BaselineTiff tiff, TiffIFDEntry[] ifd)
+        throws IOException
+    {
+        this.theChannel = fileChannel;
+        this.byteOrder = byteOrder;
+        this.imageWidth = tiff.width;
+        this.imageHeight = tiff.height;
+        this.samplesPerPixel = tiff.samplesPerPixel;
+        this.planar = tiff.planarConfig == Tiff.PlanarConfiguration.PLANAR && tiff.samplesPerPixel > 1;
+        this.bytesPerSample = bytesPerSample(tiff.bitsPerSample);
+
+        long tileWidth = 0, tileLength = 0;
+        long[] tileOffsets = null, tileCounts = null, stripOffsets = null, stripCounts = null;
+        int compression = Tiff.Compression.NONE;
+        int predictor = Tiff.Predictor.NONE;
+
+        for (TiffIFDEntry entry : ifd)
+        {
+            switch (entry.tag)
+            {
+                case Tiff.Tag.TILE_WIDTH:
+                    tileWidth = entry.asLong();
+                    break;
+                case Tiff.Tag.TILE_LENGTH:
+                    tileLength = entry.asLong();
+                    break;
+                case Tiff.Tag.TILE_OFFSETS:
+                    tileOffsets = entry.getAsLongs();
+                    break;
+                case Tiff.Tag.TILE_COUNTS:
+                    tileCounts = entry.getAsLongs();
+                    break;
+                case Tiff.Tag.STRIP_OFFSETS:
+                    stripOffsets = entry.getAsLongs();
+                    break;
+                case Tiff.Tag.STRIP_BYTE_COUNTS:
+                    stripCounts = entry.getAsLongs();
+                    break;
+                case Tiff.Tag.COMPRESSION:
+                    compression = (int) entry.asLong();
+                    break;
+                case Tiff.Tag.TIFF_PREDICTOR:
+                    predictor = (int) entry.asLong();
+                    break;
+            }
+        }
+
+        if (!isSupportedCompression(compression))
+        {
+            String message = Logging.getMessage("GeotiffReader.CompressionFormatNotSupported");
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        if (predictor != Tiff.Predictor.NONE && predictor != Tiff.Predictor.HORIZONTAL_DIFFERENCING
+            && predictor != Tiff.Predictor.FLOATING_POINT)
+        {
+            String message = Logging.getMessage("GeotiffReader.PredictorNotSupported", predictor);
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        this.tiled = tileWidth > 0;
+        if (this.tiled)
+        {
+            if (tileLength <= 0 || tileWidth > Integer.MAX_VALUE || tileLength > Integer.MAX_VALUE)
+            {
+                String message = Logging.getMessage("GeotiffReader.InvalidIFDEntryValue", tileLength,
+                    "TileLength", Tiff.Tag.TILE_LENGTH);
+                Logging.logger().severe(message);
+                throw new IOException(message);
+            }
+
+            this.blockWidth = (int) tileWidth;
+            this.blockHeight = (int) tileLength;
+            this.blockOffsets = tileOffsets;
+            this.blockCounts = tileCounts;
+        }
+        else
+        {
+            this.blockWidth = tiff.width;
+            this.blockHeight = (tiff.rowsPerStrip > 0) ? Math.min(tiff.rowsPerStrip, tiff.height) : tiff.height;
+            this.blockOffsets = stripOffsets;
+            this.blockCounts = stripCounts;
+        }
+
+        this.blocksAcross = (this.imageWidth + this.blockWidth - 1) / this.blockWidth;
+        this.blocksDown = (this.imageHeight + this.blockHeight - 1) / this.blockHeight;
+        this.compression = compression;
+        // Predictors are defined only in combination with compression.
+        this.predictor = (compression != Tiff.Compression.NONE) ? predictor : Tiff.Predictor.NONE;
+
+        int numBlocks = this.blocksAcross * this.blocksDown * (this.planar ? this.samplesPerPixel : 1);
+        if (null == this.blockOffsets || this.blockOffsets.length < numBlocks)
+        {
+            String message = Logging.getMessage("GeotiffReader.MissingRequiredTag",
+                this.tiled ? "TileOffsets" : "StripOffsets");
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        if (null == this.blockCounts || this.blockCounts.length < numBlocks)
+        {
+            String message = Logging.getMessage("GeotiffReader.MissingRequiredTag",
+                this.tiled ? "TileByteCounts" : "StripByteCounts");
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+    }
+
+    public static boolean isSupportedCompression(int compression)
+    {
+        return compression == Tiff.Compression.NONE
+            || compression == Tiff.Compression.LZW
+            || compression == Tiff.Compression.DEFLATE
+            || compression == Tiff.Compression.DEFLATE_OBSOLETE
+            || compression == Tiff.Compression.PACKBITS;
+    }
+
+    public ByteOrder getByteOrder()
+    {
+        return this.byteOrder;
+    }
+
+    public int getBytesPerSample()
+    {
+        return this.bytesPerSample;
+    }
+
+    public int getSamplesPerPixel()
+    {
+        return this.samplesPerPixel;
+    }
+
+    public boolean isTiled()
+    {
+        return this.tiled;
+    }
+
+    /**
+     * Reads a rectangular window of the image. Only the strips or tiles that intersect the window are read and
+     * decoded.
+     *
+     * @param x      the column of the window's upper left pixel.
+     * @param y      the row of the window's upper left pixel.
+     * @param width  the window width in pixels.
+     * @param height the window height in pixels.
+     *
+     * @return the window's samples, pixel interleaved in row major order and in the file's byte order. The array has
+     *         <code>width * height * samplesPerPixel * bytesPerSample</code> elements.
+     *
+     * @throws IOException if the window lies outside the image, or if a block cannot be read or decoded.
+     */
+    public byte[] readWindow(int x, int y, int width, int height) throws IOException
+    {
+        if (x < 0 || y < 0 || width <= 0 || height <= 0 || x + width > this.imageWidth
+            || y + height > this.imageHeight)
+        {
+            String message = Logging.getMessage("GeotiffReader.BadRowCol", y + height, x + width);
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        int pixelBytes = this.samplesPerPixel * this.bytesPerSample;
+        byte[] window = new byte[width * height * pixelBytes];
+
+        int firstCol = x / this.blockWidth;
+        int lastCol = (x + width - 1) / this.blockWidth;
+        int firstRow = y / this.blockHeight;
+        int lastRow = (y + height - 1) / this.blockHeight;
+        int numPlanes = this.planar ? this.samplesPerPixel : 1;
+        int blockPixelBytes = this.planar ? this.bytesPerSample : pixelBytes;
+        byte[] block = null;
+
+        for (int plane = 0; plane < numPlanes; plane++)
+        {
+            for (int row = firstRow; row <= lastRow; row++)
+            {
+                for (int col = firstCol; col <= lastCol; col++)
+                {
+                    int blockX = col * this.blockWidth;
+                    int blockY = row * this.blockHeight;
+                    // Tiles are always padded to full size; the last strip holds only the remaining rows.
+                    int rowsInBlock = this.tiled ? this.blockHeight
+                        : Math.min(this.blockHeight, this.imageHeight - blockY);
+                    int blockSize = this.blockWidth * rowsInBlock * blockPixelBytes;
+                    if (null == block || block.length != blockSize)
+                        block = new byte[blockSize];
+
+                    int index = (plane * this.blocksDown + row) * this.blocksAcross + col;
+                    this.readBlock(index, block, rowsInBlock, blockPixelBytes);
+
+                    int x0 = Math.max(x, blockX);
+                    int x1 = Math.min(x + width, blockX + this.blockWidth);
+                    int y0 = Math.max(y, blockY);
+                    int y1 = Math.min(y + height, blockY + rowsInBlock);
+
+                    for (int r = y0; r < y1; r++)
+                    {
+                        int src = ((r - blockY) * this.blockWidth + (x0 - blockX)) * blockPixelBytes;
+                        int dst = ((r - y) * width + (x0 - x)) * pixelBytes;
+
+                        if (!this.planar)
+                        {
+                            System.arraycopy(block, src, window, dst, (x1 - x0) * pixelBytes);
+                            continue;
+                        }
+
+                        dst += plane * this.bytesPerSample;
+                        for (int c = x0; c < x1; c++, src += blockPixelBytes, dst += pixelBytes)
+                        {
+                            System.arraycopy(block, src, window, dst, this.bytesPerSample);
+                        }
+                    }
+                }
+            }
+        }
+
+        return window;
+    }
+
+    protected void readBlock(int index, byte[] block, int rows, int pixelBytes) throws IOException
+    {
+        long count = this.blockCounts[index];
+        if (count <= 0)
+        {
+            // Sparse block: GDAL and cloud optimized writers omit blocks that hold only the nodata value.
+            Arrays.fill(block, (byte) 0);
+            return;
+        }
+
+        ByteBuffer src = this.mapBlock(this.blockOffsets[index], count);
+        try
+        {
+            int decoded;
+            switch (this.compression)
+            {
+                case Tiff.Compression.LZW:
+                    decoded = lzwDecode(src, block);
+                    break;
+                case Tiff.Compression.DEFLATE:
+                case Tiff.Compression.DEFLATE_OBSOLETE:
+                    decoded = inflate(src, block);
+                    break;
+                case Tiff.Compression.PACKBITS:
+                    decoded = unpackBits(src, block);
+                    break;
+                default:
+                    decoded = Math.min(src.remaining(), block.length);
+                    src.get(block, 0, decoded);
+                    break;
+            }
+
+            if (decoded < block.length)
+                Arrays.fill(block, decoded, block.length, (byte) 0);
+        }
+        catch (DataFormatException | RuntimeException e)
+        {
+            String message = Logging.getMessage("GeotiffReader.BadCompressedData", index, e.getMessage());
+            Logging.logger().severe(message);
+            throw new IOException(message, e);
+        }
+
+        int rowBytes = this.blockWidth * pixelBytes;
+        if (this.predictor == Tiff.Predictor.HORIZONTAL_DIFFERENCING)
+        {
+            for (int r = 0; r < rows; r++)
+            {
+                undoHorizontalDifferencing(block, r * rowBytes, rowBytes, pixelBytes / this.bytesPerSample,
+                    this.bytesPerSample, this.byteOrder);
+            }
+        }
+        else if (this.predictor == Tiff.Predictor.FLOATING_POINT)
+        {
+            byte[] scratch = new byte[rowBytes];
+            for (int r = 0; r < rows; r++)
+            {
+                undoFloatingPointPredictor(block, r * rowBytes, rowBytes, pixelBytes / this.bytesPerSample,
+                    this.bytesPerSample, this.byteOrder, scratch);
+            }
+        }
+    }
+
+    protected ByteBuffer mapBlock(long offset, long count) throws IOException
+    {
+        if (null == this.mappedFile && this.theChannel.size() <= Integer.MAX_VALUE)
+            this.mappedFile = this.theChannel.map(FileChannel.MapMode.READ_ONLY, 0, this.theChannel.size());
+
+        if (null != this.mappedFile)
+        {
+            long end = Math.min(offset + count, this.mappedFile.capacity());
+            ByteBuffer view = this.mappedFile.duplicate();
+            view.limit((int) end).position((int) Math.min(offset, end));
+            return view.slice();
+        }
+
+        // Files past 2GB are mapped one block at a time.
+        long size = Math.min(count, this.theChannel.size() - offset);
+        return this.theChannel.map(FileChannel.MapMode.READ_ONLY, offset, Math.max(size, 0));
+    }
+
+    protected static int bytesPerSample(int[] bitsPerSample) throws IOException
+    {
+        int bits = (null != bitsPerSample && bitsPerSample.length > 0) ? bitsPerSample[0] : 0;
+        boolean uniform = true;
+        if (null != bitsPerSample)
+        {
+            for (int b : bitsPerSample)
+            {
+                uniform &= (b == bits);
+            }
+        }
+
+        if (!uniform || (bits != 8 && bits != 16 && bits != 32 && bits != 64))
+        {
+            String message = Logging.getMessage("GeotiffReader.UnsupportedBitsPerSample", bits);
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        return bits / Byte.SIZE;
+    }
+
+    protected static int inflate(ByteBuffer src, byte[] dst) throws DataFormatException
+    {
+        Inflater inflater = new Inflater();
+        try
+        {
+            inflater.setInput(src);
+            int n = 0;
+            while (n < dst.length && !inflater.finished())
+            {
+                int count = inflater.inflate(dst, n, dst.length - n);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                n += count;
+            }
+            return n;
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+
+    protected static int unpackBits(ByteBuffer src, byte[] dst)
+    {
+        int n = 0;
+        while (src.hasRemaining() && n < dst.length)
+        {
+            int header = src.get();
+            if (header >= 0)
+            {
+                int count = Math.min(header + 1, Math.min(src.remaining(), dst.length - n));
+                src.get(dst, n, count);
+                n += count;
+            }
+            else if (header != -128 && src.hasRemaining())
+            {
+                byte value = src.get();
+                int count = Math.min(1 - header, dst.length - n);
+                Arrays.fill(dst, n, n + count, value);
+                n += count;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Decodes a TIFF LZW stream: MSB-first codes of 9 to 12 bits, with the code width growing one code early.
+     *
+     * @param src the compressed block.
+     * @param dst receives the decoded bytes; output past its end is discarded.
+     *
+     * @return the number of bytes decoded.
+     */
+    protected static int lzwDecode(ByteBuffer src, byte[] dst)
+    {
+        int[] prefix = new int[LZW_MAX_CODES];
+        byte[] suffix = new byte[LZW_MAX_CODES];
+        byte[] first = new byte[LZW_MAX_CODES];
+        int[] length = new int[LZW_MAX_CODES];
+        for (int i = 0; i < 256; i++)
+        {
+            prefix[i] = -1;
+            suffix[i] = (byte) i;
+            first[i] = (byte) i;
+            length[i] = 1;
+        }
+
+        int bits = 0, numBits = 0, codeLength = 9, next = LZW_EOI_CODE + 1, oldCode = -1, n = 0;
+
+        while (n < dst.length)
+        {
+            while (numBits < codeLength)
+            {
+                if (!src.hasRemaining())
+                    return n;
+                bits = (bits << 8) | (src.get() & 0xFF);
+                numBits += 8;
+            }
+
+            int code = (bits >>> (numBits - codeLength)) & ((1 << codeLength) - 1);
+            numBits -= codeLength;
+
+            if (code == LZW_EOI_CODE)
+                break;
+
+            if (code == LZW_CLEAR_CODE)
+            {
+                codeLength = 9;
+                next = LZW_EOI_CODE + 1;
+                oldCode = -1;
+                continue;
+            }
+
+            if (oldCode == -1)
+            {
+                if (code >= next)
+                    break; // corrupt stream: the first code after a clear must be a literal
+                n = lzwWrite(code, prefix, suffix, length, dst, n);
+                oldCode = code;
+                continue;
+            }
+
+            if (code > next)
+                break; // corrupt stream: a code can at most name the entry currently being defined
+
+            if (next < LZW_MAX_CODES)
+            {
+                // Either code is already in the table, or it is the entry being defined (the KwKwK case); the new
+                // entry's last byte is the first byte of the code's string in both cases.
+                prefix[next] = oldCode;
+                suffix[next] = (code < next) ? first[code] : first[oldCode];
+                first[next] = first[oldCode];
+                length[next] = length[oldCode] + 1;
+                next++;
+            }
+            else if (code >= next)
+            {
+                break;
+            }
+
+            n = lzwWrite(code, prefix, suffix, length, dst, n);
+            oldCode = code;
+
+            if (next >= (1 << codeLength) - 1 && codeLength < 12)
+                codeLength++;
+        }
+
+        return n;
+    }
+
+    private static int lzwWrite(int code, int[] prefix, byte[] suffix, int[] length, byte[] dst, int n)
+    {
+        int len = length[code];
+        for (int i = n + len - 1; code >= 0; i--, code = prefix[code])
+        {
+            if (i < dst.length)
+                dst[i] = suffix[code];
+        }
+        return Math.min(n + len, dst.length);
+    }
+
+    protected static void undoHorizontalDifferencing(byte[] data, int offset, int rowBytes, int samplesPerPixel,
+        int bytesPerSample, ByteOrder order)
+    {
+        int stride = samplesPerPixel * bytesPerSample;
+        if (bytesPerSample == 1)
+        {
+            for (int i = offset + stride; i < offset + rowBytes; i++)
+            {
+                data[i] += data[i - stride];
+            }
+            return;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(order);
+        for (int i = offset + stride; i < offset + rowBytes; i += bytesPerSample)
+        {
+            switch (bytesPerSample)
+            {
+                case 2:
+                    buffer.putShort(i, (short) (buffer.getShort(i) + buffer.getShort(i - stride)));
+                    break;
+                case 4:
+                    buffer.putInt(i, buffer.getInt(i) + buffer.getInt(i - stride));
+                    break;
+                default:
+                    buffer.putLong(i, buffer.getLong(i) + buffer.getLong(i - stride));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Undoes the floating point predictor (TIFF Technical Note 3) for one row: the bytes are first integrated
+     * horizontally, then reassembled from the most-significant-byte-first planes into values in the file's byte order.
+     */
+    protected static void undoFloatingPointPredictor(byte[] data, int offset, int rowBytes, int samplesPerPixel,
+        int bytesPerSample, ByteOrder order, byte[] scratch)
+    {
+        for (int i = offset + samplesPerPixel; i < offset + rowBytes; i++)
+        {
+            data[i] += data[i - samplesPerPixel];
+        }
+
+        int count = rowBytes / bytesPerSample;
+        boolean bigEndian = order == ByteOrder.BIG_ENDIAN;
+        for (int b = 0; b < bytesPerSample; b++)
+        {
+            int planeStart = offset + b * count;
+            int target = bigEndian ? b : bytesPerSample - 1 - b;
+            for (int k = 0; k < count; k++)
+            {
+                scratch[k * bytesPerSample + target] = data[planeStart + k];
+            }
+        }
+
+        System.arraycopy(scratch, 0, data, offset, rowBytes);
+    }
+}
@@ -0,0 +1,475 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.formats.tiff;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.zip.Deflater;
+
+/**
+ * This is a package private class that lays out the pixel data of a big-endian TIFF image as strips or tiles,
+ * optionally applying a predictor and LZW or DEFLATE compression. Rows are accepted one at a time and only one row of
+ * blocks is buffered, so an image of any height is written without holding a copy of it in memory.
+ */
+class TIFFBlockWriter
+{
+    private static final int LZW_CLEAR_CODE = 256;
+    private static final int LZW_EOI_CODE = 257;
+    // Compressed strips are sized to roughly this many bytes of raw data
+    private static final int STRIP_SIZE = 64 * 1024;
+
+    private final FileChannel theChannel;
+    private final int imageWidth;
+    private final int imageHeight;
+    private final int samplesPerPixel;
+    private final int bytesPerSample;
+    private final int pixelBytes;
+    private final int compression;
+    private final int predictor;
+    private final boolean tiled;
+    private final int blockWidth;
+    private final int blockHeight;
+    private final int blocksAcross;
+    private final long[] blockOffsets;
+    private final long[] blockCounts;
+
+    private final byte[] band;
+    private final byte[] block;
+    private int rowsInBand;
+    private int bandIndex;
+    private byte[] encoded = new byte[0];
+    private Deflater deflater;
+    private LZWTable lzwTable;
+
+    /**
+     * Creates a writer for the pixel data of one image.
+     *
+     * @param fileChannel     the channel to write to, positioned where the pixel data begins.
+     * @param width           the image width in pixels.
+     * @param height          the image height in pixels.
+     * @param samplesPerPixel the number of samples in each pixel.
+     * @param bytesPerSample  the size of each sample; 1, 2 or 4.
+     * @param compression     one of <code>Tiff.Compression.NONE</code>, <code>LZW</code> or <code>DEFLATE</code>.
+     * @param predictor       one of the <code>Tiff.Predictor</code> values.
+     * @param tileWidth       the tile width, or zero to write strips.
+     * @param tileHeight      the tile height, ignored when writing strips.
+     */
+    public TIFFBlockWriter(FileChannel fileChannel, int width, int height, int samplesPerPixel, int bytesPerSample,
+        int compression, int predictor, int tileWidth, int tileHeight)
+    {
+        this.theChannel = fileChannel;
+        this.imageWidth = width;
+        this.imageHeight = height;
+        this.samplesPerPixel = samplesPerPixel;
+        this.bytesPerSample = bytesPerSample;
+        this.pixelBytes = samplesPerPixel * bytesPerSample;
+        this.compression = compression;
+        // Predictors are defined only in combination with compression.
+        this.predictor = (compression != Tiff.Compression.NONE) ? predictor : Tiff.Predictor.NONE;
+        this.tiled = tileWidth > 0;
+
+        if (this.tiled)
+        {
+            this.blockWidth = tileWidth;
+            this.blockHeight = tileHeight;
+        }
+        else
+        {
+            // Uncompressed images keep the single row strips this writer has always produced.
+            int rowBytes = width * this.pixelBytes;
+            this.blockWidth = width;
+            this.blockHeight = (compression == Tiff.Compression.NONE) ? 1
+                : Math.max(1, Math.min(height, STRIP_SIZE / rowBytes));
+        }
+
+        this.blocksAcross = (width + this.blockWidth - 1) / this.blockWidth;
+        int blocksDown = (height + this.blockHeight - 1) / this.blockHeight;
+        this.blockOffsets = new long[this.blocksAcross * blocksDown];
+        this.blockCounts = new long[this.blocksAcross * blocksDown];
+
+        this.band = new byte[this.blockHeight * width * this.pixelBytes];
+        this.block = this.tiled ? new byte[this.blockWidth * this.blockHeight * this.pixelBytes] : this.band;
+    }
+
+    /**
+     * Appends the next row of the image.
+     *
+     * @param row the row's samples, pixel interleaved and big-endian, from the buffer's position to its limit.
+     *
+     * @throws IOException if the blocks completed by this row cannot be written.
+     */
+    public void writeRow(ByteBuffer row) throws IOException
+    {
+        int rowBytes = this.imageWidth * this.pixelBytes;
+        if (row.remaining() != rowBytes || this.bandIndex * this.blockHeight + this.rowsInBand >= this.imageHeight)
+        {
+            String message = Logging.getMessage("generic.InvalidImageSize", row.remaining() / this.pixelBytes,
+                this.bandIndex * this.blockHeight + this.rowsInBand);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        row.get(this.band, this.rowsInBand * rowBytes, rowBytes);
+        this.rowsInBand++;
+
+        if (this.rowsInBand == this.blockHeight || this.bandIndex * this.blockHeight + this.rowsInBand
+            == this.imageHeight)
+        {
+            this.writeBand();
+        }
+    }
+
+    /**
+     * Writes the strip or tile offset and byte count arrays at the channel's position and adds the entries describing
+     * the data layout and compression to an IFD. Call this after the last row has been written.
+     *
+     * @param ifds the IFD entries to add to.
+     *
+     * @throws IOException if the arrays cannot be written.
+     */
+    public void appendLayoutEntries(List<TiffIFDEntry> ifds) throws IOException
+    {
+        ifds.add(new TiffIFDEntry(Tiff.Tag.COMPRESSION, Tiff.Type.SHORT, 1, this.compression));
+        if (this.predictor != Tiff.Predictor.NONE)
+            ifds.add(new TiffIFDEntry(Tiff.Tag.TIFF_PREDICTOR, Tiff.Type.SHORT, 1, this.predictor));
+
+        if (this.tiled)
+        {
+            ifds.add(new TiffIFDEntry(Tiff.Tag.TILE_WIDTH, Tiff.Type.LONG, 1, this.blockWidth));
+            ifds.add(new TiffIFDEntry(Tiff.Tag.TILE_LENGTH, Tiff.Type.LONG, 1, this.blockHeight));
+            ifds.add(this.writeArray(Tiff.Tag.TILE_OFFSETS, this.blockOffsets));
+            ifds.add(this.writeArray(Tiff.Tag.TILE_COUNTS, this.blockCounts));
+        }
+        else
+        {
+            ifds.add(new TiffIFDEntry(Tiff.Tag.ROWS_PER_STRIP, Tiff.Type.LONG, 1, this.blockHeight));
+            ifds.add(this.writeArray(Tiff.Tag.STRIP_OFFSETS, this.blockOffsets));
+            ifds.add(this.writeArray(Tiff.Tag.STRIP_BYTE_COUNTS, this.blockCounts));
+        }
+
+        if (null != this.deflater)
+        {
+            this.deflater.end();
+            this.deflater = null;
+        }
+    }
+
+    protected TiffIFDEntry writeArray(int tag, long[] values) throws IOException
+    {
+        // A single value fits in the entry itself.
+        if (values.length == 1)
+            return new TiffIFDEntry(tag, Tiff.Type.LONG, 1, values[0]);
+
+        long offset = this.theChannel.position();
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Integer.BYTES);
+        for (long value : values)
+        {
+            buffer.putInt((int) value);
+        }
+        buffer.flip();
+        this.theChannel.write(buffer);
+
+        return new TiffIFDEntry(tag, Tiff.Type.LONG, values.length, offset);
+    }
+
+    protected void writeBand() throws IOException
+    {
+        int rowBytes = this.imageWidth * this.pixelBytes;
+        int blockRowBytes = this.blockWidth * this.pixelBytes;
+        // Tiles are always full size, padded with zeros past the image edges; the last strip holds only what remains.
+        int rows = this.tiled ? this.blockHeight : this.rowsInBand;
+
+        for (int col = 0; col < this.blocksAcross; col++)
+        {
+            if (this.tiled)
+            {
+                int x = col * this.blockWidth * this.pixelBytes;
+                int length = Math.min(blockRowBytes, rowBytes - x);
+                for (int r = 0; r < rows; r++)
+                {
+                    if (r < this.rowsInBand)
+                    {
+                        System.arraycopy(this.band, r * rowBytes + x, this.block, r * blockRowBytes, length);
+                        Arrays.fill(this.block, r * blockRowBytes + length, (r + 1) * blockRowBytes, (byte) 0);
+                    }
+                    else
+                    {
+                        Arrays.fill(this.block, r * blockRowBytes, (r + 1) * blockRowBytes, (byte) 0);
+                    }
+                }
+            }
+
+            int length = rows * blockRowBytes;
+            this.applyPredictor(this.block, rows, blockRowBytes);
+            ByteBuffer data = this.encode(this.block, length);
+
+            int index = this.bandIndex * this.blocksAcross + col;
+            this.blockOffsets[index] = this.theChannel.position();
+            this.blockCounts[index] = data.remaining();
+            while (data.hasRemaining())
+            {
+                this.theChannel.write(data);
+            }
+        }
+
+        this.rowsInBand = 0;
+        this.bandIndex++;
+    }
+
+    protected void applyPredictor(byte[] data, int rows, int rowBytes)
+    {
+        if (this.predictor == Tiff.Predictor.HORIZONTAL_DIFFERENCING)
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            for (int r = 0; r < rows; r++)
+            {
+                int start = r * rowBytes;
+                // Difference from the end of the row so each sample is reduced by its original left neighbor.
+                for (int i = start + rowBytes - this.bytesPerSample; i >= start + this.pixelBytes;
+                    i -= this.bytesPerSample)
+                {
+                    int left = i - this.pixelBytes;
+                    switch (this.bytesPerSample)
+                    {
+                        case 1:
+                            data[i] -= data[left];
+                            break;
+                        case 2:
+                            buffer.putShort(i, (short) (buffer.getShort(i) - buffer.getShort(left)));
+                            break;
+                        default:
+                            buffer.putInt(i, buffer.getInt(i) - buffer.getInt(left));
+                            break;
+                    }
+                }
+            }
+        }
+        else if (this.predictor == Tiff.Predictor.FLOATING_POINT)
+        {
+            byte[] scratch = new byte[rowBytes];
+            int count = rowBytes / this.bytesPerSample;
+            for (int r = 0; r < rows; r++)
+            {
+                int start = r * rowBytes;
+                // Gather the bytes of each significance into planes, most significant first, then difference them.
+                for (int k = 0; k < count; k++)
+                {
+                    for (int b = 0; b < this.bytesPerSample; b++)
+                    {
+                        scratch[b * count + k] = data[start + k * this.bytesPerSample + b];
+                    }
+                }
+                for (int i = rowBytes - 1; i >= this.samplesPerPixel; i--)
+                {
+                    scratch[i] -= scratch[i - this.samplesPerPixel];
+                }
+                System.arraycopy(scratch, 0, data, start, rowBytes);
+            }
+        }
+    }
+
+    protected ByteBuffer encode(byte[] data, int length)
+    {
+        switch (this.compression)
+        {
+            case Tiff.Compression.DEFLATE:
+                return this.deflate(data, length);
+            case Tiff.Compression.LZW:
+                return this.lzwEncode(data, length);
+            default:
+                return ByteBuffer.wrap(data, 0, length);
+        }
+    }
+
+    protected ByteBuffer deflate(byte[] data, int length)
+    {
+        if (null == this.deflater)
+            this.deflater = new Deflater();
+
+        this.deflater.reset();
+        this.deflater.setInput(data, 0, length);
+        this.deflater.finish();
+
+        int n = 0;
+        while (!this.deflater.finished())
+        {
+            if (n == this.encoded.length)
+                this.encoded = Arrays.copyOf(this.encoded, Math.max(1024, 2 * this.encoded.length));
+            n += this.deflater.deflate(this.encoded, n, this.encoded.length - n);
+        }
+
+        return ByteBuffer.wrap(this.encoded, 0, n);
+    }
+
+    /**
+     * Encodes data as TIFF LZW: MSB-first codes of 9 to 12 bits that widen one code early, starting with a clear
+     * code, and restarting with a clear code whenever the table fills.
+     */
+    protected ByteBuffer lzwEncode(byte[] data, int length)
+    {
+        if (null == this.lzwTable)
+            this.lzwTable = new LZWTable();
+
+        // The output never exceeds 12 bits per input byte plus the clear and end codes.
+        int capacity = length * 3 / 2 + length / 1024 + 16;
+        if (this.encoded.length < capacity)
+            this.encoded = new byte[capacity];
+
+        LZWTable table = this.lzwTable;
+        table.clear();
+        BitWriter out = new BitWriter(this.encoded);
+        out.write(LZW_CLEAR_CODE, 9);
+
+        int codeLength = 9;
+        int next = LZW_EOI_CODE + 1;
+        int prefix = (length > 0) ? (data[0] & 0xFF) : -1;
+
+        for (int i = 1; i < length; i++)
+        {
+            int c = data[i] & 0xFF;
+            int code = table.get(prefix, c);
+            if (code >= 0)
+            {
+                prefix = code;
+                continue;
+            }
+
+            out.write(prefix, codeLength);
+            table.put(prefix, c, next++);
+            prefix = c;
+
+            if (next == LZWTable.MAX_CODES - 1)
+            {
+                out.write(LZW_CLEAR_CODE, codeLength);
+                table.clear();
+                next = LZW_EOI_CODE + 1;
+                codeLength = 9;
+            }
+            else if (next > (1 << codeLength) - 1)
+            {
+                codeLength++;
+            }
+        }
+
+        if (prefix >= 0)
+        {
+            out.write(prefix, codeLength);
+            // The decoder adds an entry for this code too, and may widen before reading the end code.
+            if (next + 1 > (1 << codeLength) - 1 && codeLength < 12)
+                codeLength++;
+        }
+        out.write(LZW_EOI_CODE, codeLength);
+
+        return ByteBuffer.wrap(this.encoded, 0, out.flush());
+    }
+
+    /** Open addressed map from (prefix code, next byte) to code, cleared without reallocation. */
+    private static class LZWTable
+    {
+        static final int MAX_CODES = 4095;
+        private static final int SIZE = 8192;
+
+        private final int[] keys = new int[SIZE];
+        private final int[] codes = new int[SIZE];
+        private final int[] stamps = new int[SIZE];
+        private int stamp;
+
+        void clear()
+        {
+            this.stamp++;
+        }
+
+        int get(int prefix, int c)
+        {
+            int key = (prefix << 8) | c;
+            for (int i = hash(key); ; i = (i + 1) & (SIZE - 1))
+            {
+                if (this.stamps[i] != this.stamp)
+                    return -1;
+                if (this.keys[i] == key)
+                    return this.codes[i];
+            }
+        }
+
+        void put(int prefix, int c, int code)
+        {
+            int key = (prefix << 8) | c;
+            int i = hash(key);
+            while (this.stamps[i] == this.stamp)
+            {
+                i = (i + 1) & (SIZE - 1);
+            }
+            this.stamps[i] = this.stamp;
+            this.keys[i] = key;
+            this.codes[i] = code;
+        }
+
+        private static int hash(int key)
+        {
+            return ((key * 0x9E3779B1) >>> 19) & (SIZE - 1);
+        }
+    }
+
+    private static class BitWriter
+    {
+        private final byte[] buffer;
+        private int position;
+        private int bits;
+        private int numBits;
+
+        BitWriter(byte[] buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        void write(int code, int length)
+        {
+            this.bits = (this.bits << length) | code;
+            this.numBits += length;
+            while (this.numBits >= 8)
+            {
+                this.numBits -= 8;
+                this.buffer[this.position++] = (byte) (this.bits >>> this.numBits);
+            }
+        }
+
+        int flush()
+        {
+            if (this.numBits > 0)
+            {
+                this.buffer[this.position++] = (byte) (this.bits << (8 - this.numBits));
+                this.numBits = 0;
+            }
+            return this.position;
+        }
+    }
+}
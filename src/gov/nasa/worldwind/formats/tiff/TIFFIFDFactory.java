@@ -89,11 +89,12 @@ class TIFFIFDFactory
             else
             {
                 long offset = getUnsignedInt( header );
-                int size = MASK_USHORT & (int)calcSize( type, count );
+                // Large tiled images carry offset arrays well past 64KB, so the size must not be truncated.
+                long size = calcSize( type, count );
 
-                if( size > 0L )
+                if( size > 0L && size <= Integer.MAX_VALUE )
                 {
-                    ByteBuffer data = ByteBuffer.allocateDirect( size ).order( tiffFileOrder );
+                    ByteBuffer data = ByteBuffer.allocateDirect( (int) size ).order( tiffFileOrder );
                     savedPosition = fc.position();
                     fc.position( offset );
                     fc.read( data );
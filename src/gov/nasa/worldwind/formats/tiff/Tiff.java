@@ -213,7 +213,18 @@ public interface Tiff
         public static final int NONE = 1;
         public static final int LZW = 5;
         public static final int JPEG = 6;
+        public static final int DEFLATE = 8;
         public static final int PACKBITS = 32773;
+        // Pre-TIFF 6.0 code for Adobe Deflate, still written by some encoders
+        public static final int DEFLATE_OBSOLETE = 32946;
+    }
+
+    // Values of the TIFF_PREDICTOR tag
+    public interface Predictor
+    {
+        public static final int NONE = 1;
+        public static final int HORIZONTAL_DIFFERENCING = 2;
+        public static final int FLOATING_POINT = 3;
     }
 
     public interface PlanarConfiguration
@@ -37,9 +37,19 @@ import java.util.*;
  */
 public class VPFBufferedRecordData implements Iterable<VPFRecord>
 {
+    /**
+     * Provides the data buffer for one record parameter on demand. The source is asked for its data the first time the
+     * parameter's values are accessed, and is then released.
+     */
+    public interface RecordDataSource
+    {
+        VPFDataBuffer readRecordData();
+    }
+
     protected static class RecordData
     {
         public VPFDataBuffer dataBuffer;
+        protected RecordDataSource dataSource;
         protected Map<Object, Integer> recordIndex;
 
         public RecordData(VPFDataBuffer dataBuffer)
@@ -47,6 +57,22 @@ public class VPFBufferedRecordData implements Iterable<VPFRecord>
             this.dataBuffer = dataBuffer;
         }
 
+        public RecordData(RecordDataSource dataSource)
+        {
+            this.dataSource = dataSource;
+        }
+
+        public synchronized VPFDataBuffer getDataBuffer()
+        {
+            if (this.dataBuffer == null && this.dataSource != null)
+            {
+                this.dataBuffer = this.dataSource.readRecordData();
+                this.dataSource = null;
+            }
+
+            return this.dataBuffer;
+        }
+
         public boolean hasIndex()
         {
             return this.recordIndex != null;
@@ -64,9 +90,10 @@ public class VPFBufferedRecordData implements Iterable<VPFRecord>
             }
             else
             {
+                VPFDataBuffer dataBuffer = this.getDataBuffer();
                 for (int i = startIndex; i <= endIndex; i++)
                 {
-                    Object o = this.dataBuffer.get(i);
+                    Object o = dataBuffer.get(i);
                     if ((o != null) ? o.equals(value) : (value == null))
                     {
                         index = i;
@@ -85,9 +112,10 @@ public class VPFBufferedRecordData implements Iterable<VPFRecord>
 
             this.recordIndex.clear();
 
+            VPFDataBuffer dataBuffer = this.getDataBuffer();
             for (int index = startIndex; index <= endIndex; index++)
             {
-                Object o = this.dataBuffer.get(index);
+                Object o = dataBuffer.get(index);
                 this.recordIndex.put(o, index);
             }
 
@@ -127,7 +155,7 @@ public class VPFBufferedRecordData implements Iterable<VPFRecord>
         }
 
         RecordData data = this.dataMap.get(parameterName);
-        return (data != null) ? data.dataBuffer : null;
+        return (data != null) ? data.getDataBuffer() : null;
     }
 
     public void setRecordData(String parameterName, VPFDataBuffer dataBuffer)
@@ -149,6 +177,34 @@ public class VPFBufferedRecordData implements Iterable<VPFRecord>
         }
     }
 
+    /**
+     * Specifies a source which reads the values of the named record parameter the first time they are requested. This
+     * enables a table to defer decoding its columns until they are used.
+     *
+     * @param parameterName the record parameter name.
+     * @param dataSource    the source of the parameter's data buffer. If null, the parameter is removed.
+     *
+     * @throws IllegalArgumentException if the parameter name is null.
+     */
+    public void setRecordDataSource(String parameterName, RecordDataSource dataSource)
+    {
+        if (parameterName == null)
+        {
+            String message = Logging.getMessage("nullValue.ParameterNameIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (dataSource != null)
+        {
+            this.dataMap.put(parameterName, new RecordData(dataSource));
+        }
+        else
+        {
+            this.dataMap.remove(parameterName);
+        }
+    }
+
     public VPFRecord getRecord(int id)
     {
         if (id < 1 || id > this.numRecords)
@@ -32,6 +32,7 @@ import gov.nasa.worldwind.util.*;
 
 import java.io.*;
 import java.nio.*;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 
 /**
@@ -42,10 +43,35 @@ import java.util.ArrayList;
  */
 public class VPFTableReader
 {
+    protected boolean memoryMapped;
+
     public VPFTableReader()
     {
     }
 
+    /**
+     * Constructs a table reader which optionally maps table files into memory. A memory mapped table is not decoded
+     * when it's read. Instead, each column is decoded from the mapped file the first time its values are requested,
+     * using the table's record index to locate each record.
+     *
+     * @param memoryMapped true to map table files into memory and decode columns on demand, false to read and decode
+     *                     entire tables up front.
+     */
+    public VPFTableReader(boolean memoryMapped)
+    {
+        this.memoryMapped = memoryMapped;
+    }
+
+    /**
+     * Indicates whether this reader maps table files into memory and decodes their columns on demand.
+     *
+     * @return true if table files are memory mapped, otherwise false.
+     */
+    public boolean isMemoryMapped()
+    {
+        return this.memoryMapped;
+    }
+
     public VPFBufferedRecordData read(File file)
     {
         if (file == null)
@@ -70,7 +96,11 @@ public class VPFTableReader
 
     protected ByteBuffer readFileToBuffer(File file) throws IOException
     {
-        ByteBuffer buffer = WWIO.readFileToBuffer(file, true); // Read VPF table to a direct ByteBuffer.
+        // Vector data readers replace null coordinates in place, so a mapped table is mapped copy-on-write. Only the
+        // pages containing modified coordinates are copied.
+        ByteBuffer buffer = this.isMemoryMapped() ?
+            WWIO.mapFile(file, FileChannel.MapMode.PRIVATE) // Map VPF table into memory.
+            : WWIO.readFileToBuffer(file, true); // Read VPF table to a direct ByteBuffer.
         buffer.order(ByteOrder.LITTLE_ENDIAN); // Default to least significant byte first order.
         return buffer;
     }
@@ -335,6 +365,9 @@ public class VPFTableReader
 
     protected VPFBufferedRecordData readRecordData(ByteBuffer byteBuffer, Column[] columns, RecordIndex recordIndex)
     {
+        if (this.isMemoryMapped())
+            return this.readMappedRecordData(byteBuffer, columns, recordIndex);
+
         int numRows = recordIndex.numEntries;
         int numColumns = columns.length;
 
@@ -380,6 +413,146 @@ public class VPFTableReader
         return recordData;
     }
 
+    protected VPFBufferedRecordData readMappedRecordData(ByteBuffer byteBuffer, Column[] columns,
+        RecordIndex recordIndex)
+    {
+        VPFBufferedRecordData recordData = new VPFBufferedRecordData();
+        recordData.setNumRecords(recordIndex.numEntries);
+
+        // Defer reading the data associated with each column until the column is first requested.
+        for (int col = 0; col < columns.length; col++)
+        {
+            recordData.setRecordDataSource(columns[col].name,
+                new MappedColumnDataSource(byteBuffer, columns, col, recordIndex));
+
+            // Compute an index for any columns which are identified as primary keys or unique keys.
+            if (!columns[col].name.equals(VPFConstants.ID) &&
+                (columns[col].name.equals(VPFConstants.PRIMARY_KEY) ||
+                    columns[col].name.equals(VPFConstants.UNIQUE_KEY)))
+            {
+                recordData.buildRecordIndex(columns[col].name);
+            }
+        }
+
+        return recordData;
+    }
+
+    /**
+     * Reads one column of a memory mapped table. Each record is located with the table's record index. The column's
+     * offset within a record is computed once when all preceding columns have a fixed length, and otherwise found by
+     * skipping over the preceding fields of each record.
+     */
+    protected static class MappedColumnDataSource implements VPFBufferedRecordData.RecordDataSource
+    {
+        protected ByteBuffer buffer;
+        protected Column[] columns;
+        protected int column;
+        protected RecordIndex recordIndex;
+        protected int columnOffset;
+
+        public MappedColumnDataSource(ByteBuffer buffer, Column[] columns, int column, RecordIndex recordIndex)
+        {
+            // Each column reads from its own view of the table so that columns may be decoded concurrently.
+            this.buffer = buffer.duplicate().order(buffer.order());
+            this.columns = columns;
+            this.column = column;
+            this.recordIndex = recordIndex;
+            this.columnOffset = 0;
+
+            for (int col = 0; col < column; col++)
+            {
+                if (columns[col].isVariableLengthField())
+                {
+                    this.columnOffset = -1;
+                    break;
+                }
+
+                this.columnOffset += columns[col].getFieldLength();
+            }
+        }
+
+        public VPFDataBuffer readRecordData()
+        {
+            int numRows = this.recordIndex.numEntries;
+            Column col = this.columns[this.column];
+
+            VPFDataType type = VPFDataType.fromTypeName(col.dataType);
+            VPFDataBuffer dataBuffer = type.createDataBuffer(numRows, col.numElements);
+            RecordDataReader reader = col.isVariableLengthField() ?
+                new VariableLengthDataReader(dataBuffer)
+                : new FixedLengthDataReader(dataBuffer, col.numElements);
+
+            for (int row = 0; row < numRows; row++)
+            {
+                int offset = this.recordIndex.entries[row].offset;
+
+                if (this.columnOffset >= 0)
+                {
+                    this.buffer.position(offset + this.columnOffset);
+                }
+                else
+                {
+                    this.buffer.position(offset);
+                    for (int i = 0; i < this.column; i++)
+                    {
+                        skipField(this.buffer, this.columns[i]);
+                    }
+                }
+
+                reader.read(this.buffer);
+            }
+
+            return dataBuffer;
+        }
+    }
+
+    /**
+     * Advances the buffer's position past one field of the specified column, without decoding the field's value.
+     *
+     * @param buffer the buffer positioned at the start of the field.
+     * @param column the column describing the field.
+     */
+    protected static void skipField(ByteBuffer buffer, Column column)
+    {
+        VPFDataType type = VPFDataType.fromTypeName(column.dataType);
+        if (type == VPFDataType.NULL)
+            return;
+
+        int length;
+        if (type == VPFDataType.TRIPLET_ID)
+        {
+            // The triplet's type byte specifies the size of each of its three ids. See DIGEST Part 2, Annex C.2.2.2.
+            int tripletType = buffer.get();
+            length = getTripletIdLength(tripletType >> 6) + getTripletIdLength(tripletType >> 4)
+                + getTripletIdLength(tripletType >> 2);
+        }
+        else if (column.isVariableLengthField())
+        {
+            length = buffer.getInt() * type.getFieldLength();
+        }
+        else
+        {
+            length = column.getFieldLength();
+        }
+
+        buffer.position(buffer.position() + length);
+    }
+
+    protected static int getTripletIdLength(int bitCount)
+    {
+        switch (bitCount & 3)
+        {
+            case 1:
+                return 1;
+            case 2:
+                return 2;
+            case 3:
+                return 4;
+            default:
+                return 0;
+        }
+    }
+
     //**************************************************************//
     //********************  Record Index  **************************//
     //**************************************************************//
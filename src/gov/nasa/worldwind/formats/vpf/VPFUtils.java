@@ -27,12 +27,14 @@
  */
 package gov.nasa.worldwind.formats.vpf;
 
-import gov.nasa.worldwind.avlist.AVList;
+import gov.nasa.worldwind.Configuration;
+import gov.nasa.worldwind.avlist.*;
 import gov.nasa.worldwind.exception.WWRuntimeException;
 import gov.nasa.worldwind.util.*;
 
 import java.io.*;
 import java.nio.ByteBuffer;
+import java.util.*;
 
 /**
  * @author dcollins
@@ -40,6 +42,23 @@ import java.nio.ByteBuffer;
  */
 public class VPFUtils
 {
+    /** The default number of memory mapped tables retained by {@link #readTable(java.io.File)}. */
+    protected static final int DEFAULT_TABLE_CACHE_SIZE = 64;
+
+    protected static Map<File, VPFBufferedRecordData> tableCache;
+
+    /**
+     * Reads the VPF table in the specified file. When the configuration property {@link
+     * AVKey#VPF_MEMORY_MAPPED_TABLES} is true, the table is memory mapped and its columns are decoded on demand, and
+     * the most recently used tables are retained in a cache bounded by the configuration property {@link
+     * AVKey#VPF_TABLE_CACHE_SIZE}. Otherwise the entire table is read and decoded each time this is called.
+     *
+     * @param file the table file.
+     *
+     * @return the table's records, or null if the file does not exist or cannot be read.
+     *
+     * @throws IllegalArgumentException if the file is null.
+     */
     public static VPFBufferedRecordData readTable(File file)
     {
         if (file == null)
@@ -54,6 +73,9 @@ public class VPFUtils
             return null;
         }
 
+        if (Configuration.getBooleanValue(AVKey.VPF_MEMORY_MAPPED_TABLES, false))
+            return readMappedTable(file);
+
         try
         {
             VPFTableReader tableReader = new VPFTableReader();
@@ -66,6 +88,41 @@ public class VPFUtils
         }
     }
 
+    protected static VPFBufferedRecordData readMappedTable(File file)
+    {
+        Map<File, VPFBufferedRecordData> cache = getTableCache();
+        File key = file.getAbsoluteFile();
+
+        VPFBufferedRecordData table = cache.get(key);
+        if (table != null)
+            return table;
+
+        try
+        {
+            VPFTableReader tableReader = new VPFTableReader(true);
+            table = tableReader.read(file);
+        }
+        catch (WWRuntimeException e)
+        {
+            // Exception already logged by VPFTableReader.
+            return null;
+        }
+
+        cache.put(key, table);
+        return table;
+    }
+
+    protected static synchronized Map<File, VPFBufferedRecordData> getTableCache()
+    {
+        if (tableCache == null)
+        {
+            int capacity = Configuration.getIntegerValue(AVKey.VPF_TABLE_CACHE_SIZE, DEFAULT_TABLE_CACHE_SIZE);
+            tableCache = Collections.synchronizedMap(new BoundedHashMap<File, VPFBufferedRecordData>(capacity, true));
+        }
+
+        return tableCache;
+    }
+
     public static VPFDatabase readDatabase(File file)
     {
         if (file == null)
@@ -357,6 +357,63 @@ public interface ElevationModel extends WWObject, Restorable, Disposable
     double[] getUnmappedElevations(Sector sector, List<? extends LatLon> latlons, double targetResolution[],
         double[] buffer);
 
+    /**
+     * Returns the elevations of a collection of locations specified as parallel arrays of latitude and longitude in
+     * degrees. This is the bulk equivalent of {@link #getElevations(Sector, java.util.List, double, double[])} for
+     * callers that query very many locations, such as terrain profiling over long paths. It does not require a {@link
+     * LatLon} per location. Replaces any elevation values corresponding to the missing data signal with the elevation
+     * model's missing data replacement value. If a location within the elevation model's coverage area cannot currently
+     * be determined, the elevation model's minimum extreme elevation for that location is returned in the output
+     * buffer. If a location is outside the elevation model's coverage area, the output buffer for that location is not
+     * modified; it retains the buffer's original value.
+     *
+     * @param latitudes        the latitudes, in degrees, of the locations to return elevations for.
+     * @param longitudes       the longitudes, in degrees, of the locations to return elevations for. Must contain the
+     *                         same number of elements as the latitudes array.
+     * @param targetResolution the desired horizontal resolution, in radians, of the raster or other elevation sample
+     *                         from which elevations are drawn.
+     * @param buffer           an array in which to place the returned elevations. The array must be pre-allocated and
+     *                         contain at least as many elements as the latitudes array.
+     * @param parallel         true to allow the elevations to be computed on multiple threads, otherwise false.
+     *
+     * @return the resolution achieved, in radians, or {@link Double#MAX_VALUE} if individual elevations cannot be
+     *         determined for all of the locations.
+     *
+     * @throws IllegalArgumentException if any of the arrays are null, if the latitude and longitude arrays differ in
+     *                                  length, or if the elevations array is too small.
+     * @see #setMissingDataSignal(double)
+     */
+    double getElevations(double[] latitudes, double[] longitudes, double targetResolution, double[] buffer,
+        boolean parallel);
+
+    /**
+     * Returns the elevations of a collection of locations specified as parallel arrays of latitude and longitude in
+     * degrees. This is the bulk equivalent of {@link #getUnmappedElevations(Sector, java.util.List, double,
+     * double[])}. <em>Does not</em> replace any elevation values corresponding to the missing data signal with the
+     * elevation model's missing data replacement value. If a location within the elevation model's coverage area cannot
+     * currently be determined, the elevation model's minimum extreme elevation for that location is returned in the
+     * output buffer. If a location is outside the elevation model's coverage area, the output buffer for that location
+     * is not modified; it retains the buffer's original value.
+     *
+     * @param latitudes        the latitudes, in degrees, of the locations to return elevations for.
+     * @param longitudes       the longitudes, in degrees, of the locations to return elevations for. Must contain the
+     *                         same number of elements as the latitudes array.
+     * @param targetResolution the desired horizontal resolution, in radians, of the raster or other elevation sample
+     *                         from which elevations are drawn.
+     * @param buffer           an array in which to place the returned elevations. The array must be pre-allocated and
+     *                         contain at least as many elements as the latitudes array.
+     * @param parallel         true to allow the elevations to be computed on multiple threads, otherwise false.
+     *
+     * @return the resolution achieved, in radians, or {@link Double#MAX_VALUE} if individual elevations cannot be
+     *         determined for all of the locations.
+     *
+     * @throws IllegalArgumentException if any of the arrays are null, if the latitude and longitude arrays differ in
+     *                                  length, or if the elevations array is too small.
+     * @see #setMissingDataSignal(double)
+     */
+    double getUnmappedElevations(double[] latitudes, double[] longitudes, double targetResolution, double[] buffer,
+        boolean parallel);
+
     /**
      * Returns the elevation used for missing values in the elevation model.
      *
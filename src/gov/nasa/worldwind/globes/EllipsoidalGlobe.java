@@ -35,7 +35,9 @@ import gov.nasa.worldwind.terrain.*;
 import gov.nasa.worldwind.util.*;
 
 import java.io.IOException;
+import java.nio.FloatBuffer;
 import java.util.List;
+import java.util.concurrent.*;
 
 /**
  * Defines a globe modeled as an <a href="http://mathworld.wolfram.com/Ellipsoid.html" target="_blank">ellipsoid</a>.
@@ -50,6 +52,15 @@ import java.util.List;
  */
 public class EllipsoidalGlobe extends WWObjectImpl implements Globe
 {
+    /** The degrees to radians conversion used by {@link Angle#fromDegrees(double)}. */
+    protected static final double DEGREES_TO_RADIANS = Math.PI / 180d;
+    /** The radians to degrees conversion used by {@link Angle#fromRadians(double)}. */
+    protected static final double RADIANS_TO_DEGREES = 180d / Math.PI;
+    /** The minimum number of points each task converts when a bulk conversion runs in parallel. */
+    protected static final int MIN_PARALLEL_POINTS = 4096;
+    /** The number of points converted at a time when writing bulk conversion results to a float buffer. */
+    protected static final int POINT_CHUNK_SIZE = 256;
+
     protected final double equatorialRadius;
     protected final double polarRadius;
     protected final double es;
@@ -468,6 +479,19 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
             this.egm96 = null;
     }
 
+    /**
+     * Returns the EGM96 geoid offsets applied to this globe's elevations, if any. The offsets' interpolation may be
+     * configured through the returned instance.
+     *
+     * @return the geoid offsets, or null if offsets are not applied.
+     *
+     * @see #applyEGMA96Offsets(String)
+     */
+    public EGM96 getEGM96()
+    {
+        return this.egm96;
+    }
+
     public double getElevations(Sector sector, List<? extends LatLon> latlons, double targetResolution,
         double[] elevations)
     {
@@ -481,7 +505,7 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
             for (int i = 0; i < elevations.length; i++)
             {
                 LatLon latLon = latlons.get(i);
-                elevations[i] = elevations[i] + this.egm96.getOffset(latLon.getLatitude(), latLon.getLongitude());
+                elevations[i] += this.egm96.getOffset(latLon.latitude.degrees, latLon.longitude.degrees);
             }
         }
 
@@ -501,13 +525,28 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
             for (int i = 0; i < elevations.length; i++)
             {
                 LatLon latLon = latLons.get(i);
-                elevations[i] = elevations[i] + this.egm96.getOffset(latLon.getLatitude(), latLon.getLongitude());
+                elevations[i] += this.egm96.getOffset(latLon.latitude.degrees, latLon.longitude.degrees);
             }
         }
 
         return resolution;
     }
 
+    public double getElevations(double[] latitudes, double[] longitudes, double targetResolution,
+        double[] elevations)
+    {
+        if (this.elevationModel == null)
+            return 0;
+
+        double resolution = this.elevationModel.getElevations(latitudes, longitudes, targetResolution, elevations,
+            false);
+
+        if (this.egm96 != null)
+            this.egm96.addOffsets(latitudes, longitudes, elevations);
+
+        return resolution;
+    }
+
     public double getElevation(Angle latitude, Angle longitude)
     {
         if (latitude == null || longitude == null)
@@ -623,6 +662,253 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
         this.geodeticToCartesian(sector, numLat, numLon, metersElevation, out);
     }
 
+    /** {@inheritDoc} */
+    public void computePointsFromGrid(double[] latitudes, double[] longitudes, double[] metersElevation, double[] out)
+    {
+        if (latitudes == null || longitudes == null)
+        {
+            String message = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (metersElevation == null)
+        {
+            String message = Logging.getMessage("nullValue.ElevationsIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (out == null)
+        {
+            String message = Logging.getMessage("nullValue.OutputIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int numPoints = latitudes.length * longitudes.length;
+        if (metersElevation.length < numPoints)
+        {
+            String message = Logging.getMessage("generic.ArrayInvalidLength", metersElevation.length);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (out.length < 3 * numPoints)
+        {
+            String message = Logging.getMessage("generic.ArrayInvalidLength", out.length);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.geodeticToCartesian(latitudes, longitudes, metersElevation, out);
+    }
+
+    /** {@inheritDoc} */
+    public void computePointsFromPositions(final double[] latitudes, final double[] longitudes,
+        final double[] metersElevation, final double[] out, boolean parallel)
+    {
+        int numPositions = this.validatePositionArrays(latitudes, longitudes, metersElevation);
+
+        if (out == null)
+        {
+            String message = Logging.getMessage("nullValue.OutputIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (out.length < 3 * numPositions)
+        {
+            String message = Logging.getMessage("generic.ArrayInvalidLength", out.length);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.applyToRange(numPositions, parallel, new PointRangeOperation()
+        {
+            public void apply(int start, int end)
+            {
+                geodeticToCartesian(latitudes, longitudes, metersElevation, start, end, out, 3 * start);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void computePointsFromPositions(final double[] latitudes, final double[] longitudes,
+        final double[] metersElevation, Vec4 referencePoint, final FloatBuffer out, boolean parallel)
+    {
+        int numPositions = this.validatePositionArrays(latitudes, longitudes, metersElevation);
+
+        if (out == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (out.remaining() < 3 * numPositions)
+        {
+            String message = Logging.getMessage("generic.BufferSize", out.remaining());
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        final int basePosition = out.position();
+        final double refX = referencePoint != null ? referencePoint.x : 0;
+        final double refY = referencePoint != null ? referencePoint.y : 0;
+        final double refZ = referencePoint != null ? referencePoint.z : 0;
+
+        this.applyToRange(numPositions, parallel, new PointRangeOperation()
+        {
+            public void apply(int start, int end)
+            {
+                // Compute the points in double precision a chunk at a time, then subtract the reference point and
+                // write them to the buffer with absolute puts so that concurrent ranges don't share a position.
+                double[] points = new double[3 * Math.min(POINT_CHUNK_SIZE, end - start)];
+                for (int chunkStart = start; chunkStart < end; chunkStart += POINT_CHUNK_SIZE)
+                {
+                    int chunkEnd = Math.min(chunkStart + POINT_CHUNK_SIZE, end);
+                    geodeticToCartesian(latitudes, longitudes, metersElevation, chunkStart, chunkEnd, points, 0);
+
+                    int index = basePosition + 3 * chunkStart;
+                    for (int k = 0; k < 3 * (chunkEnd - chunkStart); k += 3)
+                    {
+                        out.put(index++, (float) (points[k] - refX));
+                        out.put(index++, (float) (points[k + 1] - refY));
+                        out.put(index++, (float) (points[k + 2] - refZ));
+                    }
+                }
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void computePositionsFromPoints(final double[] points, final double[] latitudes,
+        final double[] longitudes, final double[] metersElevation, boolean parallel)
+    {
+        if (points == null || latitudes == null || longitudes == null || metersElevation == null)
+        {
+            String message = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (points.length % 3 != 0)
+        {
+            String message = Logging.getMessage("generic.ArrayInvalidLength", points.length);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int numPoints = points.length / 3;
+        int minLength = Math.min(latitudes.length, Math.min(longitudes.length, metersElevation.length));
+        if (minLength < numPoints)
+        {
+            String message = Logging.getMessage("generic.ArrayInvalidLength", minLength);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.applyToRange(numPoints, parallel, new PointRangeOperation()
+        {
+            public void apply(int start, int end)
+            {
+                cartesianToGeodetic(points, start, end, latitudes, longitudes, metersElevation);
+            }
+        });
+    }
+
+    /**
+     * Checks that the parallel arrays of a bulk position conversion are non-null and of equal length.
+     *
+     * @param latitudes       the latitudes of the positions.
+     * @param longitudes      the longitudes of the positions.
+     * @param metersElevation the elevations of the positions.
+     *
+     * @return the number of positions.
+     *
+     * @throws IllegalArgumentException if any array is null or if the arrays differ in length.
+     */
+    protected int validatePositionArrays(double[] latitudes, double[] longitudes, double[] metersElevation)
+    {
+        if (latitudes == null || longitudes == null || metersElevation == null)
+        {
+            String message = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (longitudes.length != latitudes.length || metersElevation.length != latitudes.length)
+        {
+            String message = Logging.getMessage("generic.ArrayInvalidLength",
+                Math.min(longitudes.length, metersElevation.length));
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        return latitudes.length;
+    }
+
+    /**
+     * Applies an operation to the index range <code>[0, count)</code>. When parallel execution is requested and the
+     * range is large enough to benefit, the range is split into sub-ranges that are processed by the common fork/join
+     * pool. Otherwise the operation is applied to the whole range on the calling thread.
+     *
+     * @param count     the number of indices in the range.
+     * @param parallel  true to allow the range to be processed on multiple threads, otherwise false.
+     * @param operation the operation to apply.
+     */
+    protected void applyToRange(int count, boolean parallel, PointRangeOperation operation)
+    {
+        if (!parallel || count < 2 * MIN_PARALLEL_POINTS)
+        {
+            operation.apply(0, count);
+            return;
+        }
+
+        ForkJoinPool.commonPool().invoke(new PointRangeAction(operation, 0, count));
+    }
+
+    /** An operation on a range of indices into the arrays of a bulk coordinate conversion. */
+    protected interface PointRangeOperation
+    {
+        /**
+         * Applies the operation to a range of indices.
+         *
+         * @param start the first index of the range.
+         * @param end   one more than the last index of the range.
+         */
+        void apply(int start, int end);
+    }
+
+    protected static class PointRangeAction extends RecursiveAction
+    {
+        protected final PointRangeOperation operation;
+        protected final int start;
+        protected final int end;
+
+        public PointRangeAction(PointRangeOperation operation, int start, int end)
+        {
+            this.operation = operation;
+            this.start = start;
+            this.end = end;
+        }
+
+        protected void compute()
+        {
+            int count = this.end - this.start;
+            if (count >= 2 * MIN_PARALLEL_POINTS)
+            {
+                int mid = this.start + count / 2;
+                invokeAll(new PointRangeAction(this.operation, this.start, mid),
+                    new PointRangeAction(this.operation, mid, this.end));
+                return;
+            }
+
+            this.operation.apply(this.start, this.end);
+        }
+    }
+
     /**
      * Returns the normal to the Globe at the specified position.
      *
@@ -994,6 +1280,79 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
         }
     }
 
+    /**
+     * Maps a grid of geographic positions whose rows share a latitude and whose columns share a longitude to Cartesian
+     * coordinates, using the same axes as {@link #geodeticToCartesian(gov.nasa.worldwind.geom.Angle,
+     * gov.nasa.worldwind.geom.Angle, double)}. The sine and cosine of each row's latitude and each column's longitude
+     * are computed once, and no objects are allocated per point.
+     *
+     * @param latitudes       the latitude, in degrees, of each row of the grid.
+     * @param longitudes      the longitude, in degrees, of each column of the grid.
+     * @param metersElevation the elevation of each grid position, in row major order.
+     * @param out             an array to hold the computed points as consecutive x, y, z triplets.
+     */
+    protected void geodeticToCartesian(double[] latitudes, double[] longitudes, double[] metersElevation, double[] out)
+    {
+        int numLon = longitudes.length;
+        double[] cosLon = new double[numLon];
+        double[] sinLon = new double[numLon];
+        for (int i = 0; i < numLon; i++)
+        {
+            double lon = DEGREES_TO_RADIANS * longitudes[i];
+            cosLon[i] = Math.cos(lon);
+            sinLon[i] = Math.sin(lon);
+        }
+
+        int pos = 0;
+        int iout = 0;
+        for (double latDegrees : latitudes)
+        {
+            double lat = DEGREES_TO_RADIANS * latDegrees;
+            double cosLat = Math.cos(lat);
+            double sinLat = Math.sin(lat);
+            double rpm = this.equatorialRadius / Math.sqrt(1.0 - this.es * sinLat * sinLat);
+
+            for (int i = 0; i < numLon; i++)
+            {
+                double elev = metersElevation[pos++];
+                out[iout++] = (rpm + elev) * cosLat * sinLon[i];
+                out[iout++] = (rpm * (1.0 - this.es) + elev) * sinLat;
+                out[iout++] = (rpm + elev) * cosLat * cosLon[i];
+            }
+        }
+    }
+
+    /**
+     * Maps a range of geographic positions, specified as parallel arrays, to Cartesian coordinates, using the same axes
+     * as {@link #geodeticToCartesian(gov.nasa.worldwind.geom.Angle, gov.nasa.worldwind.geom.Angle, double)}. No
+     * objects are allocated. Subclasses that use a different Cartesian mapping override this method.
+     *
+     * @param latitudes       the latitudes of the positions, in degrees.
+     * @param longitudes      the longitudes of the positions, in degrees.
+     * @param metersElevation the elevations of the positions, in meters.
+     * @param start           the index of the first position to map.
+     * @param end             one more than the index of the last position to map.
+     * @param out             an array to hold the computed points as consecutive x, y, z triplets.
+     * @param outOffset       the index in the output array at which to write the point of the first position.
+     */
+    protected void geodeticToCartesian(double[] latitudes, double[] longitudes, double[] metersElevation, int start,
+        int end, double[] out, int outOffset)
+    {
+        for (int i = start, k = outOffset; i < end; i++, k += 3)
+        {
+            double lat = DEGREES_TO_RADIANS * latitudes[i];
+            double lon = DEGREES_TO_RADIANS * longitudes[i];
+            double cosLat = Math.cos(lat);
+            double sinLat = Math.sin(lat);
+            double rpm = this.equatorialRadius / Math.sqrt(1.0 - this.es * sinLat * sinLat);
+            double elev = metersElevation[i];
+
+            out[k] = (rpm + elev) * cosLat * Math.sin(lon);
+            out[k + 1] = (rpm * (1.0 - this.es) + elev) * sinLat;
+            out[k + 2] = (rpm + elev) * cosLat * Math.cos(lon);
+        }
+    }
+
 //    protected Position cartesianToGeodeticOriginal(Vec4 cart)
 //    {
 //        if (cart == null)
@@ -1050,6 +1409,32 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
         return this.ellipsoidalToGeodetic(cart);
     }
 
+    /**
+     * Computes the geographic positions corresponding to a range of Cartesian points. No objects are allocated.
+     * Subclasses that use a different Cartesian mapping override this method.
+     *
+     * @param points          the Cartesian points, as consecutive x, y, z triplets.
+     * @param start           the index of the first point to convert.
+     * @param end             one more than the index of the last point to convert.
+     * @param latitudes       an array to hold the latitude of each point, in degrees, at the point's index.
+     * @param longitudes      an array to hold the longitude of each point, in degrees, at the point's index.
+     * @param metersElevation an array to hold the elevation of each point, in meters, at the point's index.
+     *
+     * @see #cartesianToGeodetic(gov.nasa.worldwind.geom.Vec4)
+     */
+    protected void cartesianToGeodetic(double[] points, int start, int end, double[] latitudes, double[] longitudes,
+        double[] metersElevation)
+    {
+        double[] position = new double[3];
+        for (int i = start, k = 3 * start; i < end; i++, k += 3)
+        {
+            this.ellipsoidalToGeodetic(points[k], points[k + 1], points[k + 2], position);
+            latitudes[i] = RADIANS_TO_DEGREES * position[0];
+            longitudes[i] = RADIANS_TO_DEGREES * position[1];
+            metersElevation[i] = position[2];
+        }
+    }
+
     /**
      * Compute the geographic position to corresponds to an ellipsoidal point.
      *
@@ -1059,7 +1444,6 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
      *
      * @see #geodeticToEllipsoidal(gov.nasa.worldwind.geom.Angle, gov.nasa.worldwind.geom.Angle, double)
      */
-    @SuppressWarnings({"SuspiciousNameCombination"})
     protected Position ellipsoidalToGeodetic(Vec4 cart)
     {
         // Contributed by Nathan Kronenfeld. Integrated 1/24/2011. Brings this calculation in line with Vermeille's
@@ -1071,14 +1455,34 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
             throw new IllegalArgumentException(message);
         }
 
+        double[] position = new double[3];
+        this.ellipsoidalToGeodetic(cart.x, cart.y, cart.z, position);
+
+        return Position.fromRadians(position[0], position[1], position[2]);
+    }
+
+    /**
+     * Compute the geographic coordinates that correspond to an ellipsoidal point, without allocating objects.
+     *
+     * @param x   the ellipsoidal point's X coordinate.
+     * @param y   the ellipsoidal point's Y coordinate.
+     * @param z   the ellipsoidal point's Z coordinate.
+     * @param out an array of at least three elements to hold the point's latitude and longitude, in radians, and its
+     *            elevation, in meters.
+     *
+     * @see #ellipsoidalToGeodetic(gov.nasa.worldwind.geom.Vec4)
+     */
+    @SuppressWarnings({"SuspiciousNameCombination"})
+    protected void ellipsoidalToGeodetic(double x, double y, double z, double[] out)
+    {
         // According to
         // H. Vermeille,
         // "An analytical method to transform geocentric into geodetic coordinates"
         // http://www.springerlink.com/content/3t6837t27t351227/fulltext.pdf
         // Journal of Geodesy, accepted 10/2010, not yet published
-        double X = cart.z;
-        double Y = cart.x;
-        double Z = cart.y;
+        double X = z;
+        double Y = x;
+        double Z = y;
         double XXpYY = X * X + Y * Y;
         double sqrtXXpYY = Math.sqrt(XXpYY);
 
@@ -1169,7 +1573,9 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
             lambda = Math.PI * 0.5 - 2 * Math.atan2(X, sqrtXXpYY + Y);
         }
 
-        return Position.fromRadians(phi, lambda, h);
+        out[0] = phi;
+        out[1] = lambda;
+        out[2] = h;
     }
 //
 //    /**
@@ -425,6 +425,26 @@ public class FlatGlobe extends EllipsoidalGlobe implements Globe2D
         this.projection.geographicToCartesian(this, sector, numLat, numLon, metersElevation, this.offsetVector, out);
     }
 
+    @Override
+    protected void geodeticToCartesian(double[] latitudes, double[] longitudes, double[] metersElevation, double[] out)
+    {
+        // Projections map individual positions, so each grid position is projected separately.
+        int pos = 0;
+        int iout = 0;
+        for (double lat : latitudes)
+        {
+            Angle latitude = Angle.fromDegrees(lat);
+            for (double lon : longitudes)
+            {
+                Vec4 p = this.projection.geographicToCartesian(this, latitude, Angle.fromDegrees(lon),
+                    metersElevation[pos++], this.offsetVector);
+                out[iout++] = p.x;
+                out[iout++] = p.y;
+                out[iout++] = p.z;
+            }
+        }
+    }
+
     @Override
     protected Position cartesianToGeodetic(Vec4 cart)
     {
@@ -450,6 +470,34 @@ public class FlatGlobe extends EllipsoidalGlobe implements Globe2D
         return pos;
     }
 
+    @Override
+    protected void geodeticToCartesian(double[] latitudes, double[] longitudes, double[] metersElevation, int start,
+        int end, double[] out, int outOffset)
+    {
+        this.projection.geographicToCartesian(this, latitudes, longitudes, metersElevation, this.offsetVector, start,
+            end, out, outOffset);
+    }
+
+    @Override
+    protected void cartesianToGeodetic(double[] points, int start, int end, double[] latitudes, double[] longitudes,
+        double[] metersElevation)
+    {
+        this.projection.cartesianToGeographic(this, points, this.offsetVector, start, end, latitudes, longitudes,
+            metersElevation);
+
+        if (this.isContinuous())
+        {
+            // Wrap if the globe is continuous.
+            for (int i = start; i < end; i++)
+            {
+                if (longitudes[i] < -180)
+                    longitudes[i] += 360;
+                else if (longitudes[i] > 180)
+                    longitudes[i] -= 360;
+            }
+        }
+    }
+
 //
 //    /**
 //     * Returns a cylinder that minimally surrounds the specified minimum and maximum elevations in the sector at a
@@ -124,6 +124,29 @@ public interface GeographicProjection
     void geographicToCartesian(Globe globe, Sector sector, int numLat, int numLon, double[] metersElevation,
         Vec4 offset, Vec4[] out);
 
+    /**
+     * Converts a range of geographic positions, specified as parallel arrays of latitude, longitude and elevation, to
+     * Cartesian points. This is the bulk equivalent of {@link #geographicToCartesian(Globe, Angle, Angle, double,
+     * Vec4)}.
+     * <p>
+     * Note: The input arguments are not checked prior to being used. The caller, typically a {@link Globe2D}
+     * implementation, is expected do perform that check prior to calling this method.
+     *
+     * @param globe           The globe this projection is applied to.
+     * @param latitudes       The latitudes of the positions, in degrees.
+     * @param longitudes      The longitudes of the positions, in degrees.
+     * @param metersElevation The elevations of the positions, in meters.
+     * @param offset          An optional offset to be applied to the Cartesian output. Typically only projections that
+     *                        are continuous (see {@link #isContinuous()} apply this offset. Others ignore it. May be
+     *                        null.
+     * @param start           The index of the first position to convert.
+     * @param end             One more than the index of the last position to convert.
+     * @param out             An array to hold the computed points as consecutive x, y, z triplets.
+     * @param outOffset       The index in the output array at which to write the point of the first position.
+     */
+    void geographicToCartesian(Globe globe, double[] latitudes, double[] longitudes, double[] metersElevation,
+        Vec4 offset, int start, int end, double[] out, int outOffset);
+
     /**
      * Converts a Cartesian point in meters to a geographic position.
      * <p>
@@ -143,6 +166,27 @@ public interface GeographicProjection
      */
     Position cartesianToGeographic(Globe globe, Vec4 cart, Vec4 offset);
 
+    /**
+     * Converts a range of Cartesian points to geographic positions. This is the bulk equivalent of {@link
+     * #cartesianToGeographic(Globe, Vec4, Vec4)}.
+     * <p>
+     * Note: The input arguments are not checked prior to being used. The caller, typically a {@link Globe2D}
+     * implementation, is expected do perform that check prior to calling this method.
+     *
+     * @param globe           The globe this projection is applied to.
+     * @param points          The Cartesian points, in meters, as consecutive x, y, z triplets.
+     * @param offset          An optional offset to be applied to the Cartesian input prior to converting it. Typically
+     *                        only projections that are continuous (see {@link #isContinuous()} apply this offset.
+     *                        Others ignore it. May be null.
+     * @param start           The index of the first point to convert.
+     * @param end             One more than the index of the last point to convert.
+     * @param latitudes       An array to hold the latitude of each point, in degrees, at the point's index.
+     * @param longitudes      An array to hold the longitude of each point, in degrees, at the point's index.
+     * @param metersElevation An array to hold the elevation of each point, in meters, at the point's index.
+     */
+    void cartesianToGeographic(Globe globe, double[] points, Vec4 offset, int start, int end, double[] latitudes,
+        double[] longitudes, double[] metersElevation);
+
     /**
      * Computes a Cartesian vector that points north and is tangent to the meridian at the specified geographic
      * location.
@@ -32,6 +32,7 @@ import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.render.DrawContext;
 import gov.nasa.worldwind.terrain.*;
 
+import java.nio.FloatBuffer;
 import java.util.List;
 
 /**
@@ -176,6 +177,30 @@ public interface Globe extends WWObject, Extent
     double[] getElevations(Sector sector, List<? extends LatLon> latlons, double[] targetResolution,
         double[] elevations);
 
+    /**
+     * Indicates the elevations of a collection of locations specified as parallel arrays of latitude and longitude in
+     * degrees. This is the bulk equivalent of {@link #getElevations(Sector, java.util.List, double, double[])}; it does
+     * not require a {@link LatLon} per location. Replaces any elevation values corresponding to the missing data signal
+     * with the elevation model's missing data replacement value. If a location is outside the elevation model's
+     * coverage area, the output buffer for that location is not modified; it retains the buffer's original value.
+     *
+     * @param latitudes        the latitudes, in degrees, of the locations to return elevations for.
+     * @param longitudes       the longitudes, in degrees, of the locations to return elevations for. Must contain the
+     *                         same number of elements as the latitudes array.
+     * @param targetResolution the desired horizontal resolution, in radians, of the raster or other elevation sample
+     *                         from which elevations are drawn.
+     * @param elevations       an array in which to place the returned elevations. The array must be pre-allocated and
+     *                         contain at least as many elements as the latitudes array.
+     *
+     * @return the resolution achieved, in radians, or {@link Double#MAX_VALUE} if individual elevations cannot be
+     *         determined for all of the locations. Returns zero if an elevation model is not available.
+     *
+     * @throws IllegalArgumentException if any of the arrays are null, if the latitude and longitude arrays differ in
+     *                                  length, or if the elevations array is too small.
+     * @see ElevationModel#getElevations(double[], double[], double, double[], boolean)
+     */
+    double getElevations(double[] latitudes, double[] longitudes, double targetResolution, double[] elevations);
+
     /**
      * Indicates the maximum elevation on this globe, in meters.
      *
@@ -284,6 +309,84 @@ public interface Globe extends WWObject, Extent
      */
     void computePointsFromPositions(Sector sector, int numLat, int numLon, double[] metersElevation, Vec4[] out);
 
+    /**
+     * Computes the cartesian points of a grid of geographic positions whose rows share a latitude and whose columns
+     * share a longitude. Unlike {@link #computePointsFromPositions(Sector, int, int, double[], Vec4[])}, the row and
+     * column coordinates are specified explicitly, so they need not be evenly spaced and may repeat, and the points are
+     * written to a primitive array rather than allocated individually.
+     *
+     * @param latitudes       the latitude, in degrees, of each row of the grid.
+     * @param longitudes      the longitude, in degrees, of each column of the grid.
+     * @param metersElevation the elevation of each grid position, in row major order beginning with the first row. The
+     *                        array must have a length of at least <code>latitudes.length x longitudes.length</code>.
+     * @param out             an array to hold the computed points as consecutive x, y, z triplets, in the same order as
+     *                        the elevations. It must have a length of at least three times the number of grid
+     *                        positions.
+     *
+     * @throws IllegalArgumentException if any argument is null, or if the elevations or output arrays are too small.
+     */
+    void computePointsFromGrid(double[] latitudes, double[] longitudes, double[] metersElevation, double[] out);
+
+    /**
+     * Computes the cartesian points corresponding to a collection of geographic positions specified as parallel arrays
+     * of latitude, longitude and elevation. This is the bulk equivalent of {@link #computePointFromPosition(Angle,
+     * Angle, double)}; it allocates no objects per position.
+     *
+     * @param latitudes       the latitudes of the positions, in degrees.
+     * @param longitudes      the longitudes of the positions, in degrees. Must have the same length as the latitudes.
+     * @param metersElevation the elevations of the positions, in meters. Must have the same length as the latitudes.
+     * @param out             an array to hold the computed points as consecutive x, y, z triplets, in the order of the
+     *                        positions. It must have a length of at least three times the number of positions.
+     * @param parallel        true to allow the points to be computed on multiple threads, otherwise false.
+     *
+     * @throws IllegalArgumentException if any array is null, if the position arrays differ in length, or if the output
+     *                                  array is too small.
+     */
+    void computePointsFromPositions(double[] latitudes, double[] longitudes, double[] metersElevation, double[] out,
+        boolean parallel);
+
+    /**
+     * Computes the cartesian points corresponding to a collection of geographic positions specified as parallel arrays
+     * of latitude, longitude and elevation, and writes them relative to a reference point to a float buffer. Points
+     * are written as consecutive x, y, z triplets beginning at the buffer's current position. The buffer's position is
+     * not changed. Subtracting the reference point before converting to single precision preserves the precision of
+     * points near it.
+     *
+     * @param latitudes       the latitudes of the positions, in degrees.
+     * @param longitudes      the longitudes of the positions, in degrees. Must have the same length as the latitudes.
+     * @param metersElevation the elevations of the positions, in meters. Must have the same length as the latitudes.
+     * @param referencePoint  the point to subtract from each computed point. May be null, in which case the points are
+     *                        written unchanged.
+     * @param out             the buffer to hold the computed points. Must have room for three floats per position
+     *                        after its current position.
+     * @param parallel        true to allow the points to be computed on multiple threads, otherwise false.
+     *
+     * @throws IllegalArgumentException if any array or the buffer is null, if the position arrays differ in length, or
+     *                                  if the buffer is too small.
+     */
+    void computePointsFromPositions(double[] latitudes, double[] longitudes, double[] metersElevation,
+        Vec4 referencePoint, FloatBuffer out, boolean parallel);
+
+    /**
+     * Computes the geographic positions corresponding to a collection of cartesian points. This is the bulk equivalent
+     * of {@link #computePositionFromPoint(Vec4)}; it allocates no objects per point.
+     *
+     * @param points          the points, as consecutive x, y, z triplets. The array's length must be a multiple of
+     *                        three.
+     * @param latitudes       an array to hold the latitude of each point, in degrees. Must have room for one value per
+     *                        point.
+     * @param longitudes      an array to hold the longitude of each point, in degrees. Must have room for one value
+     *                        per point.
+     * @param metersElevation an array to hold the elevation of each point, in meters. Must have room for one value per
+     *                        point.
+     * @param parallel        true to allow the positions to be computed on multiple threads, otherwise false.
+     *
+     * @throws IllegalArgumentException if any array is null, if the points array's length is not a multiple of three,
+     *                                  or if any output array is too small.
+     */
+    void computePositionsFromPoints(double[] points, double[] latitudes, double[] longitudes,
+        double[] metersElevation, boolean parallel);
+
     /**
      * Computes a vector perpendicular to the surface of this globe in cartesian coordinates.
      *
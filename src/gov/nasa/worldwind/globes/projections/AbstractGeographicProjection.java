@@ -28,8 +28,8 @@
 
 package gov.nasa.worldwind.globes.projections;
 
-import gov.nasa.worldwind.geom.Sector;
-import gov.nasa.worldwind.globes.GeographicProjection;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
 import gov.nasa.worldwind.util.Logging;
 
 /**
@@ -78,4 +78,43 @@ public abstract class AbstractGeographicProjection implements GeographicProjecti
         this.projectionLimits = projectionLimits;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation converts each position individually with {@link #geographicToCartesian(Globe, Angle, Angle,
+     * double, Vec4)}. Subclasses that can convert primitive coordinates directly override this method.
+     */
+    @Override
+    public void geographicToCartesian(Globe globe, double[] latitudes, double[] longitudes, double[] metersElevation,
+        Vec4 offset, int start, int end, double[] out, int outOffset)
+    {
+        for (int i = start, k = outOffset; i < end; i++, k += 3)
+        {
+            Vec4 point = this.geographicToCartesian(globe, Angle.fromDegrees(latitudes[i]),
+                Angle.fromDegrees(longitudes[i]), metersElevation[i], offset);
+            out[k] = point.x;
+            out[k + 1] = point.y;
+            out[k + 2] = point.z;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation converts each point individually with {@link #cartesianToGeographic(Globe, Vec4, Vec4)}.
+     * Subclasses that can produce primitive coordinates directly override this method.
+     */
+    @Override
+    public void cartesianToGeographic(Globe globe, double[] points, Vec4 offset, int start, int end,
+        double[] latitudes, double[] longitudes, double[] metersElevation)
+    {
+        for (int i = start, k = 3 * start; i < end; i++, k += 3)
+        {
+            Position position = this.cartesianToGeographic(globe, new Vec4(points[k], points[k + 1], points[k + 2]),
+                offset);
+            latitudes[i] = position.getLatitude().degrees;
+            longitudes[i] = position.getLongitude().degrees;
+            metersElevation[i] = position.getElevation();
+        }
+    }
 }
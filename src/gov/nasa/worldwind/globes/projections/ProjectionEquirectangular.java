@@ -101,6 +101,22 @@ public class ProjectionEquirectangular extends AbstractGeographicProjection
         }
     }
 
+    @Override
+    public void geographicToCartesian(Globe globe, double[] latitudes, double[] longitudes, double[] metersElevation,
+        Vec4 offset, int start, int end, double[] out, int outOffset)
+    {
+        double eqr = globe.getEquatorialRadius();
+        double offset_x = offset != null ? offset.x : 0;
+        double degreesToRadians = Math.PI / 180d;
+
+        for (int i = start, k = outOffset; i < end; i++, k += 3)
+        {
+            out[k] = eqr * (degreesToRadians * longitudes[i]) + offset_x;
+            out[k + 1] = eqr * (degreesToRadians * latitudes[i]);
+            out[k + 2] = metersElevation[i];
+        }
+    }
+
     @Override
     public Position cartesianToGeographic(Globe globe, Vec4 cart, Vec4 offset)
     {
@@ -108,6 +124,22 @@ public class ProjectionEquirectangular extends AbstractGeographicProjection
             (cart.x - offset.x) / globe.getEquatorialRadius(), cart.z);
     }
 
+    @Override
+    public void cartesianToGeographic(Globe globe, double[] points, Vec4 offset, int start, int end,
+        double[] latitudes, double[] longitudes, double[] metersElevation)
+    {
+        double eqr = globe.getEquatorialRadius();
+        double offset_x = offset != null ? offset.x : 0;
+        double radiansToDegrees = 180d / Math.PI;
+
+        for (int i = start, k = 3 * start; i < end; i++, k += 3)
+        {
+            latitudes[i] = radiansToDegrees * (points[k + 1] / eqr);
+            longitudes[i] = radiansToDegrees * ((points[k] - offset_x) / eqr);
+            metersElevation[i] = points[k + 2];
+        }
+    }
+
     @Override
     public Vec4 northPointingTangent(Globe globe, Angle latitude, Angle longitude)
     {
@@ -130,6 +130,33 @@ public class ProjectionMercator extends AbstractGeographicProjection
         }
     }
 
+    @Override
+    public void geographicToCartesian(Globe globe, double[] latitudes, double[] longitudes, double[] metersElevation,
+        Vec4 offset, int start, int end, double[] out, int outOffset)
+    {
+        double eqr = globe.getEquatorialRadius();
+        double ecc = Math.sqrt(globe.getEccentricitySquared());
+        double minLatLimit = this.getProjectionLimits().getMinLatitude().degrees;
+        double maxLatLimit = this.getProjectionLimits().getMaxLatitude().degrees;
+        double minLonLimit = this.getProjectionLimits().getMinLongitude().degrees;
+        double maxLonLimit = this.getProjectionLimits().getMaxLongitude().degrees;
+        double xOffset = offset != null ? offset.x : 0;
+        double degreesToRadians = Math.PI / 180d;
+
+        for (int i = start, k = outOffset; i < end; i++, k += 3)
+        {
+            double lat = WWMath.clamp(latitudes[i], minLatLimit, maxLatLimit); // limit lat to projection limits
+            double lon = WWMath.clamp(longitudes[i], minLonLimit, maxLonLimit); // limit lon to projection limits
+
+            double sinPhi = Math.sin(degreesToRadians * lat);
+            double s = ((1 + sinPhi) / (1 - sinPhi)) * Math.pow((1 - ecc * sinPhi) / (1 + ecc * sinPhi), ecc);
+
+            out[k] = eqr * (degreesToRadians * lon) + xOffset;
+            out[k + 1] = 0.5 * eqr * Math.log(s);
+            out[k + 2] = metersElevation[i];
+        }
+    }
+
     @Override
     public Position cartesianToGeographic(Globe globe, Vec4 cart, Vec4 offset)
     {
@@ -162,6 +189,44 @@ public class ProjectionMercator extends AbstractGeographicProjection
         return Position.fromRadians(lat, (cart.x - xOffset) / globe.getEquatorialRadius(), cart.z);
     }
 
+    @Override
+    public void cartesianToGeographic(Globe globe, double[] points, Vec4 offset, int start, int end,
+        double[] latitudes, double[] longitudes, double[] metersElevation)
+    {
+        double eqr = globe.getEquatorialRadius();
+        double xOffset = offset != null ? offset.x : 0;
+        double radiansToDegrees = 180d / Math.PI;
+
+        // The series coefficients depend only on the globe, so compute them once for the whole range.
+        double ecc2 = globe.getEccentricitySquared();
+        double ecc4 = ecc2 * ecc2;
+        double ecc6 = ecc4 * ecc2;
+        double ecc8 = ecc6 * ecc2;
+
+        double B = ecc2 / 2 + 5 * ecc4 / 24 + ecc6 / 12 + 13 * ecc8 / 360;
+        double C = 7 * ecc4 / 48 + 29 * ecc6 / 240 + 811 * ecc8 / 11520;
+        double D = 7 * ecc6 / 120 + 81 * ecc8 / 1120;
+        double E = 4279 * ecc8 / 161280;
+
+        double Bp = B - 3 * D;
+        double Cp = 2 * C - 8 * E;
+        double Dp = 4 * D;
+        double Ep = 8 * E;
+
+        for (int i = start, k = 3 * start; i < end; i++, k += 3)
+        {
+            double t = Math.pow(Math.E, -points[k + 1] / eqr);
+            double A = Math.PI / 2 - 2 * Math.atan(t);
+            double Ap = A - C + E;
+            double s2p = Math.sin(2 * A);
+            double lat = Ap + s2p * (Bp + s2p * (Cp + s2p * (Dp + Ep * s2p)));
+
+            latitudes[i] = radiansToDegrees * lat;
+            longitudes[i] = radiansToDegrees * ((points[k] - xOffset) / eqr);
+            metersElevation[i] = points[k + 2];
+        }
+    }
+
     @Override
     public Vec4 northPointingTangent(Globe globe, Angle latitude, Angle longitude)
     {
@@ -41,8 +41,10 @@ import gov.nasa.worldwind.retrieve.*;
 import gov.nasa.worldwind.util.*;
 import org.w3c.dom.*;
 
+import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.io.*;
 import java.net.URL;
 import java.nio.ByteBuffer;
@@ -55,6 +57,10 @@ import java.util.Map;
 public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetrievable
 {
     protected final Object fileLock = new Object();
+    protected boolean transcodeTextures;
+
+    /** The suffix appended to a tile's path, in place of the image suffix, to name the tile's transcoded texture. */
+    protected static final String TRANSCODED_TEXTURE_SUFFIX = ".texture.dds";
 
     // Layer resource properties.
     protected static final int RESOURCE_ID_OGC_CAPABILITIES = 1;
@@ -120,6 +126,10 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
         if (b != null)
             this.setUseTransparentTextures(b);
 
+        b = (Boolean) params.getValue(AVKey.TRANSCODE_TEXTURES);
+        if (b != null)
+            this.setTranscodeTextures(b);
+
         Object o = params.getValue(AVKey.URL_CONNECT_TIMEOUT);
         if (o != null)
             this.setValue(AVKey.URL_CONNECT_TIMEOUT, o);
@@ -343,13 +353,44 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
         return true;
     }
 
+    /**
+     * Indicates whether this layer transcodes tile images to textures that load without decoding. See {@link
+     * #setTranscodeTextures(boolean)}.
+     *
+     * @return true if tile images are transcoded, otherwise false.
+     */
+    public boolean isTranscodeTextures()
+    {
+        return this.transcodeTextures;
+    }
+
+    /**
+     * Specifies whether this layer transcodes tile images to textures that load without decoding. When enabled, each
+     * PNG, JPEG or other non-DDS tile image is decoded once, when it's retrieved or first loaded, and written to the
+     * file store beside the image as a DDS file in the layer's texture format. Later loads of the tile read the DDS
+     * file directly, which avoids decoding the image, and for the <code>image/dds</code> texture format also avoids
+     * compressing it, each time the tile falls out of the memory cache. If the layer has no texture format the DDS
+     * file is uncompressed, so the loaded texture is identical to that loaded from the image. Transcoding is disabled
+     * by default. It uses more file store space, most for layers with no texture format.
+     *
+     * @param transcodeTextures true to transcode tile images, otherwise false.
+     */
+    public void setTranscodeTextures(boolean transcodeTextures)
+    {
+        this.transcodeTextures = transcodeTextures;
+    }
+
     protected boolean loadTexture(TextureTile tile, java.net.URL textureURL)
     {
-        TextureData textureData;
+        TextureData textureData = null;
 
         synchronized (this.fileLock)
         {
-            textureData = readTexture(textureURL, this.getTextureFormat(), this.isUseMipMaps());
+            if (this.isTranscodeTextures())
+                textureData = this.readTranscodedTexture(tile, textureURL);
+
+            if (textureData == null)
+                textureData = readTexture(textureURL, this.getTextureFormat(), this.isUseMipMaps());
         }
 
         if (textureData == null)
@@ -362,6 +403,106 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
         return true;
     }
 
+    /**
+     * Reads the transcoded texture for a tile, first transcoding the tile's image if it has not been transcoded or has
+     * changed since it was transcoded. Returns null if the tile's image is already in DDS format, or can't be
+     * transcoded or read, in which case the caller reads the image itself.
+     *
+     * @param tile       the tile to read.
+     * @param textureURL the URL of the tile's image in the file store.
+     *
+     * @return the tile's texture data, or null if the tile has no transcoded texture.
+     */
+    protected TextureData readTranscodedTexture(TextureTile tile, java.net.URL textureURL)
+    {
+        File imageFile = WWIO.getFileForLocalAddress(textureURL);
+        if (imageFile == null || imageFile.getName().toLowerCase().endsWith("dds"))
+            return null;
+
+        File textureFile = this.getTranscodedTextureFile(imageFile);
+        if (!textureFile.exists() || textureFile.lastModified() < imageFile.lastModified())
+        {
+            if (!this.transcodeTexture(imageFile, textureFile))
+                return null;
+        }
+
+        try
+        {
+            // The JOGL DDS reader maps the file and passes its pixels to OpenGL without decoding them.
+            return OGLUtil.newTextureData(Configuration.getMaxCompatibleGLProfile(), textureFile,
+                this.isUseMipMaps());
+        }
+        catch (Exception e)
+        {
+            String msg = Logging.getMessage("layers.TextureLayer.ExceptionAttemptingToReadTextureFile", textureFile);
+            Logging.logger().log(java.util.logging.Level.SEVERE, msg, e);
+            textureFile.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Returns the file holding the transcoded texture for a tile's image. The file is beside the image in the file
+     * store, with the image's suffix replaced by {@link #TRANSCODED_TEXTURE_SUFFIX}.
+     *
+     * @param imageFile the tile's image file.
+     *
+     * @return the file holding the transcoded texture.
+     */
+    protected File getTranscodedTextureFile(File imageFile)
+    {
+        String name = WWIO.replaceSuffix(imageFile.getName(), TRANSCODED_TEXTURE_SUFFIX);
+        return new File(imageFile.getParentFile(), name);
+    }
+
+    /**
+     * Transcodes a tile image to a DDS file in this layer's texture format. For the <code>image/dds</code> texture
+     * format this writes a DXT compressed file, as {@link #readTexture(java.net.URL, String, boolean)} would produce
+     * from the image. Otherwise this writes an uncompressed file. The file includes mipmaps if this layer uses mipmaps.
+     *
+     * @param imageFile   the tile image to transcode.
+     * @param textureFile the file to write.
+     *
+     * @return true if the image was transcoded, otherwise false.
+     */
+    protected boolean transcodeTexture(File imageFile, File textureFile)
+    {
+        try
+        {
+            BufferedImage image = ImageIO.read(imageFile);
+            if (image == null)
+                return false;
+
+            // Write to a temporary file and then rename it, so that a partially written texture is never read.
+            File tmpFile = new File(textureFile.getPath() + ".tmp");
+
+            synchronized (this.fileLock)
+            {
+                if ("image/dds".equalsIgnoreCase(this.getTextureFormat()))
+                {
+                    DXTCompressionAttributes attributes = DDSCompressor.getDefaultCompressionAttributes();
+                    attributes.setBuildMipmaps(this.isUseMipMaps());
+                    WWIO.saveBuffer(new DDSCompressor().compressImage(image, attributes), tmpFile);
+                }
+                else
+                {
+                    new DDSUncompressedWriter().write(image, this.isUseMipMaps(), tmpFile);
+                }
+
+                java.nio.file.Files.move(tmpFile.toPath(), textureFile.toPath(),
+                    java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            return true;
+        }
+        catch (Exception e)
+        {
+            String msg = Logging.getMessage("layers.TextureLayer.ExceptionAttemptingToTranscodeTexture", imageFile);
+            Logging.logger().log(java.util.logging.Level.SEVERE, msg, e);
+            return false;
+        }
+    }
+
     /**
      * Reads and returns the texture data at the specified URL, optionally converting it to the specified format and
      * generating mip-maps. If <code>textureFormat</code> is a recognized mime type, this returns the texture data in
@@ -678,6 +819,14 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
                 // if there's not.
                 this.layer.writeConfigurationFile(this.getFileStore());
 
+                // Transcode the image now, while the retrieval thread has it, rather than when the tile is loaded.
+                File imageFile = this.getOutputFile();
+                if (this.layer.isTranscodeTextures() && imageFile != null && imageFile.exists()
+                    && !imageFile.getName().toLowerCase().endsWith("dds"))
+                {
+                    this.layer.transcodeTexture(imageFile, this.layer.getTranscodedTextureFile(imageFile));
+                }
+
                 // Fire a property change to denote that the layer's backing data has changed.
                 this.layer.firePropertyChange(AVKey.LAYER, null, this);
             }
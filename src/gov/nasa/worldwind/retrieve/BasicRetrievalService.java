@@ -29,7 +29,7 @@ package gov.nasa.worldwind.retrieve;
 
 import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.avlist.AVKey;
-import gov.nasa.worldwind.util.Logging;
+import gov.nasa.worldwind.util.*;
 
 import javax.net.ssl.SSLHandshakeException;
 import java.net.SocketTimeoutException;
@@ -38,6 +38,17 @@ import java.util.logging.Level;
 
 /**
  * Performs threaded retrieval of data.
+ * <p>
+ * Retrievals normally run on a small pool of platform threads, sized by {@link AVKey#RETRIEVAL_POOL_SIZE}. When
+ * {@link AVKey#RETRIEVAL_USE_VIRTUAL_THREADS} is true and the Java platform supports virtual threads, each retrieval
+ * instead runs on its own virtual thread and up to {@link AVKey#RETRIEVAL_VIRTUAL_THREAD_POOL_SIZE} retrievals may be
+ * in flight at once. Retrievals blocked on network I/O then no longer occupy a platform thread.
+ * <p>
+ * In either mode, retrievals wait in the priority queue only while the maximum number are in flight, and priority
+ * determines which waiting retrieval starts next. Below that limit a retrieval starts as soon as it's submitted. The
+ * larger in-flight limit of virtual-thread mode is therefore reached less often, and retrievals are more often started
+ * in the order submitted rather than in priority order. Lower {@link AVKey#RETRIEVAL_VIRTUAL_THREAD_POOL_SIZE} to have
+ * priority apply sooner.
  *
  * @author Tom Gaskins
  * @version $Id: BasicRetrievalService.java 1171 2013-02-11 21:45:02Z dcollins $
@@ -48,6 +59,7 @@ public final class BasicRetrievalService extends WWObjectImpl
     // These constants are last-ditch values in case Configuration lacks defaults
     private static final int DEFAULT_QUEUE_SIZE = 100;
     private static final int DEFAULT_POOL_SIZE = 5;
+    private static final int DEFAULT_VIRTUAL_THREAD_POOL_SIZE = 64;
     private static final long DEFAULT_STALE_REQUEST_LIMIT = 30000; // milliseconds
     private static final int DEFAULT_TIME_PRIORITY_GRANULARITY = 500; // milliseconds
 
@@ -59,6 +71,7 @@ public final class BasicRetrievalService extends WWObjectImpl
     private RetrievalExecutor executor; // thread pool for running retrievers
     private ConcurrentLinkedQueue<RetrievalTask> activeTasks; // tasks currently allocated a thread
     private int queueSize; // maximum queue size
+    private boolean usingVirtualThreads; // true if retrievers run on virtual threads
 
     /** Encapsulates a single threaded retrieval as a {@link java.util.concurrent.FutureTask}. */
     private static class RetrievalTask extends FutureTask<Retriever>
@@ -167,16 +180,17 @@ public final class BasicRetrievalService extends WWObjectImpl
         private static final long THREAD_TIMEOUT = 2; // keep idle threads alive this many seconds
         private long staleRequestLimit; // reject requests older than this
 
-        private RetrievalExecutor(int poolSize, int queueSize)
+        private RetrievalExecutor(int poolSize, int queueSize, final ThreadFactory threadFactory)
         {
             super(poolSize, poolSize, THREAD_TIMEOUT, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(queueSize),
                 new ThreadFactory()
                 {
                     public Thread newThread(Runnable runnable)
                     {
-                        Thread thread = new Thread(runnable);
-                        thread.setDaemon(true);
-                        thread.setPriority(Thread.MIN_PRIORITY);
+                        Thread thread = threadFactory != null ? threadFactory.newThread(runnable)
+                            : new Thread(runnable);
+                        thread.setDaemon(true); // virtual threads are always daemon threads
+                        thread.setPriority(Thread.MIN_PRIORITY); // has no effect on virtual threads
                         thread.setUncaughtExceptionHandler(BasicRetrievalService.this);
                         return thread;
                     }
@@ -323,8 +337,31 @@ public final class BasicRetrievalService extends WWObjectImpl
         Integer poolSize = Configuration.getIntegerValue(AVKey.RETRIEVAL_POOL_SIZE, DEFAULT_POOL_SIZE);
         this.queueSize = Configuration.getIntegerValue(AVKey.RETRIEVAL_QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
 
+        ThreadFactory threadFactory = null;
+        if (Configuration.getBooleanValue(AVKey.RETRIEVAL_USE_VIRTUAL_THREADS, false))
+        {
+            threadFactory = WWUtil.getVirtualThreadFactory();
+            if (threadFactory != null)
+            {
+                // Virtual threads are cheap to create and park while blocked on I/O, so many more retrievals may be
+                // in flight than there are platform threads. The pool size still bounds the memory held by
+                // concurrently running retrievers.
+                poolSize = Configuration.getIntegerValue(AVKey.RETRIEVAL_VIRTUAL_THREAD_POOL_SIZE,
+                    DEFAULT_VIRTUAL_THREAD_POOL_SIZE);
+                this.usingVirtualThreads = true;
+            }
+            else
+            {
+                Logging.logger().info(Logging.getMessage("generic.VirtualThreadsUnavailable"));
+            }
+        }
+
         // this.executor runs the retrievers, each in their own thread
-        this.executor = new RetrievalExecutor(poolSize, this.queueSize);
+        this.executor = new RetrievalExecutor(poolSize, this.queueSize, threadFactory);
+
+        // Idle virtual threads are discarded rather than pooled; creating another costs little.
+        if (this.usingVirtualThreads)
+            this.executor.allowCoreThreadTimeOut(true);
 
         // this.activeTasks holds the list of currently executing tasks (*not* those pending on the queue)
         this.activeTasks = new ConcurrentLinkedQueue<RetrievalTask>();
@@ -430,8 +467,22 @@ public final class BasicRetrievalService extends WWObjectImpl
         return this.executor.getCorePoolSize();
     }
 
+    /**
+     * Indicates whether this service runs retrievers on virtual threads.
+     *
+     * @return true if retrievers run on virtual threads, otherwise false.
+     */
+    public boolean isUsingVirtualThreads()
+    {
+        return this.usingVirtualThreads;
+    }
+
     private boolean hasRetrievers()
     {
+        // Virtual threads are not visible to Thread.enumerate, so consult the active task list in that mode.
+        if (this.usingVirtualThreads)
+            return !this.activeTasks.isEmpty();
+
         Thread[] threads = new Thread[Thread.activeCount()];
         int numThreads = Thread.enumerate(threads);
         for (int i = 0; i < numThreads; i++)
@@ -0,0 +1,727 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.retrieve;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.util.*;
+
+import javax.net.ssl.SSLHandshakeException;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * A retrieval service that schedules retrievals itself rather than relying on a thread pool's work queue. Compared to
+ * {@link BasicRetrievalService} it differs in four ways:
+ * <ul> <li>Requests are de-duplicated by retriever name when they are submitted. Submitting a retriever whose name
+ * matches a queued or running retrieval returns the existing retrieval's future.</li> <li>Re-submitting a queued
+ * retrieval refreshes its priority and submit time. Layers and elevation models re-submit the tiles they still need
+ * each frame, so as the view moves the tiles currently in view move to the front of the queue, and tiles no longer in
+ * view fall behind them and are eventually discarded by the stale request limit.</li> <li>At most a specified number
+ * of retrievals run concurrently against any one host.</li> <li>When the queue is full, the lowest ranked queued
+ * retrieval is cancelled to make room for a higher ranked one, rather than the new request being silently
+ * dropped.</li> </ul>
+ * <p>
+ * Queued retrievals are ordered as they are by <code>BasicRetrievalService</code>: requests submitted within more
+ * recent time-granularity periods run first, and requests submitted within the same period run in order of increasing
+ * priority value. Requests with a priority of zero or less are ordered by priority alone, ahead of all others.
+ * <p>
+ * The service records queue depth, wait time and throughput, available from {@link #getPerformanceStatistics()} and
+ * individual accessors.
+ */
+public class PriorityRetrievalService extends WWObjectImpl
+    implements RetrievalService, Thread.UncaughtExceptionHandler
+{
+    // These constants are last-ditch values in case Configuration lacks defaults
+    protected static final int DEFAULT_QUEUE_SIZE = 100;
+    protected static final int DEFAULT_POOL_SIZE = 5;
+    protected static final int DEFAULT_HOST_CONNECTION_LIMIT = 6;
+    protected static final long DEFAULT_STALE_REQUEST_LIMIT = 30000; // milliseconds
+    protected static final long TIME_PRIORITY_GRANULARITY = 500; // milliseconds
+    protected static final long THROUGHPUT_INTERVAL = 5000; // milliseconds
+    protected static final long THREAD_TIMEOUT = 2; // keep idle threads alive this many seconds
+
+    protected static final String RUNNING_THREAD_NAME_PREFIX = Logging.getMessage(
+        "BasicRetrievalService.RunningThreadNamePrefix");
+    protected static final String IDLE_THREAD_NAME_PREFIX = Logging.getMessage(
+        "BasicRetrievalService.IdleThreadNamePrefix");
+
+    /** Encapsulates a single threaded retrieval as a {@link java.util.concurrent.FutureTask}. */
+    protected static class RetrievalTask extends FutureTask<Retriever> implements RetrievalFuture
+    {
+        protected final Retriever retriever;
+        protected final String host;
+        // The following determine the task's queue order. Guarded by the service's lock, and modified only while
+        // the task is not in the queue.
+        protected double priority;
+        protected long period;
+        protected long sequence;
+
+        protected RetrievalTask(Retriever retriever, String host)
+        {
+            super(retriever);
+            this.retriever = retriever;
+            this.host = host;
+        }
+
+        public Retriever getRetriever()
+        {
+            return this.retriever;
+        }
+
+        public double getPriority()
+        {
+            return this.priority;
+        }
+
+        protected void setPriority(double priority, long submitTime, long sequence)
+        {
+            this.priority = priority;
+            // Requests with non-positive priority are ordered ahead of all time periods.
+            this.period = priority > 0 ? submitTime / TIME_PRIORITY_GRANULARITY : Long.MAX_VALUE;
+            this.sequence = sequence;
+        }
+    }
+
+    /** Orders tasks from first to run to last to run. */
+    protected static final Comparator<RetrievalTask> TASK_ORDER = new Comparator<RetrievalTask>()
+    {
+        public int compare(RetrievalTask a, RetrievalTask b)
+        {
+            if (a.period != b.period)
+                return a.period > b.period ? -1 : 1; // more recent periods first
+
+            if (a.priority != b.priority)
+                return a.priority < b.priority ? -1 : 1;
+
+            return a.sequence > b.sequence ? -1 : a.sequence == b.sequence ? 0 : 1; // most recent first
+        }
+    };
+
+    protected final Object lock = new Object();
+    // The following are guarded by lock.
+    protected final TreeSet<RetrievalTask> queue = new TreeSet<RetrievalTask>(TASK_ORDER);
+    protected final Map<String, RetrievalTask> tasks = new HashMap<String, RetrievalTask>(); // queued and running
+    protected final Map<String, Integer> hostConnections = new HashMap<String, Integer>();
+    protected final ArrayDeque<Long> completionTimes = new ArrayDeque<Long>();
+    protected int numRunning;
+    protected int poolSize;
+    protected int queueSize;
+    protected int hostConnectionLimit;
+    protected long nextSequence;
+    protected boolean shutDown;
+
+    protected final ThreadPoolExecutor executor;
+    protected final long staleRequestLimit;
+    protected SSLExceptionListener sslExceptionListener;
+
+    // Statistics.
+    protected final AtomicLong numCompleted = new AtomicLong();
+    protected final AtomicLong numDuplicates = new AtomicLong();
+    protected final AtomicLong numDiscarded = new AtomicLong();
+    protected final AtomicLong numStarted = new AtomicLong();
+    protected final AtomicLong totalWaitTime = new AtomicLong();
+
+    public PriorityRetrievalService()
+    {
+        this.poolSize = Configuration.getIntegerValue(AVKey.RETRIEVAL_POOL_SIZE, DEFAULT_POOL_SIZE);
+        this.queueSize = Configuration.getIntegerValue(AVKey.RETRIEVAL_QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
+        this.hostConnectionLimit = Configuration.getIntegerValue(AVKey.RETRIEVAL_HOST_CONNECTION_LIMIT,
+            DEFAULT_HOST_CONNECTION_LIMIT);
+        this.staleRequestLimit = Configuration.getLongValue(AVKey.RETRIEVAL_QUEUE_STALE_REQUEST_LIMIT,
+            DEFAULT_STALE_REQUEST_LIMIT);
+
+        // The executor's own queue never holds more than one task per free thread: tasks are handed to it only when
+        // a thread is available to run them.
+        this.executor = new ThreadPoolExecutor(this.poolSize, this.poolSize, THREAD_TIMEOUT, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, IDLE_THREAD_NAME_PREFIX);
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY); // Subordinate thread priority to rendering
+                thread.setUncaughtExceptionHandler(PriorityRetrievalService.this);
+                return thread;
+            }
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public SSLExceptionListener getSSLExceptionListener()
+    {
+        return sslExceptionListener;
+    }
+
+    public void setSSLExceptionListener(SSLExceptionListener sslExceptionListener)
+    {
+        this.sslExceptionListener = sslExceptionListener;
+    }
+
+    public void uncaughtException(Thread thread, Throwable throwable)
+    {
+        Logging.logger().fine(Logging.getMessage("BasicRetrievalService.UncaughtExceptionDuringRetrieval",
+            thread.getName()));
+    }
+
+    public void shutdown(boolean immediately)
+    {
+        synchronized (this.lock)
+        {
+            this.shutDown = true;
+
+            for (RetrievalTask task : this.queue)
+            {
+                task.cancel(false);
+            }
+            this.queue.clear();
+            this.tasks.clear();
+        }
+
+        if (immediately)
+            this.executor.shutdownNow();
+        else
+            this.executor.shutdown();
+    }
+
+    /**
+     * @param retriever the retriever to run
+     *
+     * @return a future object that can be used to query the request status of cancel the request.
+     *
+     * @throws IllegalArgumentException if <code>retriever</code> is null or has no name
+     */
+    public RetrievalFuture runRetriever(Retriever retriever)
+    {
+        if (retriever == null)
+        {
+            String msg = Logging.getMessage("nullValue.RetrieverIsNull");
+            Logging.logger().fine(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        if (retriever.getName() == null)
+        {
+            String message = Logging.getMessage("nullValue.RetrieverNameIsNull");
+            Logging.logger().fine(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        // Add with secondary priority that removes most recently added requests first.
+        return this.runRetriever(retriever, (double) (Long.MAX_VALUE - System.currentTimeMillis()));
+    }
+
+    /**
+     * Queues a retriever, or refreshes the priority of an equivalent queued retrieval. If the queue is full and the
+     * retriever ranks below every queued retrieval, it is rejected; otherwise the lowest ranked queued retrieval is
+     * cancelled to make room for it.
+     *
+     * @param retriever the retriever to run
+     * @param priority  the secondary priority of the retriever, or negative if it is to be the primary priority
+     *
+     * @return a future object that can be used to query the request status of cancel the request. If a retrieval with
+     *         the same name is already queued or running, its future is returned. Returns null if the service is shut
+     *         down or the retriever was rejected.
+     *
+     * @throws IllegalArgumentException if <code>retriever</code> is null or has no name
+     */
+    public RetrievalFuture runRetriever(Retriever retriever, double priority)
+    {
+        if (retriever == null)
+        {
+            String message = Logging.getMessage("nullValue.RetrieverIsNull");
+            Logging.logger().fine(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (retriever.getName() == null)
+        {
+            String message = Logging.getMessage("nullValue.RetrieverNameIsNull");
+            Logging.logger().fine(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        long now = System.currentTimeMillis();
+
+        synchronized (this.lock)
+        {
+            if (this.shutDown)
+                return null;
+
+            RetrievalTask existing = this.tasks.get(retriever.getName());
+            if (existing != null)
+            {
+                this.numDuplicates.incrementAndGet();
+
+                // Re-submission of a queued request moves it according to its new priority and submit time.
+                if (this.queue.remove(existing))
+                {
+                    existing.getRetriever().setSubmitTime(now);
+                    existing.setPriority(priority, now, this.nextSequence++);
+                    this.queue.add(existing);
+                }
+
+                return existing;
+            }
+
+            retriever.setSubmitTime(now);
+            RetrievalTask task = new RetrievalTask(retriever, hostFor(retriever));
+            task.setPriority(priority, now, this.nextSequence++);
+
+            if (this.queue.size() >= this.queueSize && !this.queue.isEmpty())
+            {
+                RetrievalTask last = this.queue.last();
+                if (TASK_ORDER.compare(task, last) > 0)
+                {
+                    this.numDiscarded.incrementAndGet();
+                    Logging.logger().finer(Logging.getMessage("BasicRetrievalService.ResourceRejectedQueueIsFull",
+                        retriever.getName()));
+                    return null;
+                }
+
+                this.discard(last);
+                Logging.logger().finer(Logging.getMessage("PriorityRetrievalService.DiscardingLowPriorityRetrieval",
+                    last.getRetriever().getName()));
+            }
+
+            this.queue.add(task);
+            this.tasks.put(retriever.getName(), task);
+            this.dispatch();
+
+            return task;
+        }
+    }
+
+    /**
+     * @param poolSize the number of threads in the thread pool
+     *
+     * @throws IllegalArgumentException if <code>poolSize</code> is non-positive
+     */
+    public void setRetrieverPoolSize(int poolSize)
+    {
+        if (poolSize < 1)
+        {
+            String message = Logging.getMessage("BasicRetrievalService.RetrieverPoolSizeIsLessThanOne");
+            Logging.logger().fine(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        synchronized (this.lock)
+        {
+            if (poolSize > this.executor.getMaximumPoolSize())
+            {
+                this.executor.setMaximumPoolSize(poolSize);
+                this.executor.setCorePoolSize(poolSize);
+            }
+            else
+            {
+                this.executor.setCorePoolSize(poolSize);
+                this.executor.setMaximumPoolSize(poolSize);
+            }
+
+            this.poolSize = poolSize;
+            this.dispatch();
+        }
+    }
+
+    public int getRetrieverPoolSize()
+    {
+        synchronized (this.lock)
+        {
+            return this.poolSize;
+        }
+    }
+
+    /**
+     * Specifies the maximum number of retrievals that may run concurrently against a single host.
+     *
+     * @param limit the maximum number of concurrent retrievals per host.
+     *
+     * @throws IllegalArgumentException if <code>limit</code> is less than 1.
+     */
+    public void setHostConnectionLimit(int limit)
+    {
+        if (limit < 1)
+        {
+            String message = Logging.getMessage("PriorityRetrievalService.HostConnectionLimitIsLessThanOne");
+            Logging.logger().fine(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        synchronized (this.lock)
+        {
+            this.hostConnectionLimit = limit;
+            this.dispatch();
+        }
+    }
+
+    /**
+     * Indicates the maximum number of retrievals that may run concurrently against a single host.
+     *
+     * @return the maximum number of concurrent retrievals per host.
+     */
+    public int getHostConnectionLimit()
+    {
+        synchronized (this.lock)
+        {
+            return this.hostConnectionLimit;
+        }
+    }
+
+    /**
+     * Specifies the maximum number of queued retrievals.
+     *
+     * @param queueSize the maximum number of queued retrievals.
+     *
+     * @throws IllegalArgumentException if <code>queueSize</code> is less than 1.
+     */
+    public void setQueueSize(int queueSize)
+    {
+        if (queueSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "queueSize=" + queueSize);
+            Logging.logger().fine(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        synchronized (this.lock)
+        {
+            this.queueSize = queueSize;
+        }
+    }
+
+    /**
+     * Indicates the maximum number of queued retrievals.
+     *
+     * @return the maximum number of queued retrievals.
+     */
+    public int getQueueSize()
+    {
+        synchronized (this.lock)
+        {
+            return this.queueSize;
+        }
+    }
+
+    public boolean hasActiveTasks()
+    {
+        synchronized (this.lock)
+        {
+            return this.numRunning > 0;
+        }
+    }
+
+    public boolean isAvailable()
+    {
+        synchronized (this.lock)
+        {
+            return this.queue.size() < this.queueSize;
+        }
+    }
+
+    public int getNumRetrieversPending()
+    {
+        synchronized (this.lock)
+        {
+            return this.numRunning + this.queue.size();
+        }
+    }
+
+    /**
+     * @param retriever the retriever to check
+     *
+     * @return <code>true</code> if the retriever is being run or pending execution
+     *
+     * @throws IllegalArgumentException if <code>retriever</code> is null
+     */
+    public boolean contains(Retriever retriever)
+    {
+        if (retriever == null)
+        {
+            String msg = Logging.getMessage("nullValue.RetrieverIsNull");
+            Logging.logger().fine(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        synchronized (this.lock)
+        {
+            return retriever.getName() != null && this.tasks.containsKey(retriever.getName());
+        }
+    }
+
+    /** @return the number of retrievals waiting to run. */
+    public int getQueueDepth()
+    {
+        synchronized (this.lock)
+        {
+            return this.queue.size();
+        }
+    }
+
+    /** @return the number of retrievals currently running. */
+    public int getNumRunning()
+    {
+        synchronized (this.lock)
+        {
+            return this.numRunning;
+        }
+    }
+
+    /** @return the number of retrievals that have finished running, whether successfully or not. */
+    public long getNumCompleted()
+    {
+        return this.numCompleted.get();
+    }
+
+    /** @return the number of submissions that matched a queued or running retrieval. */
+    public long getNumDuplicates()
+    {
+        return this.numDuplicates.get();
+    }
+
+    /** @return the number of retrievals rejected or cancelled because the queue was full or they became stale. */
+    public long getNumDiscarded()
+    {
+        return this.numDiscarded.get();
+    }
+
+    /** @return the average time in milliseconds between submitting and starting a retrieval, or 0 if none have run. */
+    public double getAverageWaitTime()
+    {
+        long count = this.numStarted.get();
+        return count > 0 ? (double) this.totalWaitTime.get() / count : 0;
+    }
+
+    /** @return the number of retrievals completed per second over the last few seconds. */
+    public double getThroughput()
+    {
+        synchronized (this.lock)
+        {
+            this.trimCompletionTimes(System.currentTimeMillis());
+            return this.completionTimes.size() * 1000d / THROUGHPUT_INTERVAL;
+        }
+    }
+
+    /** @return the service's queue depth, wait time and throughput statistics. */
+    public Collection<PerformanceStatistic> getPerformanceStatistics()
+    {
+        ArrayList<PerformanceStatistic> stats = new ArrayList<PerformanceStatistic>();
+        stats.add(new PerformanceStatistic(PerformanceStatistic.RETRIEVAL_QUEUE, "Retrieval Queue Depth",
+            this.getQueueDepth()));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.RETRIEVAL_QUEUE, "Retrieval Running",
+            this.getNumRunning()));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.RETRIEVAL_QUEUE, "Retrieval Wait Time (ms)",
+            (long) this.getAverageWaitTime()));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.RETRIEVAL_QUEUE, "Retrieval Throughput (/s)",
+            this.getThroughput()));
+        return stats;
+    }
+
+    /**
+     * Hands the highest ranked queued retrievals to the thread pool while threads are available, skipping retrievals
+     * whose host is at its connection limit and discarding retrievals that have become stale.
+     */
+    protected void dispatch() // MUST BE CALLED WITHIN SYNCHRONIZED
+    {
+        long now = System.currentTimeMillis();
+
+        while (this.numRunning < this.poolSize && !this.shutDown)
+        {
+            RetrievalTask next = null;
+
+            for (Iterator<RetrievalTask> iter = this.queue.iterator(); iter.hasNext(); )
+            {
+                RetrievalTask task = iter.next();
+
+                if (task.isCancelled()) // cancelled by the client
+                {
+                    iter.remove();
+                    this.tasks.remove(task.getRetriever().getName());
+                }
+                else if (now - task.getRetriever().getSubmitTime() > this.staleRequestLimitFor(task))
+                {
+                    iter.remove();
+                    this.tasks.remove(task.getRetriever().getName());
+                    task.cancel(false);
+                    this.numDiscarded.incrementAndGet();
+                    Logging.logger().finer(Logging.getMessage("BasicRetrievalService.CancellingTooOldRetrieval",
+                        task.getRetriever().getName()));
+                }
+                else if (this.connectionsTo(task.host) < this.hostConnectionLimit)
+                {
+                    iter.remove();
+                    next = task;
+                    break;
+                }
+            }
+
+            if (next == null)
+                return;
+
+            this.numRunning++;
+            this.hostConnections.put(next.host, this.connectionsTo(next.host) + 1);
+
+            final RetrievalTask task = next;
+            this.executor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    runTask(task);
+                }
+            });
+        }
+    }
+
+    protected void runTask(RetrievalTask task)
+    {
+        Thread thread = Thread.currentThread();
+        Retriever retriever = task.getRetriever();
+
+        try
+        {
+            retriever.setBeginTime(System.currentTimeMillis());
+            this.numStarted.incrementAndGet();
+            this.totalWaitTime.addAndGet(retriever.getBeginTime() - retriever.getSubmitTime());
+
+            thread.setName(RUNNING_THREAD_NAME_PREFIX + retriever.getName());
+            task.run();
+        }
+        finally
+        {
+            retriever.setEndTime(System.currentTimeMillis());
+            this.logOutcome(task);
+            thread.setName(IDLE_THREAD_NAME_PREFIX);
+
+            synchronized (this.lock)
+            {
+                this.numRunning--;
+                int connections = this.connectionsTo(task.host) - 1;
+                if (connections > 0)
+                    this.hostConnections.put(task.host, connections);
+                else
+                    this.hostConnections.remove(task.host);
+
+                if (this.tasks.get(retriever.getName()) == task)
+                    this.tasks.remove(retriever.getName());
+
+                this.numCompleted.incrementAndGet();
+                this.completionTimes.addLast(retriever.getEndTime());
+                this.trimCompletionTimes(retriever.getEndTime());
+
+                this.dispatch();
+            }
+        }
+    }
+
+    protected void logOutcome(RetrievalTask task)
+    {
+        try
+        {
+            task.get(); // the task has finished, been cancelled or broken
+        }
+        catch (ExecutionException e)
+        {
+            String message = Logging.getMessage("BasicRetrievalService.ExecutionExceptionDuringRetrieval",
+                task.getRetriever().getName());
+            if (e.getCause() instanceof SocketTimeoutException)
+            {
+                Logging.logger().fine(message + " " + e.getCause().getLocalizedMessage());
+            }
+            else if (e.getCause() instanceof SSLHandshakeException)
+            {
+                if (this.sslExceptionListener != null)
+                    this.sslExceptionListener.onException(e.getCause(), task.getRetriever().getName());
+                else
+                    Logging.logger().fine(message + " " + e.getCause().getLocalizedMessage());
+            }
+            else
+            {
+                Logging.logger().log(Level.FINE, message, e);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Logging.logger().log(Level.FINE, Logging.getMessage("BasicRetrievalService.RetrievalInterrupted",
+                task.getRetriever().getName()), e);
+        }
+        catch (CancellationException e)
+        {
+            Logging.logger().fine(Logging.getMessage("BasicRetrievalService.RetrievalCancelled",
+                task.getRetriever().getName()));
+        }
+    }
+
+    protected void discard(RetrievalTask task) // MUST BE CALLED WITHIN SYNCHRONIZED
+    {
+        this.queue.remove(task);
+        this.tasks.remove(task.getRetriever().getName());
+        task.cancel(false);
+        this.numDiscarded.incrementAndGet();
+    }
+
+    protected long staleRequestLimitFor(RetrievalTask task)
+    {
+        return task.getRetriever().getStaleRequestLimit() >= 0 ? task.getRetriever().getStaleRequestLimit()
+            : this.staleRequestLimit;
+    }
+
+    protected int connectionsTo(String host) // MUST BE CALLED WITHIN SYNCHRONIZED
+    {
+        Integer connections = this.hostConnections.get(host);
+        return connections != null ? connections : 0;
+    }
+
+    protected void trimCompletionTimes(long now) // MUST BE CALLED WITHIN SYNCHRONIZED
+    {
+        while (!this.completionTimes.isEmpty() && now - this.completionTimes.getFirst() > THROUGHPUT_INTERVAL)
+        {
+            this.completionTimes.removeFirst();
+        }
+    }
+
+    protected static String hostFor(Retriever retriever)
+    {
+        if (retriever instanceof URLRetriever && ((URLRetriever) retriever).getUrl() != null)
+        {
+            String host = ((URLRetriever) retriever).getUrl().getHost();
+            return host != null ? host : "";
+        }
+
+        try
+        {
+            String host = new URL(retriever.getName()).getHost();
+            return host != null ? host : "";
+        }
+        catch (MalformedURLException e)
+        {
+            return ""; // retrievers that do not name a URL share one connection limit
+        }
+    }
+}
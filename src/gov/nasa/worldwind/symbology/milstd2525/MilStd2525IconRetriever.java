@@ -28,14 +28,21 @@
 
 package gov.nasa.worldwind.symbology.milstd2525;
 
+import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.cache.*;
 import gov.nasa.worldwind.symbology.*;
 import gov.nasa.worldwind.util.*;
 
+import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.geom.*;
 import java.awt.image.*;
+import java.io.File;
+import java.net.URL;
+import java.security.MessageDigest;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Retriever to retrieve icons for symbols in the MIL-STD-2525 symbol set. The retriever can retrieve icons from either
@@ -59,6 +66,14 @@ import java.util.*;
  * valign="top">java.awt.Color</td><td valign="top">Fill color applied to the symbol. If the symbol is drawn with a
  * frame, then this color will be used to fill the frame. If the symbol is not drawn with a frame, then the fill will be
  * applied to the icon itself. The fill color has no effect if Show Fill is False.</td></tr> </table>
+ * <h2>Icon cache</h2>
+ * <p>
+ * Composed icons are held in a memory cache shared by all MIL-STD-2525 icon retrievers, keyed by the retriever's path,
+ * the SIDC and the retrieval parameters. The cache's capacity is specified by the {@link
+ * AVKey#MIL_STD_2525_ICON_CACHE_SIZE} configuration parameter. Icons can also be persisted in the data file store, so
+ * that they need not be retrieved and composed again when the application next starts; see {@link
+ * #setPersistIcons(boolean)}. Applications that display many symbols can compose their icons ahead of time with {@link
+ * #preloadIcons(java.util.Collection, gov.nasa.worldwind.avlist.AVList) preloadIcons}.
  *
  * @author ccrick
  * @version $Id: MilStd2525IconRetriever.java 1171 2013-02-11 21:45:02Z dcollins $
@@ -93,6 +108,15 @@ public class MilStd2525IconRetriever extends AbstractIconRetriever
     protected static final Color DEFAULT_ICON_COLOR = Color.BLACK;
     protected static final String DEFAULT_IMAGE_FORMAT = "image/png";
 
+    /** The key of the memory cache of composed icons, which is shared by all MIL-STD-2525 icon retrievers. */
+    protected static final String ICON_CACHE_KEY = MilStd2525IconRetriever.class.getName();
+    protected static final String ICON_CACHE_NAME = "MIL-STD-2525 Icons";
+    protected static final long DEFAULT_ICON_CACHE_SIZE = 16000000L;
+    /** Path in the data file store to the directory holding composed icons, when icons are persisted. */
+    protected static final String ICON_FILE_CACHE_PATH = "MilStd2525Icons";
+    /** The minimum number of symbols each task composes when icons are preloaded in parallel. */
+    protected static final int MIN_PRELOAD_SYMBOLS = 4;
+
     /** Radius (in pixels) of circle that is drawn to the represent the symbol when both frame and icon are off. */
     protected static final int CIRCLE_RADIUS = 16;
     /** Line width used to stroke circle when fill is turned off. */
@@ -108,6 +132,8 @@ public class MilStd2525IconRetriever extends AbstractIconRetriever
     protected static final Set<String> unframedIconMap = new HashSet<String>();
     protected static final Set<String> emsEquipment = new HashSet<String>();
 
+    protected boolean persistIcons = Configuration.getBooleanValue(AVKey.MIL_STD_2525_ICON_FILE_CACHE, false);
+
     /**
      * Create a new retriever that will retrieve icons from the specified location. The retrieval path may be a file URL
      * to a directory on the local file system (for example, file:///symbols/mil-std-2525). A URL to a network resource
@@ -120,10 +146,37 @@ public class MilStd2525IconRetriever extends AbstractIconRetriever
         super(retrieverPath);
     }
 
+    /**
+     * Indicates whether composed icons are written to the data file store, and read from it when they are not in the
+     * memory cache. See {@link #setPersistIcons(boolean)}.
+     *
+     * @return true if composed icons are persisted, otherwise false.
+     */
+    public boolean isPersistIcons()
+    {
+        return this.persistIcons;
+    }
+
+    /**
+     * Specifies whether composed icons are written to the data file store, and read from it when they are not in the
+     * memory cache. Persisting icons avoids retrieving and composing the same icons each time an application starts.
+     * The default is the value of the {@link AVKey#MIL_STD_2525_ICON_FILE_CACHE} configuration parameter, or false if
+     * that parameter is not specified.
+     *
+     * @param persistIcons true to persist composed icons, otherwise false.
+     */
+    public void setPersistIcons(boolean persistIcons)
+    {
+        this.persistIcons = persistIcons;
+    }
+
     /**
      * Create an icon for a MIL-STD-2525C symbol. By default the symbol will include a filled frame and an icon. The
      * fill, frame, and icon can be turned off by setting retrieval parameters. If both frame and icon are turned off
      * then this method will return an image containing a circle.
+     * <p>
+     * The icon is taken from the icon cache if it's there, and is composed and added to the cache otherwise. The
+     * returned image is a copy that the caller may modify.
      *
      * @param sidc   SIDC identifier for the symbol.
      * @param params Parameters that affect icon retrieval. See <a href="#parameters">Parameters</a> in class
@@ -140,6 +193,280 @@ public class MilStd2525IconRetriever extends AbstractIconRetriever
             throw new IllegalArgumentException(msg);
         }
 
+        // Composed icons are cached, and callers receive a copy so that changes they make don't affect the cache.
+        BufferedImage image = this.getOrComposeIcon(sidc, params);
+
+        return image != null ? copyImage(image) : null;
+    }
+
+    /**
+     * Composes and caches the icons for a collection of symbols, so that later calls to {@link #createIcon(String,
+     * AVList) createIcon} for those symbols find their icons in the cache. Icons are composed in parallel on the common
+     * fork/join pool. Symbols whose icons are already cached are not composed again, and symbols whose icons cannot be
+     * composed are skipped. This method returns once all the icons have been composed.
+     *
+     * @param sidcs  SIDC identifiers of the symbols.
+     * @param params Parameters that affect icon retrieval, applied to every symbol. See <a
+     *               href="#parameters">Parameters</a> in class documentation. May be null.
+     *
+     * @return the number of symbols whose icons are in the cache.
+     *
+     * @throws IllegalArgumentException if the collection of identifiers is null.
+     */
+    public int preloadIcons(Collection<String> sidcs, AVList params)
+    {
+        if (sidcs == null)
+        {
+            String msg = Logging.getMessage("nullValue.CollectionIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        // Give the tasks a private copy of the parameters, since the caller may change theirs while icons are composed.
+        AVList paramsCopy = null;
+        if (params != null)
+        {
+            paramsCopy = new AVListImpl();
+            paramsCopy.setValues(params);
+        }
+
+        String[] sidcArray = sidcs.toArray(new String[sidcs.size()]);
+        return ForkJoinPool.commonPool().invoke(new PreloadTask(this, sidcArray, paramsCopy, 0, sidcArray.length));
+    }
+
+    protected static class PreloadTask extends RecursiveTask<Integer>
+    {
+        protected final MilStd2525IconRetriever retriever;
+        protected final String[] sidcs;
+        protected final AVList params;
+        protected final int start;
+        protected final int end;
+
+        public PreloadTask(MilStd2525IconRetriever retriever, String[] sidcs, AVList params, int start, int end)
+        {
+            this.retriever = retriever;
+            this.sidcs = sidcs;
+            this.params = params;
+            this.start = start;
+            this.end = end;
+        }
+
+        protected Integer compute()
+        {
+            int count = this.end - this.start;
+            if (count >= 2 * MIN_PRELOAD_SYMBOLS)
+            {
+                int mid = this.start + count / 2;
+                PreloadTask left = new PreloadTask(this.retriever, this.sidcs, this.params, this.start, mid);
+                PreloadTask right = new PreloadTask(this.retriever, this.sidcs, this.params, mid, this.end);
+                left.fork();
+                return right.compute() + left.join();
+            }
+
+            int numLoaded = 0;
+            for (int i = this.start; i < this.end; i++)
+            {
+                if (this.sidcs[i] == null)
+                    continue;
+
+                try
+                {
+                    if (this.retriever.getOrComposeIcon(this.sidcs[i], this.params) != null)
+                        numLoaded++;
+                }
+                catch (Exception e)
+                {
+                    String msg = Logging.getMessage("Symbology.ExceptionRetrievingTacticalIcon", this.sidcs[i]);
+                    Logging.logger().log(java.util.logging.Level.FINE, msg, e);
+                }
+            }
+
+            return numLoaded;
+        }
+    }
+
+    /**
+     * Returns the composed icon for a symbol from the memory cache or, if icons are persisted, the data file store.
+     * Composes and caches the icon if it is in neither. The returned image is shared with the cache and must not be
+     * modified.
+     *
+     * @param sidc   SIDC identifier for the symbol.
+     * @param params Parameters that affect icon retrieval.
+     *
+     * @return the composed icon, or null if the icon cannot be retrieved.
+     */
+    protected BufferedImage getOrComposeIcon(String sidc, AVList params)
+    {
+        String cacheKey = this.makeIconCacheKey(sidc, params);
+
+        MemoryCache cache = getIconCache();
+        BufferedImage image = (BufferedImage) cache.getObject(cacheKey);
+        if (image != null)
+            return image;
+
+        if (this.isPersistIcons())
+            image = this.readPersistedIcon(cacheKey);
+
+        if (image == null)
+        {
+            image = this.composeIcon(sidc, params);
+
+            if (image != null && this.isPersistIcons())
+                this.persistIcon(cacheKey, image);
+        }
+
+        if (image != null)
+            cache.add(cacheKey, image, 4L * image.getWidth() * image.getHeight());
+
+        return image;
+    }
+
+    /**
+     * Returns the memory cache of composed icons, creating it if it does not yet exist. The cache's capacity is the
+     * value of the {@link AVKey#MIL_STD_2525_ICON_CACHE_SIZE} configuration parameter.
+     *
+     * @return the memory cache of composed icons.
+     */
+    protected static synchronized MemoryCache getIconCache()
+    {
+        if (!WorldWind.getMemoryCacheSet().containsCache(ICON_CACHE_KEY))
+        {
+            long size = Configuration.getLongValue(AVKey.MIL_STD_2525_ICON_CACHE_SIZE, DEFAULT_ICON_CACHE_SIZE);
+            MemoryCache cache = BasicMemoryCacheSet.createMemoryCache((long) (0.85 * size), size);
+            cache.setName(ICON_CACHE_NAME);
+            WorldWind.getMemoryCacheSet().addCache(ICON_CACHE_KEY, cache);
+        }
+
+        return WorldWind.getMemoryCache(ICON_CACHE_KEY);
+    }
+
+    /**
+     * Creates the key that identifies a composed icon in the cache. The key includes this retriever's class and
+     * retrieval path, the SIDC, and every retrieval parameter, so that icons composed differently never share a key.
+     *
+     * @param sidc   SIDC identifier for the symbol.
+     * @param params Parameters that affect icon retrieval. May be null.
+     *
+     * @return the icon's cache key.
+     */
+    protected String makeIconCacheKey(String sidc, AVList params)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(this.getClass().getName()).append("|");
+        sb.append(this.getRetrieverPath()).append("|");
+        sb.append(sidc);
+
+        if (params != null)
+        {
+            // Sort the parameters so that equal parameter lists produce equal keys. A color's string representation
+            // omits its alpha, so colors are represented by their ARGB value instead.
+            Map<String, Object> sortedParams = new TreeMap<String, Object>();
+            for (Map.Entry<String, Object> entry : params.getEntries())
+            {
+                sortedParams.put(entry.getKey(), entry.getValue());
+            }
+
+            for (Map.Entry<String, Object> entry : sortedParams.entrySet())
+            {
+                Object value = entry.getValue();
+                sb.append("|").append(entry.getKey()).append("=");
+                sb.append(value instanceof Color ? Integer.toHexString(((Color) value).getRGB()) : value);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Indicates the path in the data file store of a persisted icon. The path is derived from a digest of the icon's
+     * cache key, which may contain characters that are not valid in file names.
+     *
+     * @param cacheKey the icon's cache key.
+     *
+     * @return the path of the persisted icon.
+     */
+    protected String makeIconFilePath(String cacheKey)
+    {
+        StringBuilder sb = new StringBuilder(ICON_FILE_CACHE_PATH).append("/");
+
+        try
+        {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(cacheKey.getBytes("UTF-8"));
+            for (byte b : digest)
+            {
+                sb.append(String.format("%02x", b));
+            }
+        }
+        catch (Exception e)
+        {
+            // Every Java platform supports SHA-256 and UTF-8, so this is not expected.
+            sb.append(Integer.toHexString(cacheKey.hashCode()));
+        }
+
+        sb.append(WWIO.makeSuffixForMimeType(DEFAULT_IMAGE_FORMAT));
+        return sb.toString();
+    }
+
+    protected BufferedImage readPersistedIcon(String cacheKey)
+    {
+        String path = this.makeIconFilePath(cacheKey);
+
+        try
+        {
+            URL url = WorldWind.getDataFileStore().findFile(path, false);
+            return url != null ? ImageIO.read(url) : null;
+        }
+        catch (Exception e)
+        {
+            String msg = Logging.getMessage("generic.ExceptionWhileReading", path);
+            Logging.logger().log(java.util.logging.Level.FINE, msg, e);
+            return null;
+        }
+    }
+
+    @SuppressWarnings({"ResultOfMethodCallIgnored"})
+    protected void persistIcon(String cacheKey, BufferedImage image)
+    {
+        String path = this.makeIconFilePath(cacheKey);
+
+        try
+        {
+            File file = WorldWind.getDataFileStore().newFile(path);
+            if (file == null)
+                return;
+
+            // Write to a temporary file and then rename it, so that other threads and processes never read a partly
+            // written icon.
+            File tempFile = new File(file.getPath() + ".tmp" + Thread.currentThread().getId());
+            ImageIO.write(image, "png", tempFile);
+            if (!tempFile.renameTo(file))
+                tempFile.delete();
+        }
+        catch (Exception e)
+        {
+            String msg = Logging.getMessage("generic.ExceptionAttemptingToWriteTo", path);
+            Logging.logger().log(java.util.logging.Level.FINE, msg, e);
+        }
+    }
+
+    protected static BufferedImage copyImage(BufferedImage image)
+    {
+        ColorModel colorModel = image.getColorModel();
+        return new BufferedImage(colorModel, image.copyData(null), colorModel.isAlphaPremultiplied(), null);
+    }
+
+    /**
+     * Composes the icon for a MIL-STD-2525C symbol from its fill, frame and icon images, without consulting the cache.
+     * See {@link #createIcon(String, gov.nasa.worldwind.avlist.AVList) createIcon} for a description of the
+     * composition.
+     *
+     * @param sidc   SIDC identifier for the symbol.
+     * @param params Parameters that affect icon retrieval.
+     *
+     * @return A BufferedImage containing the icon for the requested symbol, or null if the icon cannot be retrieved.
+     */
+    protected BufferedImage composeIcon(String sidc, AVList params)
+    {
         SymbolCode symbolCode = new SymbolCode(sidc);
         BufferedImage image = null;
 
@@ -173,6 +173,127 @@ abstract public class AbstractElevationModel extends WWObjectImpl implements Ele
         return new double[] {this.getElevations(sector, latLons, targetResolutions[0], elevations)};
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation creates a location for each latitude and longitude pair and delegates to {@link
+     * #getElevations(gov.nasa.worldwind.geom.Sector, java.util.List, double, double[])}. Subclasses that can look up
+     * elevations directly from primitive coordinates override this method.
+     */
+    public double getElevations(double[] latitudes, double[] longitudes, double targetResolution, double[] buffer,
+        boolean parallel)
+    {
+        this.validateElevationArrays(latitudes, longitudes, buffer);
+
+        if (latitudes.length == 0)
+            return targetResolution;
+
+        return this.getElevations(computeBoundingSector(latitudes, longitudes),
+            makeLocations(latitudes, longitudes), targetResolution, buffer);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation creates a location for each latitude and longitude pair and delegates to {@link
+     * #getUnmappedElevations(gov.nasa.worldwind.geom.Sector, java.util.List, double, double[])}. Subclasses that can
+     * look up elevations directly from primitive coordinates override this method.
+     */
+    public double getUnmappedElevations(double[] latitudes, double[] longitudes, double targetResolution,
+        double[] buffer, boolean parallel)
+    {
+        this.validateElevationArrays(latitudes, longitudes, buffer);
+
+        if (latitudes.length == 0)
+            return targetResolution;
+
+        return this.getUnmappedElevations(computeBoundingSector(latitudes, longitudes),
+            makeLocations(latitudes, longitudes), targetResolution, buffer);
+    }
+
+    /**
+     * Validates the arguments to the bulk elevation query methods.
+     *
+     * @param latitudes  the latitudes, in degrees.
+     * @param longitudes the longitudes, in degrees.
+     * @param buffer     the output elevations array.
+     *
+     * @throws IllegalArgumentException if any of the arrays are null, if the latitude and longitude arrays differ in
+     *                                  length, or if the elevations array is too small.
+     */
+    protected void validateElevationArrays(double[] latitudes, double[] longitudes, double[] buffer)
+    {
+        if (latitudes == null || longitudes == null)
+        {
+            String msg = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (buffer == null)
+        {
+            String msg = Logging.getMessage("nullValue.ElevationsBufferIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (longitudes.length != latitudes.length)
+        {
+            String msg = Logging.getMessage("generic.ArrayInvalidLength", longitudes.length);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (buffer.length < latitudes.length)
+        {
+            String msg = Logging.getMessage("ElevationModel.ElevationsBufferTooSmall", latitudes.length);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+    }
+
+    /**
+     * Computes the sector bounding a collection of locations specified as parallel arrays of latitude and longitude.
+     *
+     * @param latitudes  the latitudes, in degrees. Must contain at least one element.
+     * @param longitudes the longitudes, in degrees.
+     *
+     * @return the sector bounding the locations.
+     */
+    protected static Sector computeBoundingSector(double[] latitudes, double[] longitudes)
+    {
+        double minLat = latitudes[0];
+        double maxLat = latitudes[0];
+        double minLon = longitudes[0];
+        double maxLon = longitudes[0];
+
+        for (int i = 1; i < latitudes.length; i++)
+        {
+            if (latitudes[i] < minLat)
+                minLat = latitudes[i];
+            else if (latitudes[i] > maxLat)
+                maxLat = latitudes[i];
+
+            if (longitudes[i] < minLon)
+                minLon = longitudes[i];
+            else if (longitudes[i] > maxLon)
+                maxLon = longitudes[i];
+        }
+
+        return Sector.fromDegrees(minLat, maxLat, minLon, maxLon);
+    }
+
+    protected static List<LatLon> makeLocations(double[] latitudes, double[] longitudes)
+    {
+        List<LatLon> locations = new java.util.ArrayList<LatLon>(latitudes.length);
+        for (int i = 0; i < latitudes.length; i++)
+        {
+            locations.add(LatLon.fromDegrees(latitudes[i], longitudes[i]));
+        }
+
+        return locations;
+    }
+
     public double[] getBestResolutions(Sector sector)
     {
         return new double[] {this.getBestResolution(sector)};
@@ -28,6 +28,7 @@
 package gov.nasa.worldwind.terrain;
 
 import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.*;
 import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.avlist.*;
 import gov.nasa.worldwind.cache.*;
@@ -88,6 +89,7 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
     protected boolean extremesCachingEnabled = true;
     protected BufferWrapper extremes = null;
     protected MemoryCache extremesLookupCache;
+    protected MappedTileCache mappedTileCache;
     // Model resource properties.
     protected static final int RESOURCE_ID_OGC_CAPABILITIES = 1;
 
@@ -154,6 +156,7 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
             this.setValue(AVKey.SECTOR, this.levels.getSector());
 
         this.memoryCache = this.createMemoryCache(ElevationTile.class.getName());
+        this.mappedTileCache = getSharedMappedTileCache();
 
         this.setValue(AVKey.CONSTRUCTION_PARAMETERS, params.copy());
 
@@ -245,13 +248,58 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         else
         {
             long size = Configuration.getLongValue(AVKey.ELEVATION_TILE_CACHE_SIZE, 20000000L);
-            MemoryCache mc = new BasicMemoryCache((long) (0.85 * size), size);
+            MemoryCache mc = BasicMemoryCacheSet.createMemoryCache((long) (0.85 * size), size);
             mc.setName("Elevation Tiles");
             WorldWind.getMemoryCacheSet().addCache(cacheName, mc);
             return mc;
         }
     }
 
+    protected static MappedTileCache sharedMappedTileCache;
+    protected static boolean sharedMappedTileCacheCreated;
+
+    /**
+     * Returns the memory-mapped cache of decoded elevation tiles shared by elevation models, creating it the first time
+     * this method is called if the {@link AVKey#MAPPED_TILE_CACHE_SIZE} configuration value is positive.
+     *
+     * @return the shared mapped tile cache, or null if no size is configured.
+     */
+    protected static synchronized MappedTileCache getSharedMappedTileCache()
+    {
+        if (!sharedMappedTileCacheCreated)
+        {
+            sharedMappedTileCacheCreated = true;
+
+            long size = Configuration.getLongValue(AVKey.MAPPED_TILE_CACHE_SIZE, 0L);
+            if (size > 0)
+                sharedMappedTileCache = new MappedTileCache(size);
+        }
+
+        return sharedMappedTileCache;
+    }
+
+    /**
+     * Returns the memory-mapped cache that holds this model's decoded elevation tiles below the memory cache. Tiles
+     * found there are restored without reading their files from the file store.
+     *
+     * @return this model's mapped tile cache, or null if this model does not use one.
+     */
+    public MappedTileCache getMappedTileCache()
+    {
+        return this.mappedTileCache;
+    }
+
+    /**
+     * Specifies the memory-mapped cache that holds this model's decoded elevation tiles below the memory cache. By
+     * default models use the cache configured by {@link AVKey#MAPPED_TILE_CACHE_SIZE}.
+     *
+     * @param cache the mapped tile cache to use, or null to use none.
+     */
+    public void setMappedTileCache(MappedTileCache cache)
+    {
+        this.mappedTileCache = cache;
+    }
+
     public LevelSet getLevels()
     {
         return this.levels;
@@ -449,6 +497,12 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
                     return;
 
                 ElevationTile tile = this.elevationModel.createTile(this.tileKey);
+                if (this.elevationModel.loadMappedElevations(tile))
+                {
+                    this.elevationModel.firePropertyChange(AVKey.ELEVATION_MODEL, null, this);
+                    return;
+                }
+
                 final URL url = this.elevationModel.getDataFileStore().findFile(tile.getPath(), false);
                 if (url != null && !this.elevationModel.isFileExpired(tile, url,
                     this.elevationModel.getDataFileStore()))
@@ -528,10 +582,101 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
 
         tile.setElevations(elevations, this);
         this.addTileToCache(tile, elevations);
+        this.addTileToMappedCache(tile, elevations);
+
+        return true;
+    }
+
+    // Restores a tile's elevations from the mapped tile cache, if any, and adds the tile to the memory cache. Payloads
+    // in the mapped cache begin with the elevations' GL data type and the time they were read from the file store,
+    // followed by the elevations in native byte order.
+
+    protected static final int MAPPED_TILE_HEADER_SIZE = 12;
+
+    protected boolean loadMappedElevations(ElevationTile tile)
+    {
+        MappedTileCache cache = this.getMappedTileCache();
+        if (cache == null)
+            return false;
+
+        ByteBuffer payload = cache.copy(tile.getTileKey());
+        if (payload == null)
+            return false;
+
+        payload.order(ByteOrder.nativeOrder());
+        String dataType = dataTypeForGLType(payload.getInt(0));
+        long updateTime = payload.getLong(4);
+        if (dataType == null || updateTime < tile.getLevel().getExpiryTime())
+        {
+            cache.remove(tile.getTileKey());
+            return false;
+        }
+
+        payload.position(MAPPED_TILE_HEADER_SIZE);
+        ByteBuffer data = payload.slice().order(ByteOrder.nativeOrder());
+        BufferWrapper elevations = BufferWrapper.wrap(data, dataType, null);
+        if (elevations == null || elevations.length() == 0)
+            return false;
+
+        tile.setElevations(elevations, this);
+        tile.updateTime = updateTime;
+        this.addTileToCache(tile, elevations);
 
         return true;
     }
 
+    protected void addTileToMappedCache(ElevationTile tile, BufferWrapper elevations)
+    {
+        MappedTileCache cache = this.getMappedTileCache();
+        if (cache == null || tile.getLevelNumber() == 0) // level 0 tiles are never evicted
+            return;
+
+        int glType = elevations.getGLDataType();
+        if (dataTypeForGLType(glType) == null)
+            return;
+
+        ByteBuffer payload = ByteBuffer.allocate(MAPPED_TILE_HEADER_SIZE + (int) elevations.getSizeInBytes());
+        payload.order(ByteOrder.nativeOrder());
+        payload.putInt(glType).putLong(tile.updateTime);
+
+        Buffer source = elevations.getBackingBuffer().duplicate().rewind();
+        ByteBuffer data = payload.slice().order(ByteOrder.nativeOrder());
+        if (source instanceof ByteBuffer)
+            data.put((ByteBuffer) source);
+        else if (source instanceof ShortBuffer)
+            data.asShortBuffer().put((ShortBuffer) source);
+        else if (source instanceof IntBuffer)
+            data.asIntBuffer().put((IntBuffer) source);
+        else if (source instanceof FloatBuffer)
+            data.asFloatBuffer().put((FloatBuffer) source);
+        else if (source instanceof DoubleBuffer)
+            data.asDoubleBuffer().put((DoubleBuffer) source);
+        else
+            return;
+
+        payload.rewind();
+        cache.put(tile.getTileKey(), payload);
+    }
+
+    protected static String dataTypeForGLType(int glType)
+    {
+        switch (glType)
+        {
+            case GL.GL_BYTE:
+                return AVKey.INT8;
+            case GL.GL_SHORT:
+                return AVKey.INT16;
+            case GL2.GL_INT:
+                return AVKey.INT32;
+            case GL.GL_FLOAT:
+                return AVKey.FLOAT32;
+            case GL2.GL_DOUBLE:
+                return AVKey.FLOAT64;
+            default:
+                return null;
+        }
+    }
+
     protected void addTileToCache(ElevationTile tile, BufferWrapper elevations)
     {
         // Level 0 tiles are held in the model itself; other levels are placed in the memory cache.
@@ -596,8 +741,27 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
 
     protected BufferWrapper makeTiffElevations(URL url) throws IOException, URISyntaxException
     {
-        File file = new File(url.toURI());
+        File file = WWIO.convertURLToFile(url);
+        if (file != null)
+            return this.makeTiffElevations(file);
+
+        // The elevations are not in a file, for example they're in a packed file store. Copy them to a temporary file
+        // that the raster readers can open.
+        file = File.createTempFile("wwj-elevations-", "." + WWIO.getSuffix(url.getPath()));
+        try
+        {
+            WWIO.saveBuffer(WWIO.readURLContentToBuffer(url), file);
+            return this.makeTiffElevations(file);
+        }
+        finally
+        {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
 
+    protected BufferWrapper makeTiffElevations(File file) throws IOException
+    {
         // Create a raster reader for the file type.
         DataRasterReaderFactory readerFactory = (DataRasterReaderFactory) WorldWind.createConfigurationComponent(
             AVKey.DATA_RASTER_READER_FACTORY_CLASS_NAME);
@@ -1267,10 +1431,13 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         try
         {
             tile = this.createTile(tileKey);
-            final URL url = this.getDataFileStore().findFile(tile.getPath(), false);
-            if (url != null)
+            if (!this.loadMappedElevations(tile))
             {
-                this.loadElevations(tile, url);
+                final URL url = this.getDataFileStore().findFile(tile.getPath(), false);
+                if (url != null)
+                {
+                    this.loadElevations(tile, url);
+                }
             }
         }
         catch (Exception e)
@@ -1369,6 +1536,330 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         return elevations.achievedResolution;
     }
 
+    public double getElevations(double[] latitudes, double[] longitudes, double targetResolution, double[] buffer,
+        boolean parallel)
+    {
+        return this.getElevations(latitudes, longitudes, targetResolution, buffer, parallel, true);
+    }
+
+    public double getUnmappedElevations(double[] latitudes, double[] longitudes, double targetResolution,
+        double[] buffer, boolean parallel)
+    {
+        return this.getElevations(latitudes, longitudes, targetResolution, buffer, parallel, false);
+    }
+
+    /**
+     * Determines the elevations of locations specified as parallel arrays of latitude and longitude in degrees. The
+     * locations are grouped by the target level tile that contains them. Each group's tile is resolved once, either
+     * from memory or, when the tile is not yet available, by requesting it and falling back to its nearest ancestor in
+     * memory. Elevations are then interpolated for the locations in tile order, so consecutive lookups read the same
+     * tile. No objects are allocated per location.
+     *
+     * @param latitudes        the latitudes, in degrees.
+     * @param longitudes       the longitudes, in degrees.
+     * @param targetResolution the desired horizontal resolution, in radians.
+     * @param buffer           an array in which to place the returned elevations.
+     * @param parallel         true to interpolate large batches on the common fork/join pool.
+     * @param mapMissingData   true to replace the missing data signal with the missing data replacement value.
+     *
+     * @return the resolution achieved, in radians, or {@link Double#MAX_VALUE} if individual elevations cannot be
+     *         determined for all of the locations.
+     */
+    protected double getElevations(double[] latitudes, double[] longitudes, double targetResolution,
+        double[] buffer, boolean parallel, boolean mapMissingData)
+    {
+        this.validateElevationArrays(latitudes, longitudes, buffer);
+
+        Level targetLevel = this.getTargetLevel(this.levels.getSector(), targetResolution);
+        if (targetLevel == null)
+            return Double.MAX_VALUE;
+
+        ElevationBatch batch = new ElevationBatch(this, latitudes, longitudes, buffer, mapMissingData);
+        if (!batch.groupByTile(this.levels, targetLevel))
+            return Double.MAX_VALUE; // no location is within this model's coverage
+
+        // Mark the model as used this frame.
+        this.setValue(AVKey.FRAME_TIMESTAMP, System.currentTimeMillis());
+
+        double achievedResolution = batch.resolveTiles(this.levels, targetLevel);
+
+        if (parallel && batch.order.length > ElevationBatchTask.THRESHOLD)
+            java.util.concurrent.ForkJoinPool.commonPool().invoke(new ElevationBatchTask(batch, 0,
+                batch.order.length));
+        else
+            batch.lookupElevations(0, batch.order.length);
+
+        return achievedResolution;
+    }
+
+    /**
+     * Holds the state of a bulk elevation query: the locations within the model's coverage, sorted by the tile that
+     * contains them, and the tile resolved for each group of locations.
+     */
+    protected static class ElevationBatch
+    {
+        protected static final double DEGREES_TO_RADIANS = Math.PI / 180d;
+
+        protected final BasicElevationModel elevationModel;
+        protected final double[] latitudes;
+        protected final double[] longitudes;
+        protected final double[] buffer;
+        protected final boolean mapMissingData;
+        /** Indices of the locations within the model's coverage, sorted by tile. */
+        protected int[] order;
+        /** Row and column of each tile, packed into one value per tile. */
+        protected long[] tileKeys;
+        /** The position in {@link #order} of the first location of each tile, plus one entry holding the count. */
+        protected int[] groupStart;
+        /** The tile used for each group, or null if no tile is in memory for the group. */
+        protected ElevationTile[] tiles;
+        /** The elevation used for each group without a tile. */
+        protected double[] fallbackElevations;
+
+        protected ElevationBatch(BasicElevationModel elevationModel, double[] latitudes, double[] longitudes,
+            double[] buffer, boolean mapMissingData)
+        {
+            this.elevationModel = elevationModel;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.buffer = buffer;
+            this.mapMissingData = mapMissingData;
+        }
+
+        /**
+         * Determines the target level tile containing each location and sorts the locations by tile.
+         *
+         * @param levels      the level set of the elevation model.
+         * @param targetLevel the level whose tiles the locations are grouped by.
+         *
+         * @return true if any location is within the level set's coverage, otherwise false.
+         */
+        protected boolean groupByTile(LevelSet levels, Level targetLevel)
+        {
+            Sector coverage = levels.getSector();
+            double deltaLat = targetLevel.getTileDelta().getLatitude().degrees;
+            double deltaLon = targetLevel.getTileDelta().getLongitude().degrees;
+            double originLat = levels.getTileOrigin().getLatitude().degrees;
+            double originLon = levels.getTileOrigin().getLongitude().degrees;
+
+            int numLocations = this.latitudes.length;
+            int[] covered = new int[numLocations];
+            long[] keys = new long[numLocations];
+            int numCovered = 0;
+
+            for (int i = 0; i < numLocations; i++)
+            {
+                double lat = this.latitudes[i];
+                double lon = this.longitudes[i];
+                if (!coverage.containsDegrees(lat, lon))
+                    continue;
+
+                // Equivalent to Tile.computeRow and Tile.computeColumn without the Angle arguments.
+                int row = (int) ((lat - originLat) / deltaLat);
+                if (lat - originLat == 180d)
+                    row--;
+
+                double gridLon = lon - originLon;
+                if (gridLon < 0)
+                    gridLon += 360d;
+                int col = (int) (gridLon / deltaLon);
+                if (lon - originLon == 360d)
+                    col--;
+
+                covered[numCovered] = i;
+                keys[numCovered] = ((long) row << 32) | (col & 0xffffffffL);
+                numCovered++;
+            }
+
+            if (numCovered == 0)
+                return false;
+
+            // Find the distinct tiles.
+            long[] sortedKeys = Arrays.copyOf(keys, numCovered);
+            Arrays.sort(sortedKeys);
+            int numTiles = 1;
+            for (int i = 1; i < numCovered; i++)
+            {
+                if (sortedKeys[i] != sortedKeys[numTiles - 1])
+                    sortedKeys[numTiles++] = sortedKeys[i];
+            }
+            this.tileKeys = Arrays.copyOf(sortedKeys, numTiles);
+
+            // Counting sort of the locations by tile.
+            int[] groups = new int[numCovered];
+            this.groupStart = new int[numTiles + 1];
+            for (int i = 0; i < numCovered; i++)
+            {
+                groups[i] = Arrays.binarySearch(this.tileKeys, keys[i]);
+                this.groupStart[groups[i] + 1]++;
+            }
+
+            for (int g = 0; g < numTiles; g++)
+            {
+                this.groupStart[g + 1] += this.groupStart[g];
+            }
+
+            int[] next = Arrays.copyOf(this.groupStart, numTiles);
+            this.order = new int[numCovered];
+            for (int i = 0; i < numCovered; i++)
+            {
+                this.order[next[groups[i]]++] = covered[i];
+            }
+
+            return true;
+        }
+
+        /**
+         * Finds the tile to use for each group of locations. Target level tiles that are not in memory are requested,
+         * and the group uses the nearest ancestor tile in memory until they arrive.
+         *
+         * @param levels      the level set of the elevation model.
+         * @param targetLevel the level the locations are grouped by.
+         *
+         * @return the resolution achieved, in radians, or {@link Double#MAX_VALUE} if a tile could not be found for
+         *         all of the groups.
+         */
+        protected double resolveTiles(LevelSet levels, Level targetLevel)
+        {
+            BasicElevationModel em = this.elevationModel;
+            this.tiles = new ElevationTile[this.tileKeys.length];
+            this.fallbackElevations = new double[this.tileKeys.length];
+            double achievedResolution = 0;
+            boolean checkExpiration = em.getExpiryTime() > 0 && em.getExpiryTime() < System.currentTimeMillis();
+
+            for (int g = 0; g < this.tileKeys.length; g++)
+            {
+                int row = (int) (this.tileKeys[g] >> 32);
+                int col = (int) this.tileKeys[g];
+                TileKey key = new TileKey(targetLevel.getLevelNumber(), row, col, targetLevel.getCacheName());
+                ElevationTile tile = em.getTileFromMemory(key);
+
+                if (tile == null)
+                {
+                    em.requestTile(key);
+
+                    // Fall back to the nearest ancestor in memory, and request the lowest missing ancestor so that the
+                    // elevations are progressively refined.
+                    TileKey fallbackToRequest = null;
+                    for (int levelNum = key.getLevelNumber() - 1; levelNum >= 0; levelNum--)
+                    {
+                        row /= 2;
+                        col /= 2;
+                        TileKey fallbackKey = new TileKey(levelNum, row, col, levels.getLevel(levelNum).getCacheName());
+                        tile = em.getTileFromMemory(fallbackKey);
+                        if (tile != null)
+                            break;
+
+                        fallbackToRequest = fallbackKey;
+                    }
+
+                    if (fallbackToRequest != null)
+                        em.requestTile(fallbackToRequest);
+                }
+
+                if (tile != null)
+                {
+                    this.tiles[g] = tile;
+                    achievedResolution = Math.max(achievedResolution, tile.getLevel().getTexelSize());
+
+                    if (checkExpiration)
+                        em.checkElevationExpiration(tile);
+                }
+                else
+                {
+                    this.fallbackElevations[g] = em.getExtremeElevations(levels.computeSectorForKey(key))[0];
+                    achievedResolution = Double.MAX_VALUE;
+                }
+            }
+
+            return achievedResolution;
+        }
+
+        /**
+         * Interpolates the elevations of the locations at the specified positions in the sorted location order.
+         *
+         * @param from the first position, inclusive.
+         * @param to   the last position, exclusive.
+         */
+        protected void lookupElevations(int from, int to)
+        {
+            BasicElevationModel em = this.elevationModel;
+            double missingDataSignal = em.getMissingDataSignal();
+            double missingDataReplacement = em.getMissingDataReplacement();
+            boolean transparent = missingDataReplacement == missingDataSignal;
+
+            // Find the group containing the first position. Groups are never empty, so group starts are distinct.
+            int g = Arrays.binarySearch(this.groupStart, from);
+            if (g < 0)
+                g = -g - 2;
+
+            for (int pos = from; pos < to; )
+            {
+                int end = Math.min(to, this.groupStart[g + 1]);
+                ElevationTile tile = this.tiles[g];
+
+                if (tile == null)
+                {
+                    if (!transparent)
+                    {
+                        for (; pos < end; pos++)
+                        {
+                            this.buffer[this.order[pos]] = this.fallbackElevations[g];
+                        }
+                    }
+                }
+                else
+                {
+                    for (; pos < end; pos++)
+                    {
+                        int i = this.order[pos];
+                        double value = em.lookupElevation(DEGREES_TO_RADIANS * this.latitudes[i],
+                            DEGREES_TO_RADIANS * this.longitudes[i], tile);
+
+                        if (value != missingDataSignal)
+                            this.buffer[i] = value;
+                        else if (this.mapMissingData && !transparent)
+                            this.buffer[i] = missingDataReplacement;
+                    }
+                }
+
+                pos = end;
+                g++;
+            }
+        }
+    }
+
+    /** Interpolates the elevations of a range of a bulk elevation query on the fork/join pool. */
+    protected static class ElevationBatchTask extends java.util.concurrent.RecursiveAction
+    {
+        protected static final int THRESHOLD = 16384;
+
+        protected final ElevationBatch batch;
+        protected final int from;
+        protected final int to;
+
+        protected ElevationBatchTask(ElevationBatch batch, int from, int to)
+        {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.to - this.from <= THRESHOLD)
+            {
+                this.batch.lookupElevations(this.from, this.to);
+                return;
+            }
+
+            int mid = (this.from + this.to) >>> 1;
+            invokeAll(new ElevationBatchTask(this.batch, this.from, mid), new ElevationBatchTask(this.batch, mid,
+                this.to));
+        }
+    }
+
     protected Level getTargetLevel(Sector sector, double targetSize)
     {
         Level lastLevel = this.levels.getLastLevel(sector); // finest resolution available
@@ -1391,6 +1882,11 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
     }
 
     protected double lookupElevation(Angle latitude, Angle longitude, final ElevationTile tile)
+    {
+        return this.lookupElevation(latitude.radians, longitude.radians, tile);
+    }
+
+    protected double lookupElevation(double latRadians, double lonRadians, final ElevationTile tile)
     {
         BufferWrapper elevations = tile.getElevations();
         Sector sector = tile.getSector();
@@ -1398,8 +1894,8 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         final int tileWidth = tile.getWidth();
         final double sectorDeltaLat = sector.getDeltaLat().radians;
         final double sectorDeltaLon = sector.getDeltaLon().radians;
-        final double dLat = sector.getMaxLatitude().radians - latitude.radians;
-        final double dLon = longitude.radians - sector.getMinLongitude().radians;
+        final double dLat = sector.getMaxLatitude().radians - latRadians;
+        final double dLon = lonRadians - sector.getMinLongitude().radians;
         final double sLat = dLat / sectorDeltaLat;
         final double sLon = dLon / sectorDeltaLon;
 
@@ -1649,7 +2145,7 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         if (this.extremesLookupCache == null)
         {
             long size = Configuration.getLongValue(AVKey.ELEVATION_EXTREMES_LOOKUP_CACHE_SIZE, 20000000L);
-            this.extremesLookupCache = new BasicMemoryCache((long) (0.85 * size), size);
+            this.extremesLookupCache = BasicMemoryCacheSet.createMemoryCache((long) (0.85 * size), size);
         }
 
         return this.extremesLookupCache;
@@ -627,6 +627,72 @@ public class CompoundElevationModel extends AbstractElevationModel
         return resolutionAchieved;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * NOTE: This method returns only unmapped elevations if the compound model contains more than one elevation model.
+     * This enables the compound model's lower resolution elevation models to specify missing data values for the higher
+     * resolution elevation models.
+     */
+    @Override
+    public double getElevations(double[] latitudes, double[] longitudes, double targetResolution, double[] buffer,
+        boolean parallel)
+    {
+        return this.doGetElevations(latitudes, longitudes, targetResolution, buffer, parallel, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * NOTE: This method returns only unmapped elevations if the compound model contains more than one elevation model.
+     * This enables the compound model's lower resolution elevation models to specify missing data values for the higher
+     * resolution elevation models.
+     */
+    @Override
+    public double getUnmappedElevations(double[] latitudes, double[] longitudes, double targetResolution,
+        double[] buffer, boolean parallel)
+    {
+        return this.doGetElevations(latitudes, longitudes, targetResolution, buffer, parallel, false);
+    }
+
+    protected double doGetElevations(double[] latitudes, double[] longitudes, double targetResolution,
+        double[] buffer, boolean parallel, boolean mapMissingData)
+    {
+        this.validateElevationArrays(latitudes, longitudes, buffer);
+
+        if (latitudes.length == 0 || this.elevationModels.isEmpty())
+            return Double.MAX_VALUE;
+
+        Sector sector = computeBoundingSector(latitudes, longitudes);
+
+        // Fill the buffer with ElevationModel contents from lowest resolution to highest, potentially overwriting
+        // values at each step. ElevationModels are expected to leave the buffer untouched for locations outside their
+        // coverage area. As with the list based methods, the resolution achieved by the first model is returned.
+        double resolutionAchieved = 0;
+        for (int i = 0; i < this.elevationModels.size(); i++)
+        {
+            ElevationModel em = this.elevationModels.get(i);
+
+            if (!em.isEnabled())
+                continue;
+
+            int c = em.intersects(sector);
+            if (c < 0) // no intersection
+                continue;
+
+            double r;
+            if (mapMissingData || this.elevationModels.size() == 1)
+                r = em.getElevations(latitudes, longitudes, targetResolution, buffer, parallel);
+            else
+                r = em.getUnmappedElevations(latitudes, longitudes, targetResolution, buffer, parallel);
+
+            if (i == 0)
+                resolutionAchieved = r;
+        }
+
+        return resolutionAchieved;
+    }
+
     public void composeElevations(Sector sector, List<? extends LatLon> latlons, int tileWidth,
         double[] buffer) throws Exception
     {
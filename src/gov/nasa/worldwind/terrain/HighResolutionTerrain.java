@@ -38,6 +38,7 @@ import gov.nasa.worldwind.util.Logging;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Provides operations on the best available terrain. Operations such as line/terrain intersection and surface point
@@ -116,6 +117,19 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
     protected int numCols;
     protected MemoryCache geometryCache;
     protected ThreadLocal<Long> startTime = new ThreadLocal<Long>();
+    /** The grid used to compute tile vertices without allocating objects per vertex. One is kept per thread. */
+    protected ThreadLocal<TileVertexGrid> vertexGrid = new ThreadLocal<TileVertexGrid>()
+    {
+        @Override
+        protected TileVertexGrid initialValue()
+        {
+            return new TileVertexGrid();
+        }
+    };
+    protected ForkJoinPool intersectionPool;
+
+    /** The pool shared by all instances for batch intersections unless an instance specifies its own. */
+    protected static ForkJoinPool sharedIntersectionPool;
 
     /**
      * Constructs a terrain object for a specified globe.
@@ -474,36 +488,391 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
      */
     public void intersect(List<Position> positions, final IntersectionCallback callback) throws InterruptedException
     {
-        ExecutorService service = Executors.newFixedThreadPool(10);
+        IntersectionBatch batch = this.submitIntersections(positions, callback);
+
+        try
+        {
+            batch.await();
+        }
+        catch (InterruptedException e)
+        {
+            batch.cancel();
+            throw e;
+        }
+    }
+
+    /**
+     * Starts intersecting a specified list of geographic two-position lines with the terrain, and returns immediately.
+     * The lines are intersected on this terrain's intersection pool, in an order that keeps lines crossing the same
+     * terrain tiles together. The returned batch reports progress, may be cancelled, and holds each line's results
+     * once complete.
+     *
+     * @param positions The positions to intersect, with the line segments formed by each pair of positions, e.g. the
+     *                  first line in formed by positions[0] and positions[1], the second by positions[2] and
+     *                  positions[3], etc.
+     * @param callback  An object to call in order to return the computed intersections. May be null.
+     *
+     * @return the batch of lines being intersected.
+     *
+     * @throws IllegalArgumentException if the positions list is null.
+     */
+    public IntersectionBatch submitIntersections(List<Position> positions, IntersectionCallback callback)
+    {
+        if (positions == null)
+        {
+            String msg = Logging.getMessage("nullValue.PositionsListIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        double[] coords = new double[3 * positions.size()];
+        for (int i = 0; i < positions.size(); i++)
+        {
+            Position position = positions.get(i);
+            coords[3 * i] = position.getLatitude().degrees;
+            coords[3 * i + 1] = position.getLongitude().degrees;
+            coords[3 * i + 2] = position.getAltitude();
+        }
+
+        IntersectionBatch batch = new IntersectionBatch(this, coords, positions, callback);
+        batch.start(this.getIntersectionPool());
+
+        return batch;
+    }
+
+    /**
+     * Starts intersecting lines specified as packed coordinates with the terrain, and returns immediately. This is
+     * equivalent to {@link #submitIntersections(java.util.List, IntersectionCallback)} but does not require a {@link
+     * Position} per line end point. Results are available from the returned batch as primitive arrays.
+     *
+     * @param positions the lines' end points, six values per line: the latitude and longitude in degrees and altitude
+     *                  in meters above ground of the first position, followed by the same for the second position.
+     *
+     * @return the batch of lines being intersected.
+     *
+     * @throws IllegalArgumentException if the positions array is null or its length is not a multiple of six.
+     */
+    public IntersectionBatch submitIntersections(double[] positions)
+    {
+        if (positions == null)
+        {
+            String msg = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (positions.length % 6 != 0)
+        {
+            String msg = Logging.getMessage("generic.ArrayInvalidLength", positions.length);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        IntersectionBatch batch = new IntersectionBatch(this, positions, null, null);
+        batch.start(this.getIntersectionPool());
+
+        return batch;
+    }
+
+    /**
+     * Returns the pool used to intersect batches of lines. Unless a pool has been specified for this instance, all
+     * instances share one pool with as many threads as there are processors.
+     *
+     * @return the pool used for batch intersections.
+     */
+    public ForkJoinPool getIntersectionPool()
+    {
+        if (this.intersectionPool != null)
+            return this.intersectionPool;
+
+        synchronized (HighResolutionTerrain.class)
+        {
+            if (sharedIntersectionPool == null)
+                sharedIntersectionPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+            return sharedIntersectionPool;
+        }
+    }
+
+    /**
+     * Specifies the pool used to intersect batches of lines.
+     *
+     * @param pool the pool to use, or null to use the pool shared by all instances.
+     */
+    public void setIntersectionPool(ForkJoinPool pool)
+    {
+        this.intersectionPool = pool;
+    }
+
+    /**
+     * A batch of lines being intersected with the terrain. Results are recorded per line in primitive arrays: the
+     * number of intersections found and the position of the intersection nearest the line's first position.
+     */
+    public static class IntersectionBatch
+    {
+        /** The number of lines intersected by each fork/join task. */
+        protected static final int LINES_PER_TASK = 8;
+
+        protected final HighResolutionTerrain terrain;
+        protected final double[] positions;
+        protected final List<Position> positionList;
+        protected final IntersectionCallback callback;
+        protected final int numLines;
+        protected final int[] intersectionCounts;
+        protected final double[] intersectionPositions;
+        protected final AtomicInteger numCompleted = new AtomicInteger();
+        protected volatile boolean cancelled;
+        protected volatile Exception exception;
+        protected int[] order;
+        protected ForkJoinTask<?> task;
+
+        protected IntersectionBatch(HighResolutionTerrain terrain, double[] positions, List<Position> positionList,
+            IntersectionCallback callback)
+        {
+            this.terrain = terrain;
+            this.positions = positions;
+            this.positionList = positionList;
+            this.callback = callback;
+            this.numLines = positions.length / 6;
+            this.intersectionCounts = new int[this.numLines];
+            this.intersectionPositions = new double[3 * this.numLines];
+            Arrays.fill(this.intersectionPositions, Double.NaN);
+        }
 
-        for (int i = 0; i < positions.size(); i += 2)
+        protected void start(ForkJoinPool pool)
         {
-            final Position pA = positions.get(i);
-            final Position pB = positions.get(i + 1);
+            this.order = this.computeLineOrder();
+            this.task = pool.submit(new IntersectionTask(this, 0, this.numLines));
+        }
 
-            service.submit(new Runnable()
+        /**
+         * Orders the lines so that lines whose midpoints fall in the same or neighboring terrain tiles are intersected
+         * together, and therefore reuse the tiles' cached geometry. Tiles are ordered along a Z-order curve.
+         *
+         * @return the indices of the lines in the order to intersect them.
+         */
+        protected int[] computeLineOrder()
+        {
+            int[] indices = new int[this.numLines];
+            if (this.numLines >= (1 << 27)) // too many lines to pack with their keys
             {
-                @Override
-                public void run()
+                for (int i = 0; i < indices.length; i++)
                 {
-                    try
-                    {
-                        Intersection[] intersections = intersect(pA, pB);
-                        if (intersections != null)
-                        {
-                            callback.intersection(pA, pB, intersections);
-                        }
-                    }
-                    catch (Exception e)
-                    {
-                        callback.exception(e);
-                    }
+                    indices[i] = i;
                 }
-            });
+
+                return indices;
+            }
+
+            Sector sector = this.terrain.sector;
+            double latScale = (this.terrain.numRows - 1) / sector.getDeltaLatDegrees();
+            double lonScale = (this.terrain.numCols - 1) / sector.getDeltaLonDegrees();
+            int shift = Math.max(0, 32 - Integer.numberOfLeadingZeros(Math.max(this.terrain.numRows,
+                this.terrain.numCols)) - 18);
+
+            long[] keys = new long[this.numLines];
+            for (int i = 0; i < this.numLines; i++)
+            {
+                double lat = 0.5 * (this.positions[6 * i] + this.positions[6 * i + 3]);
+                double lon = 0.5 * (this.positions[6 * i + 1] + this.positions[6 * i + 4]);
+                int row = Math.max(0, (int) ((lat - sector.getMinLatitude().degrees) * latScale)) >> shift;
+                int col = Math.max(0, (int) ((lon - sector.getMinLongitude().degrees) * lonScale)) >> shift;
+                keys[i] = (interleave(row & 0x3ffff, col & 0x3ffff) << 27) | i;
+            }
+
+            Arrays.sort(keys);
+            for (int i = 0; i < this.numLines; i++)
+            {
+                indices[i] = (int) (keys[i] & ((1 << 27) - 1));
+            }
+
+            return indices;
+        }
+
+        protected static long interleave(int row, int col)
+        {
+            long key = 0;
+            for (int bit = 0; bit < 18; bit++)
+            {
+                key |= ((long) ((row >> bit) & 1) << (2 * bit + 1)) | ((long) ((col >> bit) & 1) << (2 * bit));
+            }
+
+            return key;
         }
 
-        service.shutdown();
-        service.awaitTermination(100, TimeUnit.DAYS); // wait indefinitely for all threads to complete
+        protected void intersectLine(int line)
+        {
+            Position pA;
+            Position pB;
+            if (this.positionList != null)
+            {
+                pA = this.positionList.get(2 * line);
+                pB = this.positionList.get(2 * line + 1);
+            }
+            else
+            {
+                int k = 6 * line;
+                pA = Position.fromDegrees(this.positions[k], this.positions[k + 1], this.positions[k + 2]);
+                pB = Position.fromDegrees(this.positions[k + 3], this.positions[k + 4], this.positions[k + 5]);
+            }
+
+            try
+            {
+                Intersection[] intersections = this.terrain.intersect(pA, pB);
+                if (intersections != null && intersections.length > 0)
+                {
+                    Position position = intersections[0].getIntersectionPosition();
+                    if (position == null)
+                        position = this.terrain.globe.computePositionFromPoint(
+                            intersections[0].getIntersectionPoint());
+
+                    this.intersectionCounts[line] = intersections.length;
+                    this.intersectionPositions[3 * line] = position.getLatitude().degrees;
+                    this.intersectionPositions[3 * line + 1] = position.getLongitude().degrees;
+                    this.intersectionPositions[3 * line + 2] = position.getElevation();
+
+                    if (this.callback != null)
+                        this.callback.intersection(pA, pB, intersections);
+                }
+            }
+            catch (Exception e)
+            {
+                this.intersectionCounts[line] = -1;
+                if (this.exception == null)
+                    this.exception = e;
+
+                if (this.callback != null)
+                    this.callback.exception(e);
+            }
+            finally
+            {
+                this.numCompleted.incrementAndGet();
+            }
+        }
+
+        /**
+         * Waits for all lines of the batch to be intersected, or for the batch to stop after being cancelled.
+         *
+         * @throws InterruptedException if the current thread is interrupted while waiting.
+         */
+        public void await() throws InterruptedException
+        {
+            try
+            {
+                this.task.get();
+            }
+            catch (ExecutionException e)
+            {
+                // Exceptions are caught and recorded per line, so this indicates a failure of the pool itself.
+                throw new WWRuntimeException(e.getCause());
+            }
+        }
+
+        /**
+         * Stops the batch. Lines already being intersected are completed; lines not yet started are skipped, and have
+         * an intersection count of zero.
+         */
+        public void cancel()
+        {
+            this.cancelled = true;
+        }
+
+        public boolean isCancelled()
+        {
+            return this.cancelled;
+        }
+
+        public boolean isDone()
+        {
+            return this.task.isDone();
+        }
+
+        public int getNumLines()
+        {
+            return this.numLines;
+        }
+
+        public int getNumCompleted()
+        {
+            return this.numCompleted.get();
+        }
+
+        /**
+         * Indicates the fraction of the batch's lines that have been intersected.
+         *
+         * @return a value between 0 and 1.
+         */
+        public double getProgress()
+        {
+            return this.numLines > 0 ? (double) this.numCompleted.get() / this.numLines : 1;
+        }
+
+        /**
+         * Returns the number of intersections found for each line: zero if the line does not intersect the terrain or
+         * was skipped after cancellation, and -1 if intersecting the line failed. The array is complete once the
+         * batch is done.
+         *
+         * @return the intersection count of each line, in the order the lines were specified.
+         */
+        public int[] getIntersectionCounts()
+        {
+            return this.intersectionCounts;
+        }
+
+        /**
+         * Returns the position of the intersection nearest each line's first position, as three values per line: the
+         * latitude and longitude in degrees and the elevation in meters. The values are NaN for lines without an
+         * intersection. The array is complete once the batch is done.
+         *
+         * @return the nearest intersection of each line, in the order the lines were specified.
+         */
+        public double[] getIntersectionPositions()
+        {
+            return this.intersectionPositions;
+        }
+
+        /**
+         * Returns the first exception thrown while intersecting a line of this batch.
+         *
+         * @return the first exception, or null if none occurred.
+         */
+        public Exception getException()
+        {
+            return this.exception;
+        }
+    }
+
+    /** Intersects a range of a batch's lines, in the batch's locality order, on a fork/join pool. */
+    protected static class IntersectionTask extends RecursiveAction
+    {
+        protected final IntersectionBatch batch;
+        protected final int from;
+        protected final int to;
+
+        protected IntersectionTask(IntersectionBatch batch, int from, int to)
+        {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.to - this.from <= IntersectionBatch.LINES_PER_TASK)
+            {
+                for (int i = this.from; i < this.to && !this.batch.cancelled; i++)
+                {
+                    this.batch.intersectLine(this.batch.order[i]);
+                }
+
+                return;
+            }
+
+            int mid = (this.from + this.to) >>> 1;
+            invokeAll(new IntersectionTask(this.batch, this.from, mid), new IntersectionTask(this.batch, mid,
+                this.to));
+        }
     }
 
     /**
@@ -965,7 +1334,11 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
         }
 
         ArrayList<LatLon> latlons = this.computeLocations(tile);
-        double[] elevations = new double[latlons.size()];
+
+        TileVertexGrid grid = this.vertexGrid.get();
+        grid.computeLocations(tile.sector, density, false);
+        double[] elevations = grid.getElevations();
+        Arrays.fill(elevations, 0);
 
         // In general, the best attainable resolution varies over the elevation model, so determine the best
         // attainable ^for this tile^ and use that as the convergence criteria.
@@ -979,36 +1352,30 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
         LatLon centroid = tile.sector.getCentroid();
         Vec4 refCenter = globe.computePointFromPosition(centroid.getLatitude(), centroid.getLongitude(), 0d);
 
+        grid.computePoints(this.globe, this.verticalExaggeration, null);
+        grid.putPoints(refCenter, verts);
+
         double minElevation = Double.MAX_VALUE;
         double maxElevation = -Double.MAX_VALUE;
         LatLon minElevationLocation = centroid;
         LatLon maxElevationLocation = centroid;
 
-        int ie = 0;
-        int iv = 0;
-        Iterator<LatLon> latLonIter = latlons.iterator();
-        for (int j = 0; j <= density; j++)
+        // The grid's elevations now include vertical exaggeration.
+        double[] latitudes = grid.getLatitudes();
+        double[] longitudes = grid.getLongitudes();
+        for (int k = 0; k < numVertices; k++)
         {
-            for (int i = 0; i <= density; i++)
-            {
-                LatLon latlon = latLonIter.next();
-                double elevation = this.verticalExaggeration * elevations[ie++];
+            double elevation = elevations[k];
 
-                if (elevation < minElevation)
-                {
-                    minElevation = elevation;
-                    minElevationLocation = latlon;
-                }
-                if (elevation > maxElevation)
-                {
-                    maxElevation = elevation;
-                    maxElevationLocation = latlon;
-                }
-
-                Vec4 p = this.globe.computePointFromPosition(latlon.getLatitude(), latlon.getLongitude(), elevation);
-                verts[iv++] = (float) (p.x - refCenter.x);
-                verts[iv++] = (float) (p.y - refCenter.y);
-                verts[iv++] = (float) (p.z - refCenter.z);
+            if (elevation < minElevation)
+            {
+                minElevation = elevation;
+                minElevationLocation = LatLon.fromDegrees(latitudes[k], longitudes[k]);
+            }
+            if (elevation > maxElevation)
+            {
+                maxElevation = elevation;
+                maxElevationLocation = LatLon.fromDegrees(latitudes[k], longitudes[k]);
             }
         }
 
@@ -209,6 +209,81 @@ public class LocalElevationModel extends AbstractElevationModel
         return this.doGetElevations(sector, latlons, targetResolution, buffer, false);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation looks up each elevation directly from the location's coordinates.
+     */
+    @Override
+    public double getElevations(double[] latitudes, double[] longitudes, double targetResolution, double[] buffer,
+        boolean parallel)
+    {
+        return this.doGetElevations(latitudes, longitudes, targetResolution, buffer, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation looks up each elevation directly from the location's coordinates.
+     */
+    @Override
+    public double getUnmappedElevations(double[] latitudes, double[] longitudes, double targetResolution,
+        double[] buffer, boolean parallel)
+    {
+        return this.doGetElevations(latitudes, longitudes, targetResolution, buffer, false);
+    }
+
+    /**
+     * Performs the lookup of elevations for locations specified as parallel arrays of latitude and longitude in
+     * degrees. This is the bulk equivalent of {@link #doGetElevations(gov.nasa.worldwind.geom.Sector, java.util.List,
+     * double, double[], boolean)} and allocates no objects per location.
+     *
+     * @param latitudes        the latitudes, in degrees.
+     * @param longitudes       the longitudes, in degrees.
+     * @param targetResolution the desired maximum horizontal resolution of the elevation data to draw from.
+     * @param buffer           a buffer in which to return the elevations.
+     * @param mapMissingData   indicates whether to replace any elevations that match this elevation model's missing
+     *                         data signal to this model's missing data replacement value.
+     *
+     * @return the resolution achieved, in radians, or {@link Double#MAX_VALUE} if individual elevations cannot be
+     *         determined for all of the locations.
+     */
+    protected double doGetElevations(double[] latitudes, double[] longitudes, double targetResolution,
+        double[] buffer, boolean mapMissingData)
+    {
+        this.validateElevationArrays(latitudes, longitudes, buffer);
+
+        if (latitudes.length == 0)
+            return targetResolution;
+
+        Sector sector = computeBoundingSector(latitudes, longitudes);
+        if (this.intersects(sector) == -1)
+            return Double.MAX_VALUE; // as stated in the javadoc above, this is the sentinel for "not in my domain"
+
+        // Mark the model as used this frame.
+        this.setValue(AVKey.FRAME_TIMESTAMP, System.currentTimeMillis());
+
+        double toRadians = Math.PI / 180d; // the conversion used by Angle.fromDegrees
+        for (int i = 0; i < latitudes.length; i++)
+        {
+            // Leave the buffer value unchanged if the location is not within any of this model's tiles.
+            double latRadians = toRadians * latitudes[i];
+            double lonRadians = toRadians * longitudes[i];
+            LocalTile tile = this.findTile(latRadians, lonRadians);
+            if (tile == null)
+                continue;
+
+            double e = this.lookupElevation(tile, latRadians, lonRadians);
+
+            if (e != this.missingDataFlag)
+                buffer[i] = e;
+            else if (mapMissingData)
+                buffer[i] = this.getMissingDataReplacement();
+        }
+
+        return this.getBestResolution(sector);
+    }
+
     /**
      * Performs the lookup and assembly of elevations for a list of specified locations. This method is provided to
      * enable subclasses to override this operation.
@@ -571,6 +646,21 @@ public class LocalElevationModel extends AbstractElevationModel
         if (tile == null)
             return null;
 
+        return this.lookupElevation(tile, latRadians, lonRadians);
+    }
+
+    /**
+     * Looks up an elevation for a specified location within a specified tile.
+     *
+     * @param tile       the tile containing the location.
+     * @param latRadians the latitude of the location, in radians.
+     * @param lonRadians the longitude of the location, in radians.
+     *
+     * @return the elevation at the specified location, or this elevation model's missing data flag if that's the value
+     *         at the specified location.
+     */
+    protected double lookupElevation(LocalTile tile, final double latRadians, final double lonRadians)
+    {
         final double sectorDeltaLat = tile.sector.getDeltaLat().radians;
         final double sectorDeltaLon = tile.sector.getDeltaLon().radians;
         final double dLat = tile.sector.getMaxLatitude().radians - latRadians;
@@ -43,6 +43,8 @@ import java.awt.*;
 import java.nio.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author tag
@@ -388,6 +390,80 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         }
     }
 
+    /**
+     * Computes a tile's vertices on the task service. The task captures everything it needs from the draw context when
+     * it is created, so it does not touch the draw context or OpenGL. When it completes it queues itself for the
+     * tessellator to install on the rendering thread and asks the globe's listeners to repaint.
+     */
+    protected static class GeometryBuildTask implements Runnable
+    {
+        protected final RectangularTessellator tessellator;
+        protected final CacheKey cacheKey;
+        protected final Globe globe;
+        protected final Sector sector;
+        protected final int density;
+        protected final double resolution;
+        protected final double verticalExaggeration;
+        protected final Double skirtElevation;
+        protected final Vec4 referenceCenter;
+        protected final long requestTime;
+        protected long completionTime;
+        protected float[] vertices; // null until the vertices have been computed successfully
+
+        public GeometryBuildTask(RectangularTessellator tessellator, CacheKey cacheKey, Globe globe, RectTile tile,
+            double verticalExaggeration, Double skirtElevation, Vec4 referenceCenter)
+        {
+            this.tessellator = tessellator;
+            this.cacheKey = cacheKey;
+            this.globe = globe;
+            this.sector = tile.sector;
+            this.density = tile.density;
+            this.resolution = tile.getResolution();
+            this.verticalExaggeration = verticalExaggeration;
+            this.skirtElevation = skirtElevation;
+            this.referenceCenter = referenceCenter;
+            this.requestTime = System.currentTimeMillis();
+        }
+
+        public void run()
+        {
+            try
+            {
+                float[] verts = this.tessellator.takeVertexArray(3 * (this.density + 3) * (this.density + 3));
+                this.tessellator.computeVertices(this.globe, this.sector, this.density, this.resolution,
+                    this.verticalExaggeration, this.skirtElevation, this.referenceCenter, verts);
+                this.vertices = verts;
+            }
+            catch (Exception e)
+            {
+                String msg = Logging.getMessage("RectangularTessellator.ExceptionBuildingGeometry", this.sector);
+                Logging.logger().log(java.util.logging.Level.SEVERE, msg, e);
+            }
+            finally
+            {
+                // Queue the task even if it failed so that the tessellator stops treating the tile as pending.
+                this.completionTime = System.currentTimeMillis();
+                this.tessellator.completedGeometry.add(this);
+                this.globe.firePropertyChange(AVKey.REPAINT, null, this.tessellator);
+            }
+        }
+
+        public boolean equals(Object o)
+        {
+            if (this == o)
+                return true;
+            if (o == null || this.getClass() != o.getClass())
+                return false;
+
+            return this.cacheKey.equals(((GeometryBuildTask) o).cacheKey);
+        }
+
+        public int hashCode()
+        {
+            return this.cacheKey.hashCode();
+        }
+    }
+
     protected static class TopLevelTiles
     {
         protected ArrayList<RectTile> topLevels;
@@ -429,6 +505,26 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
     protected Globe globe;
     protected int density = DEFAULT_DENSITY;
     protected long updateFrequency = 2000; // milliseconds
+    protected boolean buildGeometryInBackground =
+        Configuration.getBooleanValue(AVKey.RECTANGULAR_TESSELLATOR_BACKGROUND_GEOMETRY, true);
+    /** Background geometry builds that have been requested but not yet installed, keyed by tile cache key. */
+    protected final ConcurrentHashMap<CacheKey, GeometryBuildTask> pendingGeometry =
+        new ConcurrentHashMap<CacheKey, GeometryBuildTask>();
+    /** Background geometry builds that have completed and wait to be installed on the rendering thread. */
+    protected final Queue<GeometryBuildTask> completedGeometry = new ConcurrentLinkedQueue<GeometryBuildTask>();
+    /** Vertex arrays of installed background builds, kept for reuse by later builds. */
+    protected final Queue<float[]> vertexArrays = new ConcurrentLinkedQueue<float[]>();
+    protected final AtomicLong numGeometryBuilds = new AtomicLong();
+    protected final AtomicLong totalGeometryBuildTime = new AtomicLong();
+    /** The grid used to compute tile vertices without allocating objects per vertex. One is kept per thread. */
+    protected ThreadLocal<TileVertexGrid> vertexGrid = new ThreadLocal<TileVertexGrid>()
+    {
+        @Override
+        protected TileVertexGrid initialValue()
+        {
+            return new TileVertexGrid();
+        }
+    };
 
     public SectorGeometryList tessellate(DrawContext dc)
     {
@@ -449,7 +545,7 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         if (!WorldWind.getMemoryCacheSet().containsCache(CACHE_ID))
         {
             long size = Configuration.getLongValue(AVKey.SECTOR_GEOMETRY_CACHE_SIZE, 10000000L);
-            MemoryCache cache = new BasicMemoryCache((long) (0.85 * size), size);
+            MemoryCache cache = BasicMemoryCacheSet.createMemoryCache((long) (0.85 * size), size);
             cache.setName(CACHE_NAME);
             WorldWind.getMemoryCacheSet().addCache(CACHE_ID, cache);
         }
@@ -463,6 +559,8 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
             this.topLevelTilesCache.put(dc.getGlobe().getStateKey(dc), topLevels);
         }
 
+        this.installCompletedGeometry(dc);
+
         this.currentTiles.clear();
         this.currentLevel = 0;
         this.currentCoverage = null;
@@ -480,6 +578,11 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
             this.makeVerts(dc, (RectTile) tile);
         }
 
+        dc.setPerFrameStatistic(PerformanceStatistic.TERRAIN_GEOMETRY, "Terrain Geometry Queue",
+            this.pendingGeometry.size());
+        dc.setPerFrameStatistic(PerformanceStatistic.TERRAIN_GEOMETRY, "Terrain Geometry Build Time (ms)",
+            (long) this.getAverageGeometryBuildTime());
+
         // Make a copy of the SGL because the tessellator may be called multiple times per frame with a different globe.
         // See SceneController2D.
         SectorGeometryList sgl = new SectorGeometryList(this.currentTiles);
@@ -573,30 +676,119 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         this.updateFrequency = updateFrequency;
     }
 
-    protected void selectVisibleTiles(DrawContext dc, RectTile tile)
+    /**
+     * Indicates whether tile geometry is computed on the task service rather than on the rendering thread. See {@link
+     * #setBuildGeometryInBackground(boolean)}.
+     *
+     * @return true if tile geometry is computed in the background, otherwise false.
+     */
+    public boolean isBuildGeometryInBackground()
     {
-        if (dc.is2DGlobe() && this.skipTile(dc, tile.getSector()))
-            return;
+        return this.buildGeometryInBackground;
+    }
 
-        Extent extent = tile.getExtent();
-        if (extent != null && !extent.intersects(this.currentFrustum))
+    /**
+     * Specifies whether tile geometry is computed on the task service rather than on the rendering thread. When true,
+     * a tile whose geometry is not yet available is drawn with its parent's geometry, and a tile whose geometry is out
+     * of date is drawn with its previous geometry, until its new geometry has been computed. Top level tiles and tiles
+     * of 2D globes are always computed on the rendering thread. The initial value is specified by the {@link
+     * AVKey#RECTANGULAR_TESSELLATOR_BACKGROUND_GEOMETRY} configuration property, and is true if the property is not
+     * specified.
+     *
+     * @param buildGeometryInBackground true to compute tile geometry in the background, otherwise false.
+     */
+    public void setBuildGeometryInBackground(boolean buildGeometryInBackground)
+    {
+        this.buildGeometryInBackground = buildGeometryInBackground;
+    }
+
+    /**
+     * Indicates the number of tiles whose geometry has been requested from the task service but not yet installed.
+     *
+     * @return the number of pending background geometry builds.
+     */
+    public int getGeometryQueueDepth()
+    {
+        return this.pendingGeometry.size();
+    }
+
+    /**
+     * Indicates the average time between requesting a tile's geometry from the task service and the geometry being
+     * computed, including the time the request waited in the task service's queue.
+     *
+     * @return the average background build time in milliseconds, or 0 if no geometry has been built in the background.
+     */
+    public double getAverageGeometryBuildTime()
+    {
+        long count = this.numGeometryBuilds.get();
+        return count > 0 ? (double) this.totalGeometryBuildTime.get() / count : 0;
+    }
+
+    protected void selectVisibleTiles(DrawContext dc, RectTile tile)
+    {
+        if (!this.isTileVisible(dc, tile))
             return;
 
         if (this.currentLevel < this.maxLevel - 1 && !this.atBestResolution(dc, tile) && this.needToSplit(dc, tile))
         {
-            ++this.currentLevel;
             RectTile[] subtiles = this.split(dc, tile);
-            for (RectTile child : subtiles)
+
+            // When geometry is built in the background, draw this tile in place of its children until the geometry of
+            // all its visible children is available.
+            if (!this.isBackgroundGeometry(dc) || this.isGeometryAvailable(dc, subtiles))
             {
-                this.selectVisibleTiles(dc, child);
+                ++this.currentLevel;
+                for (RectTile child : subtiles)
+                {
+                    this.selectVisibleTiles(dc, child);
+                }
+                --this.currentLevel;
+                return;
             }
-            --this.currentLevel;
-            return;
         }
         this.currentCoverage = tile.getSector().union(this.currentCoverage);
         this.currentTiles.add(tile);
     }
 
+    protected boolean isTileVisible(DrawContext dc, RectTile tile)
+    {
+        if (dc.is2DGlobe() && this.skipTile(dc, tile.getSector()))
+            return false;
+
+        Extent extent = tile.getExtent();
+        return extent == null || extent.intersects(this.currentFrustum);
+    }
+
+    /**
+     * Indicates whether geometry is available for each of a set of tiles that is visible. Requests background
+     * computation of the geometry of each visible tile that has none.
+     *
+     * @param dc    the current draw context.
+     * @param tiles the tiles to check.
+     *
+     * @return true if all the visible tiles have geometry, otherwise false.
+     */
+    protected boolean isGeometryAvailable(DrawContext dc, RectTile[] tiles)
+    {
+        MemoryCache cache = WorldWind.getMemoryCache(CACHE_ID);
+        boolean available = true;
+
+        for (RectTile tile : tiles)
+        {
+            if (!this.isTileVisible(dc, tile))
+                continue;
+
+            CacheKey cacheKey = this.createCacheKey(dc, tile);
+            if (cache.getObject(cacheKey) == null)
+            {
+                this.requestGeometry(dc, tile, cacheKey);
+                available = false;
+            }
+        }
+
+        return available;
+    }
+
     protected boolean atBestResolution(DrawContext dc, RectTile tile)
     {
         double bestResolution = dc.getGlobe().getElevationModel().getBestResolution(tile.getSector());
@@ -676,10 +868,121 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         if (tile.ri != null && tile.ri.time >= System.currentTimeMillis() - this.getUpdateFrequency())
             return;
 
+        // Keep drawing out of date geometry while its replacement is computed in the background. Geometry that is
+        // missing entirely, such as that of top level tiles, is computed now.
+        if (tile.ri != null && this.isBackgroundGeometry(dc))
+        {
+            this.requestGeometry(dc, tile, cacheKey);
+            return;
+        }
+
         if (this.buildVerts(dc, tile, this.makeTileSkirts))
             cache.add(cacheKey, tile.ri, tile.ri.getSizeInBytes());
     }
 
+    /**
+     * Indicates whether tile geometry is computed in the background for the current frame. Geometry of 2D globes is
+     * always computed on the rendering thread because the globe's offset may change while a background computation
+     * is in progress.
+     *
+     * @param dc the current draw context.
+     *
+     * @return true if tile geometry is computed in the background, otherwise false.
+     */
+    protected boolean isBackgroundGeometry(DrawContext dc)
+    {
+        return this.isBuildGeometryInBackground() && !dc.is2DGlobe();
+    }
+
+    /**
+     * Requests that a tile's geometry be computed on the task service. Does nothing if the tile's geometry has already
+     * been requested or the task service is full; in the latter case the request is made again on a later frame.
+     *
+     * @param dc       the current draw context.
+     * @param tile     the tile whose geometry to compute.
+     * @param cacheKey the key under which to cache the computed geometry.
+     */
+    protected void requestGeometry(DrawContext dc, RectTile tile, CacheKey cacheKey)
+    {
+        if (this.pendingGeometry.containsKey(cacheKey) || WorldWind.getTaskService().isFull())
+            return;
+
+        LatLon centroid = tile.sector.getCentroid();
+        Vec4 refCenter = this.globe.computePointFromPosition(centroid.getLatitude(), centroid.getLongitude(), 0d);
+        GeometryBuildTask task = new GeometryBuildTask(this, cacheKey, dc.getGlobe(), tile,
+            dc.getVerticalExaggeration(), this.computeSkirtElevation(dc, this.makeTileSkirts), refCenter);
+
+        if (this.pendingGeometry.putIfAbsent(cacheKey, task) == null)
+            WorldWind.getTaskService().addTask(task);
+    }
+
+    /**
+     * Installs the geometry computed in the background since the previous frame. Cached geometry of the same tile is
+     * updated in place, reusing its vertex buffer and VBO; otherwise new geometry is created and cached. Must be called
+     * on the rendering thread because it may fill vertex buffer objects.
+     *
+     * @param dc the current draw context.
+     */
+    protected void installCompletedGeometry(DrawContext dc)
+    {
+        MemoryCache cache = WorldWind.getMemoryCache(CACHE_ID);
+
+        GeometryBuildTask task;
+        while ((task = this.completedGeometry.poll()) != null)
+        {
+            this.pendingGeometry.remove(task.cacheKey);
+
+            if (task.vertices == null)
+                continue; // the computation failed
+
+            RenderInfo ri = (RenderInfo) cache.getObject(task.cacheKey);
+            if (ri != null && ri.density == task.density && ri.referenceCenter.equals(task.referenceCenter)
+                && ri.vertices.capacity() == task.vertices.length)
+            {
+                ri.vertices.clear();
+                ri.vertices.put(task.vertices).rewind();
+                ri.update(dc);
+            }
+            else
+            {
+                // The cached geometry can't be reused. Release its VBO, which is keyed by the geometry and would
+                // otherwise remain in the GPU resource cache until evicted.
+                if (ri != null)
+                    dc.getGpuResourceCache().remove(ri.vboCacheKey);
+
+                FloatBuffer verts = Buffers.newDirectFloatBuffer(task.vertices.length);
+                verts.put(task.vertices).rewind();
+                ri = new RenderInfo(dc, task.density, verts, task.referenceCenter);
+                cache.add(task.cacheKey, ri, ri.getSizeInBytes());
+            }
+
+            this.vertexArrays.add(task.vertices);
+
+            this.numGeometryBuilds.incrementAndGet();
+            this.totalGeometryBuildTime.addAndGet(task.completionTime - task.requestTime);
+        }
+    }
+
+    /**
+     * Returns an array to compute a tile's vertices into in the background. Arrays of previously installed geometry are
+     * reused when they have the requested length. May be called on any thread.
+     *
+     * @param length the number of floats the array must hold.
+     *
+     * @return an array of the requested length.
+     */
+    protected float[] takeVertexArray(int length)
+    {
+        float[] array;
+        while ((array = this.vertexArrays.poll()) != null)
+        {
+            if (array.length == length)
+                return array;
+        }
+
+        return new float[length];
+    }
+
     public boolean buildVerts(DrawContext dc, RectTile tile, boolean makeSkirts)
     {
         int density = tile.density;
@@ -698,48 +1001,11 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
             verts.rewind();
         }
 
-        ArrayList<LatLon> latlons = this.computeLocations(tile);
-        double[] elevations = new double[latlons.size()];
-        dc.getGlobe().getElevations(tile.sector, latlons, tile.getResolution(), elevations);
-
-        double verticalExaggeration = dc.getVerticalExaggeration();
-
-        // When making skirts, apply vertical exaggeration to the skirt depth only if the exaggeration is 0 or less. If
-        // applied to positive exaggerations, the skirt base might rise above the terrain at positive elevations if the
-        // minimum globe elevation is not uniform over the globe. For example, a globe may hold only a local elevation
-        // model that does not span the globe, making elevations outside the local elevation model 0. If the minimum
-        // elevation of the local elevation model is above zero, and the globe reports that minimum as the globe's
-        // minimum, then exaggeration will push the skirt bases above 0. That the globe reports a minimum elevation that
-        // is not its true minimum is a bug, and this constraint on applying exaggeration to the minimum here is a
-        // workaround for that bug. See WWJINT-435.
-        Double exaggeratedMinElevation = makeSkirts ? globe.getMinElevation() : null;
-        if (exaggeratedMinElevation != null && (exaggeratedMinElevation < 0 || verticalExaggeration <= 0))
-            exaggeratedMinElevation *= verticalExaggeration;
-
         LatLon centroid = tile.sector.getCentroid();
         Vec4 refCenter = globe.computePointFromPosition(centroid.getLatitude(), centroid.getLongitude(), 0d);
 
-        int ie = 0;
-        int iv = 0;
-        Iterator<LatLon> latLonIter = latlons.iterator();
-        for (int j = 0; j <= density + 2; j++)
-        {
-            for (int i = 0; i <= density + 2; i++)
-            {
-                LatLon latlon = latLonIter.next();
-                double elevation = verticalExaggeration * elevations[ie++];
-
-                // Tile edges use min elevation to draw the skirts
-                if (exaggeratedMinElevation != null &&
-                    (j == 0 || j >= tile.density + 2 || i == 0 || i >= tile.density + 2))
-                    elevation = exaggeratedMinElevation;
-
-                Vec4 p = globe.computePointFromPosition(latlon.getLatitude(), latlon.getLongitude(), elevation);
-                verts.put(iv++, (float) (p.x - refCenter.x));
-                verts.put(iv++, (float) (p.y - refCenter.y));
-                verts.put(iv++, (float) (p.z - refCenter.z));
-            }
-        }
+        this.computeVertices(dc.getGlobe(), tile.sector, density, tile.getResolution(), dc.getVerticalExaggeration(),
+            this.computeSkirtElevation(dc, makeSkirts), refCenter, verts);
 
         verts.rewind();
 
@@ -753,42 +1019,100 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         return true;
     }
 
-    protected ArrayList<LatLon> computeLocations(RectTile tile)
+    /**
+     * Computes the elevation of a tile's skirts, or null if the tile has no skirts.
+     *
+     * @param dc         the current draw context.
+     * @param makeSkirts true if the tile has skirts, otherwise false.
+     *
+     * @return the skirt elevation, including vertical exaggeration, or null if the tile has no skirts.
+     */
+    protected Double computeSkirtElevation(DrawContext dc, boolean makeSkirts)
     {
-        int density = tile.density;
-        int numVertices = (density + 3) * (density + 3);
-
-        Angle latMax = tile.sector.getMaxLatitude();
-        Angle dLat = tile.sector.getDeltaLat().divide(density);
-        Angle lat = tile.sector.getMinLatitude();
+        // When making skirts, apply vertical exaggeration to the skirt depth only if the exaggeration is 0 or less. If
+        // applied to positive exaggerations, the skirt base might rise above the terrain at positive elevations if the
+        // minimum globe elevation is not uniform over the globe. For example, a globe may hold only a local elevation
+        // model that does not span the globe, making elevations outside the local elevation model 0. If the minimum
+        // elevation of the local elevation model is above zero, and the globe reports that minimum as the globe's
+        // minimum, then exaggeration will push the skirt bases above 0. That the globe reports a minimum elevation that
+        // is not its true minimum is a bug, and this constraint on applying exaggeration to the minimum here is a
+        // workaround for that bug. See WWJINT-435.
+        double verticalExaggeration = dc.getVerticalExaggeration();
+        Double exaggeratedMinElevation = makeSkirts ? globe.getMinElevation() : null;
+        if (exaggeratedMinElevation != null && (exaggeratedMinElevation < 0 || verticalExaggeration <= 0))
+            exaggeratedMinElevation *= verticalExaggeration;
 
-        Angle lonMin = tile.sector.getMinLongitude();
-        Angle lonMax = tile.sector.getMaxLongitude();
-        Angle dLon = tile.sector.getDeltaLon().divide(density);
+        return exaggeratedMinElevation;
+    }
 
-        ArrayList<LatLon> latlons = new ArrayList<LatLon>(numVertices);
-        for (int j = 0; j <= density + 2; j++)
-        {
-            Angle lon = lonMin;
-            for (int i = 0; i <= density + 2; i++)
-            {
-                latlons.add(new LatLon(lat, lon));
+    /**
+     * Computes a tile's vertices relative to a reference point and writes them to a buffer. This method does not use
+     * the draw context or OpenGL, and may be called on any thread.
+     *
+     * @param globe                the globe to compute the vertices on.
+     * @param sector               the tile's sector.
+     * @param density              the tile's density.
+     * @param resolution           the desired elevation resolution, in radians.
+     * @param verticalExaggeration the vertical exaggeration to apply to elevations.
+     * @param skirtElevation       the elevation of the tile's skirts, or null to omit skirts.
+     * @param refCenter            the point the vertices are relative to.
+     * @param verts                the buffer to write the vertices to.
+     */
+    protected void computeVertices(Globe globe, Sector sector, int density, double resolution,
+        double verticalExaggeration, Double skirtElevation, Vec4 refCenter, FloatBuffer verts)
+    {
+        TileVertexGrid grid = this.vertexGrid.get();
+        grid.computeLocations(sector, density, true);
+        grid.computeElevations(globe, resolution);
+        grid.computePoints(globe, verticalExaggeration, skirtElevation);
+        grid.putPoints(refCenter, verts);
+    }
 
-                if (i > density)
-                    lon = lonMax;
-                else if (i != 0)
-                    lon = lon.add(dLon);
+    /**
+     * Computes a tile's vertices relative to a reference point and writes them to an array. This method does not use
+     * the draw context or OpenGL, and may be called on any thread.
+     *
+     * @param globe                the globe to compute the vertices on.
+     * @param sector               the tile's sector.
+     * @param density              the tile's density.
+     * @param resolution           the desired elevation resolution, in radians.
+     * @param verticalExaggeration the vertical exaggeration to apply to elevations.
+     * @param skirtElevation       the elevation of the tile's skirts, or null to omit skirts.
+     * @param refCenter            the point the vertices are relative to.
+     * @param verts                the array to write the vertices to.
+     */
+    protected void computeVertices(Globe globe, Sector sector, int density, double resolution,
+        double verticalExaggeration, Double skirtElevation, Vec4 refCenter, float[] verts)
+    {
+        TileVertexGrid grid = this.vertexGrid.get();
+        grid.computeLocations(sector, density, true);
+        grid.computeElevations(globe, resolution);
+        grid.computePoints(globe, verticalExaggeration, skirtElevation);
+        grid.putPoints(refCenter, verts);
+    }
 
-                if (lon.degrees < -180)
-                    lon = Angle.NEG180;
-                else if (lon.degrees > 180)
-                    lon = Angle.POS180;
-            }
+    /**
+     * Computes the locations of a tile's vertices, including the locations of its skirts.
+     *
+     * @param tile the tile whose vertex locations to compute.
+     *
+     * @return the vertex locations in row major order, beginning with the row of minimum latitude.
+     *
+     * @deprecated Tile vertices are now computed from primitive arrays by {@link TileVertexGrid}, which this method
+     *             uses. Use {@link TileVertexGrid#computeLocations(Sector, int, boolean)} instead.
+     */
+    @Deprecated
+    protected ArrayList<LatLon> computeLocations(RectTile tile)
+    {
+        TileVertexGrid grid = this.vertexGrid.get();
+        grid.computeLocations(tile.sector, tile.density, true);
 
-            if (j > density)
-                lat = latMax;
-            else if (j != 0)
-                lat = lat.add(dLat);
+        double[] lats = grid.getLatitudes();
+        double[] lons = grid.getLongitudes();
+        ArrayList<LatLon> latlons = new ArrayList<LatLon>(lats.length);
+        for (int i = 0; i < lats.length; i++)
+        {
+            latlons.add(LatLon.fromDegrees(lats[i], lons[i]));
         }
 
         return latlons;
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.Globe;
+import gov.nasa.worldwind.util.Logging;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Computes the vertices of a terrain tile's rectangular grid using primitive arrays. The grid's locations are derived
+ * from the tile's sector and density, its elevations are retrieved in bulk from the globe, and its Cartesian points
+ * are computed by the globe's grid transform. The arrays are retained and reused when the grid is recomputed for a tile
+ * of the same density, so computing a tile's vertices allocates no objects per vertex.
+ * <p>
+ * The grid layout matches the tessellators that use it. Without skirts the grid has <code>density + 1</code> rows and
+ * columns spanning the sector. With skirts the first and last rows and columns are repeated, giving <code>density +
+ * 3</code> rows and columns whose outermost vertices form the tile's skirts.
+ * <p>
+ * Instances are not thread safe. Tessellators that build tiles on several threads keep one instance per thread.
+ */
+public class TileVertexGrid
+{
+    protected int density = -1;
+    protected boolean skirts;
+    /** The latitude of each grid row, in degrees. */
+    protected double[] rowLatitudes;
+    /** The longitude of each grid column, in degrees. */
+    protected double[] columnLongitudes;
+    /** The latitude of each grid vertex, in degrees, in row major order. */
+    protected double[] latitudes;
+    /** The longitude of each grid vertex, in degrees, in row major order. */
+    protected double[] longitudes;
+    /** The elevation of each grid vertex, in meters, in row major order. */
+    protected double[] elevations;
+    /** The Cartesian point of each grid vertex as consecutive x, y, z triplets. */
+    protected double[] points;
+
+    /** Constructs an empty grid. Call {@link #computeLocations(Sector, int, boolean)} before using the grid. */
+    public TileVertexGrid()
+    {
+    }
+
+    /**
+     * Indicates the number of rows in the grid, which is also the number of columns.
+     *
+     * @return the number of grid rows, or 0 if the locations have not been computed.
+     */
+    public int getNumRows()
+    {
+        return this.rowLatitudes != null ? this.rowLatitudes.length : 0;
+    }
+
+    /**
+     * Indicates the number of vertices in the grid.
+     *
+     * @return the number of grid vertices, or 0 if the locations have not been computed.
+     */
+    public int getNumVertices()
+    {
+        return this.latitudes != null ? this.latitudes.length : 0;
+    }
+
+    /**
+     * Returns the latitude of each grid vertex, in degrees, in row major order beginning with the row of minimum
+     * latitude. The array is reused by subsequent computations.
+     *
+     * @return the vertex latitudes.
+     */
+    public double[] getLatitudes()
+    {
+        return this.latitudes;
+    }
+
+    /**
+     * Returns the longitude of each grid vertex, in degrees, in row major order. The array is reused by subsequent
+     * computations.
+     *
+     * @return the vertex longitudes.
+     */
+    public double[] getLongitudes()
+    {
+        return this.longitudes;
+    }
+
+    /**
+     * Returns the elevation of each grid vertex, in row major order. After {@link #computePoints(Globe, double,
+     * Double)} the elevations include vertical exaggeration and skirt elevations. The array is reused by subsequent
+     * computations.
+     *
+     * @return the vertex elevations.
+     */
+    public double[] getElevations()
+    {
+        return this.elevations;
+    }
+
+    /**
+     * Computes the grid's locations for a sector and density. Interior locations are spaced evenly by accumulating
+     * the sector's delta divided by the density, exactly as the tessellators have always computed them, and longitudes
+     * are clamped to the range [-180, 180].
+     *
+     * @param sector  the tile's sector.
+     * @param density the number of grid cells along each side of the tile.
+     * @param skirts  true to repeat the first and last rows and columns to form skirts, otherwise false.
+     *
+     * @throws IllegalArgumentException if the sector is null or the density is less than one.
+     */
+    public void computeLocations(Sector sector, int density, boolean skirts)
+    {
+        if (sector == null)
+        {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (density < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "density < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (density != this.density || skirts != this.skirts)
+        {
+            int numRows = skirts ? density + 3 : density + 1;
+            int numVertices = numRows * numRows;
+            this.rowLatitudes = new double[numRows];
+            this.columnLongitudes = new double[numRows];
+            this.latitudes = new double[numVertices];
+            this.longitudes = new double[numVertices];
+            this.elevations = new double[numVertices];
+            this.points = new double[3 * numVertices];
+            this.density = density;
+            this.skirts = skirts;
+        }
+
+        computeCoordinates(sector.getMinLatitude().degrees, sector.getMaxLatitude().degrees,
+            sector.getDeltaLatDegrees() / density, density, skirts, false, this.rowLatitudes);
+        computeCoordinates(sector.getMinLongitude().degrees, sector.getMaxLongitude().degrees,
+            sector.getDeltaLonDegrees() / density, density, skirts, true, this.columnLongitudes);
+
+        int k = 0;
+        for (double lat : this.rowLatitudes)
+        {
+            for (double lon : this.columnLongitudes)
+            {
+                this.latitudes[k] = lat;
+                this.longitudes[k] = lon;
+                k++;
+            }
+        }
+    }
+
+    /**
+     * Computes the coordinates of the grid's rows or columns.
+     *
+     * @param min     the minimum coordinate, in degrees.
+     * @param max     the maximum coordinate, in degrees.
+     * @param delta   the spacing between interior coordinates, in degrees.
+     * @param density the number of grid cells along the dimension.
+     * @param skirts  true if the first and last coordinates are repeated.
+     * @param clamp   true to clamp the coordinates to the range [-180, 180].
+     * @param out     the array in which to place the coordinates.
+     */
+    protected static void computeCoordinates(double min, double max, double delta, int density, boolean skirts,
+        boolean clamp, double[] out)
+    {
+        double value = min;
+        for (int i = 0; i < out.length; i++)
+        {
+            out[i] = value;
+
+            if (skirts)
+            {
+                if (i > density)
+                    value = max;
+                else if (i != 0)
+                    value += delta;
+            }
+            else
+            {
+                if (i == density)
+                    value = max;
+                else
+                    value += delta;
+            }
+
+            if (clamp)
+            {
+                if (value < -180)
+                    value = -180;
+                else if (value > 180)
+                    value = 180;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the elevation of each grid vertex from a globe. Vertices outside the globe's elevation model coverage
+     * are assigned an elevation of zero.
+     *
+     * @param globe            the globe to retrieve elevations from.
+     * @param targetResolution the desired horizontal resolution, in radians.
+     *
+     * @return the resolution achieved, in radians, as reported by {@link Globe#getElevations(double[], double[],
+     *         double, double[])}.
+     *
+     * @throws IllegalArgumentException if the globe is null.
+     */
+    public double computeElevations(Globe globe, double targetResolution)
+    {
+        if (globe == null)
+        {
+            String message = Logging.getMessage("nullValue.GlobeIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Arrays.fill(this.elevations, 0);
+        return globe.getElevations(this.latitudes, this.longitudes, targetResolution, this.elevations);
+    }
+
+    /**
+     * Computes the Cartesian point of each grid vertex from the grid's current elevations. The elevations are first
+     * multiplied by the vertical exaggeration, then the outermost rows and columns are assigned the skirt elevation if
+     * one is specified.
+     *
+     * @param globe                the globe to compute points on.
+     * @param verticalExaggeration the vertical exaggeration to apply to the elevations.
+     * @param skirtElevation       the elevation of the grid's outermost vertices. May be null, in which case those
+     *                             vertices keep their exaggerated elevations.
+     *
+     * @throws IllegalArgumentException if the globe is null.
+     */
+    public void computePoints(Globe globe, double verticalExaggeration, Double skirtElevation)
+    {
+        if (globe == null)
+        {
+            String message = Logging.getMessage("nullValue.GlobeIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        for (int k = 0; k < this.elevations.length; k++)
+        {
+            this.elevations[k] = verticalExaggeration * this.elevations[k];
+        }
+
+        if (skirtElevation != null)
+        {
+            int last = this.rowLatitudes.length - 1;
+            for (int j = 0, k = 0; j <= last; j++)
+            {
+                for (int i = 0; i <= last; i++, k++)
+                {
+                    if (j == 0 || j == last || i == 0 || i == last)
+                        this.elevations[k] = skirtElevation;
+                }
+            }
+        }
+
+        globe.computePointsFromGrid(this.rowLatitudes, this.columnLongitudes, this.elevations, this.points);
+    }
+
+    /**
+     * Writes the grid's points relative to a reference point into a buffer, beginning at the buffer's first element.
+     * The buffer's position is not changed.
+     *
+     * @param referencePoint the point to subtract from each vertex.
+     * @param buffer         the buffer to write to. Must have room for three floats per vertex.
+     *
+     * @throws IllegalArgumentException if either argument is null.
+     */
+    public void putPoints(Vec4 referencePoint, FloatBuffer buffer)
+    {
+        if (referencePoint == null)
+        {
+            String message = Logging.getMessage("nullValue.PointIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (buffer == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        double[] p = this.points;
+        for (int i = 0; i < p.length; i += 3)
+        {
+            buffer.put(i, (float) (p[i] - referencePoint.x));
+            buffer.put(i + 1, (float) (p[i + 1] - referencePoint.y));
+            buffer.put(i + 2, (float) (p[i + 2] - referencePoint.z));
+        }
+    }
+
+    /**
+     * Writes the grid's points relative to a reference point into an array, beginning at the array's first element.
+     *
+     * @param referencePoint the point to subtract from each vertex.
+     * @param array          the array to write to. Must have room for three floats per vertex.
+     *
+     * @throws IllegalArgumentException if either argument is null.
+     */
+    public void putPoints(Vec4 referencePoint, float[] array)
+    {
+        if (referencePoint == null)
+        {
+            String message = Logging.getMessage("nullValue.PointIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (array == null)
+        {
+            String message = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        double[] p = this.points;
+        for (int i = 0; i < p.length; i += 3)
+        {
+            array[i] = (float) (p[i] - referencePoint.x);
+            array[i + 1] = (float) (p[i + 1] - referencePoint.y);
+            array[i + 2] = (float) (p[i + 2] - referencePoint.z);
+        }
+    }
+}
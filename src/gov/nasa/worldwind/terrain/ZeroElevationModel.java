@@ -31,7 +31,7 @@ package gov.nasa.worldwind.terrain;
 import gov.nasa.worldwind.avlist.AVKey;
 import gov.nasa.worldwind.geom.*;
 
-import java.util.List;
+import java.util.*;
 
 /**
  * An elevation model that always returns zero elevations.
@@ -80,6 +80,25 @@ public class ZeroElevationModel extends AbstractElevationModel
         return this.getElevations(sector, latlons, targetResolution, buffer);
     }
 
+    public double getElevations(double[] latitudes, double[] longitudes, double targetResolution, double[] buffer,
+        boolean parallel)
+    {
+        this.validateElevationArrays(latitudes, longitudes, buffer);
+
+        Arrays.fill(buffer, 0, latitudes.length, 0);
+
+        // Mark the model as used this frame.
+        this.setValue(AVKey.FRAME_TIMESTAMP, System.currentTimeMillis());
+
+        return 0;
+    }
+
+    public double getUnmappedElevations(double[] latitudes, double[] longitudes, double targetResolution,
+        double[] buffer, boolean parallel)
+    {
+        return this.getElevations(latitudes, longitudes, targetResolution, buffer, parallel);
+    }
+
     public int intersects(Sector sector)
     {
         return 0;
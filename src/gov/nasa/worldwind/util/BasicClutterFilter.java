@@ -31,7 +31,7 @@ package gov.nasa.worldwind.util;
 import gov.nasa.worldwind.render.*;
 
 import java.awt.geom.*;
-import java.util.*;
+import java.util.List;
 
 /**
  * A simple clutter filter that compares bounding rectangles to each other.
@@ -41,7 +41,8 @@ import java.util.*;
  */
 public class BasicClutterFilter implements ClutterFilter
 {
-    protected List<Rectangle2D> rectList = new ArrayList<Rectangle2D>();
+    /** Holds the rectangles of the regions already accepted. Retained across frames to avoid reallocating it. */
+    protected ScreenRectangleIndex rectIndex = new ScreenRectangleIndex();
 
     public void apply(DrawContext dc, List<Declutterable> shapes)
     {
@@ -57,7 +58,7 @@ public class BasicClutterFilter implements ClutterFilter
             if (intersectingRegion == null)
             {
                 dc.addOrderedRenderable(shape);
-                this.rectList.add(bounds);
+                this.rectIndex.add(bounds);
             }
         }
 
@@ -66,7 +67,7 @@ public class BasicClutterFilter implements ClutterFilter
 
     protected void clear()
     {
-        this.rectList.clear();
+        this.rectIndex.clear();
     }
 
     /**
@@ -78,16 +79,7 @@ public class BasicClutterFilter implements ClutterFilter
      */
     protected Rectangle2D intersects(Rectangle2D rectangle)
     {
-        if (rectangle == null)
-            return null;
-
-        // Performs a simple linear search. This is a performance bottleneck for very large lists.
-        for (Rectangle2D rect : this.rectList)
-        {
-            if (rectangle.intersects(rect))
-                return rect;
-        }
-
-        return null;
+        // Searches only the accepted regions near the specified region, rather than every accepted region.
+        return this.rectIndex.intersects(rectangle);
     }
 }
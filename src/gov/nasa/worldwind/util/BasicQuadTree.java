@@ -622,238 +622,4 @@ public class BasicQuadTree<T> extends BitSetQuadTreeFilter implements Iterable<T
 
         return false;
     }
-
-    ////////////////////// ONLY TEST CODE BELOW ////////////////////////////////////////////
-
-//    public static void main(String[] args)
-//    {
-////        basicTest();
-////        iteratorTest();
-////        perfTestVisit();
-//        perfTestFind();
-//    }
-//
-//    public abstract static class PerfTestRunner
-//    {
-//        protected abstract void doOp();
-//
-//        protected int numIterations;
-//
-//        protected long run(int numIterations)
-//        {
-//            this.numIterations = numIterations;
-//            long start = System.currentTimeMillis();
-//
-//            for (int i = 0; i < numIterations; i++)
-//            {
-//                this.doOp();
-//            }
-//
-//            return System.currentTimeMillis() - start;
-//        }
-//
-//        public void print(long elapsedTime)
-//        {
-//            System.out.printf("Elapsed time for %d iterations = %d milliseconds\n", this.numIterations, elapsedTime);
-//        }
-//    }
-//
-//    protected static void basicTest()
-//    {
-//        final int treeDepth = 8;
-//
-//        HashMap<String, List<String>> map = new HashMap<String, List<String>>();
-//        final BasicQuadTree<String> tree = new BasicQuadTree<String>(treeDepth, Sector.FULL_SPHERE, map);
-//
-//        LatLon ll = LatLon.fromDegrees(0, 0);
-//        tree.add(ll.toString(), ll.asDegreesArray());
-//
-//        ll = LatLon.fromDegrees(40, 50);
-//        tree.add(ll.toString(), ll.asDegreesArray());
-//
-//        ll = LatLon.fromDegrees(-60, -80);
-//        tree.add(ll.toString(), ll.asDegreesArray());
-//
-//        Set<String> items = tree.getItemsInRegion(Sector.fromDegrees(0, 45, 0, 55), new HashSet<String>());
-//
-//        System.out.printf("Tree depth %d, %d items found\n", treeDepth, items.size());
-//
-//        for (String item : items)
-//        {
-//            System.out.println(item);
-//        }
-//    }
-//
-//    protected static void perfTestVisit()
-//    {
-//        VisitOp filter = new VisitOp<String>(10, Sector.FULL_SPHERE);
-//
-//        long start = System.currentTimeMillis();
-//        for (int i = 0; i < 10; i++)
-//        {
-//            filter.visit(Sector.FULL_SPHERE);
-//        }
-//        long end = System.currentTimeMillis();
-//
-//        System.out.println(
-//            "DONE " + filter.bits.cardinality() + " bits set in " + (end - start) / 10 + " milliseconds");
-//    }
-
-    //
-//
-//    protected static void perfTestFind()
-//    {
-//        final int treeDepth = 8;
-//
-//        Map<String, List<String>> map = new HashMap<String, List<String>>();
-//        final BasicQuadTree<String> tree = new BasicQuadTree<String>(treeDepth, Sector.FULL_SPHERE, map);
-//
-//        LatLon ll = LatLon.fromDegrees(0, 0);
-//        tree.add(ll.toString(), ll.asDegreesArray());
-//
-//        ll = LatLon.fromDegrees(40, 50);
-//        tree.add(ll.toString(), ll.asDegreesArray());
-//
-//        ll = LatLon.fromDegrees(-60, -80);
-//        tree.add(ll.toString(), ll.asDegreesArray());
-//
-//        int count = 0;
-//        for (double lat = -45; lat <= 45; lat += 0.25)
-//        {
-//            for (double lon = 6; lon <= 100; lon += 0.25)
-//            {
-//                ll = LatLon.fromDegrees(lat, lon);
-//                tree.add(ll.toString(), ll.asDegreesArray());
-//                ++count;
-////                if (lat >= 1 && lat <= 5 && lon >= 1 && lon <= 5)
-////                    System.out.println(ll);
-//            }
-//        }
-//
-//        final int finalCount = count;
-//        PerfTestRunner runner = new PerfTestRunner()
-//        {
-//            public Set<String> items;
-//
-//            protected void doOp()
-//            {
-//                this.items = tree.getItemsInRegion(Sector.fromDegrees(-22, 22, 6, 54), new HashSet<String>());
-//            }
-//
-//            @Override
-//            public void print(long elapsedMillis)
-//            {
-//                System.out.printf("Tree depth %d, %d locations in tree, %d items found\n",
-//                    treeDepth, finalCount, items.size());
-//                super.print(elapsedMillis);
-//
-////                for (String item : this.items)
-////                {
-////                    System.out.println(item);
-////                }
-//            }
-//        };
-//        System.out.println("STARTING");
-//        runner.print(runner.run(100));
-//    }
-//
-//    protected static void iteratorTest()
-//    {
-//        final int treeDepth = 8;
-//
-//        HashMap<String, List<String>> map = new HashMap<String, List<String>>();
-//        final BasicQuadTree<String> tree = new BasicQuadTree<String>(treeDepth, Sector.FULL_SPHERE, map);
-//
-//        int count = 0;
-//        for (double lat = -5; lat <= 5; lat += 1)
-//        {
-//            for (double lon = 5; lon <= 10; lon += 1)
-//            {
-//                LatLon ll = LatLon.fromDegrees(lat, lon);
-//                tree.add(ll.toString(), ll.asDegreesArray());
-//                ++count;
-//            }
-//        }
-//
-//        int actualCount = 0;
-//        for (String s : tree)
-//        {
-//            ++actualCount;
-//            System.out.println(s);
-//        }
-//
-//        System.out.printf("Actual count (%d) == Total count (%d): %b\n", actualCount, count, (actualCount == count));
-//    }
-//
-//    /**
-//     * A test class that prints the set bits in the quadtree.
-//     * @param <T> the item type.
-//     */
-//    protected static class PrintBitsOp<T> extends BasicQuadTree<T>
-//    {
-//        public PrintBitsOp(int maxLevel)
-//        {
-//            super(maxLevel, Sector.FULL_SPHERE, null);
-//        }
-//
-//        protected boolean doOperation(int level, int position, double[] nodeRegion, double[] testRegion)
-//        {
-//            int bitNum = this.computeBitPosition(level, position);
-//
-//            this.bits.set(bitNum);
-//
-//            System.out.printf("Level %d, %s, Position %d\n", level, this.makePathString(this.path, level), bitNum);
-//
-//            return level < this.maxLevel;
-//        }
-//
-//        private String makePathString(int[] path, int endIndex)
-//        {
-//            StringBuilder sb = new StringBuilder();
-//
-//            for (int i = 0; i <= endIndex; i++)
-//            {
-//                sb.append(Integer.toString(path[i]));
-//            }
-//
-//            return sb.toString();
-//        }
-//
-//        public void printBits()
-//        {
-//            for (int i = 0; i < levelZeroCells.size(); i++)
-//            {
-//                this.testAndDo(0, i, levelZeroCells.get(i), Sector.FULL_SPHERE.asDegreesArray());
-//            }
-//        }
-//    }
-//
-//    /**
-//     * A test class that visits all the cells in the quadtree and sets their bit in the bit-set.
-//     * @param <T> the item type.
-//     */
-//    protected static class VisitOp<T> extends BasicQuadTree<T>
-//    {
-//        public VisitOp(int maxLevel, Sector region)
-//        {
-//            super(maxLevel, region, null);
-//        }
-//
-//        protected boolean doOperation(int level, int position, double[] nodeRegion, double[] testRegion)
-//        {
-//            int bitNum = this.computeBitPosition(level, position);
-//
-//            this.bits.set(bitNum);
-//
-//            return level < this.maxLevel;
-//        }
-//
-//        public void visit(Sector sector)
-//        {
-//            for (int i = 0; i < levelZeroCells.size(); i++)
-//            {
-//                this.testAndDo(0, i, levelZeroCells.get(i), sector.asDegreesArray());
-//            }
-//        }
-//    }
 }
@@ -0,0 +1,760 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.terrain.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A quadtree that may be read while it's being modified. Unlike {@link BasicQuadTree}, whose methods all synchronize
+ * on the tree, queries on this tree never block: each query reads an immutable snapshot of the tree, and sees either
+ * all or none of the changes made by any one modifying call. Modifications are serialized with one another, and each
+ * publishes a new snapshot that shares all unmodified cells with the previous one. Use {@link #moveAll(java.util.Map)}
+ * to move many items at once and publish a single snapshot for the batch.
+ * <p>
+ * Cells are addressed as in {@link BitSetQuadTreeFilter}, which this tree uses to determine the cells an item or a
+ * query region intersects. Each item appears in the tree once; adding an item already in the tree moves it to the new
+ * coordinates.
+ *
+ * @param <T> the item type.
+ */
+public class ConcurrentQuadTree<T> implements Iterable<T>
+{
+    /** A quadtree cell. Cells reachable from a published snapshot are never modified. */
+    protected static class Cell
+    {
+        /** The modification that created this cell. Only cells created by the current modification are mutable. */
+        protected final long generation;
+        /** The number of items in this cell and its descendants, counting an item once for each leaf it's in. */
+        protected int count;
+        /** The four child cells of an interior cell, indexed by position, or null for a leaf cell. */
+        protected Cell[] children;
+        /** The items of a leaf cell, or null for an interior cell. */
+        protected Object[] items;
+        protected int numItems;
+
+        protected Cell(long generation, boolean isLeaf)
+        {
+            this.generation = generation;
+
+            if (isLeaf)
+                this.items = new Object[2];
+            else
+                this.children = new Cell[4];
+        }
+
+        protected Cell(long generation, Cell cell)
+        {
+            this.generation = generation;
+            this.count = cell.count;
+            this.children = cell.children != null ? cell.children.clone() : null;
+            this.items = cell.items != null ? Arrays.copyOf(cell.items, Math.max(2, cell.numItems + 1)) : null;
+            this.numItems = cell.numItems;
+        }
+
+        protected int indexOf(Object item)
+        {
+            for (int i = 0; i < this.numItems; i++)
+            {
+                if (this.items[i].equals(item))
+                    return i;
+            }
+
+            return -1;
+        }
+    }
+
+    /** An empty bit-set passed to the traversal filters, which use the snapshot's cells in place of a bit-set. */
+    protected static final BitSet EMPTY_BITS = new BitSet(0);
+
+    protected final int numLevels;
+    protected final boolean allowDuplicates;
+    protected final ArrayList<double[]> levelZeroCells;
+    /** The most recently published snapshot. Its children are the level zero cells. */
+    protected volatile Cell root;
+    /** The root of the snapshot being built by the current modification. Accessed only by modifying threads. */
+    protected Cell pendingRoot;
+    protected long generation;
+    /** Serializes modifications. */
+    protected final Object writeLock = new Object();
+    /** The leaf cells of each item. Accessed only by modifying threads. */
+    protected final Map<T, int[]> itemLeaves = new HashMap<T, int[]>();
+    protected final Map<String, T> nameMap = new ConcurrentHashMap<String, T>();
+    protected final FindLeavesOp findLeavesOp;
+
+    /**
+     * Constructs a quadtree of a specified level and spanning a specified region. See {@link
+     * BasicQuadTree#BasicQuadTree(int, gov.nasa.worldwind.geom.Sector, java.util.Map)} for guidance on choosing the
+     * number of levels.
+     *
+     * @param numLevels the number of levels in the quadtree.
+     * @param sector    the region the tree spans.
+     *
+     * @throws IllegalArgumentException if <code>numLevels</code> is less than 1 or the sector is null.
+     */
+    public ConcurrentQuadTree(int numLevels, Sector sector)
+    {
+        this(numLevels, sector, true);
+    }
+
+    /**
+     * Constructs a quadtree of a specified level and spanning a specified region.
+     *
+     * @param numLevels       the number of levels in the quadtree.
+     * @param sector          the region the tree spans.
+     * @param allowDuplicates Indicates whether an item may be associated with more than one leaf cell, as described by
+     *                        {@link BasicQuadTree#BasicQuadTree(int, gov.nasa.worldwind.geom.Sector, java.util.Map,
+     *                        boolean)}.
+     *
+     * @throws IllegalArgumentException if <code>numLevels</code> is less than 1 or the sector is null.
+     */
+    public ConcurrentQuadTree(int numLevels, Sector sector, boolean allowDuplicates)
+    {
+        if (numLevels < 1 || numLevels > 15)
+        {
+            String message = Logging.getMessage("generic.DepthOutOfRange", numLevels);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (sector == null)
+        {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.numLevels = numLevels;
+        this.allowDuplicates = allowDuplicates;
+
+        // Create the level zero cells in the same order as BasicQuadTree.
+        Sector[] subSectors = sector.subdivide();
+        this.levelZeroCells = new ArrayList<double[]>(4);
+        this.levelZeroCells.add(subSectors[0].asDegreesArray());
+        this.levelZeroCells.add(subSectors[1].asDegreesArray());
+        this.levelZeroCells.add(subSectors[3].asDegreesArray());
+        this.levelZeroCells.add(subSectors[2].asDegreesArray());
+
+        this.root = new Cell(0, false);
+        this.findLeavesOp = new FindLeavesOp(this);
+    }
+
+    /**
+     * Returns the number of levels in the tree.
+     *
+     * @return the number of levels in the tree.
+     */
+    public int getNumLevels()
+    {
+        return this.numLevels;
+    }
+
+    /**
+     * Indicates whether the tree contains any items.
+     *
+     * @return true if the tree contains items, otherwise false.
+     */
+    public boolean hasItems()
+    {
+        return this.root.count > 0;
+    }
+
+    /**
+     * Indicates whether an item is contained in the tree.
+     *
+     * @param item the item to check. If null, false is returned.
+     *
+     * @return true if the item is in the tree, otherwise false.
+     */
+    public boolean contains(T item)
+    {
+        if (item == null)
+            return false;
+
+        synchronized (this.writeLock)
+        {
+            return this.itemLeaves.containsKey(item);
+        }
+    }
+
+    /**
+     * Adds an item to the tree, or moves it if it's already in the tree.
+     *
+     * @param item       the item to add.
+     * @param itemCoords an array specifying the region or location of the item. If the array's length is 2 it
+     *                   represents a location in [latitude, longitude]. If its length is 4 it represents a region, with
+     *                   minimum latitude, maximum latitude, minimum longitude and maximum longitude, in that order.
+     *
+     * @throws IllegalArgumentException if either <code>item</code> or <code>itemCoords</code> is null.
+     */
+    public void add(T item, double[] itemCoords)
+    {
+        this.add(item, itemCoords, null);
+    }
+
+    /**
+     * Adds a named item to the tree, or moves it if it's already in the tree. Any name duplicates replace the current
+     * name association; the name then refers to the item added.
+     *
+     * @param item       the item to add.
+     * @param itemCoords an array specifying the region or location of the item, as described by {@link #add(Object,
+     *                   double[])}.
+     * @param itemName   the item name. If null, the item is added without a name.
+     *
+     * @throws IllegalArgumentException if either <code>item</code> or <code>itemCoords</code> is null.
+     */
+    public void add(T item, double[] itemCoords, String itemName)
+    {
+        checkItem(item, itemCoords);
+
+        synchronized (this.writeLock)
+        {
+            this.beginModification();
+            this.moveItem(item, itemCoords);
+            this.endModification();
+
+            if (itemName != null)
+                this.nameMap.put(itemName, item);
+        }
+    }
+
+    /**
+     * Moves an item to new coordinates, adding it to the tree if it's not already in the tree. Queries see the item at
+     * either its old or its new coordinates, but never at both or neither.
+     *
+     * @param item       the item to move.
+     * @param itemCoords the item's new region or location, as described by {@link #add(Object, double[])}.
+     *
+     * @throws IllegalArgumentException if either <code>item</code> or <code>itemCoords</code> is null.
+     */
+    public void move(T item, double[] itemCoords)
+    {
+        this.add(item, itemCoords, null);
+    }
+
+    /**
+     * Moves many items at once, adding any items that are not already in the tree. The moves are published as one
+     * change, so queries see either all or none of them. This is much more efficient than moving items individually,
+     * because cells shared by several moved items are copied once.
+     *
+     * @param moves a map of the items to move to their new coordinates, as described by {@link #add(Object,
+     *              double[])}.
+     *
+     * @throws IllegalArgumentException if the map is null or contains a null item or null coordinates.
+     */
+    public void moveAll(Map<? extends T, double[]> moves)
+    {
+        if (moves == null)
+        {
+            String message = Logging.getMessage("nullValue.MapIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        for (Map.Entry<? extends T, double[]> entry : moves.entrySet())
+        {
+            checkItem(entry.getKey(), entry.getValue());
+        }
+
+        synchronized (this.writeLock)
+        {
+            this.beginModification();
+
+            for (Map.Entry<? extends T, double[]> entry : moves.entrySet())
+            {
+                this.moveItem(entry.getKey(), entry.getValue());
+            }
+
+            this.endModification();
+        }
+    }
+
+    /**
+     * Removes an item from the tree.
+     *
+     * @param item the item to remove. If null, no item is removed.
+     */
+    public void remove(T item)
+    {
+        if (item == null)
+            return;
+
+        synchronized (this.writeLock)
+        {
+            int[] leaves = this.itemLeaves.remove(item);
+            if (leaves == null)
+                return;
+
+            this.beginModification();
+            for (int leaf : leaves)
+            {
+                this.removeFromLeaf(leaf, item);
+            }
+            this.endModification();
+        }
+    }
+
+    /**
+     * Removes an item from the tree by name.
+     *
+     * @param name the name of the item to remove. If null, no item is removed.
+     */
+    public void removeByName(String name)
+    {
+        if (name == null)
+            return;
+
+        synchronized (this.writeLock)
+        {
+            T item = this.nameMap.remove(name);
+            this.remove(item);
+        }
+    }
+
+    /** Removes all items from the tree. */
+    public void clear()
+    {
+        synchronized (this.writeLock)
+        {
+            this.itemLeaves.clear();
+            this.nameMap.clear();
+            this.root = new Cell(++this.generation, false);
+        }
+    }
+
+    /**
+     * Returns a named item.
+     *
+     * @param name the item name. If null, null is returned.
+     *
+     * @return the named item, or null if the item is not in the tree or the specified name is null.
+     */
+    public T getByName(String name)
+    {
+        return name != null ? this.nameMap.get(name) : null;
+    }
+
+    /**
+     * Returns an iterator over the items in the tree at the time this method is called. There is no specific iteration
+     * order and the iterator may return duplicate entries.
+     * <p>
+     * <em>Note</em> The {@link java.util.Iterator#remove()} operation is not supported.
+     *
+     * @return an iterator over the items in the tree.
+     */
+    public Iterator<T> iterator()
+    {
+        final List<T> items = new ArrayList<T>();
+        this.collectItems(this.root, items);
+
+        return Collections.unmodifiableList(items).iterator();
+    }
+
+    /**
+     * Finds and returns the items within a tree cell containing a specified location.
+     *
+     * @param location the location of interest.
+     * @param outItems a {@link Set} in which to place the items. If null, a new set is created.
+     *
+     * @return the set of intersecting items. The same set passed as the <code>outItems</code> argument is returned, or
+     * a new set if that argument is null.
+     *
+     * @throws IllegalArgumentException if <code>location</code> is null.
+     */
+    public Set<T> getItemsAtLocation(LatLon location, Set<T> outItems)
+    {
+        if (location == null)
+        {
+            String message = Logging.getMessage("nullValue.LatLonIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        FindItemsOp<T> op = new FindItemsOp<T>(this, outItems);
+        op.find(location.asDegreesArray());
+
+        return op.items;
+    }
+
+    /**
+     * Finds and returns the items within tree cells containing specified locations. All locations are tested against
+     * the same snapshot of the tree.
+     *
+     * @param locations the locations of interest.
+     * @param outItems  a {@link Set} in which to place the items. If null, a new set is created.
+     *
+     * @return the set of intersecting items. The same set passed as the <code>outItems</code> argument is returned, or
+     * a new set if that argument is null.
+     *
+     * @throws IllegalArgumentException if <code>locations</code> is null.
+     */
+    public Set<T> getItemsAtLocation(Iterable<LatLon> locations, Set<T> outItems)
+    {
+        if (locations == null)
+        {
+            String message = Logging.getMessage("nullValue.LatLonListIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        FindItemsOp<T> op = new FindItemsOp<T>(this, outItems);
+        for (LatLon location : locations)
+        {
+            if (location != null)
+                op.find(location.asDegreesArray());
+        }
+
+        return op.items;
+    }
+
+    /**
+     * Finds and returns the items intersecting a specified sector.
+     *
+     * @param testSector the sector of interest.
+     * @param outItems   a {@link Set} in which to place the items. If null, a new set is created.
+     *
+     * @return the set of intersecting items. The same set passed as the <code>outItems</code> argument is returned, or
+     * a new set if that argument is null.
+     *
+     * @throws IllegalArgumentException if <code>testSector</code> is null.
+     */
+    public Set<T> getItemsInRegion(Sector testSector, Set<T> outItems)
+    {
+        if (testSector == null)
+        {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        FindItemsOp<T> op = new FindItemsOp<T>(this, outItems);
+        op.find(testSector.asDegreesArray());
+
+        return op.items;
+    }
+
+    /**
+     * Finds and returns the items intersecting a specified collection of sectors. All sectors are tested against the
+     * same snapshot of the tree.
+     *
+     * @param testSectors the sectors of interest.
+     * @param outItems    a {@link Set} in which to place the items. If null, a new set is created.
+     *
+     * @return the set of intersecting items. The same set passed as the <code>outItems</code> argument is returned, or
+     * a new set if that argument is null.
+     *
+     * @throws IllegalArgumentException if <code>testSectors</code> is null.
+     */
+    public Set<T> getItemsInRegions(Iterable<Sector> testSectors, Set<T> outItems)
+    {
+        if (testSectors == null)
+        {
+            String message = Logging.getMessage("nullValue.SectorListIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        FindItemsOp<T> op = new FindItemsOp<T>(this, outItems);
+        for (Sector testSector : testSectors)
+        {
+            if (testSector != null)
+                op.find(testSector.asDegreesArray());
+        }
+
+        return op.items;
+    }
+
+    /**
+     * Finds and returns the items intersecting a specified collection of {@link gov.nasa.worldwind.terrain.SectorGeometry}.
+     * This method is a convenience for finding the items intersecting the current visible regions. All sectors are
+     * tested against the same snapshot of the tree.
+     *
+     * @param geometryList the list of sector geometry.
+     * @param outItems     a {@link Set} in which to place the items. If null, a new set is created.
+     *
+     * @return the set of intersecting items. The same set passed as the <code>outItems</code> argument is returned, or
+     * a new set if that argument is null.
+     *
+     * @throws IllegalArgumentException if <code>geometryList</code> is null.
+     */
+    public Set<T> getItemsInRegions(SectorGeometryList geometryList, Set<T> outItems)
+    {
+        if (geometryList == null)
+        {
+            String message = Logging.getMessage("nullValue.SectorGeometryListIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        FindItemsOp<T> op = new FindItemsOp<T>(this, outItems);
+        for (SectorGeometry testSector : geometryList)
+        {
+            if (testSector != null)
+                op.find(testSector.getSector().asDegreesArray());
+        }
+
+        return op.items;
+    }
+
+    protected static void checkItem(Object item, double[] itemCoords)
+    {
+        if (item == null)
+        {
+            String message = Logging.getMessage("nullValue.ItemIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (itemCoords == null)
+        {
+            String message = Logging.getMessage("nullValue.CoordinatesAreNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    //**************************************************************//
+    //********************  Modification  **************************//
+    //**************************************************************//
+
+    protected void beginModification()
+    {
+        this.generation++;
+        this.pendingRoot = this.root;
+    }
+
+    protected void endModification()
+    {
+        this.root = this.pendingRoot; // publish the new snapshot
+        this.pendingRoot = null;
+    }
+
+    protected void moveItem(T item, double[] itemCoords)
+    {
+        int[] oldLeaves = this.itemLeaves.get(item);
+        int[] newLeaves = this.findLeavesOp.findLeaves(itemCoords);
+
+        if (oldLeaves != null && Arrays.equals(oldLeaves, newLeaves))
+            return; // the item remains in the same cells
+
+        if (oldLeaves != null)
+        {
+            for (int leaf : oldLeaves)
+            {
+                this.removeFromLeaf(leaf, item);
+            }
+        }
+
+        for (int leaf : newLeaves)
+        {
+            this.addToLeaf(leaf, item);
+        }
+
+        this.itemLeaves.put(item, newLeaves);
+    }
+
+    /**
+     * Returns a cell that may be modified by the current modification: either the cell itself, if the current
+     * modification created it, or a copy of the cell.
+     *
+     * @param cell the cell to modify.
+     *
+     * @return the modifiable cell.
+     */
+    protected Cell modifiable(Cell cell)
+    {
+        return cell.generation == this.generation ? cell : new Cell(this.generation, cell);
+    }
+
+    protected void addToLeaf(int leaf, Object item)
+    {
+        Cell cell = this.pendingRoot = this.modifiable(this.pendingRoot);
+        cell.count++;
+
+        int maxLevel = this.numLevels - 1;
+        for (int level = 0; level <= maxLevel; level++)
+        {
+            int position = (leaf >> (2 * (maxLevel - level))) & 3;
+            Cell child = cell.children[position];
+            child = child != null ? this.modifiable(child) : new Cell(this.generation, level == maxLevel);
+            child.count++;
+            cell.children[position] = child;
+            cell = child;
+        }
+
+        if (cell.numItems == cell.items.length)
+            cell.items = Arrays.copyOf(cell.items, 2 * cell.numItems);
+
+        cell.items[cell.numItems++] = item;
+    }
+
+    protected void removeFromLeaf(int leaf, Object item)
+    {
+        Cell cell = this.pendingRoot = this.modifiable(this.pendingRoot);
+        cell.count--;
+
+        int maxLevel = this.numLevels - 1;
+        for (int level = 0; level <= maxLevel; level++)
+        {
+            int position = (leaf >> (2 * (maxLevel - level))) & 3;
+            Cell child = this.modifiable(cell.children[position]);
+            cell.children[position] = --child.count > 0 ? child : null; // prune empty cells
+            cell = child;
+        }
+
+        int index = cell.indexOf(item);
+        cell.items[index] = cell.items[--cell.numItems];
+        cell.items[cell.numItems] = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected void collectItems(Cell cell, List<T> outItems)
+    {
+        if (cell.items != null)
+        {
+            for (int i = 0; i < cell.numItems; i++)
+            {
+                outItems.add((T) cell.items[i]);
+            }
+        }
+        else
+        {
+            for (Cell child : cell.children)
+            {
+                if (child != null)
+                    this.collectItems(child, outItems);
+            }
+        }
+    }
+
+    //**************************************************************//
+    //********************  Traversal  *****************************//
+    //**************************************************************//
+
+    /**
+     * Determines the leaf cells an item intersects. The leaves are identified by their index within the leaf level,
+     * whose base 4 digits are the positions of the leaf and its ancestors within their parent cells.
+     */
+    protected static class FindLeavesOp extends BitSetQuadTreeFilter
+    {
+        protected final ConcurrentQuadTree<?> tree;
+        protected int[] leaves = new int[4];
+        protected int numLeaves;
+
+        public FindLeavesOp(ConcurrentQuadTree<?> tree)
+        {
+            super(tree.numLevels, EMPTY_BITS);
+            this.tree = tree;
+        }
+
+        public int[] findLeaves(double[] itemCoords)
+        {
+            this.numLeaves = 0;
+            this.start();
+
+            for (int i = 0; i < this.tree.levelZeroCells.size(); i++)
+            {
+                this.testAndDo(0, i, this.tree.levelZeroCells.get(i), itemCoords);
+            }
+
+            return Arrays.copyOf(this.leaves, this.numLeaves);
+        }
+
+        protected boolean doOperation(int level, int position, double[] cellRegion, double[] itemCoords)
+        {
+            if (level < this.maxLevel)
+                return true;
+
+            if (this.numLeaves == this.leaves.length)
+                this.leaves = Arrays.copyOf(this.leaves, 2 * this.numLeaves);
+
+            this.leaves[this.numLeaves++] = this.computeBitPosition(level, position) - this.levelSizes[level];
+
+            if (!this.tree.allowDuplicates)
+                this.stop();
+
+            return false;
+        }
+    }
+
+    /** Collects the items in the leaf cells of one snapshot that intersect one or more regions. */
+    protected static class FindItemsOp<T> extends BitSetQuadTreeFilter
+    {
+        protected final ConcurrentQuadTree<T> tree;
+        protected final Cell root;
+        protected final Cell[] cells;
+        protected final Set<T> items;
+
+        public FindItemsOp(ConcurrentQuadTree<T> tree, Set<T> outItems)
+        {
+            super(tree.numLevels, EMPTY_BITS);
+            this.tree = tree;
+            this.root = tree.root; // read the snapshot once
+            this.cells = new Cell[tree.numLevels];
+            this.items = outItems != null ? outItems : new HashSet<T>();
+        }
+
+        public void find(double[] testRegion)
+        {
+            if (this.root.count == 0)
+                return;
+
+            for (int i = 0; i < this.tree.levelZeroCells.size(); i++)
+            {
+                this.testAndDo(0, i, this.tree.levelZeroCells.get(i), testRegion);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        protected boolean doOperation(int level, int position, double[] cellRegion, double[] testRegion)
+        {
+            // Traversal is depth first, so the parent of a cell at this level is the most recent cell at the level
+            // above.
+            Cell parent = level == 0 ? this.root : this.cells[level - 1];
+            Cell cell = parent.children[position];
+            if (cell == null)
+                return false;
+
+            if (level < this.maxLevel)
+            {
+                this.cells[level] = cell;
+                return true;
+            }
+
+            for (int i = 0; i < cell.numItems; i++)
+            {
+                this.items.add((T) cell.items[i]);
+            }
+
+            return false;
+        }
+    }
+}
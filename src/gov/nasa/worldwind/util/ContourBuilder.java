@@ -28,9 +28,12 @@
 
 package gov.nasa.worldwind.util;
 
+import gov.nasa.worldwind.exception.WWRuntimeException;
 import gov.nasa.worldwind.geom.*;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Generates contour lines at threshold values in a rectangular array of numeric values. ContourBuilder differs from the
@@ -51,157 +54,91 @@ import java.util.*;
  * the rectangular array's maximum value, though the result is an empty list of contour lines. The domain of contour
  * line coordinates is the XY Cartesian space defined by the rectangular array's width and height. X coordinates range
  * from 0 to width-1, and Y coordinates range from 0 to height-1.
+ * <p>
+ * Contour lines for many threshold values may be computed in one call to {@link #buildContourLines(double[], int,
+ * gov.nasa.worldwind.util.ContourBuilder.ContourLineVisitor)}, which computes each threshold value's contour lines
+ * in parallel and passes them to a visitor as they're completed.
  *
  * @author dcollins
  * @version $Id: ContourBuilder.java 2436 2014-11-14 23:20:50Z danm $
  */
 public class ContourBuilder
 {
-    protected static class CellInfo
+    /**
+     * Receives the contour lines computed by {@link ContourBuilder#buildContourLines(double[], int,
+     * gov.nasa.worldwind.util.ContourBuilder.ContourLineVisitor)}. When contour lines are computed in parallel, this
+     * is called concurrently from multiple threads, and contour lines for different threshold values arrive in no
+     * particular order.
+     */
+    public interface ContourLineVisitor
     {
-        public final int x;
-        public final int y;
-        public final int contourMask;
-        public final Map<Direction, Double> edgeWeights = new HashMap<Direction, Double>();
-        public final Set<Direction> visitedDirections = new HashSet<Direction>(4);
-
-        public CellInfo(int x, int y, int contourMask)
-        {
-            this.x = x;
-            this.y = y;
-            this.contourMask = contourMask;
-        }
+        /**
+         * Called once for each contour line.
+         *
+         * @param value       the threshold value the contour line is associated with.
+         * @param coordinates the contour line's XY coordinates, in the format returned by {@link
+         *                    ContourBuilder#buildContourLines(double)}.
+         */
+        void visitContourLine(double value, List<double[]> coordinates);
     }
 
-    protected static class CellKey
-    {
-        public final int x;
-        public final int y;
+    // Contour cell edge directions. Each contour cell is stored as one byte holding the cell's 4-bit contour mask in
+    // its low bits, and a visited flag for each direction in its high bits.
+    protected static final int NORTH = 0;
+    protected static final int SOUTH = 1;
+    protected static final int EAST = 2;
+    protected static final int WEST = 3;
 
-        public CellKey(int x, int y)
-        {
-            this.x = x;
-            this.y = y;
-        }
+    protected static final int MASK_BITS = 0x0F;
+    protected static final int VISITED_SHIFT = 4;
 
-        @Override
-        public boolean equals(Object o)
-        {
-            if (this == o)
-                return true;
-            if (o == null || this.getClass() != o.getClass())
-                return false;
+    protected int width;
+    protected int height;
+    protected double[] values;
 
-            CellKey that = (CellKey) o;
-            return this.x == that.x && this.y == that.y;
-        }
+    /** The reverse of each direction. */
+    protected static final int[] dirRev = {SOUTH, NORTH, WEST, EAST};
+    /** The exit direction for each contour mask and entry direction, or -1 if the contour does not enter there. */
+    protected static final int[][] dirNext = new int[16][4];
+    /** The directions in which contours are traversed from a starting cell, for each contour mask. */
+    protected static final int[][] dirStart = new int[16][];
 
-        @Override
-        public int hashCode()
+    static
+    {
+        for (int[] array : dirNext)
         {
-            return 31 * this.x + this.y;
+            Arrays.fill(array, -1);
         }
-    }
 
-    protected static enum Direction
-    {
-        NORTH, SOUTH, EAST, WEST
+        // The method traverseContourCells requires that the starting directions are enumerated in the order listed
+        // here.
+        putDirections(1, SOUTH, WEST);
+        putDirections(2, SOUTH, EAST);
+        putDirections(3, EAST, WEST);
+        putDirections(4, NORTH, EAST);
+        putDirections(5, NORTH, WEST, SOUTH, EAST);
+        putDirections(6, NORTH, SOUTH);
+        putDirections(7, NORTH, WEST);
+        putDirections(8, NORTH, WEST);
+        putDirections(9, NORTH, SOUTH);
+        putDirections(10, NORTH, EAST, SOUTH, WEST);
+        putDirections(11, NORTH, EAST);
+        putDirections(12, EAST, WEST);
+        putDirections(13, SOUTH, EAST);
+        putDirections(14, SOUTH, WEST);
     }
 
-    protected int width;
-    protected int height;
-    protected double[] values;
-    protected Map<CellKey, CellInfo> contourCellMap = new HashMap<CellKey, CellInfo>();
-    protected List<CellKey> contourCellList = new ArrayList<CellKey>();
-    protected List<List<double[]>> contourList = new ArrayList<List<double[]>>();
-    protected List<double[]> currentContour;
-
-    protected static Map<Direction, Direction> dirRev = new HashMap<Direction, Direction>();
-    protected static Map<Integer, LinkedHashMap<Direction, Direction>> dirNext
-        = new HashMap<Integer, LinkedHashMap<Direction, Direction>>();
-
-    static
+    protected static void putDirections(int mask, int... pairs)
     {
-        dirRev.put(Direction.NORTH, Direction.SOUTH);
-        dirRev.put(Direction.SOUTH, Direction.NORTH);
-        dirRev.put(Direction.EAST, Direction.WEST);
-        dirRev.put(Direction.WEST, Direction.EAST);
-
-        // Use LinkedHaspMap to store the maps in dirNext in order to preserve enumeration order. The method
-        // traverseContourCells requires that the directions are enumerated in the order listed here.
-        LinkedHashMap<Direction, Direction> map = new LinkedHashMap<Direction, Direction>();
-        map.put(Direction.SOUTH, Direction.WEST);
-        map.put(Direction.WEST, Direction.SOUTH);
-        dirNext.put(1, map);
-
-        map = new LinkedHashMap<Direction, Direction>();
-        map.put(Direction.SOUTH, Direction.EAST);
-        map.put(Direction.EAST, Direction.SOUTH);
-        dirNext.put(2, map);
-
-        map = new LinkedHashMap<Direction, Direction>();
-        map.put(Direction.EAST, Direction.WEST);
-        map.put(Direction.WEST, Direction.EAST);
-        dirNext.put(3, map);
-
-        map = new LinkedHashMap<Direction, Direction>();
-        map.put(Direction.NORTH, Direction.EAST);
-        map.put(Direction.EAST, Direction.NORTH);
-        dirNext.put(4, map);
-
-        map = new LinkedHashMap<Direction, Direction>();
-        map.put(Direction.NORTH, Direction.WEST);
-        map.put(Direction.WEST, Direction.NORTH);
-        map.put(Direction.SOUTH, Direction.EAST);
-        map.put(Direction.EAST, Direction.SOUTH);
-        dirNext.put(5, map);
-
-        map = new LinkedHashMap<Direction, Direction>();
-        map.put(Direction.NORTH, Direction.SOUTH);
-        map.put(Direction.SOUTH, Direction.NORTH);
-        dirNext.put(6, map);
-
-        map = new LinkedHashMap<Direction, Direction>();
-        map.put(Direction.NORTH, Direction.WEST);
-        map.put(Direction.WEST, Direction.NORTH);
-        dirNext.put(7, map);
-
-        map = new LinkedHashMap<Direction, Direction>();
-        map.put(Direction.NORTH, Direction.WEST);
-        map.put(Direction.WEST, Direction.NORTH);
-        dirNext.put(8, map);
-
-        map = new LinkedHashMap<Direction, Direction>();
-        map.put(Direction.NORTH, Direction.SOUTH);
-        map.put(Direction.SOUTH, Direction.NORTH);
-        dirNext.put(9, map);
-
-        map = new LinkedHashMap<Direction, Direction>();
-        map.put(Direction.NORTH, Direction.EAST);
-        map.put(Direction.EAST, Direction.NORTH);
-        map.put(Direction.SOUTH, Direction.WEST);
-        map.put(Direction.WEST, Direction.SOUTH);
-        dirNext.put(10, map);
-
-        map = new LinkedHashMap<Direction, Direction>();
-        map.put(Direction.NORTH, Direction.EAST);
-        map.put(Direction.EAST, Direction.NORTH);
-        dirNext.put(11, map);
-
-        map = new LinkedHashMap<Direction, Direction>();
-        map.put(Direction.EAST, Direction.WEST);
-        map.put(Direction.WEST, Direction.EAST);
-        dirNext.put(12, map);
-
-        map = new LinkedHashMap<Direction, Direction>();
-        map.put(Direction.SOUTH, Direction.EAST);
-        map.put(Direction.EAST, Direction.SOUTH);
-        dirNext.put(13, map);
-
-        map = new LinkedHashMap<Direction, Direction>();
-        map.put(Direction.SOUTH, Direction.WEST);
-        map.put(Direction.WEST, Direction.SOUTH);
-        dirNext.put(14, map);
+        dirStart[mask] = new int[pairs.length];
+
+        for (int i = 0; i < pairs.length; i += 2)
+        {
+            dirNext[mask][pairs[i]] = pairs[i + 1];
+            dirNext[mask][pairs[i + 1]] = pairs[i];
+            dirStart[mask][i] = pairs[i];
+            dirStart[mask][i + 1] = pairs[i + 1];
+        }
     }
 
     /**
@@ -270,12 +207,16 @@ public class ContourBuilder
      */
     public List<List<double[]>> buildContourLines(double value)
     {
-        this.assembleContourCells(value);
-        this.traverseContourCells();
+        final List<List<double[]>> result = new ArrayList<List<double[]>>();
 
-        List<List<double[]>> result = new ArrayList<List<double[]>>(this.contourList); // return a copy to insulate from changes
-
-        this.clearContourCells(); // clears contourList
+        byte[] cells = this.assembleContourCells(value);
+        this.traverseContourCells(cells, value, new ContourLineVisitor()
+        {
+            public void visitContourLine(double value, List<double[]> coordinates)
+            {
+                result.add(coordinates);
+            }
+        });
 
         return result;
     }
@@ -316,9 +257,6 @@ public class ContourBuilder
             throw new IllegalArgumentException(msg);
         }
 
-        this.assembleContourCells(value);
-        this.traverseContourCells();
-
         double maxLat = sector.getMaxLatitude().degrees;
         double minLon = sector.getMinLongitude().degrees;
         double deltaLat = sector.getDeltaLatDegrees();
@@ -326,9 +264,9 @@ public class ContourBuilder
 
         List<List<Position>> result = new ArrayList<List<Position>>();
 
-        for (List<double[]> coordList : this.contourList)
+        for (List<double[]> coordList : this.buildContourLines(value))
         {
-            ArrayList<Position> positionList = new ArrayList<Position>();
+            ArrayList<Position> positionList = new ArrayList<Position>(coordList.size());
 
             for (double[] coord : coordList)
             {
@@ -342,221 +280,325 @@ public class ContourBuilder
             result.add(positionList);
         }
 
-        this.clearContourCells(); // clears contourList
-
         return result;
     }
 
-    protected void assembleContourCells(double value)
+    /**
+     * Computes the contour lines at each of the specified threshold values, and passes each contour line to the
+     * visitor as soon as it's computed. Contour lines for each threshold value are identical to those returned by
+     * {@link #buildContourLines(double)}. Threshold values are processed concurrently by up to the specified number of
+     * threads, each of which needs one byte of working memory per array value.
+     *
+     * @param values      the threshold values (i.e. isovalues) to compute contour lines for.
+     * @param parallelism the maximum number of threads to use. 1 computes each threshold value in turn on the calling
+     *                    thread.
+     * @param visitor     the visitor to receive the contour lines. Called concurrently from multiple threads when
+     *                    parallelism is greater than 1.
+     *
+     * @throws IllegalArgumentException if the values or the visitor are null, or if the parallelism is less than 1.
+     * @throws WWRuntimeException       if computing the contour lines fails.
+     */
+    public void buildContourLines(final double[] values, int parallelism, final ContourLineVisitor visitor)
     {
-        // Divide the 2D scalar field into a grid of evenly spaced contouring cells. Every 2x2 block of field values
-        // forms a cell. The contouring grid's dimensions are therefore one less than the 2D scalar field. Based on
-        // the approach outlined at http://en.wikipedia.org/wiki/Marching_squares
+        if (values == null)
+        {
+            String msg = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (parallelism < 1)
+        {
+            String msg = Logging.getMessage("generic.ArgumentOutOfRange", "parallelism < 1");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
 
-        this.contourCellMap.clear();
-        this.contourCellList.clear();
+        if (visitor == null)
+        {
+            String msg = Logging.getMessage("nullValue.VisitorIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
 
-        for (int y = 0; y < this.height - 1; y++)
+        int numThreads = Math.min(parallelism, values.length);
+        if (numThreads <= 1)
         {
-            for (int x = 0; x < this.width - 1; x++)
+            for (double value : values)
             {
-                // Get the field values associated with the contouring cell's four corners.
-                double nw = this.valueFor(x, y);
-                double ne = this.valueFor(x + 1, y);
-                double se = this.valueFor(x + 1, y + 1);
-                double sw = this.valueFor(x, y + 1);
+                this.traverseContourCells(this.assembleContourCells(value), value, visitor);
+            }
 
-                // Assemble a 4-bit mask indicating whether or not the field values at the cell's corners are above or
-                // below the threshold. The mask has 1 where the field value is above the threshold, and 0 otherwise.
-                int mask = 0;
-                mask |= (nw > value) ? 1 : 0; // 1000
-                mask <<= 1;
-                mask |= (ne > value) ? 1 : 0; // 0100
-                mask <<= 1;
-                mask |= (se > value) ? 1 : 0; // 0010
-                mask <<= 1;
-                mask |= (sw > value) ? 1 : 0; // 0001
-
-                if (mask == 0 || mask == 15)
-                    continue; // no contour; all values above or below the threshold value
-
-                // Disambiguate saddle point for masks 0x0101 and 0x1010, per Wikipedia page suggestion.
-                if (mask == 5 || mask == 10)
+            return;
+        }
+
+        final AtomicInteger nextValue = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<Future<?>>(numThreads);
+            for (int t = 0; t < numThreads; t++)
+            {
+                futures.add(executor.submit(new Callable<Void>()
                 {
-                    double ctr = (nw + ne + se + sw) / 4; // sample center value as the average of four corners
-                    if (mask == 5 && ctr <= value) // center value causes change in direction; flip the mask to 10
-                        mask = 10;
-                    else if (mask == 10 && ctr <= value) // center value causes change in direction; flip the mask to 5
-                        mask = 5;
-                }
+                    public Void call()
+                    {
+                        byte[] cells = null;
 
-                CellInfo cell = new CellInfo(x, y, mask);
+                        int i;
+                        while ((i = nextValue.getAndIncrement()) < values.length)
+                        {
+                            cells = assembleContourCells(values[i], cells);
+                            traverseContourCells(cells, values[i], visitor);
+                        }
 
-                // Compute weights associated with edge intersections.
-                if ((ne > value) ^ (nw > value))
-                    cell.edgeWeights.put(Direction.NORTH, (value - nw) / (ne - nw));
-                if ((se > value) ^ (sw > value))
-                    cell.edgeWeights.put(Direction.SOUTH, (value - sw) / (se - sw));
-                if ((se > value) ^ (ne > value))
-                    cell.edgeWeights.put(Direction.EAST, (value - ne) / (se - ne));
-                if ((sw > value) ^ (nw > value))
-                    cell.edgeWeights.put(Direction.WEST, (value - nw) / (sw - nw));
+                        return null;
+                    }
+                }));
+            }
 
-                this.putContourCell(cell);
+            for (Future<?> future : futures)
+            {
+                future.get();
             }
         }
+        catch (ExecutionException e)
+        {
+            nextValue.set(values.length); // Stop the remaining threads after their current threshold value.
+            String msg = Logging.getMessage("generic.ExceptionAttemptingToComputeContourLines");
+            Logging.logger().log(java.util.logging.Level.SEVERE, msg, e.getCause());
+            throw new WWRuntimeException(msg, e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            nextValue.set(values.length);
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
     }
 
-    protected void traverseContourCells()
+    protected byte[] assembleContourCells(double value)
+    {
+        return this.assembleContourCells(value, null);
+    }
+
+    /**
+     * Computes the contour mask of every contouring cell for a threshold value. Every 2x2 block of field values forms a
+     * cell, so the contouring grid's dimensions are one less than the 2D scalar field's. Each cell is stored as one
+     * byte in row-major order. Cells which the contour does not cross have the mask 0.
+     *
+     * @param value the threshold value.
+     * @param cells an array to reuse, or null to allocate a new one.
+     *
+     * @return the contour cells.
+     */
+    protected byte[] assembleContourCells(double value, byte[] cells)
     {
-        List<List<double[]>> contours = new ArrayList<List<double[]>>();
+        // Divide the 2D scalar field into a grid of evenly spaced contouring cells. Based on the approach outlined at
+        // http://en.wikipedia.org/wiki/Marching_squares
 
-        this.contourList.clear();
+        int cellsWidth = this.width - 1;
+        int cellsHeight = this.height - 1;
+        int numCells = cellsWidth * cellsHeight;
+        if (cells == null || cells.length < numCells)
+            cells = new byte[numCells];
 
-        for (CellKey key : this.contourCellList) // iterate over all possible contour starting points
+        double[] values = this.values;
+        for (int y = 0; y < cellsHeight; y++)
         {
-            CellInfo cell = this.contourCellMap.get(key);
+            int row = y * this.width;
+            int cellRow = y * cellsWidth;
+
+            // Track whether the field values on the cell's west edge are above the threshold as we move east.
+            boolean nwAbove = values[row] > value;
+            boolean swAbove = values[row + this.width] > value;
 
-            for (Direction dir : dirNext.get(cell.contourMask).keySet()) // either 2 or 4 starting directions
+            for (int x = 0; x < cellsWidth; x++)
             {
-                if (cell.visitedDirections.contains(dir))
+                boolean neAbove = values[row + x + 1] > value;
+                boolean seAbove = values[row + this.width + x + 1] > value;
+
+                // Assemble a 4-bit mask indicating whether or not the field values at the cell's corners are above or
+                // below the threshold. The mask has 1 where the field value is above the threshold, and 0 otherwise.
+                int mask = (nwAbove ? 8 : 0) | (neAbove ? 4 : 0) | (seAbove ? 2 : 0) | (swAbove ? 1 : 0);
+
+                if (mask == 15)
                 {
-                    continue;
+                    mask = 0; // no contour; all values above the threshold value
+                }
+                else if (mask == 5 || mask == 10)
+                {
+                    // Disambiguate saddle point for masks 0x0101 and 0x1010, per Wikipedia page suggestion. Sample
+                    // the center value as the average of the four corners. A center value below the threshold causes
+                    // a change in direction, so flip the mask.
+                    double ctr = (values[row + x] + values[row + x + 1] + values[row + this.width + x + 1]
+                        + values[row + this.width + x]) / 4;
+                    if (ctr <= value)
+                        mask = (mask == 5) ? 10 : 5;
                 }
 
-                this.currentContour = new ArrayList<double[]>();
-                this.traverseContour(cell, dir);
-                contours.add(this.currentContour);
-                this.currentContour = null;
+                cells[cellRow + x] = (byte) mask;
+                nwAbove = neAbove;
+                swAbove = seAbove;
+            }
+        }
 
-                if (contours.size() == 2) // combine each pair of starting directions into a single polyline
+        return cells;
+    }
+
+    protected void traverseContourCells(byte[] cells, double value, ContourLineVisitor visitor)
+    {
+        int cellsWidth = this.width - 1;
+        int cellsHeight = this.height - 1;
+        List<double[]> firstContour = null;
+
+        for (int y = 0; y < cellsHeight; y++) // iterate over all possible contour starting points
+        {
+            for (int x = 0; x < cellsWidth; x++)
+            {
+                int mask = cells[x + y * cellsWidth] & MASK_BITS;
+                if (mask == 0)
+                    continue;
+
+                for (int dir : dirStart[mask]) // either 2 or 4 starting directions
                 {
-                    if (contours.get(0).size() == 0 && contours.get(1).size() == 0)
+                    if (isVisited(cells[x + y * cellsWidth], dir))
+                        continue;
+
+                    List<double[]> contour = this.traverseContour(cells, value, x, y, dir);
+
+                    if (firstContour == null)
+                    {
+                        firstContour = contour;
+                        continue;
+                    }
+
+                    // Combine each pair of starting directions into a single polyline.
+                    if (firstContour.size() == 0 && contour.size() == 0)
                     {
-                        String msg = Logging.getMessage("generic.UnexpectedCondition", "both contours are of zero length");
+                        String msg = Logging.getMessage("generic.UnexpectedCondition",
+                            "both contours are of zero length");
                         Logging.logger().severe(msg);
                     }
                     else
                     {
-                        Collections.reverse(contours.get(0));
-                        contours.get(0).addAll(contours.get(1));
-                        this.contourList.add(contours.get(0));
+                        Collections.reverse(firstContour);
+                        firstContour.addAll(contour);
+                        visitor.visitContourLine(value, firstContour);
                     }
 
-                    contours.clear();
+                    firstContour = null;
                 }
-            }
 
-            if (contours.size() != 0)
-            {
-                String msg = Logging.getMessage("generic.UnexpectedCondition", "non-empty contours list");
-                Logging.logger().severe(msg);
+                if (firstContour != null)
+                {
+                    String msg = Logging.getMessage("generic.UnexpectedCondition", "non-empty contours list");
+                    Logging.logger().severe(msg);
+                }
             }
         }
     }
 
-    protected void traverseContour(CellInfo cell, Direction dir)
+    protected List<double[]> traverseContour(byte[] cells, double value, int x, int y, int dir)
     {
-        Direction dirNext = dir;
-        Direction dirPrev = dir;  // use Prev same as Next for first iteration (i.e., for seed cell)
+        List<double[]> contour = new ArrayList<double[]>();
+        int cellsWidth = this.width - 1;
+        int cellsHeight = this.height - 1;
+        int dirNext = dir;
+        int dirPrev = dir;  // use Prev same as Next for first iteration (i.e., for seed cell)
 
-        while (cell != null && !cell.visitedDirections.contains(dirNext))
+        while (true)
         {
+            int index = x + y * cellsWidth;
+            int cell = cells[index];
+            if (isVisited(cell, dirNext))
+                break;
+
             // Mark the contour cell as visited.
-            cell.visitedDirections.add(dirNext);
-            cell.visitedDirections.add(dirPrev);
+            cells[index] = (byte) (cell | (1 << (VISITED_SHIFT + dirNext)) | (1 << (VISITED_SHIFT + dirPrev)));
 
-            addIntersection(cell, dirNext);
+            this.addIntersection(contour, value, x, y, dirNext);
 
             // Advance to the next cell.
-            cell = this.nextCell(cell, dirNext);
-
-            // guard cell use in computing dirNext
-            if (cell != null)
+            switch (dirNext)
             {
-                // Advance to the next direction.
-                dirPrev = ContourBuilder.dirRev.get(dirNext);
-                dirNext = ContourBuilder.dirNext.get(cell.contourMask).get(dirPrev);
+                case NORTH:
+                    y--;
+                    break;
+                case SOUTH:
+                    y++;
+                    break;
+                case EAST:
+                    x++;
+                    break;
+                case WEST:
+                    x--;
+                    break;
             }
+
+            if (x < 0 || x >= cellsWidth || y < 0 || y >= cellsHeight)
+                break;
+
+            int mask = cells[x + y * cellsWidth] & MASK_BITS;
+            if (mask == 0)
+                break;
+
+            // Advance to the next direction.
+            dirPrev = dirRev[dirNext];
+            dirNext = ContourBuilder.dirNext[mask][dirPrev];
+            if (dirNext < 0)
+                break;
         }
+
+        return contour;
     }
 
-    protected void addIntersection(CellInfo cell, Direction dir)
+    protected void addIntersection(List<double[]> contour, double value, int x, int y, int dir)
     {
-        // Compute the intersection of the contour cell in the next direction. The cell's xy coordinates initially
-        // indicate the cell's Southwest corner.
-        double xIntersect = cell.x;
-        double yIntersect = cell.y;
+        // Compute the intersection of the contour cell in the next direction by interpolating the field values along
+        // the cell edge. The cell's xy coordinates initially indicate the cell's Northwest corner.
+        double xIntersect = x;
+        double yIntersect = y;
 
         switch (dir)
         {
             case NORTH:
-                xIntersect += cell.edgeWeights.get(dir); // interpolate along the north edge
+                double nw = this.valueFor(x, y);
+                xIntersect += (value - nw) / (this.valueFor(x + 1, y) - nw); // interpolate along the north edge
                 break;
             case SOUTH:
-                xIntersect += cell.edgeWeights.get(dir); // interpolate along the south edge
+                double sw = this.valueFor(x, y + 1);
+                xIntersect += (value - sw) / (this.valueFor(x + 1, y + 1) - sw); // interpolate along the south edge
                 yIntersect += 1; // move from the north to the south
                 break;
             case EAST:
+                double ne = this.valueFor(x + 1, y);
                 xIntersect += 1; // move from the west to the east
-                yIntersect += cell.edgeWeights.get(dir); // interpolate along the east edge
+                yIntersect += (value - ne) / (this.valueFor(x + 1, y + 1) - ne); // interpolate along the east edge
                 break;
             case WEST:
-                yIntersect += cell.edgeWeights.get(dir); // interpolate along the west edge
+                nw = this.valueFor(x, y);
+                yIntersect += (value - nw) / (this.valueFor(x, y + 1) - nw); // interpolate along the west edge
                 break;
             default:
-                String msg = Logging.getMessage("generic.UnexpectedDirection", dirNext);
+                String msg = Logging.getMessage("generic.UnexpectedDirection", dir);
                 Logging.logger().severe(msg);
                 break;
         }
 
-        this.currentContour.add(new double[] {xIntersect, yIntersect});
+        contour.add(new double[] {xIntersect, yIntersect});
     }
 
-    protected void clearContourCells()
+    protected static boolean isVisited(int cell, int dir)
     {
-        this.contourCellMap.clear();
-        this.contourCellList.clear();
-        this.contourList.clear();
-        this.currentContour = null;
-    }
-
-    protected CellInfo nextCell(CellInfo cell, Direction dir)
-    {
-        int x = cell.x;
-        int y = cell.y;
-
-        switch (dir)
-        {
-            case NORTH:
-                return this.getContourCell(x, y - 1);
-            case SOUTH:
-                return this.getContourCell(x, y + 1);
-            case EAST:
-                return this.getContourCell(x + 1, y);
-            case WEST:
-                return this.getContourCell(x - 1, y);
-            default:
-                String msg = Logging.getMessage("generic.UnexpectedDirection", dirNext);
-                Logging.logger().severe(msg);
-                return null;
-        }
+        return (cell & (1 << (VISITED_SHIFT + dir))) != 0;
     }
 
     protected double valueFor(int x, int y)
     {
         return this.values[x + y * this.width];
     }
-
-    protected void putContourCell(CellInfo cell)
-    {
-        CellKey key = new CellKey(cell.x, cell.y);
-        this.contourCellMap.put(key, cell);
-        this.contourCellList.add(key);
-    }
-
-    protected CellInfo getContourCell(int x, int y)
-    {
-        return this.contourCellMap.get(new CellKey(x, y));
-    }
 }
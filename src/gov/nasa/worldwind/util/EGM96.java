@@ -25,14 +25,15 @@
  * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
  * notices and licenses PDF found in code directory.
  */
-
 package gov.nasa.worldwind.util;
 
-import gov.nasa.worldwind.avlist.*;
 import gov.nasa.worldwind.exception.WWRuntimeException;
 import gov.nasa.worldwind.geom.Angle;
 
 import java.io.*;
+import java.net.URL;
+import java.nio.*;
+import java.util.Arrays;
 
 /**
  * Computes EGM96 geoid offsets.
@@ -41,6 +42,15 @@ import java.io.*;
  * values. Each row corresponding to a latitude, with the first row corresponding to +90 degrees (90 North). The integer
  * values must be in centimeters.
  * <p>
+ * The grid is not read until the first offset is requested. A grid in the local file system, either named directly or
+ * found on a directory in the classpath, is mapped into memory rather than copied into the heap. A grid in an archive
+ * is read into memory.
+ * <p>
+ * Offsets are interpolated between the grid's posts either bilinearly, the default, or with a bicubic Catmull-Rom
+ * spline, which is smooth across post boundaries. See {@link #setInterpolation(String)}. Offsets for many locations
+ * are best computed with {@link #getOffsets(double[], double[], double[])} or {@link #addOffsets(double[], double[],
+ * double[])}, which take locations as arrays of degrees and allocate no objects.
+ * <p>
  * Once constructed, the instance can be passed to {@link gov.nasa.worldwind.globes.EllipsoidalGlobe#applyEGMA96Offsets(String)}
  * to apply the offets to elevations produced by the globe.
  *
@@ -49,15 +59,24 @@ import java.io.*;
  */
 public class EGM96
 {
+    /** Indicates bilinear interpolation between the four grid posts surrounding a location. */
+    public static final String INTERPOLATION_BILINEAR = "gov.nasa.worldwind.util.EGM96.InterpolationBilinear";
+    /** Indicates bicubic Catmull-Rom interpolation between the sixteen grid posts nearest a location. */
+    public static final String INTERPOLATION_BICUBIC = "gov.nasa.worldwind.util.EGM96.InterpolationBicubic";
+
     protected String offsetsFilePath;
-    protected BufferWrapper deltas;
+    protected volatile ShortBuffer deltas;
+    protected volatile boolean loadFailed;
+    protected String interpolation = INTERPOLATION_BILINEAR;
 
     /**
-     * Construct an instance.
+     * Construct an instance. The offsets file is located, but not read until an offset is first requested.
      *
      * @param offsetsFilePath a path pointing to a file with the geoid offsets. See the class description above for a
      *                        description of the file.
-     * @throws java.io.IOException if there's a problem reading the file.
+     * @throws java.io.IOException if there's a problem reading the file. Since the file is read when first needed, this
+     *                             is not thrown by this implementation.
+     * @throws WWRuntimeException  if the file cannot be found.
      */
     public EGM96(String offsetsFilePath) throws IOException
     {
@@ -70,25 +89,99 @@ public class EGM96
 
         this.offsetsFilePath = offsetsFilePath;
 
-        this.loadOffsetFile();
+        if (!new File(offsetsFilePath).exists() && EGM96.class.getResource("/" + offsetsFilePath) == null)
+        {
+            String msg = Logging.getMessage("generic.CannotOpenFile", this.offsetsFilePath);
+            Logging.logger().severe(msg);
+            throw new WWRuntimeException(msg);
+        }
     }
 
-    protected void loadOffsetFile() throws IOException
+    /**
+     * Indicates how offsets are interpolated between the grid's posts.
+     *
+     * @return the interpolation, either {@link #INTERPOLATION_BILINEAR} or {@link #INTERPOLATION_BICUBIC}.
+     */
+    public String getInterpolation()
     {
-        InputStream is = WWIO.openFileOrResourceStream(this.offsetsFilePath, EGM96.class);
-        if (is == null)
+        return this.interpolation;
+    }
+
+    /**
+     * Specifies how offsets are interpolated between the grid's posts. Bilinear interpolation, the default, is the
+     * faster of the two. Bicubic interpolation reads sixteen posts rather than four, and has no slope discontinuities
+     * at post boundaries.
+     *
+     * @param interpolation the interpolation, either {@link #INTERPOLATION_BILINEAR} or {@link
+     *                      #INTERPOLATION_BICUBIC}.
+     *
+     * @throws IllegalArgumentException if the interpolation is null or is not one of the recognized values.
+     */
+    public void setInterpolation(String interpolation)
+    {
+        if (interpolation == null)
         {
-            String msg = Logging.getMessage("generic.CannotOpenFile", this.offsetsFilePath);
+            String msg = Logging.getMessage("nullValue.StringIsNull");
             Logging.logger().severe(msg);
-            throw new WWRuntimeException(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (!interpolation.equals(INTERPOLATION_BILINEAR) && !interpolation.equals(INTERPOLATION_BICUBIC))
+        {
+            String msg = Logging.getMessage("generic.ArgumentOutOfRange", interpolation);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
         }
 
+        this.interpolation = interpolation;
+    }
+
+    /**
+     * Returns the offset grid, reading or mapping it if it has not yet been loaded.
+     *
+     * @return the offset grid, or null if the grid cannot be loaded.
+     */
+    protected ShortBuffer getDeltas()
+    {
+        ShortBuffer buffer = this.deltas;
+        if (buffer != null || this.loadFailed)
+            return buffer;
+
+        synchronized (this)
+        {
+            if (this.deltas == null && !this.loadFailed)
+            {
+                try
+                {
+                    this.loadOffsetFile();
+                }
+                catch (Exception e)
+                {
+                    // Offsets are zero from here on. Loading is not retried, since it would fail for every location.
+                    this.loadFailed = true;
+                }
+            }
+
+            return this.deltas;
+        }
+    }
+
+    protected void loadOffsetFile() throws IOException
+    {
+        ByteBuffer bytes;
         try
         {
-            AVList bufferParams = new AVListImpl();
-            bufferParams.setValue(AVKey.DATA_TYPE, AVKey.INT16);
-            bufferParams.setValue(AVKey.BYTE_ORDER, AVKey.BIG_ENDIAN);
-            this.deltas = BufferWrapper.wrap(WWIO.readStreamToBuffer(is, true), bufferParams);
+            File file = new File(this.offsetsFilePath);
+            if (!file.exists())
+            {
+                URL url = EGM96.class.getResource("/" + this.offsetsFilePath);
+                file = url != null ? WWIO.convertURLToFile(url) : null;
+            }
+
+            if (file != null && file.exists())
+                bytes = WWIO.mapFile(file);
+            else
+                bytes = this.readOffsetFile();
         }
         catch (IOException e)
         {
@@ -96,6 +189,31 @@ public class EGM96
             Logging.logger().log(java.util.logging.Level.SEVERE, msg, e);
             throw e;
         }
+
+        if (bytes.remaining() < 2 * NUM_ROWS * NUM_COLS)
+        {
+            String msg = Logging.getMessage("generic.InvalidFileLength", bytes.remaining());
+            Logging.logger().severe(msg);
+            throw new WWRuntimeException(msg);
+        }
+
+        this.deltas = bytes.order(ByteOrder.BIG_ENDIAN).asShortBuffer();
+    }
+
+    protected ByteBuffer readOffsetFile() throws IOException
+    {
+        InputStream is = WWIO.openFileOrResourceStream(this.offsetsFilePath, EGM96.class);
+        if (is == null)
+        {
+            String msg = Logging.getMessage("generic.CannotOpenFile", this.offsetsFilePath);
+            Logging.logger().severe(msg);
+            throw new WWRuntimeException(msg);
+        }
+
+        try
+        {
+            return WWIO.readStreamToBuffer(is, true);
+        }
         finally
         {
             WWIO.closeStream(is, this.offsetsFilePath);
@@ -118,6 +236,8 @@ public class EGM96
     protected static Angle INTERVAL = Angle.fromDegrees(15d / 60d); // 15' angle delta
     protected static int NUM_ROWS = 721;
     protected static int NUM_COLS = 1440;
+    /** The number of grid posts per degree of latitude or longitude; the reciprocal of the interval. */
+    protected static final double POSTS_PER_DEGREE = 4;
 
     public double getOffset(Angle latitude, Angle longitude)
     {
@@ -128,69 +248,194 @@ public class EGM96
             throw new IllegalArgumentException(msg);
         }
 
+        return this.getOffset(latitude.degrees, longitude.degrees);
+    }
+
+    /**
+     * Computes the geoid offset at a location.
+     *
+     * @param latitude  the location's latitude, in degrees.
+     * @param longitude the location's longitude, in degrees.
+     *
+     * @return the offset, in meters, or 0 if the offsets file cannot be read.
+     */
+    public double getOffset(double latitude, double longitude)
+    {
         // Return 0 for all offsets if the file failed to load. A log message of the failure will have been generated
         // by the load method.
-        if (this.deltas == null)
+        ShortBuffer grid = this.getDeltas();
+        if (grid == null)
             return 0;
 
-        double lat = latitude.degrees;
-        double lon = longitude.degrees >= 0 ? longitude.degrees : longitude.degrees + 360;
+        return INTERPOLATION_BICUBIC.equals(this.interpolation)
+            ? this.interpolateBicubic(grid, latitude, longitude) : this.interpolateBilinear(grid, latitude, longitude);
+    }
+
+    /**
+     * Computes the geoid offsets at a collection of locations.
+     *
+     * @param latitudes  the locations' latitudes, in degrees.
+     * @param longitudes the locations' longitudes, in degrees. Must have at least as many values as the latitudes.
+     * @param offsets    an array to hold the offset, in meters, at each location. Must have at least as many values as
+     *                   the latitudes. Offsets are 0 if the offsets file cannot be read.
+     *
+     * @throws IllegalArgumentException if any array is null or if the longitudes or offsets arrays are too small.
+     */
+    public void getOffsets(double[] latitudes, double[] longitudes, double[] offsets)
+    {
+        this.computeOffsets(latitudes, longitudes, offsets, false);
+    }
+
+    /**
+     * Adds the geoid offset at each of a collection of locations to the corresponding elevation. This converts
+     * elevations relative to the geoid to elevations relative to the ellipsoid.
+     *
+     * @param latitudes  the locations' latitudes, in degrees.
+     * @param longitudes the locations' longitudes, in degrees. Must have at least as many values as the latitudes.
+     * @param elevations the elevation, in meters, at each location. Must have at least as many values as the
+     *                   latitudes. The elevations are not changed if the offsets file cannot be read.
+     *
+     * @throws IllegalArgumentException if any array is null or if the longitudes or elevations arrays are too small.
+     */
+    public void addOffsets(double[] latitudes, double[] longitudes, double[] elevations)
+    {
+        this.computeOffsets(latitudes, longitudes, elevations, true);
+    }
 
-        int topRow = (int) ((90 - lat) / INTERVAL.degrees);
+    protected void computeOffsets(double[] latitudes, double[] longitudes, double[] out, boolean add)
+    {
+        if (latitudes == null || longitudes == null || out == null)
+        {
+            String msg = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (longitudes.length < latitudes.length || out.length < latitudes.length)
+        {
+            String msg = Logging.getMessage("generic.ArrayInvalidLength", Math.min(longitudes.length, out.length));
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        ShortBuffer grid = this.getDeltas();
+        if (grid == null)
+        {
+            if (!add)
+                Arrays.fill(out, 0, latitudes.length, 0d);
+            return;
+        }
+
+        boolean bicubic = INTERPOLATION_BICUBIC.equals(this.interpolation);
+        for (int i = 0; i < latitudes.length; i++)
+        {
+            double offset = bicubic ? this.interpolateBicubic(grid, latitudes[i], longitudes[i])
+                : this.interpolateBilinear(grid, latitudes[i], longitudes[i]);
+            out[i] = add ? out[i] + offset : offset;
+        }
+    }
+
+    protected double interpolateBilinear(ShortBuffer grid, double lat, double lon)
+    {
+        if (lon < 0)
+            lon += 360;
+
+        // Grid coordinates of the location, with rows increasing southward from 90 North. The interval is a power of
+        // two, so scaling by the number of posts per degree is exact.
+        double y = (90 - lat) * POSTS_PER_DEGREE;
+        double x = lon * POSTS_PER_DEGREE;
+
+        int topRow = (int) y;
         if (lat <= -90)
             topRow = NUM_ROWS - 2;
+        topRow = Math.max(0, Math.min(topRow, NUM_ROWS - 2));
         int bottomRow = topRow + 1;
 
         // Note that the number of columns does not repeat the column at 0 longitude, so we must force the right
         // column to 0 for any longitude that's less than one interval from 360, and force the left column to the
         // last column of the grid.
-        int leftCol = (int) (lon / INTERVAL.degrees);
+        int leftCol = Math.max(0, (int) x);
         int rightCol = leftCol + 1;
-        if (lon >= 360 - INTERVAL.degrees)
+        if (leftCol >= NUM_COLS - 1)
         {
             leftCol = NUM_COLS - 1;
             rightCol = 0;
         }
 
-        double latBottom = 90 - bottomRow * INTERVAL.degrees;
-        double lonLeft = leftCol * INTERVAL.degrees;
+        double ul = grid.get(topRow * NUM_COLS + leftCol);
+        double ll = grid.get(bottomRow * NUM_COLS + leftCol);
+        double lr = grid.get(bottomRow * NUM_COLS + rightCol);
+        double ur = grid.get(topRow * NUM_COLS + rightCol);
+
+        double u = x - leftCol;
+        double v = bottomRow - y;
+
+        double top = ul + u * (ur - ul);
+        double bottom = ll + u * (lr - ll);
+        double offset = bottom + v * (top - bottom);
+
+        return offset / 100d; // convert centimeters to meters
+    }
+
+    protected double interpolateBicubic(ShortBuffer grid, double lat, double lon)
+    {
+        if (lon < 0)
+            lon += 360;
+
+        // Locate the cell containing the location, with its top-left post at (row, col), and the location's fraction
+        // of the way across the cell from that post.
+        double y = Math.max(0, Math.min((90 - lat) * POSTS_PER_DEGREE, NUM_ROWS - 1));
+        int row = Math.min((int) y, NUM_ROWS - 2);
+        double v = y - row;
 
-        double ul = this.gePostOffset(topRow, leftCol);
-        double ll = this.gePostOffset(bottomRow, leftCol);
-        double lr = this.gePostOffset(bottomRow, rightCol);
-        double ur = this.gePostOffset(topRow, rightCol);
+        double x = Math.max(0, lon * POSTS_PER_DEGREE);
+        int col = (int) x;
+        double u = x - col;
 
-        double u = (lon - lonLeft) / INTERVAL.degrees;
-        double v = (lat - latBottom) / INTERVAL.degrees;
+        // The Catmull-Rom spline is separable. Its four weights along each axis depend only on the location's fraction
+        // of the way across the cell, so they're computed once and shared by the sixteen surrounding posts.
+        double u2 = u * u;
+        double u3 = u2 * u;
+        double wu0 = 0.5 * (-u3 + 2 * u2 - u);
+        double wu1 = 0.5 * (3 * u3 - 5 * u2 + 2);
+        double wu2 = 0.5 * (-3 * u3 + 4 * u2 + u);
+        double wu3 = 0.5 * (u3 - u2);
 
-        double pll = (1.0 - u) * (1.0 - v);
-        double plr = u * (1.0 - v);
-        double pur = u * v;
-        double pul = (1.0 - u) * v;
+        double v2 = v * v;
+        double v3 = v2 * v;
+        double wv0 = 0.5 * (-v3 + 2 * v2 - v);
+        double wv1 = 0.5 * (3 * v3 - 5 * v2 + 2);
+        double wv2 = 0.5 * (-3 * v3 + 4 * v2 + v);
+        double wv3 = 0.5 * (v3 - v2);
 
-        double offset = pll * ll + plr * lr + pur * ur + pul * ul;
+        // Columns wrap around the antimeridian, and rows past the poles repeat the polar row.
+        int col0 = (col + NUM_COLS - 1) % NUM_COLS;
+        int col1 = col % NUM_COLS;
+        int col2 = (col + 1) % NUM_COLS;
+        int col3 = (col + 2) % NUM_COLS;
+        int row0 = Math.max(0, row - 1) * NUM_COLS;
+        int row1 = row * NUM_COLS;
+        int row2 = (row + 1) * NUM_COLS;
+        int row3 = Math.min(row + 2, NUM_ROWS - 1) * NUM_COLS;
+
+        double offset = wv0 * (wu0 * grid.get(row0 + col0) + wu1 * grid.get(row0 + col1)
+            + wu2 * grid.get(row0 + col2) + wu3 * grid.get(row0 + col3))
+            + wv1 * (wu0 * grid.get(row1 + col0) + wu1 * grid.get(row1 + col1)
+            + wu2 * grid.get(row1 + col2) + wu3 * grid.get(row1 + col3))
+            + wv2 * (wu0 * grid.get(row2 + col0) + wu1 * grid.get(row2 + col1)
+            + wu2 * grid.get(row2 + col2) + wu3 * grid.get(row2 + col3))
+            + wv3 * (wu0 * grid.get(row3 + col0) + wu1 * grid.get(row3 + col1)
+            + wu2 * grid.get(row3 + col2) + wu3 * grid.get(row3 + col3));
 
         return offset / 100d; // convert centimeters to meters
     }
 
     protected double gePostOffset(int row, int col)
     {
-        int k = row * NUM_COLS + col;
-
-        if (k >= this.deltas.length())
-            System.out.println(k);
+        ShortBuffer grid = this.getDeltas();
+        if (grid == null)
+            return 0;
 
-        return this.deltas.getInt(k);
+        return grid.get(row * NUM_COLS + col);
     }
-//
-//    public static void main(String[] args)
-//    {
-//        EGM96 egm96 = new EGM96("config/EGM96.dat");
-//
-//        LatLon latLon = LatLon.fromDegrees(46.166195, -94.405447);
-////        double offset = egm96.getOffset(latLon.getLatitude(), latLon.getLongitude());
-////        double offset = egm96.getOffset(Angle.NEG90, Angle.POS360);
-//        double offset = egm96.getOffset(Angle.fromDegrees(-89.9), Angle.fromDegrees(359.9));
-//        System.out.println(offset / 100);
-//    }
 }
@@ -44,8 +44,10 @@ public class PerformanceStatistic implements Comparable<PerformanceStatistic>
     public static final String FRAME_TIME = "gov.nasa.worldwind.perfstat.FrameTime";
     public static final String IMAGE_TILE_COUNT = "gov.nasa.worldwind.perfstat.ImageTileCount";
     public static final String TERRAIN_TILE_COUNT = "gov.nasa.worldwind.perfstat.TerrainTileCount";
+    public static final String TERRAIN_GEOMETRY = "gov.nasa.worldwind.perfstat.TerrainGeometry";
     public static final String MEMORY_CACHE = "gov.nasa.worldwind.perfstat.MemoryCache";
     public static final String PICK_TIME = "gov.nasa.worldwind.perfstat.PickTime";
+    public static final String RETRIEVAL_QUEUE = "gov.nasa.worldwind.perfstat.RetrievalQueue";
     public static final String JVM_HEAP = "gov.nasa.worldwind.perfstat.JvmHeap";
     public static final String JVM_HEAP_USED = "gov.nasa.worldwind.perfstat.JvmHeapUsed";
     public static final String TEXTURE_CACHE = "gov.nasa.worldwind.perfstat.TextureCache";
@@ -49,8 +49,8 @@ import java.util.List;
  */
 public class PlacemarkClutterFilter implements ClutterFilter
 {
-    /** Holds the rectangles of the regions already drawn. */
-    protected List<Rectangle2D> rectList = new ArrayList<Rectangle2D>();
+    /** Holds the rectangles of the regions already drawn. Retained across frames to avoid reallocating it. */
+    protected ScreenRectangleIndex rectIndex = new ScreenRectangleIndex();
     /** Maintains a list of regions and the shapes associated with each region. */
     protected Map<Rectangle2D, List<Declutterable>> shapeMap = new HashMap<Rectangle2D, List<Declutterable>>();
 
@@ -82,7 +82,7 @@ public class PlacemarkClutterFilter implements ClutterFilter
     /** Release all the resources used in the most recent filter application. */
     protected void clear()
     {
-        this.rectList.clear();
+        this.rectIndex.clear();
         this.shapeMap.clear();
     }
 
@@ -96,16 +96,7 @@ public class PlacemarkClutterFilter implements ClutterFilter
      */
     protected Rectangle2D intersects(Rectangle2D rectangle)
     {
-        if (rectangle == null)
-            return null;
-
-        for (Rectangle2D rect : this.rectList)
-        {
-            if (rectangle.intersects(rect))
-                return rect;
-        }
-
-        return null;
+        return this.rectIndex.intersects(rectangle);
     }
 
     /**
@@ -122,7 +113,7 @@ public class PlacemarkClutterFilter implements ClutterFilter
         {
             shapeList = new ArrayList<Declutterable>(1);
             this.shapeMap.put(rectangle, shapeList);
-            this.rectList.add(rectangle);
+            this.rectIndex.add(rectangle);
         }
 
         shapeList.add(shape);
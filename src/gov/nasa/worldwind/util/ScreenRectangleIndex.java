@@ -0,0 +1,283 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.util;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+/**
+ * A spatial hash of screen rectangles, used by clutter filters to find the regions that overlap an incoming region
+ * without comparing it to every region already accepted. Rectangles are bucketed into a uniform grid of square cells.
+ * A rectangle is entered in every cell it covers, and a query examines only the rectangles in the cells the query
+ * covers. Rectangles covering more than {@link #MAX_CELLS_PER_RECTANGLE} cells are kept in a separate list which every
+ * query examines.
+ * <p>
+ * The index is intended to be filled and cleared once per frame. Clearing retains the index's storage, so an index
+ * reused across frames allocates only when it must hold more rectangles than it has before.
+ */
+public class ScreenRectangleIndex
+{
+    /** The default width and height of a grid cell, in pixels. */
+    public static final double DEFAULT_CELL_SIZE = 64;
+    /** Rectangles covering more grid cells than this are not entered in the grid. */
+    protected static final int MAX_CELLS_PER_RECTANGLE = 64;
+
+    protected final double cellSize;
+    /** The rectangles in the index, in the order they were added. */
+    protected Rectangle2D[] rectangles = new Rectangle2D[64];
+    protected int numRectangles;
+    /** The first entry of each hash bucket, or -1 if the bucket is empty. */
+    protected int[] buckets = new int[1024];
+    /** The rectangle index of each grid entry. */
+    protected int[] entryRectangles = new int[256];
+    /** The next entry in the same bucket, or -1. */
+    protected int[] entryNext = new int[256];
+    protected int numEntries;
+    /** Rectangles too large to enter in the grid. */
+    protected int[] largeRectangles = new int[16];
+    protected int numLargeRectangles;
+
+    /** Creates an empty index with the default cell size. */
+    public ScreenRectangleIndex()
+    {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Creates an empty index with a specified cell size.
+     *
+     * @param cellSize the width and height of a grid cell, in pixels. Best results are obtained with a cell size
+     *                 comparable to the size of a typical rectangle.
+     *
+     * @throws IllegalArgumentException if the cell size is not a positive number.
+     */
+    public ScreenRectangleIndex(double cellSize)
+    {
+        if (!(cellSize > 0))
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "cellSize <= 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.cellSize = cellSize;
+        Arrays.fill(this.buckets, -1);
+    }
+
+    /**
+     * Returns the number of rectangles in the index.
+     *
+     * @return the number of rectangles added since the index was last cleared.
+     */
+    public int size()
+    {
+        return this.numRectangles;
+    }
+
+    /** Removes all rectangles from the index, retaining its storage for reuse. */
+    public void clear()
+    {
+        if (this.numEntries > 0)
+            Arrays.fill(this.buckets, -1);
+
+        Arrays.fill(this.rectangles, 0, this.numRectangles, null);
+        this.numRectangles = 0;
+        this.numEntries = 0;
+        this.numLargeRectangles = 0;
+    }
+
+    /**
+     * Adds a rectangle to the index. The index holds a reference to the rectangle, which must not be modified while
+     * it's in the index.
+     *
+     * @param rectangle the rectangle to add.
+     *
+     * @throws IllegalArgumentException if the rectangle is null.
+     */
+    public void add(Rectangle2D rectangle)
+    {
+        if (rectangle == null)
+        {
+            String message = Logging.getMessage("nullValue.RectangleIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        // An empty rectangle never intersects another rectangle, so there's no need to enter it in the grid.
+        if (rectangle.isEmpty())
+        {
+            this.addRectangle(rectangle);
+            return;
+        }
+
+        int minX = this.cellFor(rectangle.getMinX());
+        int minY = this.cellFor(rectangle.getMinY());
+        int maxX = this.cellFor(rectangle.getMaxX());
+        int maxY = this.cellFor(rectangle.getMaxY());
+
+        if (isLarge(minX, minY, maxX, maxY))
+        {
+            if (this.numLargeRectangles == this.largeRectangles.length)
+                this.largeRectangles = Arrays.copyOf(this.largeRectangles, 2 * this.numLargeRectangles);
+
+            this.largeRectangles[this.numLargeRectangles++] = this.addRectangle(rectangle);
+            return;
+        }
+
+        // Keep the number of buckets at least the number of entries so that buckets stay short.
+        int numCells = (maxX - minX + 1) * (maxY - minY + 1);
+        if (this.numEntries + numCells > this.buckets.length)
+            this.rehash(2 * this.buckets.length);
+
+        int index = this.addRectangle(rectangle);
+        for (int y = minY; y <= maxY; y++)
+        {
+            for (int x = minX; x <= maxX; x++)
+            {
+                this.addEntry(x, y, index);
+            }
+        }
+    }
+
+    /**
+     * Returns the first rectangle added to the index that intersects a specified rectangle, as determined by {@link
+     * Rectangle2D#intersects(Rectangle2D)}. This is the same rectangle a linear search of the rectangles in the order
+     * they were added would find.
+     *
+     * @param rectangle the rectangle to test.
+     *
+     * @return the first intersecting rectangle, or null if the rectangle is null or intersects no rectangle in the
+     * index.
+     */
+    public Rectangle2D intersects(Rectangle2D rectangle)
+    {
+        if (rectangle == null || rectangle.isEmpty() || this.numRectangles == 0)
+            return null;
+
+        int minX = this.cellFor(rectangle.getMinX());
+        int minY = this.cellFor(rectangle.getMinY());
+        int maxX = this.cellFor(rectangle.getMaxX());
+        int maxY = this.cellFor(rectangle.getMaxY());
+
+        // A query covering many cells is faster as a linear search.
+        if (isLarge(minX, minY, maxX, maxY))
+        {
+            for (int i = 0; i < this.numRectangles; i++)
+            {
+                if (rectangle.intersects(this.rectangles[i]))
+                    return this.rectangles[i];
+            }
+
+            return null;
+        }
+
+        int first = Integer.MAX_VALUE;
+
+        for (int i = 0; i < this.numLargeRectangles; i++)
+        {
+            int index = this.largeRectangles[i];
+            if (index < first && rectangle.intersects(this.rectangles[index]))
+                first = index;
+        }
+
+        int mask = this.buckets.length - 1;
+        for (int y = minY; y <= maxY; y++)
+        {
+            for (int x = minX; x <= maxX; x++)
+            {
+                // Buckets may hold entries for other cells, which the intersection test rejects.
+                for (int e = this.buckets[hash(x, y) & mask]; e >= 0; e = this.entryNext[e])
+                {
+                    int index = this.entryRectangles[e];
+                    if (index < first && rectangle.intersects(this.rectangles[index]))
+                        first = index;
+                }
+            }
+        }
+
+        return (first < this.numRectangles) ? this.rectangles[first] : null;
+    }
+
+    protected int cellFor(double coordinate)
+    {
+        // Casting clamps coordinates beyond the integer range, and maps NaN to cell 0.
+        return (int) Math.floor(coordinate / this.cellSize);
+    }
+
+    protected static boolean isLarge(int minX, int minY, int maxX, int maxY)
+    {
+        long numCells = ((long) maxX - minX + 1) * ((long) maxY - minY + 1);
+        return numCells > MAX_CELLS_PER_RECTANGLE;
+    }
+
+    protected static int hash(int x, int y)
+    {
+        return (x * 73856093) ^ (y * 19349663);
+    }
+
+    protected int addRectangle(Rectangle2D rectangle)
+    {
+        if (this.numRectangles == this.rectangles.length)
+            this.rectangles = Arrays.copyOf(this.rectangles, 2 * this.numRectangles);
+
+        this.rectangles[this.numRectangles] = rectangle;
+        return this.numRectangles++;
+    }
+
+    protected void addEntry(int x, int y, int index)
+    {
+        if (this.numEntries == this.entryRectangles.length)
+        {
+            this.entryRectangles = Arrays.copyOf(this.entryRectangles, 2 * this.numEntries);
+            this.entryNext = Arrays.copyOf(this.entryNext, 2 * this.numEntries);
+        }
+
+        int bucket = hash(x, y) & (this.buckets.length - 1);
+        int entry = this.numEntries++;
+        this.entryRectangles[entry] = index;
+        this.entryNext[entry] = this.buckets[bucket];
+        this.buckets[bucket] = entry;
+    }
+
+    protected void rehash(int numBuckets)
+    {
+        // Entries don't record their cell, so re-enter every grid rectangle in the larger table.
+        this.buckets = new int[numBuckets];
+        Arrays.fill(this.buckets, -1);
+
+        int numRectangles = this.numRectangles;
+        this.numEntries = 0;
+        this.numLargeRectangles = 0;
+        this.numRectangles = 0;
+
+        for (int i = 0; i < numRectangles; i++)
+        {
+            this.add(this.rectangles[i]);
+        }
+    }
+}
@@ -33,6 +33,10 @@ import gov.nasa.worldwind.avlist.AVKey;
 import java.util.concurrent.*;
 
 /**
+ * Runs tasks on a pool of threads sized by {@link AVKey#TASK_POOL_SIZE}. When {@link AVKey#TASK_USE_VIRTUAL_THREADS}
+ * is true and the Java platform supports virtual threads, the pool's threads are virtual threads. The pool size and the
+ * first-in, first-out order of queued tasks are the same in either mode.
+ *
  * @author Tom Gaskins
  * @version $Id: ThreadedTaskService.java 1171 2013-02-11 21:45:02Z dcollins $
  */
@@ -52,8 +56,16 @@ public class ThreadedTaskService extends WWObjectImpl implements TaskService, Th
         Integer poolSize = Configuration.getIntegerValue(AVKey.TASK_POOL_SIZE, DEFAULT_CORE_POOL_SIZE);
         Integer queueSize = Configuration.getIntegerValue(AVKey.TASK_QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
 
+        ThreadFactory threadFactory = null;
+        if (Configuration.getBooleanValue(AVKey.TASK_USE_VIRTUAL_THREADS, false))
+        {
+            threadFactory = WWUtil.getVirtualThreadFactory();
+            if (threadFactory == null)
+                Logging.logger().info(Logging.getMessage("generic.VirtualThreadsUnavailable"));
+        }
+
         // this.executor runs the tasks, each in their own thread
-        this.executor = new TaskExecutor(poolSize, queueSize);
+        this.executor = new TaskExecutor(poolSize, queueSize, threadFactory);
 
         // this.activeTasks holds the list of currently executing tasks
         this.activeTasks = new ConcurrentLinkedQueue<Runnable>();
@@ -80,7 +92,7 @@ public class ThreadedTaskService extends WWObjectImpl implements TaskService, Th
     {
         private static final long THREAD_TIMEOUT = 2; // keep idle threads alive this many seconds
 
-        private TaskExecutor(int poolSize, int queueSize)
+        private TaskExecutor(int poolSize, int queueSize, final ThreadFactory threadFactory)
         {
             super(poolSize, poolSize, THREAD_TIMEOUT, TimeUnit.SECONDS,
                 new ArrayBlockingQueue<Runnable>(queueSize),
@@ -88,9 +100,10 @@ public class ThreadedTaskService extends WWObjectImpl implements TaskService, Th
                 {
                     public Thread newThread(Runnable runnable)
                     {
-                        Thread thread = new Thread(runnable);
-                        thread.setDaemon(true);
-                        thread.setPriority(Thread.MIN_PRIORITY);
+                        Thread thread = threadFactory != null ? threadFactory.newThread(runnable)
+                            : new Thread(runnable);
+                        thread.setDaemon(true); // virtual threads are always daemon threads
+                        thread.setPriority(Thread.MIN_PRIORITY); // has no effect on virtual threads
                         thread.setUncaughtExceptionHandler(ThreadedTaskService.this);
                         return thread;
                     }
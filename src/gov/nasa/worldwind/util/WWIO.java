@@ -1237,13 +1237,18 @@ public class WWIO
             // Determine whether the file can be treated like a File, e.g., a jar entry.
             URI uri = url.toURI();
             if (uri.isOpaque())
-                return false; // TODO: Determine how to check the date of non-Files
+            {
+                // Non-file URLs, e.g., jar entries or packed file store entries, may report their modification
+                // time through their URL connection. Treat an unknown modification time as not out of date.
+                long lastModified = url.openConnection().getLastModified();
+                return lastModified != 0 && lastModified < expiryTime;
+            }
 
             File file = new File(uri);
 
             return file.exists() && file.lastModified() < expiryTime;
         }
-        catch (URISyntaxException e)
+        catch (URISyntaxException | IOException e)
         {
             Logging.logger().log(Level.SEVERE, "WWIO.ExceptionValidatingFileExpiration", url);
             return false;
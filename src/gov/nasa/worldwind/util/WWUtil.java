@@ -1292,4 +1292,53 @@ public class WWUtil
             normals.put(i3 + 2, (float) n3.z);
         }
     }
+
+    /**
+     * Indicates whether the running Java platform supports virtual threads. Virtual threads are available on Java 21
+     * and later; this method detects them reflectively so that World Wind continues to run on earlier platforms.
+     *
+     * @return true if virtual threads are available, otherwise false.
+     */
+    public static boolean isVirtualThreadSupported()
+    {
+        return getVirtualThreadFactory() != null;
+    }
+
+    /**
+     * Returns a thread factory that creates virtual threads, or null if the running Java platform does not support
+     * virtual threads. The returned factory may be shared by any number of executors.
+     *
+     * @return a virtual thread factory, or null if virtual threads are not supported.
+     *
+     * @see #isVirtualThreadSupported()
+     */
+    public static java.util.concurrent.ThreadFactory getVirtualThreadFactory()
+    {
+        if (!virtualThreadFactoryResolved)
+        {
+            virtualThreadFactory = resolveVirtualThreadFactory();
+            virtualThreadFactoryResolved = true;
+        }
+
+        return virtualThreadFactory;
+    }
+
+    private static volatile java.util.concurrent.ThreadFactory virtualThreadFactory;
+    private static volatile boolean virtualThreadFactoryResolved;
+
+    private static java.util.concurrent.ThreadFactory resolveVirtualThreadFactory()
+    {
+        try
+        {
+            // Equivalent to Thread.ofVirtual().factory(). The factory method is looked up on the public
+            // Thread.Builder interface because the builder's implementation class is not accessible.
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method factoryMethod = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (java.util.concurrent.ThreadFactory) factoryMethod.invoke(builder);
+        }
+        catch (Exception e)
+        {
+            return null; // Virtual threads are not supported by this Java platform.
+        }
+    }
 }
@@ -32,7 +32,7 @@ import gov.nasa.worldwind.Configuration;
 import gov.nasa.worldwind.avlist.*;
 import gov.nasa.worldwind.data.*;
 import gov.nasa.worldwindx.examples.util.SectorSelector;
-import gov.nasa.worldwind.formats.tiff.GeotiffWriter;
+import gov.nasa.worldwind.formats.tiff.*;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.globes.*;
 import gov.nasa.worldwind.layers.*;
@@ -497,6 +497,9 @@ public class ExportImageOrElevations extends ApplicationTemplate
             GeotiffWriter writer = new GeotiffWriter(gtFile);
             try
             {
+                writer.setCompression(Tiff.Compression.DEFLATE);
+                writer.setPredictor(Tiff.Predictor.HORIZONTAL_DIFFERENCING);
+                writer.setTileSize(256, 256);
                 writer.write(BufferedImageRaster.wrapAsGeoreferencedRaster(image, params));
             }
             finally
@@ -535,6 +538,9 @@ public class ExportImageOrElevations extends ApplicationTemplate
             GeotiffWriter writer = new GeotiffWriter(gtFile);
             try
             {
+                writer.setCompression(Tiff.Compression.DEFLATE);
+                writer.setPredictor(Tiff.Predictor.FLOATING_POINT);
+                writer.setTileSize(256, 256);
                 writer.write(raster);
             }
             finally
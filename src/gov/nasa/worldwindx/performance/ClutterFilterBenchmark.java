@@ -0,0 +1,146 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.util.ScreenRectangleIndex;
+
+import java.awt.geom.Rectangle2D;
+import java.util.*;
+
+/**
+ * Measures the cost of decluttering synthetic sets of screen rectangles, comparing the linear search formerly used by
+ * {@link gov.nasa.worldwind.util.BasicClutterFilter} with {@link ScreenRectangleIndex}. Each frame accepts the
+ * rectangles that don't intersect a previously accepted rectangle, as the clutter filters do, and the index is reused
+ * from frame to frame.
+ * <p>
+ * This is a headless command line program. Optional arguments are the screen width and height in pixels.
+ */
+public class ClutterFilterBenchmark
+{
+    protected static final int WARMUP_FRAMES = 5;
+    protected static final long MEASURE_NANOS = 3000000000L;
+
+    protected final Rectangle2D[] rectangles;
+
+    public ClutterFilterBenchmark(int numRectangles, int screenWidth, int screenHeight)
+    {
+        Random random = new Random(numRectangles);
+
+        // Label sized rectangles scattered over the screen, with denser clusters as over a city.
+        this.rectangles = new Rectangle2D[numRectangles];
+        for (int i = 0; i < numRectangles; i++)
+        {
+            double x = random.nextDouble() * screenWidth;
+            double y = random.nextDouble() * screenHeight;
+            if (i % 3 == 0)
+            {
+                x = screenWidth / 2d + random.nextGaussian() * screenWidth / 16d;
+                y = screenHeight / 2d + random.nextGaussian() * screenHeight / 16d;
+            }
+
+            this.rectangles[i] = new Rectangle2D.Double(x, y, 30 + random.nextDouble() * 90, 14 + random.nextDouble() * 6);
+        }
+    }
+
+    public void run()
+    {
+        final List<Rectangle2D> list = new ArrayList<Rectangle2D>();
+        double linear = this.measure(new Runnable()
+        {
+            public void run()
+            {
+                list.clear();
+                for (Rectangle2D rect : rectangles)
+                {
+                    if (linearSearch(list, rect) == null)
+                        list.add(rect);
+                }
+            }
+        });
+
+        final ScreenRectangleIndex index = new ScreenRectangleIndex();
+        double indexed = this.measure(new Runnable()
+        {
+            public void run()
+            {
+                index.clear();
+                for (Rectangle2D rect : rectangles)
+                {
+                    if (index.intersects(rect) == null)
+                        index.add(rect);
+                }
+            }
+        });
+
+        System.out.printf("%,7d rectangles, %,5d accepted: linear %10.3f ms/frame, indexed %8.3f ms/frame (%.0fx)\n",
+            this.rectangles.length, index.size(), linear, indexed, linear / indexed);
+    }
+
+    protected double measure(Runnable frame)
+    {
+        for (int i = 0; i < WARMUP_FRAMES; i++)
+        {
+            frame.run();
+        }
+
+        int numFrames = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do
+        {
+            frame.run();
+            numFrames++;
+            elapsed = System.nanoTime() - start;
+        }
+        while (elapsed < MEASURE_NANOS);
+
+        return elapsed / 1e6 / numFrames;
+    }
+
+    protected static Rectangle2D linearSearch(List<Rectangle2D> list, Rectangle2D rectangle)
+    {
+        for (Rectangle2D rect : list)
+        {
+            if (rectangle.intersects(rect))
+                return rect;
+        }
+
+        return null;
+    }
+
+    public static void main(String[] args)
+    {
+        int screenWidth = args.length > 0 ? Integer.parseInt(args[0]) : 1920;
+        int screenHeight = args.length > 1 ? Integer.parseInt(args[1]) : 1080;
+
+        for (int numRectangles : new int[] {1000, 10000, 50000})
+        {
+            new ClutterFilterBenchmark(numRectangles, screenWidth, screenHeight).run();
+        }
+    }
+}
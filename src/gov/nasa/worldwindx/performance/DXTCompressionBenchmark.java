@@ -0,0 +1,133 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.formats.dds.*;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Measures DXT1 and DXT3 compression of 512x512 and 4096x4096 images by {@link DDSCompressor}, with the block rows
+ * compressed sequentially and in parallel, and verifies that both produce the same bytes. Mipmaps are not built, so
+ * the times are those of compressing the full resolution image.
+ * <p>
+ * This is a headless command line program. The optional argument is the number of seconds to measure each case.
+ */
+public class DXTCompressionBenchmark
+{
+    protected static final int WARMUP_ITERATIONS = 3;
+
+    protected final long measureNanos;
+
+    public DXTCompressionBenchmark(long measureNanos)
+    {
+        this.measureNanos = measureNanos;
+    }
+
+    public void run(int size, int dxtFormat)
+    {
+        BufferedImage image = createImage(size);
+
+        DXTCompressionAttributes attributes = DDSCompressor.getDefaultCompressionAttributes();
+        attributes.setBuildMipmaps(false);
+        attributes.setDXTFormat(dxtFormat);
+
+        attributes.setEnableParallelCompression(false);
+        ByteBuffer sequentialBuffer = new DDSCompressor().compressImage(image, attributes);
+        double sequential = this.measure(image, attributes);
+
+        attributes.setEnableParallelCompression(true);
+        ByteBuffer parallelBuffer = new DDSCompressor().compressImage(image, attributes);
+        double parallel = this.measure(image, attributes);
+
+        System.out.printf("%s %4dx%-4d sequential %9.2f ms, parallel %9.2f ms (%.1fx), output %s\n",
+            dxtFormat == DDSConstants.D3DFMT_DXT1 ? "DXT1" : "DXT3", size, size, sequential, parallel,
+            sequential / parallel, sequentialBuffer.equals(parallelBuffer) ? "identical" : "DIFFERS");
+    }
+
+    protected double measure(BufferedImage image, DXTCompressionAttributes attributes)
+    {
+        DDSCompressor compressor = new DDSCompressor();
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++)
+        {
+            compressor.compressImage(image, attributes);
+        }
+
+        int numIterations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do
+        {
+            compressor.compressImage(image, attributes);
+            numIterations++;
+            elapsed = System.nanoTime() - start;
+        }
+        while (elapsed < this.measureNanos);
+
+        return elapsed / 1e6 / numIterations;
+    }
+
+    protected static BufferedImage createImage(int size)
+    {
+        // Smooth gradients with noise, resembling imagery more than pure noise does.
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(size);
+
+        int[] row = new int[size];
+        for (int y = 0; y < size; y++)
+        {
+            for (int x = 0; x < size; x++)
+            {
+                int a = (y / 256) % 2 == 0 ? 255 : 128 + (x * 127 / size);
+                int r = (x * 255 / size + random.nextInt(16)) & 0xFF;
+                int g = (y * 255 / size + random.nextInt(16)) & 0xFF;
+                int b = ((x + y) * 255 / (2 * size) + random.nextInt(16)) & 0xFF;
+                row[x] = (a << 24) | (r << 16) | (g << 8) | b;
+            }
+            image.setRGB(0, y, size, 1, row, 0, size);
+        }
+
+        return image;
+    }
+
+    public static void main(String[] args)
+    {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 3;
+        DXTCompressionBenchmark benchmark = new DXTCompressionBenchmark(seconds * 1000000000L);
+
+        System.out.printf("%d processors\n", Runtime.getRuntime().availableProcessors());
+        for (int size : new int[] {512, 4096})
+        {
+            benchmark.run(size, DDSConstants.D3DFMT_DXT1);
+            benchmark.run(size, DDSConstants.D3DFMT_DXT3);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.geom.Angle;
+import gov.nasa.worldwind.util.EGM96;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Measures how quickly EGM96 geoid offsets are computed. Offsets are computed one location at a time with {@link
+ * EGM96#getOffset(Angle, Angle)}, as elevations were corrected originally, and in bulk with {@link
+ * EGM96#addOffsets(double[], double[], double[])}, using both bilinear and bicubic interpolation. The time to construct
+ * the offsets and compute the first offset, which loads the grid, is also reported. Locations are grouped into
+ * tile-sized grids, as they are when terrain is sampled.
+ * <p>
+ * This is a headless command line program. Optional arguments are the path to the offsets file, the number of
+ * locations and the number of passes over them.
+ */
+public class EGM96Benchmark
+{
+    protected static final int TILE_SIZE = 20;
+
+    protected final EGM96 egm96;
+    protected final double[] latitudes;
+    protected final double[] longitudes;
+    protected final double[] elevations;
+
+    public EGM96Benchmark(EGM96 egm96, int numLocations)
+    {
+        this.egm96 = egm96;
+        this.latitudes = new double[numLocations];
+        this.longitudes = new double[numLocations];
+        this.elevations = new double[numLocations];
+
+        // Sample the way terrain tiles do: a 20 x 20 grid of locations over each of many randomly placed half-degree
+        // tiles.
+        Random random = new Random(1);
+        for (int i = 0; i < numLocations; i += TILE_SIZE * TILE_SIZE)
+        {
+            double minLat = 179 * random.nextDouble() - 89.5;
+            double minLon = 359 * random.nextDouble() - 179.5;
+            for (int k = 0; k < TILE_SIZE * TILE_SIZE && i + k < numLocations; k++)
+            {
+                this.latitudes[i + k] = minLat + 0.5 * (k / TILE_SIZE) / (TILE_SIZE - 1);
+                this.longitudes[i + k] = minLon + 0.5 * (k % TILE_SIZE) / (TILE_SIZE - 1);
+            }
+        }
+    }
+
+    protected void runPerLocation(int numPasses)
+    {
+        for (int pass = 0; pass < numPasses; pass++)
+        {
+            for (int i = 0; i < this.latitudes.length; i++)
+            {
+                this.elevations[i] += this.egm96.getOffset(Angle.fromDegrees(this.latitudes[i]),
+                    Angle.fromDegrees(this.longitudes[i]));
+            }
+        }
+    }
+
+    protected void runInBulk(int numPasses)
+    {
+        for (int pass = 0; pass < numPasses; pass++)
+        {
+            this.egm96.addOffsets(this.latitudes, this.longitudes, this.elevations);
+        }
+    }
+
+    public void run(int numPasses)
+    {
+        // Warm up every path so that the JIT has compiled them.
+        for (int pass = 0; pass < 3; pass++)
+        {
+            this.egm96.setInterpolation(EGM96.INTERPOLATION_BILINEAR);
+            this.runPerLocation(1);
+            this.runInBulk(1);
+            this.egm96.setInterpolation(EGM96.INTERPOLATION_BICUBIC);
+            this.runInBulk(1);
+        }
+
+        int numLocations = numPasses * this.latitudes.length;
+        this.egm96.setInterpolation(EGM96.INTERPOLATION_BILINEAR);
+        long start = System.nanoTime();
+        this.runPerLocation(numPasses);
+        report("Bilinear, per location", numLocations, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        this.runInBulk(numPasses);
+        report("Bilinear, bulk", numLocations, System.nanoTime() - start);
+
+        this.egm96.setInterpolation(EGM96.INTERPOLATION_BICUBIC);
+        start = System.nanoTime();
+        this.runInBulk(numPasses);
+        report("Bicubic, bulk", numLocations, System.nanoTime() - start);
+    }
+
+    protected static void report(String name, int numLocations, long nanos)
+    {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-24s %,12.0f offsets/s, %6.1f ns/offset\n", name, numLocations / seconds,
+            1e9 * seconds / numLocations);
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        String path = args.length > 0 ? args[0] : "config/EGM96.dat";
+        int numLocations = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        int numPasses = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        long start = System.nanoTime();
+        EGM96 egm96 = new EGM96(path);
+        egm96.getOffset(0, 0);
+        System.out.printf("Loaded %s in %.1f ms\n", path, (System.nanoTime() - start) / 1e6);
+
+        new EGM96Benchmark(egm96, numLocations).run(numPasses);
+    }
+}
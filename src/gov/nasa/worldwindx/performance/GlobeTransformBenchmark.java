@@ -0,0 +1,238 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.globes.projections.ProjectionMercator;
+
+import java.util.Random;
+
+/**
+ * Measures how quickly globes convert between geographic positions and Cartesian points. Each conversion is timed per
+ * point, with {@link Globe#computePointFromPosition(Angle, Angle, double)} and {@link
+ * Globe#computePositionFromPoint(Vec4)}, and in bulk over primitive arrays, with {@link
+ * Globe#computePointsFromPositions(double[], double[], double[], double[], boolean)} and {@link
+ * Globe#computePositionsFromPoints(double[], double[], double[], double[], boolean)}, both on the calling thread and in
+ * parallel. The largest difference between the per-point and bulk results is reported for each globe.
+ * <p>
+ * This is a headless command line program; it needs no OpenGL context. Optional arguments are the number of points
+ * and the number of passes over them.
+ */
+public class GlobeTransformBenchmark
+{
+    protected final Globe globe;
+    protected final String name;
+    protected final double[] latitudes;
+    protected final double[] longitudes;
+    protected final double[] elevations;
+    protected final double[] points;
+    protected final double[] outLatitudes;
+    protected final double[] outLongitudes;
+    protected final double[] outElevations;
+
+    public GlobeTransformBenchmark(Globe globe, String name, int numPoints)
+    {
+        this.globe = globe;
+        this.name = name;
+        this.latitudes = new double[numPoints];
+        this.longitudes = new double[numPoints];
+        this.elevations = new double[numPoints];
+        this.points = new double[3 * numPoints];
+        this.outLatitudes = new double[numPoints];
+        this.outLongitudes = new double[numPoints];
+        this.outElevations = new double[numPoints];
+
+        Random random = new Random(1);
+        for (int i = 0; i < numPoints; i++)
+        {
+            this.latitudes[i] = 160 * random.nextDouble() - 80;
+            this.longitudes[i] = 360 * random.nextDouble() - 180;
+            this.elevations[i] = 9000 * random.nextDouble() - 500;
+        }
+    }
+
+    protected void pointsPerPoint()
+    {
+        for (int i = 0, k = 0; i < this.latitudes.length; i++)
+        {
+            Vec4 p = this.globe.computePointFromPosition(Angle.fromDegrees(this.latitudes[i]),
+                Angle.fromDegrees(this.longitudes[i]), this.elevations[i]);
+            this.points[k++] = p.x;
+            this.points[k++] = p.y;
+            this.points[k++] = p.z;
+        }
+    }
+
+    protected void positionsPerPoint()
+    {
+        for (int i = 0, k = 0; i < this.outLatitudes.length; i++, k += 3)
+        {
+            Position pos = this.globe.computePositionFromPoint(
+                new Vec4(this.points[k], this.points[k + 1], this.points[k + 2]));
+            this.outLatitudes[i] = pos.getLatitude().degrees;
+            this.outLongitudes[i] = pos.getLongitude().degrees;
+            this.outElevations[i] = pos.getElevation();
+        }
+    }
+
+    protected void pointsInBulk(boolean parallel)
+    {
+        this.globe.computePointsFromPositions(this.latitudes, this.longitudes, this.elevations, this.points, parallel);
+    }
+
+    protected void positionsInBulk(boolean parallel)
+    {
+        this.globe.computePositionsFromPoints(this.points, this.outLatitudes, this.outLongitudes, this.outElevations,
+            parallel);
+    }
+
+    protected double compare()
+    {
+        this.pointsPerPoint();
+        double[] expectedPoints = this.points.clone();
+        this.positionsPerPoint();
+        double[] expectedLatitudes = this.outLatitudes.clone();
+        double[] expectedLongitudes = this.outLongitudes.clone();
+
+        this.pointsInBulk(true);
+        this.positionsInBulk(true);
+
+        double maxDifference = 0;
+        for (int i = 0; i < expectedPoints.length; i++)
+        {
+            maxDifference = Math.max(maxDifference, Math.abs(expectedPoints[i] - this.points[i]));
+        }
+        for (int i = 0; i < expectedLatitudes.length; i++)
+        {
+            maxDifference = Math.max(maxDifference, Math.abs(expectedLatitudes[i] - this.outLatitudes[i]));
+            maxDifference = Math.max(maxDifference, Math.abs(expectedLongitudes[i] - this.outLongitudes[i]));
+        }
+
+        return maxDifference;
+    }
+
+    public void run(int numPasses)
+    {
+        // Warm up every path so that the JIT has compiled them.
+        for (int pass = 0; pass < 3; pass++)
+        {
+            this.runPointsPerPoint(1);
+            this.runPointsInBulk(1, false);
+            this.runPointsInBulk(1, true);
+            this.runPositionsPerPoint(1);
+            this.runPositionsInBulk(1, false);
+            this.runPositionsInBulk(1, true);
+        }
+
+        System.out.printf("%s, %,d points, largest difference %g\n", this.name, this.latitudes.length,
+            this.compare());
+
+        int numPoints = numPasses * this.latitudes.length;
+        long start = System.nanoTime();
+        this.runPointsPerPoint(numPasses);
+        report("Points, per point", numPoints, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        this.runPointsInBulk(numPasses, false);
+        report("Points, bulk", numPoints, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        this.runPointsInBulk(numPasses, true);
+        report("Points, parallel", numPoints, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        this.runPositionsPerPoint(numPasses);
+        report("Positions, per point", numPoints, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        this.runPositionsInBulk(numPasses, false);
+        report("Positions, bulk", numPoints, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        this.runPositionsInBulk(numPasses, true);
+        report("Positions, parallel", numPoints, System.nanoTime() - start);
+    }
+
+    protected void runPointsPerPoint(int numPasses)
+    {
+        for (int pass = 0; pass < numPasses; pass++)
+        {
+            this.pointsPerPoint();
+        }
+    }
+
+    protected void runPointsInBulk(int numPasses, boolean parallel)
+    {
+        for (int pass = 0; pass < numPasses; pass++)
+        {
+            this.pointsInBulk(parallel);
+        }
+    }
+
+    protected void runPositionsPerPoint(int numPasses)
+    {
+        for (int pass = 0; pass < numPasses; pass++)
+        {
+            this.positionsPerPoint();
+        }
+    }
+
+    protected void runPositionsInBulk(int numPasses, boolean parallel)
+    {
+        for (int pass = 0; pass < numPasses; pass++)
+        {
+            this.positionsInBulk(parallel);
+        }
+    }
+
+    protected static void report(String name, int numPoints, long nanos)
+    {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-22s %,12.0f points/s, %6.1f ns/point\n", name, numPoints / seconds,
+            1e9 * seconds / numPoints);
+    }
+
+    public static void main(String[] args)
+    {
+        int numPoints = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int numPasses = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        System.out.printf("%d processors\n", Runtime.getRuntime().availableProcessors());
+
+        Globe ellipsoid = new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS,
+            Earth.WGS84_ES, null);
+        new GlobeTransformBenchmark(ellipsoid, "Ellipsoidal globe", numPoints).run(numPasses);
+
+        FlatGlobe flatGlobe = new FlatGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES,
+            null);
+        flatGlobe.setProjection(new ProjectionMercator());
+        new GlobeTransformBenchmark(flatGlobe, "Flat globe, Mercator", numPoints).run(numPasses);
+    }
+}
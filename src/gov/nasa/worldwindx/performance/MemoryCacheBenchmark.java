@@ -0,0 +1,163 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.cache.*;
+
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput and hit ratio of {@link MemoryCache} implementations under concurrent add and get load. Each
+ * worker thread requests keys drawn from a skewed distribution, as tile requests from a moving view are, and adds the
+ * key's object to the cache on a miss. The cache holds a fraction of the key space so that eviction runs continuously.
+ * <p>
+ * This is a headless command line program. Optional arguments are the number of threads, the number of distinct keys
+ * and the cache capacity in entries.
+ */
+public class MemoryCacheBenchmark
+{
+    protected static final int WARMUP_SECONDS = 2;
+    protected static final int MEASURE_SECONDS = 5;
+    protected static final long ENTRY_SIZE = 1000;
+
+    protected interface CacheFactory
+    {
+        MemoryCache createCache(long loWater, long capacity);
+    }
+
+    protected final int numThreads;
+    protected final int numKeys;
+    protected final long capacity;
+
+    public MemoryCacheBenchmark(int numThreads, int numKeys, int capacityEntries)
+    {
+        this.numThreads = numThreads;
+        this.numKeys = numKeys;
+        this.capacity = capacityEntries * ENTRY_SIZE;
+    }
+
+    public void run(String name, CacheFactory factory) throws Exception
+    {
+        final MemoryCache cache = factory.createCache((long) (0.85 * this.capacity), this.capacity);
+        this.runPhase(cache, WARMUP_SECONDS); // let the JIT compile the cache and fill it
+
+        long[] result = this.runPhase(cache, MEASURE_SECONDS);
+        long operations = result[0];
+        long hits = result[1];
+        System.out.printf("%-26s %2d threads: %,12d ops/s, hit ratio %.3f, %d entries\n", name, this.numThreads,
+            operations / MEASURE_SECONDS, (double) hits / operations, cache.getNumObjects());
+    }
+
+    protected long[] runPhase(final MemoryCache cache, int seconds) throws Exception
+    {
+        final AtomicLong operations = new AtomicLong();
+        final AtomicLong hits = new AtomicLong();
+        final long endTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        final Integer[] keys = new Integer[this.numKeys];
+        for (int i = 0; i < keys.length; i++)
+        {
+            keys[i] = i;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(this.numThreads);
+        for (int t = 0; t < this.numThreads; t++)
+        {
+            final long seed = t;
+            executor.submit(new Callable<Void>()
+            {
+                public Void call()
+                {
+                    Random random = new Random(seed);
+                    long localOps = 0;
+                    long localHits = 0;
+
+                    while ((localOps & 0x3ff) != 0 || System.nanoTime() < endTime)
+                    {
+                        // Squaring a uniform value skews requests towards the low keys.
+                        double u = random.nextDouble();
+                        Integer key = keys[(int) (u * u * keys.length)];
+
+                        if (cache.getObject(key) != null)
+                            localHits++;
+                        else
+                            cache.add(key, key, ENTRY_SIZE);
+
+                        localOps++;
+                    }
+
+                    operations.addAndGet(localOps);
+                    hits.addAndGet(localHits);
+                    return null;
+                }
+            });
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(seconds + 60, TimeUnit.SECONDS);
+
+        return new long[] {operations.get(), hits.get()};
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        int numThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int numKeys = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+        int capacityEntries = args.length > 2 ? Integer.parseInt(args[2]) : 50000;
+
+        for (int threads : new int[] {1, numThreads})
+        {
+            MemoryCacheBenchmark benchmark = new MemoryCacheBenchmark(threads, numKeys, capacityEntries);
+
+            benchmark.run("BasicMemoryCache", new CacheFactory()
+            {
+                public MemoryCache createCache(long loWater, long capacity)
+                {
+                    return new BasicMemoryCache(loWater, capacity);
+                }
+            });
+
+            benchmark.run("SegmentedLRUMemoryCache", new CacheFactory()
+            {
+                public MemoryCache createCache(long loWater, long capacity)
+                {
+                    return new SegmentedLRUMemoryCache(loWater, capacity);
+                }
+            });
+
+            benchmark.run("ConcurrentMemoryCache", new CacheFactory()
+            {
+                public MemoryCache createCache(long loWater, long capacity)
+                {
+                    return new ConcurrentMemoryCache(loWater, capacity);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.symbology.milstd2525.MilStd2525IconRetriever;
+
+import java.awt.image.*;
+import java.util.*;
+
+/**
+ * Measures how quickly MIL-STD-2525 icons are produced. A set of symbols, in four standard identities and two
+ * statuses, is first composed one icon at a time without the icon cache, as {@link
+ * MilStd2525IconRetriever#createIcon(String, AVList)} composed every icon originally. The same symbols are then
+ * preloaded in parallel with {@link MilStd2525IconRetriever#preloadIcons(java.util.Collection, AVList)}, and finally
+ * created again from the warm cache.
+ * <p>
+ * This is a headless command line program. The optional argument is the path to the symbol repository; the default is
+ * the archive in the testData directory.
+ */
+public class MilStd2525IconBenchmark
+{
+    protected static final String[] FUNCTION_IDS = {"AC-----", "AMF----", "AMFB---", "AMFF---", "AMFQM--", "GUCD---",
+        "GUCDS--", "GUCI---", "GUCR---", "GUH----", "SCL----", "SCLCV--", "US-----", "USB----"};
+    protected static final String[] IDENTITIES = {"F", "H", "N", "U"};
+    protected static final String[] STATUSES = {"P", "A"};
+
+    /** Exposes icon composition without the cache, for comparison. */
+    protected static class UncachedRetriever extends MilStd2525IconRetriever
+    {
+        public UncachedRetriever(String retrieverPath)
+        {
+            super(retrieverPath);
+        }
+
+        public BufferedImage compose(String sidc, AVList params)
+        {
+            return this.composeIcon(sidc, params);
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        String path = args.length > 0 ? args[0] : "jar:file:testData/milstd2525-symbols.zip!";
+
+        List<String> sidcs = new ArrayList<String>();
+        for (String identity : IDENTITIES)
+        {
+            for (String status : STATUSES)
+            {
+                for (String functionId : FUNCTION_IDS)
+                {
+                    // Each function ID is prefixed by its battle dimension, which precedes the status in the SIDC.
+                    sidcs.add("S" + identity + functionId.charAt(0) + status + functionId.substring(1) + "-----");
+                }
+            }
+        }
+
+        AVList params = new AVListImpl();
+        UncachedRetriever uncached = new UncachedRetriever(path);
+        uncached.compose(sidcs.get(0), params); // warm up the image readers
+
+        long start = System.nanoTime();
+        for (String sidc : sidcs)
+        {
+            uncached.compose(sidc, params);
+        }
+        report("Composed, no cache", sidcs.size(), System.nanoTime() - start);
+
+        MilStd2525IconRetriever retriever = new MilStd2525IconRetriever(path);
+        start = System.nanoTime();
+        int numLoaded = retriever.preloadIcons(sidcs, params);
+        report("Preloaded in parallel", numLoaded, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (String sidc : sidcs)
+        {
+            retriever.createIcon(sidc, params);
+        }
+        report("Created from cache", sidcs.size(), System.nanoTime() - start);
+    }
+
+    protected static void report(String name, int numIcons, long nanos)
+    {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-22s %4d icons, %8.1f icons/s, %8.3f ms/icon\n", name, numIcons, numIcons / seconds,
+            1e3 * seconds / numIcons);
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.util.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Compares {@link BasicQuadTree} with {@link ConcurrentQuadTree} when a feed thread continually moves tracks while
+ * other threads query the tree, as the render and pick threads do. Each tree is first timed answering region queries
+ * with no concurrent updates, then with the feed thread running. The feed moves all tracks a short distance in each
+ * update, individually for <code>BasicQuadTree</code> and in one batch for <code>ConcurrentQuadTree</code>.
+ * <p>
+ * This is a headless command line program. Optional arguments are the number of tracks and the number of query
+ * threads.
+ */
+public class QuadTreeBenchmark
+{
+    protected static final int TREE_DEPTH = 8;
+    protected static final long MEASURE_MILLIS = 3000;
+    protected static final Sector QUERY_SECTOR = Sector.fromDegrees(-22, 22, 6, 54);
+
+    /** Runs an operation a specified number of times and reports the elapsed time. */
+    public abstract static class PerfTestRunner
+    {
+        protected abstract void doOp();
+
+        protected int numIterations;
+
+        protected long run(int numIterations)
+        {
+            this.numIterations = numIterations;
+            long start = System.currentTimeMillis();
+
+            for (int i = 0; i < numIterations; i++)
+            {
+                this.doOp();
+            }
+
+            return System.currentTimeMillis() - start;
+        }
+
+        public void print(String label, long elapsedTime)
+        {
+            System.out.printf("%-20s %d iterations in %d milliseconds, %.3f ms per iteration\n", label,
+                this.numIterations, elapsedTime, (double) elapsedTime / this.numIterations);
+        }
+    }
+
+    /** Adapts the two trees to the operations the benchmark performs. */
+    protected interface TrackIndex
+    {
+        String getName();
+
+        void moveAll(Map<String, double[]> moves);
+
+        Set<String> query(Sector sector);
+    }
+
+    protected final int numTracks;
+    protected final int numQueryThreads;
+    protected final String[] trackNames;
+    protected final double[][] positions;
+
+    public QuadTreeBenchmark(int numTracks, int numQueryThreads)
+    {
+        this.numTracks = numTracks;
+        this.numQueryThreads = numQueryThreads;
+        this.trackNames = new String[numTracks];
+        this.positions = new double[numTracks][];
+
+        Random random = new Random(numTracks);
+        for (int i = 0; i < numTracks; i++)
+        {
+            this.trackNames[i] = "Track " + i;
+            this.positions[i] = new double[] {-60 + random.nextDouble() * 120, -120 + random.nextDouble() * 240};
+        }
+    }
+
+    public void run()
+    {
+        System.out.printf("%,d tracks, tree depth %d, %d query threads\n", this.numTracks, TREE_DEPTH,
+            this.numQueryThreads);
+
+        this.run(this.createBasicIndex());
+        this.run(this.createConcurrentIndex());
+    }
+
+    protected void run(final TrackIndex index)
+    {
+        Map<String, double[]> initial = new HashMap<String, double[]>();
+        for (int i = 0; i < this.numTracks; i++)
+        {
+            initial.put(this.trackNames[i], this.positions[i]);
+        }
+        index.moveAll(initial);
+
+        PerfTestRunner runner = new PerfTestRunner()
+        {
+            protected void doOp()
+            {
+                index.query(QUERY_SECTOR);
+            }
+        };
+        runner.run(100); // warm up
+        runner.print(index.getName(), runner.run(1000));
+
+        this.runConcurrently(index);
+    }
+
+    protected void runConcurrently(final TrackIndex index)
+    {
+        final AtomicBoolean stop = new AtomicBoolean(false);
+        final AtomicLong numUpdates = new AtomicLong();
+        final AtomicLong numQueries = new AtomicLong();
+        final AtomicLong maxQueryNanos = new AtomicLong();
+
+        Thread feed = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                Random random = new Random(1);
+                Map<String, double[]> moves = new HashMap<String, double[]>();
+                while (!stop.get())
+                {
+                    moves.clear();
+                    for (int i = 0; i < numTracks; i++)
+                    {
+                        double[] position = positions[i];
+                        position[0] = clamp(position[0] + (random.nextDouble() - 0.5) * 0.1, -90, 90);
+                        position[1] = clamp(position[1] + (random.nextDouble() - 0.5) * 0.1, -180, 180);
+                        moves.put(trackNames[i], new double[] {position[0], position[1]});
+                    }
+
+                    index.moveAll(moves);
+                    numUpdates.addAndGet(numTracks);
+                }
+            }
+        });
+
+        Thread[] queries = new Thread[this.numQueryThreads];
+        for (int i = 0; i < queries.length; i++)
+        {
+            queries[i] = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    while (!stop.get())
+                    {
+                        long start = System.nanoTime();
+                        index.query(QUERY_SECTOR);
+                        long elapsed = System.nanoTime() - start;
+
+                        numQueries.incrementAndGet();
+                        long max = maxQueryNanos.get();
+                        while (elapsed > max && !maxQueryNanos.compareAndSet(max, elapsed))
+                        {
+                            max = maxQueryNanos.get();
+                        }
+                    }
+                }
+            });
+        }
+
+        feed.start();
+        for (Thread thread : queries)
+        {
+            thread.start();
+        }
+
+        try
+        {
+            Thread.sleep(MEASURE_MILLIS);
+            stop.set(true);
+
+            feed.join();
+            for (Thread thread : queries)
+            {
+                thread.join();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        double seconds = MEASURE_MILLIS / 1000d;
+        System.out.printf("%-20s with feed: %,10.0f moves/s, %,8.0f queries/s, max query %.3f ms\n",
+            index.getName(), numUpdates.get() / seconds, numQueries.get() / seconds, maxQueryNanos.get() / 1e6);
+    }
+
+    protected TrackIndex createBasicIndex()
+    {
+        final BasicQuadTree<String> tree = new BasicQuadTree<String>(TREE_DEPTH, Sector.FULL_SPHERE, null);
+
+        return new TrackIndex()
+        {
+            public String getName()
+            {
+                return "BasicQuadTree";
+            }
+
+            public void moveAll(Map<String, double[]> moves)
+            {
+                // BasicQuadTree has no move operation, so each move is a removal followed by an addition.
+                for (Map.Entry<String, double[]> entry : moves.entrySet())
+                {
+                    tree.remove(entry.getKey());
+                    tree.add(entry.getKey(), entry.getValue());
+                }
+            }
+
+            public Set<String> query(Sector sector)
+            {
+                return tree.getItemsInRegion(sector, new HashSet<String>());
+            }
+        };
+    }
+
+    protected TrackIndex createConcurrentIndex()
+    {
+        final ConcurrentQuadTree<String> tree = new ConcurrentQuadTree<String>(TREE_DEPTH, Sector.FULL_SPHERE);
+
+        return new TrackIndex()
+        {
+            public String getName()
+            {
+                return "ConcurrentQuadTree";
+            }
+
+            public void moveAll(Map<String, double[]> moves)
+            {
+                tree.moveAll(moves);
+            }
+
+            public Set<String> query(Sector sector)
+            {
+                return tree.getItemsInRegion(sector, new HashSet<String>());
+            }
+        };
+    }
+
+    protected static double clamp(double value, double min, double max)
+    {
+        return value < min ? min : value > max ? max : value;
+    }
+
+    public static void main(String[] args)
+    {
+        int numTracks = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int numQueryThreads = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+
+        new QuadTreeBenchmark(numTracks, numQueryThreads).run();
+    }
+}
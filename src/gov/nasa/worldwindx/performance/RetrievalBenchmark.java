@@ -0,0 +1,196 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwindx.performance;
+
+import com.sun.net.httpserver.*;
+import gov.nasa.worldwind.Configuration;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.retrieve.*;
+import gov.nasa.worldwind.util.WWUtil;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the download throughput of {@link BasicRetrievalService} against a local HTTP server that stands in for a
+ * tile server. The server delays each response by a fixed latency before returning a tile-sized payload, so throughput
+ * is governed by how many retrievals the service keeps in flight rather than by bandwidth. The service is measured
+ * with its default platform thread pool, with a larger platform thread pool, and, when the Java platform supports
+ * them, with virtual threads.
+ * <p>
+ * This is a headless command line program. Optional arguments are the number of tiles to retrieve, the injected
+ * latency in milliseconds and the tile size in bytes.
+ */
+public class RetrievalBenchmark
+{
+    protected final int numTiles;
+    protected final int latency;
+    protected final byte[] tile;
+    protected HttpServer server;
+
+    public RetrievalBenchmark(int numTiles, int latency, int tileSize)
+    {
+        this.numTiles = numTiles;
+        this.latency = latency;
+        this.tile = new byte[tileSize];
+        new Random(1).nextBytes(this.tile);
+    }
+
+    public void startServer() throws IOException
+    {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4096);
+        ThreadFactory virtualThreads = WWUtil.getVirtualThreadFactory();
+        this.server.setExecutor(virtualThreads != null ? Executors.newCachedThreadPool(virtualThreads)
+            : Executors.newCachedThreadPool());
+        this.server.createContext("/", new HttpHandler()
+        {
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                try
+                {
+                    Thread.sleep(latency);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+
+                exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+                exchange.sendResponseHeaders(200, tile.length);
+                OutputStream os = exchange.getResponseBody();
+                os.write(tile);
+                os.close();
+            }
+        });
+        this.server.start();
+    }
+
+    public void stopServer()
+    {
+        this.server.stop(0);
+        ((ExecutorService) this.server.getExecutor()).shutdownNow();
+    }
+
+    public void run(String name, int poolSize, boolean useVirtualThreads) throws Exception
+    {
+        Configuration.setValue(AVKey.RETRIEVAL_POOL_SIZE, poolSize);
+        Configuration.setValue(AVKey.RETRIEVAL_VIRTUAL_THREAD_POOL_SIZE, poolSize);
+        Configuration.setValue(AVKey.RETRIEVAL_QUEUE_SIZE, this.numTiles);
+        Configuration.setValue(AVKey.RETRIEVAL_USE_VIRTUAL_THREADS, useVirtualThreads);
+
+        BasicRetrievalService service = new BasicRetrievalService();
+        try
+        {
+            this.retrieve(service, "warmup", Math.min(this.numTiles, 2 * poolSize));
+
+            long start = System.nanoTime();
+            int completed = this.retrieve(service, name, this.numTiles);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%-28s %5d in flight: %,9.1f tiles/s, %d of %d tiles retrieved in %.2f s\n", name,
+                poolSize, completed / seconds, completed, this.numTiles, seconds);
+        }
+        finally
+        {
+            service.shutdown(true);
+        }
+    }
+
+    protected int retrieve(RetrievalService service, String pathPrefix, int count) throws Exception
+    {
+        final AtomicInteger completed = new AtomicInteger();
+        RetrievalPostProcessor postProcessor = new RetrievalPostProcessor()
+        {
+            public ByteBuffer run(Retriever retriever)
+            {
+                ByteBuffer buffer = retriever.getBuffer();
+                if (buffer != null && buffer.limit() == tile.length)
+                    completed.incrementAndGet();
+                return buffer;
+            }
+        };
+
+        List<RetrievalFuture> futures = new ArrayList<RetrievalFuture>(count);
+        for (int i = 0; i < count; i++)
+        {
+            // Each tile has a distinct URL so that the service does not discard any as duplicates.
+            URL url = new URL("http", "127.0.0.1", this.server.getAddress().getPort(),
+                "/" + pathPrefix.replace(' ', '_') + "/" + i);
+            HTTPRetriever retriever = new HTTPRetriever(url, postProcessor);
+            retriever.setStaleRequestLimit(Integer.MAX_VALUE);
+            RetrievalFuture future = service.runRetriever(retriever, i + 1);
+            if (future != null)
+                futures.add(future);
+        }
+
+        for (RetrievalFuture future : futures)
+        {
+            try
+            {
+                future.get();
+            }
+            catch (ExecutionException e)
+            {
+                // The failure is reflected in the completed count.
+            }
+        }
+
+        return completed.get();
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        int numTiles = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int latency = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int tileSize = args.length > 2 ? Integer.parseInt(args[2]) : 16384;
+
+        RetrievalBenchmark benchmark = new RetrievalBenchmark(numTiles, latency, tileSize);
+        benchmark.startServer();
+        try
+        {
+            benchmark.run("Platform threads", Configuration.getIntegerValue(AVKey.RETRIEVAL_POOL_SIZE, 4), false);
+            benchmark.run("Platform threads", 64, false);
+
+            if (WWUtil.isVirtualThreadSupported())
+            {
+                benchmark.run("Virtual threads", 64, true); // the default in-flight limit
+                benchmark.run("Virtual threads", 1024, true);
+            }
+            else
+                System.out.println("Virtual threads are not supported by this Java platform");
+        }
+        finally
+        {
+            benchmark.stopServer();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.terrain.*;
+
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Measures line-of-sight intersection throughput of {@link HighResolutionTerrain} over a synthetic {@link
+ * LocalElevationModel} of rolling hills. Batches of short sight lines between random positions near the ground are
+ * intersected first the way HighResolutionTerrain's list based intersect method did originally, with a new fixed
+ * thread pool per batch and the lines in submission order, and then with {@link
+ * HighResolutionTerrain#submitIntersections(double[])}, which uses a shared fork/join pool and orders the lines for
+ * tile locality. Each run uses a new terrain instance so that no run benefits from geometry cached by an earlier one.
+ * <p>
+ * This is a headless command line program. Optional arguments are the number of lines per batch and the number of
+ * batches.
+ */
+public class TerrainIntersectionBenchmark
+{
+    protected static final Sector SECTOR = Sector.fromDegrees(35, 36, -120, -119);
+    protected static final int GRID_SIZE = 1201;
+    protected static final double TARGET_RESOLUTION = 30; // meters
+
+    protected final Globe globe;
+    protected final double[][] batches;
+
+    public TerrainIntersectionBenchmark(int numLines, int numBatches)
+    {
+        this.globe = new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES,
+            createElevationModel());
+
+        // Lines up to a few kilometers long, starting and ending 10 meters above the ground.
+        Random random = new Random(3);
+        this.batches = new double[numBatches][];
+        for (int b = 0; b < numBatches; b++)
+        {
+            double[] positions = new double[6 * numLines];
+            for (int i = 0; i < numLines; i++)
+            {
+                double lat = 35.05 + 0.9 * random.nextDouble();
+                double lon = -119.95 + 0.9 * random.nextDouble();
+                positions[6 * i] = lat;
+                positions[6 * i + 1] = lon;
+                positions[6 * i + 2] = 10;
+                positions[6 * i + 3] = lat + 0.05 * (random.nextDouble() - 0.5);
+                positions[6 * i + 4] = lon + 0.05 * (random.nextDouble() - 0.5);
+                positions[6 * i + 5] = 10;
+            }
+            this.batches[b] = positions;
+        }
+    }
+
+    protected static ElevationModel createElevationModel()
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * GRID_SIZE * GRID_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (int j = 0; j < GRID_SIZE; j++)
+        {
+            for (int i = 0; i < GRID_SIZE; i++)
+            {
+                double e = 500 + 150 * Math.sin(j * 0.05) * Math.cos(i * 0.04) + 40 * Math.sin((i + j) * 0.3);
+                buffer.putShort((short) e);
+            }
+        }
+        buffer.rewind();
+
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.DATA_TYPE, AVKey.INT16);
+        params.setValue(AVKey.BYTE_ORDER, AVKey.LITTLE_ENDIAN);
+
+        LocalElevationModel model = new LocalElevationModel();
+        model.addElevations(buffer, SECTOR, GRID_SIZE, GRID_SIZE, params);
+        return model;
+    }
+
+    protected HighResolutionTerrain createTerrain()
+    {
+        return new HighResolutionTerrain(this.globe, SECTOR, TARGET_RESOLUTION, 1.0);
+    }
+
+    protected long runPerBatchPool(double[] positions) throws InterruptedException
+    {
+        final HighResolutionTerrain terrain = this.createTerrain();
+        final int[] hits = new int[1];
+
+        ExecutorService service = Executors.newFixedThreadPool(10);
+        for (int i = 0; i < positions.length; i += 6)
+        {
+            final Position pA = Position.fromDegrees(positions[i], positions[i + 1], positions[i + 2]);
+            final Position pB = Position.fromDegrees(positions[i + 3], positions[i + 4], positions[i + 5]);
+            service.submit(new Runnable()
+            {
+                public void run()
+                {
+                    Intersection[] intersections = terrain.intersect(pA, pB);
+                    if (intersections != null)
+                    {
+                        synchronized (hits)
+                        {
+                            hits[0]++;
+                        }
+                    }
+                }
+            });
+        }
+
+        service.shutdown();
+        service.awaitTermination(100, TimeUnit.DAYS);
+
+        return hits[0];
+    }
+
+    protected long runSharedPool(double[] positions) throws InterruptedException
+    {
+        HighResolutionTerrain.IntersectionBatch batch = this.createTerrain().submitIntersections(positions);
+        batch.await();
+
+        long hits = 0;
+        for (int count : batch.getIntersectionCounts())
+        {
+            if (count > 0)
+                hits++;
+        }
+
+        return hits;
+    }
+
+    public void run() throws InterruptedException
+    {
+        int numLines = this.batches[0].length / 6;
+
+        // Warm up both paths so that the JIT has compiled the intersection code.
+        for (double[] positions : this.batches)
+        {
+            this.runPerBatchPool(positions);
+            this.runSharedPool(positions);
+        }
+
+        long start = System.nanoTime();
+        long hits = 0;
+        for (double[] positions : this.batches)
+        {
+            hits += this.runPerBatchPool(positions);
+        }
+        report("Per-batch pool, unordered", numLines * this.batches.length, hits, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        hits = 0;
+        for (double[] positions : this.batches)
+        {
+            hits += this.runSharedPool(positions);
+        }
+        report("Shared pool, tile ordered", numLines * this.batches.length, hits, System.nanoTime() - start);
+    }
+
+    protected static void report(String name, int numLines, long hits, long nanos)
+    {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-28s %,9.0f lines/s, %d of %d lines blocked, %.2f s\n", name, numLines / seconds, hits,
+            numLines, seconds);
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        int numLines = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int numBatches = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        new TerrainIntersectionBenchmark(numLines, numBatches).run();
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwindx.performance;
+
+import com.jogamp.opengl.util.texture.*;
+import gov.nasa.worldwind.formats.dds.*;
+import gov.nasa.worldwind.util.WWIO;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.util.*;
+
+/**
+ * Measures the latency of loading tile textures from the file store with and without texture transcoding, as enabled
+ * by {@link gov.nasa.worldwind.layers.BasicTiledImageLayer#setTranscodeTextures(boolean)}. Synthetic 512x512 tiles
+ * are written as JPEG and PNG images, then loaded repeatedly in the ways the layer loads them: <ul> <li>image - decodes
+ * the image, the work done for a layer with no texture format before transcoding.</li> <li>image to DXT - decodes and
+ * DXT compresses the image, the work done for the <code>image/dds</code> texture format before transcoding.</li>
+ * <li>transcoded - reads the uncompressed or DXT DDS file written by transcoding.</li> </ul> Uploading the texture to
+ * OpenGL is the same with and without transcoding, so it's not included, and this program runs headless. The image
+ * times also exclude the conversion of the decoded image to texture data, so they understate the saving.
+ * <p>
+ * The optional argument is the number of tiles of each image format.
+ */
+public class TileLoadBenchmark
+{
+    protected static final int TILE_SIZE = 512;
+    protected static final int PASSES = 5;
+
+    protected final File directory;
+    protected final int numTiles;
+
+    public TileLoadBenchmark(File directory, int numTiles)
+    {
+        this.directory = directory;
+        this.numTiles = numTiles;
+    }
+
+    public void run() throws IOException
+    {
+        List<File> jpegFiles = this.writeTiles("jpg", BufferedImage.TYPE_3BYTE_BGR);
+        List<File> pngFiles = this.writeTiles("png", BufferedImage.TYPE_INT_ARGB);
+
+        System.out.printf("%d %dx%d tiles per format, %d passes, mipmaps included\n", this.numTiles, TILE_SIZE,
+            TILE_SIZE, PASSES);
+
+        for (List<File> imageFiles : Arrays.asList(jpegFiles, pngFiles))
+        {
+            String format = WWIO.getSuffix(imageFiles.get(0).getPath()).toUpperCase();
+
+            this.print(format + " image", this.measure(imageFiles, new TileLoader()
+            {
+                public Object load(File file) throws IOException
+                {
+                    return ImageIO.read(file);
+                }
+            }));
+
+            this.print(format + " transcoded raw", this.measure(this.transcode(imageFiles, false), new DDSLoader()));
+
+            this.print(format + " image to DXT", this.measure(imageFiles, new TileLoader()
+            {
+                public Object load(File file) throws IOException
+                {
+                    DXTCompressionAttributes attributes = DDSCompressor.getDefaultCompressionAttributes();
+                    return new DDSCompressor().compressImage(ImageIO.read(file), attributes);
+                }
+            }));
+
+            this.print(format + " transcoded DXT", this.measure(this.transcode(imageFiles, true), new DDSLoader()));
+        }
+    }
+
+    protected interface TileLoader
+    {
+        Object load(File file) throws IOException;
+    }
+
+    protected static class DDSLoader implements TileLoader
+    {
+        public Object load(File file) throws IOException
+        {
+            // The DDS reader needs no OpenGL profile.
+            return TextureIO.newTextureData(null, file, true, TextureIO.DDS);
+        }
+    }
+
+    protected List<File> writeTiles(String suffix, int imageType) throws IOException
+    {
+        List<File> files = new ArrayList<File>();
+        Random random = new Random(this.numTiles);
+
+        for (int i = 0; i < this.numTiles; i++)
+        {
+            BufferedImage image = createTileImage(imageType, random);
+            File file = new File(this.directory, "tile" + i + "." + suffix);
+            ImageIO.write(image, suffix, file);
+            files.add(file);
+        }
+
+        return files;
+    }
+
+    protected List<File> transcode(List<File> imageFiles, boolean dxt) throws IOException
+    {
+        List<File> files = new ArrayList<File>();
+
+        for (File imageFile : imageFiles)
+        {
+            BufferedImage image = ImageIO.read(imageFile);
+            File file = new File(imageFile.getPath() + (dxt ? ".dxt.dds" : ".raw.dds"));
+
+            if (dxt)
+                WWIO.saveBuffer(DDSCompressor.compressImage(image), file);
+            else
+                new DDSUncompressedWriter().write(image, true, file);
+
+            files.add(file);
+        }
+
+        return files;
+    }
+
+    protected double[] measure(List<File> files, TileLoader loader) throws IOException
+    {
+        // Warm up with one pass, then time each load.
+        for (File file : files)
+        {
+            loader.load(file);
+        }
+
+        double[] millis = new double[files.size() * PASSES];
+        int index = 0;
+        for (int pass = 0; pass < PASSES; pass++)
+        {
+            for (File file : files)
+            {
+                long start = System.nanoTime();
+                loader.load(file);
+                millis[index++] = (System.nanoTime() - start) / 1e6;
+            }
+        }
+
+        return millis;
+    }
+
+    protected void print(String label, double[] millis)
+    {
+        Arrays.sort(millis);
+
+        double sum = 0;
+        for (double m : millis)
+        {
+            sum += m;
+        }
+
+        System.out.printf("%-22s mean %8.3f ms, median %8.3f ms, p95 %8.3f ms\n", label, sum / millis.length,
+            millis[millis.length / 2], millis[(int) (millis.length * 0.95)]);
+    }
+
+    protected static BufferedImage createTileImage(int imageType, Random random)
+    {
+        // Smooth gradients with noise, which compress roughly as imagery does.
+        BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, imageType);
+        int[] row = new int[TILE_SIZE];
+        int phase = random.nextInt(TILE_SIZE);
+
+        for (int y = 0; y < TILE_SIZE; y++)
+        {
+            for (int x = 0; x < TILE_SIZE; x++)
+            {
+                int r = (((x + phase) % TILE_SIZE) / 2 + random.nextInt(24)) & 0xFF;
+                int g = (y / 2 + random.nextInt(24)) & 0xFF;
+                int b = (((x + y) / 4) + random.nextInt(24)) & 0xFF;
+                row[x] = 0xFF000000 | (r << 16) | (g << 8) | b;
+            }
+            image.setRGB(0, y, TILE_SIZE, 1, row, 0, TILE_SIZE);
+        }
+
+        return image;
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        int numTiles = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+
+        File directory = WWIO.makeTempDir();
+        try
+        {
+            new TileLoadBenchmark(directory, numTiles).run();
+        }
+        finally
+        {
+            WWIO.deleteDirectory(directory);
+            directory.delete();
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwindx.performance;
+
+import com.jogamp.common.nio.Buffers;
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.terrain.*;
+
+import java.lang.management.*;
+import java.nio.*;
+import java.util.*;
+
+/**
+ * Measures how quickly terrain tile vertices are computed over a synthetic {@link LocalElevationModel}. Tiles are
+ * computed first the way {@link RectangularTessellator} computed them originally, with a {@link LatLon} per vertex and
+ * a call to {@link Globe#computePointFromPosition(Angle, Angle, double)} per vertex, and then with {@link
+ * TileVertexGrid}. Both write the same skirted vertex layout into a direct float buffer, and the largest difference
+ * between their vertices is reported. When the JVM supports it, the number of bytes allocated per tile is also
+ * reported.
+ * <p>
+ * This is a headless command line program; it needs no OpenGL context. Optional arguments are the tile density and
+ * the number of passes over the tiles.
+ */
+public class TileVertexBenchmark
+{
+    protected static final Sector SECTOR = Sector.fromDegrees(35, 36, -120, -119);
+    protected static final int GRID_SIZE = 1201;
+    protected static final int TILES_PER_SIDE = 16;
+
+    protected final Globe globe;
+    protected final int density;
+    protected final List<Sector> tiles = new ArrayList<Sector>();
+    protected final FloatBuffer vertices;
+    protected final TileVertexGrid grid = new TileVertexGrid();
+
+    public TileVertexBenchmark(int density)
+    {
+        this.globe = new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES,
+            createElevationModel());
+        this.density = density;
+        this.vertices = Buffers.newDirectFloatBuffer(3 * (density + 3) * (density + 3));
+
+        double dLat = SECTOR.getDeltaLatDegrees() / TILES_PER_SIDE;
+        double dLon = SECTOR.getDeltaLonDegrees() / TILES_PER_SIDE;
+        for (int j = 0; j < TILES_PER_SIDE; j++)
+        {
+            for (int i = 0; i < TILES_PER_SIDE; i++)
+            {
+                double lat = SECTOR.getMinLatitude().degrees + j * dLat;
+                double lon = SECTOR.getMinLongitude().degrees + i * dLon;
+                this.tiles.add(Sector.fromDegrees(lat, lat + dLat, lon, lon + dLon));
+            }
+        }
+    }
+
+    protected static ElevationModel createElevationModel()
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * GRID_SIZE * GRID_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (int j = 0; j < GRID_SIZE; j++)
+        {
+            for (int i = 0; i < GRID_SIZE; i++)
+            {
+                double e = 500 + 150 * Math.sin(j * 0.05) * Math.cos(i * 0.04) + 40 * Math.sin((i + j) * 0.3);
+                buffer.putShort((short) e);
+            }
+        }
+        buffer.rewind();
+
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.DATA_TYPE, AVKey.INT16);
+        params.setValue(AVKey.BYTE_ORDER, AVKey.LITTLE_ENDIAN);
+
+        LocalElevationModel model = new LocalElevationModel();
+        model.addElevations(buffer, SECTOR, GRID_SIZE, GRID_SIZE, params);
+        return model;
+    }
+
+    /**
+     * Computes a tile's vertices the way RectangularTessellator.buildVerts originally did.
+     *
+     * @param sector the tile's sector.
+     * @param out    the buffer to write the vertices to.
+     */
+    protected void buildPerVertex(Sector sector, FloatBuffer out)
+    {
+        Angle latMax = sector.getMaxLatitude();
+        Angle dLat = sector.getDeltaLat().divide(this.density);
+        Angle lat = sector.getMinLatitude();
+        Angle lonMin = sector.getMinLongitude();
+        Angle lonMax = sector.getMaxLongitude();
+        Angle dLon = sector.getDeltaLon().divide(this.density);
+
+        ArrayList<LatLon> latlons = new ArrayList<LatLon>((this.density + 3) * (this.density + 3));
+        for (int j = 0; j <= this.density + 2; j++)
+        {
+            Angle lon = lonMin;
+            for (int i = 0; i <= this.density + 2; i++)
+            {
+                latlons.add(new LatLon(lat, lon));
+
+                if (i > this.density)
+                    lon = lonMax;
+                else if (i != 0)
+                    lon = lon.add(dLon);
+
+                if (lon.degrees < -180)
+                    lon = Angle.NEG180;
+                else if (lon.degrees > 180)
+                    lon = Angle.POS180;
+            }
+
+            if (j > this.density)
+                lat = latMax;
+            else if (j != 0)
+                lat = lat.add(dLat);
+        }
+
+        double[] elevations = new double[latlons.size()];
+        this.globe.getElevations(sector, latlons, this.resolution(sector), elevations);
+
+        double minElevation = this.globe.getMinElevation();
+        LatLon centroid = sector.getCentroid();
+        Vec4 refCenter = this.globe.computePointFromPosition(centroid.getLatitude(), centroid.getLongitude(), 0d);
+
+        int ie = 0;
+        int iv = 0;
+        Iterator<LatLon> latLonIter = latlons.iterator();
+        for (int j = 0; j <= this.density + 2; j++)
+        {
+            for (int i = 0; i <= this.density + 2; i++)
+            {
+                LatLon latlon = latLonIter.next();
+                double elevation = elevations[ie++];
+
+                if (j == 0 || j >= this.density + 2 || i == 0 || i >= this.density + 2)
+                    elevation = minElevation;
+
+                Vec4 p = this.globe.computePointFromPosition(latlon.getLatitude(), latlon.getLongitude(), elevation);
+                out.put(iv++, (float) (p.x - refCenter.x));
+                out.put(iv++, (float) (p.y - refCenter.y));
+                out.put(iv++, (float) (p.z - refCenter.z));
+            }
+        }
+    }
+
+    /**
+     * Computes a tile's vertices with a {@link TileVertexGrid}, as RectangularTessellator.buildVerts now does.
+     *
+     * @param sector the tile's sector.
+     * @param out    the buffer to write the vertices to.
+     */
+    protected void buildWithGrid(Sector sector, FloatBuffer out)
+    {
+        this.grid.computeLocations(sector, this.density, true);
+        this.grid.computeElevations(this.globe, this.resolution(sector));
+
+        LatLon centroid = sector.getCentroid();
+        Vec4 refCenter = this.globe.computePointFromPosition(centroid.getLatitude(), centroid.getLongitude(), 0d);
+
+        this.grid.computePoints(this.globe, 1, this.globe.getMinElevation());
+        this.grid.putPoints(refCenter, out);
+    }
+
+    protected double resolution(Sector sector)
+    {
+        return sector.getDeltaLatRadians() / this.density;
+    }
+
+    protected double compare()
+    {
+        FloatBuffer expected = Buffers.newDirectFloatBuffer(this.vertices.capacity());
+        double maxDifference = 0;
+        for (Sector sector : this.tiles)
+        {
+            this.buildPerVertex(sector, expected);
+            this.buildWithGrid(sector, this.vertices);
+            for (int i = 0; i < expected.capacity(); i++)
+            {
+                maxDifference = Math.max(maxDifference, Math.abs(expected.get(i) - this.vertices.get(i)));
+            }
+        }
+
+        return maxDifference;
+    }
+
+    public void run(int numPasses)
+    {
+        // Warm up both paths so that the JIT has compiled them.
+        for (int pass = 0; pass < 3; pass++)
+        {
+            this.runPerVertex(1);
+            this.runWithGrid(1);
+        }
+
+        System.out.printf("Density %d, %d tiles, %d vertices per tile, largest vertex difference %g m\n",
+            this.density, this.tiles.size(), (this.density + 3) * (this.density + 3), this.compare());
+
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        this.runPerVertex(numPasses);
+        report("Per-vertex objects", numPasses * this.tiles.size(), System.nanoTime() - start,
+            allocatedBytes() - bytes);
+
+        bytes = allocatedBytes();
+        start = System.nanoTime();
+        this.runWithGrid(numPasses);
+        report("Tile vertex grid", numPasses * this.tiles.size(), System.nanoTime() - start,
+            allocatedBytes() - bytes);
+    }
+
+    protected void runPerVertex(int numPasses)
+    {
+        for (int pass = 0; pass < numPasses; pass++)
+        {
+            for (Sector sector : this.tiles)
+            {
+                this.buildPerVertex(sector, this.vertices);
+            }
+        }
+    }
+
+    protected void runWithGrid(int numPasses)
+    {
+        for (int pass = 0; pass < numPasses; pass++)
+        {
+            for (Sector sector : this.tiles)
+            {
+                this.buildWithGrid(sector, this.vertices);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread, or -1 if the JVM does not report it.
+     *
+     * @return the bytes allocated by the current thread.
+     */
+    protected static long allocatedBytes()
+    {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+
+        return -1;
+    }
+
+    protected static void report(String name, int numTiles, long nanos, long bytes)
+    {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-20s %,9.0f tiles/s, %7.1f us/tile", name, numTiles / seconds, 1e6 * seconds / numTiles);
+        if (bytes >= 0)
+            System.out.printf(", %,9d bytes allocated/tile", bytes / numTiles);
+        System.out.println();
+    }
+
+    public static void main(String[] args)
+    {
+        int density = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int numPasses = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+
+        new TileVertexBenchmark(density).run(numPasses);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ConcurrentMemoryCacheTest
+{
+    /** Tests that recorded accesses are applied to the eviction order before entries are evicted. */
+    @Test
+    public void testEvictsLeastRecentlyUsed()
+    {
+        ConcurrentMemoryCache cache = new ConcurrentMemoryCache(5, 10);
+
+        for (int i = 0; i < 10; i++)
+        {
+            assertTrue("Add failed " + i, cache.add(i, "value" + i, 1));
+        }
+        assertEquals("value0", cache.getObject(0));
+        assertEquals("value1", cache.getObject(1));
+
+        cache.add(10, "value10", 1);
+        assertEquals("Used capacity incorrect after eviction ", 6, cache.getUsedCapacity());
+        assertTrue("Accessed entry evicted ", cache.contains(0));
+        assertTrue("Accessed entry evicted ", cache.contains(1));
+        for (int i = 2; i < 7; i++)
+        {
+            assertFalse("Entry not evicted " + i, cache.contains(i));
+        }
+    }
+
+    /** Tests that replacing an entry notifies listeners of the replaced object and keeps the used capacity exact. */
+    @Test
+    public void testReplace()
+    {
+        ConcurrentMemoryCache cache = new ConcurrentMemoryCache(5, 10);
+        final List<Object> removed = new ArrayList<Object>();
+        cache.addCacheListener(new MemoryCache.CacheListener()
+        {
+            public void entryRemoved(Object key, Object clientObject)
+            {
+                removed.add(clientObject);
+            }
+
+            public void removalException(Throwable exception, Object key, Object clientObject)
+            {
+            }
+        });
+
+        cache.add("a", "a1", 2);
+        cache.add("a", "a2", 3);
+        assertEquals("Replaced entry not reported ", Arrays.asList("a1"), removed);
+        assertEquals("Used capacity incorrect ", 3, cache.getUsedCapacity());
+        assertEquals("a2", cache.getObject("a"));
+
+        cache.clear();
+        assertEquals("Cleared entry not reported ", Arrays.asList("a1", "a2"), removed);
+        assertEquals("Used capacity not zero ", 0, cache.getUsedCapacity());
+    }
+
+    /** Tests that capacity accounting stays exact while many threads add and get entries. */
+    @Test
+    public void testConcurrentAccounting() throws Exception
+    {
+        final ConcurrentMemoryCache cache = new ConcurrentMemoryCache(800, 1000);
+        final AtomicLong removedSize = new AtomicLong();
+        final AtomicLong addedSize = new AtomicLong();
+        cache.addCacheListener(new MemoryCache.CacheListener()
+        {
+            public void entryRemoved(Object key, Object clientObject)
+            {
+                removedSize.addAndGet((Integer) clientObject);
+            }
+
+            public void removalException(Throwable exception, Object key, Object clientObject)
+            {
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int t = 0; t < 8; t++)
+        {
+            final Random random = new Random(t);
+            futures.add(executor.submit(new Runnable()
+            {
+                public void run()
+                {
+                    for (int i = 0; i < 20000; i++)
+                    {
+                        int key = random.nextInt(2000);
+                        if (cache.getObject(key) == null)
+                        {
+                            int size = 1 + key % 10;
+                            if (cache.add(key, size, size))
+                                addedSize.addAndGet(size);
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures)
+        {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertTrue("Capacity exceeded ", cache.getUsedCapacity() <= cache.getCapacity());
+        assertEquals("Used capacity inconsistent with listener notifications ",
+            addedSize.get() - removedSize.get(), cache.getUsedCapacity());
+    }
+}
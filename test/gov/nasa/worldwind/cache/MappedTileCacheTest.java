@@ -0,0 +1,124 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.TileKey;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class MappedTileCacheTest
+{
+    private MappedTileCache cache;
+
+    @Before
+    public void setUp()
+    {
+        // Four segments of 1000 bytes each.
+        this.cache = new MappedTileCache(null, 4000, 1000);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.cache.dispose();
+    }
+
+    /** Tests that payloads are returned intact, both as views and as copies. */
+    @Test
+    public void testPutAndGet()
+    {
+        TileKey key = new TileKey(1, 2, 3, "test");
+        assertTrue("Payload not added ", this.cache.put(key, makePayload(300, 7)));
+        assertTrue("Payload not found ", this.cache.contains(key));
+        assertEquals("Used capacity incorrect ", 300, this.cache.getUsedCapacity());
+
+        ByteBuffer view = this.cache.get(key);
+        assertNotNull("View is null ", view);
+        assertTrue("View is writable ", view.isReadOnly());
+        assertEquals("Payload differs ", makePayload(300, 7), view);
+
+        ByteBuffer copy = this.cache.copy(key);
+        assertNotNull("Copy is null ", copy);
+        assertEquals("Payload differs ", makePayload(300, 7), copy);
+
+        assertNull("Unknown key found ", this.cache.get(new TileKey(1, 2, 4, "test")));
+    }
+
+    /** Tests that replacing and removing payloads keeps the used capacity consistent. */
+    @Test
+    public void testReplaceAndRemove()
+    {
+        TileKey key = new TileKey(1, 2, 3, "test");
+        this.cache.put(key, makePayload(300, 1));
+        this.cache.put(key, makePayload(200, 2));
+        assertEquals("Used capacity incorrect ", 200, this.cache.getUsedCapacity());
+        assertEquals("Payload not replaced ", makePayload(200, 2), this.cache.get(key));
+
+        this.cache.remove(key);
+        assertFalse("Payload not removed ", this.cache.contains(key));
+        assertEquals("Used capacity incorrect ", 0, this.cache.getUsedCapacity());
+    }
+
+    /** Tests that the oldest segment is recycled when the arena is full, and that oversized payloads are refused. */
+    @Test
+    public void testSegmentRecycling()
+    {
+        // Two 400 byte payloads fit in each segment, so the ninth payload recycles the first segment.
+        for (int i = 0; i < 9; i++)
+        {
+            assertTrue("Payload not added " + i, this.cache.put(new TileKey(1, 0, i, "test"), makePayload(400, i)));
+        }
+
+        assertFalse("Recycled payload found ", this.cache.contains(new TileKey(1, 0, 0, "test")));
+        assertFalse("Recycled payload found ", this.cache.contains(new TileKey(1, 0, 1, "test")));
+        for (int i = 2; i < 9; i++)
+        {
+            assertEquals("Payload differs " + i, makePayload(400, i), this.cache.get(new TileKey(1, 0, i, "test")));
+        }
+        assertEquals("Used capacity incorrect ", 7 * 400, this.cache.getUsedCapacity());
+
+        assertFalse("Oversized payload added ", this.cache.put(new TileKey(1, 1, 0, "test"), makePayload(1001, 0)));
+    }
+
+    private static ByteBuffer makePayload(int length, int seed)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (int i = 0; i < length; i++)
+        {
+            buffer.put((byte) (i * 31 + seed));
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.WWIO;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class PackedDataFileStoreTest
+{
+    private static final String TILE_PATH = "Earth/Test Imagery/3/12/12_34.png";
+
+    private File storeDir;
+    private PackedDataFileStore store;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.storeDir = Files.createTempDirectory("PackedDataFileStoreTest").toFile();
+        this.store = new PackedDataFileStore(this.storeDir);
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        this.store.dispose();
+        WWIO.deleteDirectory(this.storeDir);
+        this.storeDir.delete();
+    }
+
+    /** Tests that tiles written through newFile are packed and read back through their URL. */
+    @Test
+    public void testNewFileIsPacked() throws IOException
+    {
+        File file = this.store.newFile(TILE_PATH);
+        WWIO.saveBuffer(makeContents(500, 3), file);
+        assertFalse("Tile packed before flush ", this.store.isPacked(TILE_PATH));
+
+        this.store.flush();
+        assertTrue("Tile not packed ", this.store.isPacked(TILE_PATH));
+        assertFalse("Loose file not deleted ", file.exists());
+        assertTrue("Tile not found ", this.store.containsFile(TILE_PATH));
+
+        URL url = this.store.findFile(TILE_PATH, false);
+        assertEquals("URL protocol incorrect ", PackedDataFileStore.URL_PROTOCOL, url.getProtocol());
+        assertEquals("Contents incorrect ", makeContents(500, 3), WWIO.readURLContentToBuffer(url));
+        assertFalse("Tile expired ", WWIO.isFileOutOfDate(url, 0));
+        assertTrue("Tile not expired ", WWIO.isFileOutOfDate(url, System.currentTimeMillis() + 1000));
+
+        this.store.removeFile(url);
+        assertFalse("Tile not removed ", this.store.containsFile(TILE_PATH));
+        assertNull("Removed tile found ", this.store.findFile(TILE_PATH, false));
+    }
+
+    /** Tests that a file flushed before it's written stays pending and is packed once it's written. */
+    @Test
+    public void testUnwrittenFileStaysPending() throws IOException
+    {
+        File file = this.store.newFile(TILE_PATH);
+        this.store.flush();
+        assertFalse("Unwritten tile packed ", this.store.isPacked(TILE_PATH));
+
+        WWIO.saveBuffer(makeContents(500, 3), file);
+        this.store.flush();
+        assertTrue("Tile not packed ", this.store.isPacked(TILE_PATH));
+        assertFalse("Loose file not deleted ", file.exists());
+    }
+
+    /** Tests that only tile paths are packed. */
+    @Test
+    public void testConfigurationFileNotPacked() throws IOException
+    {
+        File file = this.store.newFile("Earth/Test Imagery/Test Imagery.xml");
+        WWIO.writeTextFile("<Layer/>", file);
+        this.store.flush();
+
+        assertEquals("Packed file count incorrect ", 0, this.store.getNumPackedFiles());
+        assertTrue("Configuration file deleted ", file.exists());
+    }
+
+    /** Tests that the index and packs are restored when the store is reopened, and survive compaction. */
+    @Test
+    public void testReopenAndCompact() throws IOException
+    {
+        for (int i = 0; i < 10; i++)
+        {
+            this.store.writePackedFile(makePath(i), makeContents(1000, i), 1000L * i);
+        }
+        // Replace half the tiles and remove one.
+        for (int i = 0; i < 5; i++)
+        {
+            this.store.writePackedFile(makePath(i), makeContents(200, i + 100), 1000L * i);
+        }
+        this.store.removeFile(this.store.findFile(makePath(9), false));
+
+        this.store.dispose();
+        this.store = new PackedDataFileStore(this.storeDir);
+        assertEquals("Packed file count incorrect after reopening ", 9, this.store.getNumPackedFiles());
+        assertContents(this.store);
+
+        long reclaimed = this.store.compact();
+        assertEquals("Reclaimed size incorrect ", 5 * 1000 + 1000, reclaimed);
+        assertContents(this.store);
+
+        this.store.dispose();
+        this.store = new PackedDataFileStore(this.storeDir);
+        assertContents(this.store);
+        File[] packs = new File(this.storeDir, PackedDataFileStore.PACK_DIRECTORY_NAME).listFiles();
+        assertEquals("Pack file count incorrect ", 3, packs.length); // One pack, the index and the lock file.
+    }
+
+    /** Tests that a second store opening a locked pack directory is read-only and leaves the packs unchanged. */
+    @Test
+    public void testSecondStoreIsReadOnly() throws IOException
+    {
+        this.store.writePackedFile(makePath(0), makeContents(100, 0), 1000L);
+        assertFalse("First store read-only ", this.store.isReadOnly());
+
+        PackedDataFileStore other = new PackedDataFileStore(this.storeDir);
+        try
+        {
+            assertTrue("Second store not read-only ", other.isReadOnly());
+            assertEquals("Packed tile not found ", makeContents(100, 0), other.readPackedFile(makePath(0)));
+
+            // A pack the writing store has created but not yet indexed must survive another store opening.
+            File unindexedPack = new File(new File(this.storeDir, PackedDataFileStore.PACK_DIRECTORY_NAME),
+                "pack-00099.dat");
+            assertTrue("Pack not created ", unindexedPack.createNewFile());
+            PackedDataFileStore third = new PackedDataFileStore(this.storeDir);
+            third.dispose();
+            assertTrue("Unindexed pack deleted ", unindexedPack.exists());
+            unindexedPack.delete();
+
+            this.store.setMaxPackSize(1);
+            this.store.writePackedFile(makePath(1), makeContents(100, 1), 1000L);
+
+            try
+            {
+                other.writePackedFile(makePath(2), makeContents(100, 2), 1000L);
+                fail("Read-only store wrote to the packs");
+            }
+            catch (IllegalStateException e)
+            {
+                // Expected.
+            }
+
+            File file = other.newFile(TILE_PATH);
+            WWIO.saveBuffer(makeContents(50, 3), file);
+            other.flush();
+            assertFalse("Read-only store packed a file ", other.isPacked(TILE_PATH));
+            assertTrue("Loose file deleted ", file.exists());
+            assertEquals("Compaction not skipped ", 0, other.compact());
+        }
+        finally
+        {
+            other.dispose();
+        }
+
+        assertEquals("Contents incorrect ", makeContents(100, 1), this.store.readPackedFile(makePath(1)));
+        assertEquals("Packed file count incorrect ", 2, this.store.getNumPackedFiles());
+
+        // The lock is released when the writing store is disposed.
+        this.store.dispose();
+        this.store = new PackedDataFileStore(this.storeDir);
+        assertFalse("Reopened store read-only ", this.store.isReadOnly());
+        assertEquals("Packed file count incorrect after reopening ", 2, this.store.getNumPackedFiles());
+    }
+
+    /** Tests that a directory cache survives export and import. */
+    @Test
+    public void testExportAndImport() throws IOException
+    {
+        this.store.writePackedFile(TILE_PATH, makeContents(300, 5), 5000L);
+
+        File exportDir = new File(this.storeDir, "export");
+        assertEquals("Exported file count incorrect ", 1, this.store.exportDirectory(exportDir));
+        File exported = new File(exportDir, TILE_PATH);
+        assertEquals("Exported modification time incorrect ", 5000L, exported.lastModified());
+
+        File otherDir = new File(this.storeDir, "other");
+        PackedDataFileStore other = new PackedDataFileStore(otherDir);
+        try
+        {
+            assertEquals("Imported file count incorrect ", 1, other.importDirectory(exportDir, false));
+            assertEquals("Imported contents incorrect ", makeContents(300, 5), other.readPackedFile(TILE_PATH));
+            assertTrue("Source file deleted ", exported.exists());
+        }
+        finally
+        {
+            other.dispose();
+        }
+    }
+
+    private static void assertContents(PackedDataFileStore store) throws IOException
+    {
+        for (int i = 0; i < 9; i++)
+        {
+            ByteBuffer expected = (i < 5) ? makeContents(200, i + 100) : makeContents(1000, i);
+            assertEquals("Contents of tile " + i + " incorrect ", expected, store.readPackedFile(makePath(i)));
+            assertEquals("Modification time of tile " + i + " incorrect ", 1000L * i,
+                store.findFile(makePath(i), false).openConnection().getLastModified());
+        }
+        assertNull("Removed tile found ", store.readPackedFile(makePath(9)));
+    }
+
+    private static String makePath(int i)
+    {
+        return "Earth/Test/2/" + i + "/" + i + "_" + (i + 1) + ".bil";
+    }
+
+    private static ByteBuffer makeContents(int length, int seed)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (int i = 0; i < length; i++)
+        {
+            buffer.put((byte) (i * 31 + seed));
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class SegmentedLRUMemoryCacheTest
+{
+    /** Tests that the least recently added entries are evicted first when no entry has been requested. */
+    @Test
+    public void testEvictsLeastRecentlyAdded()
+    {
+        SegmentedLRUMemoryCache cache = new SegmentedLRUMemoryCache(5, 10);
+
+        for (int i = 0; i < 10; i++)
+        {
+            assertTrue("Add failed " + i, cache.add(i, "value" + i, 1));
+        }
+        assertEquals("Used capacity incorrect ", 10, cache.getUsedCapacity());
+
+        // Adding beyond the capacity evicts down to the low water level before the new entry is added.
+        cache.add(10, "value10", 1);
+        assertEquals("Used capacity incorrect after eviction ", 6, cache.getUsedCapacity());
+        for (int i = 0; i < 5; i++)
+        {
+            assertFalse("Entry not evicted " + i, cache.contains(i));
+        }
+        for (int i = 5; i <= 10; i++)
+        {
+            assertTrue("Entry evicted " + i, cache.contains(i));
+        }
+    }
+
+    /** Tests that requested entries survive eviction of entries that have only been added. */
+    @Test
+    public void testRequestedEntriesAreProtected()
+    {
+        SegmentedLRUMemoryCache cache = new SegmentedLRUMemoryCache(5, 10);
+
+        for (int i = 0; i < 10; i++)
+        {
+            cache.add(i, "value" + i, 1);
+        }
+        assertEquals("value0", cache.getObject(0));
+        assertEquals("value1", cache.getObject(1));
+
+        cache.add(10, "value10", 1);
+        assertTrue("Requested entry evicted ", cache.contains(0));
+        assertTrue("Requested entry evicted ", cache.contains(1));
+        assertFalse("Unrequested entry retained ", cache.contains(2));
+        assertEquals("Used capacity incorrect after eviction ", 6, cache.getUsedCapacity());
+    }
+
+    /** Tests that listeners are notified of replaced, evicted, removed and cleared entries. */
+    @Test
+    public void testListenerNotification()
+    {
+        SegmentedLRUMemoryCache cache = new SegmentedLRUMemoryCache(2, 4);
+        final List<Object> removed = new ArrayList<Object>();
+        cache.addCacheListener(new MemoryCache.CacheListener()
+        {
+            public void entryRemoved(Object key, Object clientObject)
+            {
+                removed.add(clientObject);
+            }
+
+            public void removalException(Throwable exception, Object key, Object clientObject)
+            {
+            }
+        });
+
+        cache.add("a", "a1", 1);
+        cache.add("a", "a2", 1);
+        assertEquals("Replaced entry not reported ", Arrays.asList("a1"), removed);
+
+        cache.add("b", "b", 1);
+        cache.add("c", "c", 1);
+        cache.add("d", "d", 1);
+        cache.add("e", "e", 1);
+        assertEquals("Evicted entries not reported ", Arrays.asList("a1", "a2", "b"), removed);
+
+        cache.remove("d");
+        assertEquals("Removed entry not reported ", "d", removed.get(removed.size() - 1));
+
+        cache.clear();
+        assertEquals("Cleared entries not reported ", 6, removed.size());
+        assertTrue("Cleared entries not reported ", removed.containsAll(Arrays.asList("c", "e")));
+        assertEquals("Cache not empty ", 0, cache.getNumObjects());
+        assertEquals("Used capacity not zero ", 0, cache.getUsedCapacity());
+    }
+
+    /** Tests that the protected segment is limited to its share of the capacity. */
+    @Test
+    public void testProtectedSegmentDemotion()
+    {
+        SegmentedLRUMemoryCache cache = new SegmentedLRUMemoryCache(5, 10);
+        cache.setProtectedRatio(0.2);
+
+        for (int i = 0; i < 10; i++)
+        {
+            cache.add(i, "value" + i, 1);
+        }
+        // Only two entries fit in the protected segment, so entry 0 is demoted to the probationary segment's most
+        // recently used end when entry 2 is requested.
+        cache.getObject(0);
+        cache.getObject(1);
+        cache.getObject(2);
+
+        cache.add(10, "value10", 1);
+        assertTrue("Protected entry evicted ", cache.contains(1));
+        assertTrue("Protected entry evicted ", cache.contains(2));
+        assertTrue("Demoted entry evicted before older entries ", cache.contains(0));
+        assertFalse("Unrequested entry retained ", cache.contains(3));
+        assertEquals("Used capacity incorrect after eviction ", 6, cache.getUsedCapacity());
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.data;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.cache.*;
+import gov.nasa.worldwind.geom.Sector;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class CachedDataRasterTest
+{
+    private static final String SOURCE = "test-raster";
+
+    /** Tests that rasters evicted while being drawn are disposed once drawing ends, not while it's in progress. */
+    @Test
+    public void testRastersEvictedDuringUseAreDisposed() throws Exception
+    {
+        final MemoryCache cache = new BasicMemoryCache(800000L, 1000000L);
+        final AtomicInteger numDisposed = new AtomicInteger();
+        final AtomicInteger numDisposedWhileDrawing = new AtomicInteger(-1);
+
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.SECTOR, Sector.fromDegrees(0, 1, 0, 1));
+        params.setValue(AVKey.PIXEL_FORMAT, AVKey.ELEVATION);
+        params.setValue(AVKey.WIDTH, 4);
+        params.setValue(AVKey.HEIGHT, 4);
+        params.setValue(AVKey.DATA_TYPE, AVKey.INT16);
+
+        CachedDataRaster raster = new CachedDataRaster(SOURCE, params, new TestReader()
+        {
+            public DataRaster[] read(Object source, AVList params)
+            {
+                DataRaster raster = new ByteBufferRaster(4, 4, Sector.fromDegrees(0, 1, 0, 1), params)
+                {
+                    @Override
+                    public void drawOnTo(DataRaster canvas)
+                    {
+                        // Evict the rasters while they're in use, as releasing memory does.
+                        cache.clear();
+                        numDisposedWhileDrawing.set(numDisposed.get());
+                    }
+
+                    @Override
+                    public void dispose()
+                    {
+                        numDisposed.incrementAndGet();
+                    }
+                };
+                return new DataRaster[] {raster};
+            }
+        }, cache);
+
+        raster.drawOnTo(new ByteBufferRaster(4, 4, Sector.fromDegrees(0, 1, 0, 1), params));
+
+        assertEquals("Rasters disposed while in use ", 0, numDisposedWhileDrawing.get());
+        assertEquals("Evicted rasters not disposed ", 1, numDisposed.get());
+        assertFalse("Rasters still cached ", cache.contains(SOURCE));
+    }
+
+    private abstract static class TestReader extends AVListImpl implements DataRasterReader
+    {
+        public String getDescription()
+        {
+            return "Test";
+        }
+
+        public String[] getSuffixes()
+        {
+            return new String[0];
+        }
+
+        public boolean canRead(Object source, AVList params)
+        {
+            return true;
+        }
+
+        public AVList readMetadata(Object source, AVList params)
+        {
+            return params;
+        }
+
+        public boolean isImageryRaster(Object source, AVList params)
+        {
+            return false;
+        }
+
+        public boolean isElevationsRaster(Object source, AVList params)
+        {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.data;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.util.WWIO;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class TiledRasterProducerParallelTest
+{
+    private static final String SOURCE = "testData/sba_elev32_wgs84_512x512.tif";
+
+    private File storeDir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.storeDir = Files.createTempDirectory("TiledRasterProducerParallelTest").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        WWIO.deleteDirectory(this.storeDir);
+        this.storeDir.delete();
+    }
+
+    @Test
+    public void testParallelProductionMatchesSequential() throws Exception
+    {
+        Map<String, byte[]> sequential = this.produce("sequential", 1);
+        Map<String, byte[]> parallel = this.produce("parallel", 4);
+
+        assertTrue("Too few tiles ", sequential.size() > 4);
+        assertEquals("Tile names incorrect ", sequential.keySet(), parallel.keySet());
+        for (Map.Entry<String, byte[]> entry : sequential.entrySet())
+        {
+            assertTrue("Tile " + entry.getKey() + " incorrect ",
+                Arrays.equals(entry.getValue(), parallel.get(entry.getKey())));
+        }
+    }
+
+    private Map<String, byte[]> produce(String cacheName, int parallelism) throws Exception
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.FILE_STORE_LOCATION, this.storeDir.getAbsolutePath());
+        params.setValue(AVKey.DATA_CACHE_NAME, cacheName);
+        params.setValue(AVKey.DATASET_NAME, cacheName);
+        params.setValue(AVKey.TILE_WIDTH, 64);
+        params.setValue(AVKey.TILE_HEIGHT, 64);
+        params.setValue(AVKey.TILED_RASTER_PRODUCER_PARALLELISM, parallelism);
+
+        TiledElevationProducer producer = new TiledElevationProducer();
+        producer.setStoreParameters(params);
+        producer.offerDataSource(new File(SOURCE), null);
+        producer.startProduction();
+
+        // Collect the tiles, keyed by their path relative to the cache folder. The configuration file is excluded,
+        // as it names the cache folder.
+        final Path root = new File(this.storeDir, cacheName).toPath();
+        final Map<String, byte[]> tiles = new TreeMap<String, byte[]>();
+        Files.walk(root).filter(Files::isRegularFile).forEach(path ->
+        {
+            if (!path.toString().endsWith(".xml"))
+            {
+                try
+                {
+                    tiles.put(root.relativize(path).toString(), Files.readAllBytes(path));
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+
+        return tiles;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.formats.dds;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class DDSCompressorTest
+{
+    /** Tests that parallel DXT1 compression produces the same file as sequential compression. */
+    @Test
+    public void testParallelDXT1MatchesSequential()
+    {
+        BufferedImage image = createImage(512, 256, BufferedImage.TYPE_INT_ARGB);
+
+        DXTCompressionAttributes attributes = DDSCompressor.getDefaultCompressionAttributes();
+        attributes.setEnableDXT1Alpha(true);
+
+        assertParallelMatchesSequential(image, attributes, DDSConstants.D3DFMT_DXT1);
+    }
+
+    /** Tests that parallel DXT3 compression produces the same file as sequential compression. */
+    @Test
+    public void testParallelDXT3MatchesSequential()
+    {
+        BufferedImage image = createImage(256, 512, BufferedImage.TYPE_INT_ARGB);
+
+        assertParallelMatchesSequential(image, DDSCompressor.getDefaultCompressionAttributes(),
+            DDSConstants.D3DFMT_DXT3);
+    }
+
+    private static void assertParallelMatchesSequential(BufferedImage image, DXTCompressionAttributes attributes,
+        int dxtFormat)
+    {
+        DDSCompressor compressor = new DDSCompressor();
+        attributes.setDXTFormat(dxtFormat);
+
+        attributes.setEnableParallelCompression(false);
+        ByteBuffer expected = compressor.compressImage(image, attributes);
+
+        attributes.setEnableParallelCompression(true);
+        ByteBuffer actual = compressor.compressImage(image, attributes);
+
+        assertEquals("Compressed size incorrect ", expected.remaining(), actual.remaining());
+        assertTrue("Compressed bytes differ ", expected.equals(actual));
+    }
+
+    private static BufferedImage createImage(int width, int height, int type)
+    {
+        // Smooth gradients with noise and a band of partial transparency, so blocks use varied palettes.
+        BufferedImage image = new BufferedImage(width, height, type);
+        Random random = new Random(width * height);
+
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                int a = y % 64 < 16 ? random.nextInt(256) : 255;
+                int r = (x * 255 / width + random.nextInt(32)) & 0xFF;
+                int g = (y * 255 / height + random.nextInt(32)) & 0xFF;
+                int b = random.nextInt(256);
+                image.setRGB(x, y, (a << 24) | (r << 16) | (g << 8) | b);
+            }
+        }
+
+        return image;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.formats.dds;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.util.texture.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class DDSUncompressedWriterTest
+{
+    /** Tests that an image with alpha is read back as RGBA texture data with the image's pixels and mipmaps. */
+    @Test
+    public void testAlphaImage() throws IOException
+    {
+        BufferedImage image = createImage(64, 32, BufferedImage.TYPE_INT_ARGB);
+        TextureData data = writeAndRead(image, true);
+
+        assertEquals("Pixel format incorrect ", GL.GL_RGBA, data.getPixelFormat());
+        assertEquals("Mipmap count incorrect ", 7, data.getMipmapData().length);
+        assertPixelsEqual(image, data.getMipmapData()[0], 4);
+    }
+
+    /** Tests that an opaque image is read back as RGB texture data with the image's pixels. */
+    @Test
+    public void testOpaqueImage() throws IOException
+    {
+        BufferedImage image = createImage(32, 32, BufferedImage.TYPE_3BYTE_BGR);
+        TextureData data = writeAndRead(image, false);
+
+        assertEquals("Pixel format incorrect ", GL.GL_RGB, data.getPixelFormat());
+        assertNull("Unexpected mipmaps ", data.getMipmapData());
+        assertPixelsEqual(image, data.getBuffer(), 3);
+    }
+
+    private static TextureData writeAndRead(BufferedImage image, boolean buildMipmaps) throws IOException
+    {
+        File file = File.createTempFile("DDSUncompressedWriterTest", ".dds");
+        try
+        {
+            new DDSUncompressedWriter().write(image, buildMipmaps, file);
+
+            // The DDS reader needs no OpenGL profile.
+            TextureData data = TextureIO.newTextureData(null, file, buildMipmaps, TextureIO.DDS);
+            assertEquals("Width incorrect ", image.getWidth(), data.getWidth());
+            assertEquals("Height incorrect ", image.getHeight(), data.getHeight());
+
+            return data;
+        }
+        finally
+        {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    private static void assertPixelsEqual(BufferedImage image, java.nio.Buffer buffer, int bytesPerPixel)
+    {
+        ByteBuffer bytes = (ByteBuffer) buffer;
+        bytes.rewind();
+
+        for (int y = 0; y < image.getHeight(); y++)
+        {
+            for (int x = 0; x < image.getWidth(); x++)
+            {
+                int argb = image.getRGB(x, y);
+                assertEquals("Red incorrect ", (argb >> 16) & 0xFF, bytes.get() & 0xFF);
+                assertEquals("Green incorrect ", (argb >> 8) & 0xFF, bytes.get() & 0xFF);
+                assertEquals("Blue incorrect ", argb & 0xFF, bytes.get() & 0xFF);
+                if (bytesPerPixel == 4)
+                    assertEquals("Alpha incorrect ", (argb >>> 24), bytes.get() & 0xFF);
+            }
+        }
+    }
+
+    private static BufferedImage createImage(int width, int height, int type)
+    {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Random random = new Random(width * height);
+
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+
+        return image;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.formats.geojson;
+
+import gov.nasa.worldwind.geom.Position;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class GeoJSONFeatureReaderTest
+{
+    private static final int NUM_FEATURES = 500;
+    private static final String SINGLE_FEATURE = "{\"type\": \"Feature\", \"properties\": {\"id\": 7},"
+        + " \"geometry\": {\"type\": \"Point\", \"coordinates\": [10.5, 20.25]}}";
+
+    @Test
+    public void testReadFeaturesMatchesDoc() throws Exception
+    {
+        byte[] document = makeFeatureCollection(NUM_FEATURES);
+        Map<Object, String> expected = readDoc(document);
+        assertEquals("Number of features not as expected", NUM_FEATURES, expected.size());
+
+        GeoJSONFeatureReader reader = new GeoJSONFeatureReader(new ByteArrayInputStream(document));
+        Map<Object, String> actual = readFeatures(reader, 1);
+        assertEquals("Streamed features not as expected", expected, actual);
+        assertEquals("Collection fields not as expected", "features", reader.getCollectionFields().getValue("name"));
+    }
+
+    @Test
+    public void testReadFeaturesInParallelMatchesDoc() throws Exception
+    {
+        byte[] document = makeFeatureCollection(NUM_FEATURES);
+        Map<Object, String> expected = readDoc(document);
+
+        GeoJSONFeatureReader reader = new GeoJSONFeatureReader(new ByteArrayInputStream(document));
+        reader.batchSize = 4096; // Force many batches.
+        Map<Object, String> actual = readFeatures(reader, 3);
+        assertEquals("Streamed features not as expected", expected, actual);
+    }
+
+    @Test
+    public void testReadSingleFeature() throws Exception
+    {
+        GeoJSONFeatureReader reader = new GeoJSONFeatureReader(
+            new ByteArrayInputStream(SINGLE_FEATURE.getBytes(StandardCharsets.UTF_8)));
+        Map<Object, String> actual = readFeatures(reader, 1);
+        assertEquals("Feature not as expected", Collections.singletonMap((Object) 7d, "Point "
+            + Position.fromDegrees(20.25, 10.5) + " null"), actual);
+    }
+
+    @Test
+    public void testReadSingleFeatureInParallel() throws Exception
+    {
+        GeoJSONFeatureReader reader = new GeoJSONFeatureReader(
+            new ByteArrayInputStream(SINGLE_FEATURE.getBytes(StandardCharsets.UTF_8)));
+        Map<Object, String> actual = readFeatures(reader, 3);
+        assertEquals("Feature not as expected", Collections.singletonMap((Object) 7d, "Point "
+            + Position.fromDegrees(20.25, 10.5) + " null"), actual);
+        assertEquals("Root fields not as expected", "Feature", reader.getCollectionFields().getValue("type"));
+    }
+
+    private static Map<Object, String> readFeatures(GeoJSONFeatureReader reader, int parallelism) throws Exception
+    {
+        final Map<Object, String> features = new ConcurrentHashMap<Object, String>();
+        try
+        {
+            reader.readFeatures(parallelism, new GeoJSONFeatureVisitor()
+            {
+                @Override
+                public void visitFeature(GeoJSONFeature feature)
+                {
+                    features.put(feature.getProperties().getValue("id"), describe(feature));
+                }
+            });
+        }
+        finally
+        {
+            reader.close();
+        }
+
+        return features;
+    }
+
+    private static Map<Object, String> readDoc(byte[] document) throws Exception
+    {
+        Map<Object, String> features = new HashMap<Object, String>();
+
+        GeoJSONDoc doc = new GeoJSONDoc(new ByteArrayInputStream(document));
+        try
+        {
+            doc.parse();
+            for (GeoJSONFeature feature : ((GeoJSONObject) doc.getRootObject()).asFeatureCollection().getFeatures())
+            {
+                features.put(feature.getProperties().getValue("id"), describe(feature));
+            }
+        }
+        finally
+        {
+            doc.close();
+        }
+
+        return features;
+    }
+
+    private static String describe(GeoJSONFeature feature)
+    {
+        StringBuilder sb = new StringBuilder(feature.getGeometry().getType());
+        if (feature.getGeometry().isPoint())
+        {
+            sb.append(' ').append(feature.getGeometry().asPoint().getPosition());
+        }
+        else if (feature.getGeometry().isPolygon())
+        {
+            for (GeoJSONPositionArray ring : feature.getGeometry().asPolygon().getCoordinates())
+            {
+                sb.append(" ring");
+                for (Position position : ring)
+                {
+                    sb.append(' ').append(position);
+                }
+            }
+        }
+
+        Object name = feature.getProperties().getValue("name");
+        return sb.append(' ').append(name).toString();
+    }
+
+    private static byte[] makeFeatureCollection(int numFeatures)
+    {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder();
+        // The "name" value and the nested "features" property must not be mistaken for the features array.
+        sb.append("{\"type\": \"FeatureCollection\", \"name\": \"features\", \"features\": [\n");
+
+        for (int i = 0; i < numFeatures; i++)
+        {
+            if (i > 0)
+                sb.append(",\n");
+
+            sb.append("{\"type\": \"Feature\", \"properties\": {\"id\": ").append(i);
+            sb.append(", \"name\": \"f\\\"").append(i).append("} ]\", \"features\": [{}]}, \"geometry\": ");
+
+            if (i % 2 == 0)
+            {
+                sb.append("{\"type\": \"Point\", \"coordinates\": [");
+                sb.append(random.nextDouble() * 360 - 180).append(", ").append(random.nextDouble() * 180 - 90);
+                sb.append("]}}");
+            }
+            else
+            {
+                sb.append("{\"type\": \"Polygon\", \"coordinates\": [");
+                int numRings = 1 + random.nextInt(2);
+                for (int r = 0; r < numRings; r++)
+                {
+                    if (r > 0)
+                        sb.append(", ");
+                    sb.append('[');
+                    int numPoints = 4 + random.nextInt(50);
+                    for (int p = 0; p < numPoints; p++)
+                    {
+                        if (p > 0)
+                            sb.append(", ");
+                        sb.append('[').append(random.nextDouble() * 360 - 180).append(", ");
+                        sb.append(random.nextDouble() * 180 - 90).append(", ").append(random.nextInt(1000));
+                        sb.append(']');
+                    }
+                    sb.append(']');
+                }
+                sb.append("]}}");
+            }
+        }
+
+        sb.append("\n], \"bbox\": [-180, -90, 180, 90]}");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -30,14 +30,17 @@ package gov.nasa.worldwind.formats.shapefile;
 import gov.nasa.worldwind.avlist.*;
 import gov.nasa.worldwind.exception.WWRuntimeException;
 import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.layers.RenderableLayer;
+import gov.nasa.worldwind.render.*;
 import gov.nasa.worldwind.util.*;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
-import java.io.File;
+import java.io.*;
 import java.net.*;
-import java.util.Arrays;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.Assert.*;
 
@@ -180,6 +183,150 @@ public class ShapefileTest
         }
     }
 
+    //////////////////////////////////////////////////////////
+    // Test Record Visiting
+    //////////////////////////////////////////////////////////
+
+    @Test
+    public void testVisitRecordsMatchesNextRecord()
+    {
+        String[] attributeNames = {"NAME", "POP2005", "LAT", "NOT_A_FIELD"};
+        Map<Integer, String> expected = readRecords(WORLD_BORDERS_PATH, attributeNames);
+
+        assertEquals("Visited records not as expected", expected,
+            visitRecords(WORLD_BORDERS_PATH, attributeNames, 1));
+    }
+
+    @Test
+    public void testVisitRecordsInParallelMatchesNextRecord()
+    {
+        String[] attributeNames = {"ID", "LENGTH"};
+        Map<Integer, String> expected = readRecords(STATE_BOUNDS_PATH, attributeNames);
+
+        assertEquals("Visited records not as expected", expected,
+            visitRecords(STATE_BOUNDS_PATH, attributeNames, 3));
+
+        expected = readRecords(WORLD_BORDERS_PATH, new String[] {"NAME"});
+        assertEquals("Visited records not as expected", expected,
+            visitRecords(WORLD_BORDERS_PATH, new String[] {"NAME"}, 4));
+    }
+
+    //////////////////////////////////////////////////////////
+    // Test Spatial Index
+    //////////////////////////////////////////////////////////
+
+    @Test
+    public void testSelectRecords() throws Exception
+    {
+        File dir = WWIO.makeTempDir();
+        try
+        {
+            File file = copyShapefile(WORLD_BORDERS_PATH, dir);
+            Sector sector = Sector.fromDegrees(35, 60, -10, 30);
+
+            // Compute the expected selection by reading every record.
+            List<Integer> expected = new ArrayList<Integer>();
+            Map<Integer, Object> expectedNames = new HashMap<Integer, Object>();
+            Shapefile shapefile = new Shapefile(file);
+            for (int i = 0; shapefile.hasNext(); i++)
+            {
+                ShapefileRecord record = shapefile.nextRecord();
+                double minLat = 90, maxLat = -90, minLon = 180, maxLon = -180;
+                for (double[] coord : record.getCompoundPointBuffer().getCoords())
+                {
+                    minLon = Math.min(minLon, coord[0]);
+                    maxLon = Math.max(maxLon, coord[0]);
+                    minLat = Math.min(minLat, coord[1]);
+                    maxLat = Math.max(maxLat, coord[1]);
+                }
+                if (sector.intersects(Sector.fromDegrees(minLat, maxLat, minLon, maxLon)))
+                {
+                    expected.add(i);
+                    expectedNames.put(record.getRecordNumber(), record.getAttributes().getValue("NAME"));
+                }
+            }
+            shapefile.close();
+
+            shapefile = new Shapefile(file);
+            assertTrue("Random access not supported", shapefile.isRandomAccessSupported());
+            int[] selected = shapefile.selectRecords(sector);
+            assertEquals("Selected records not as expected", expected.toString(), Arrays.toString(selected));
+            shapefile.close();
+
+            File indexFile = new File(dir, "TM_WORLD_BORDERS-0.3" + Shapefile.SPATIAL_INDEX_FILE_SUFFIX);
+            assertTrue("Spatial index file not written", indexFile.exists());
+            assertNotNull("Spatial index file not current",
+                ShapefileSpatialIndex.read(indexFile, file.length(), file.lastModified()));
+
+            // Reopen the Shapefile, loading its index from the sidecar file, and read only the selected records.
+            shapefile = new Shapefile(file);
+            shapefile.setRecordSelection(sector);
+            Map<Integer, Object> names = new HashMap<Integer, Object>();
+            while (shapefile.hasNext())
+            {
+                ShapefileRecord record = shapefile.nextRecord();
+                assertRecordAppearsNormal(shapefile, record);
+                names.put(record.getRecordNumber(), record.getAttributes().getValue("NAME"));
+            }
+            shapefile.close();
+
+            assertEquals("Selected record attributes not as expected", expectedNames, names);
+        }
+        finally
+        {
+            WWIO.deleteDirectory(dir);
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testViewportLoadingPreRendersShapes() throws Exception
+    {
+        File dir = WWIO.makeTempDir();
+        try
+        {
+            File file = copyShapefile(WORLD_BORDERS_PATH, dir);
+            final List<ShapefilePolygons> polygons = new ArrayList<ShapefilePolygons>();
+            final int[] preRenderCount = new int[1];
+
+            ShapefileLayerFactory factory = new ShapefileLayerFactory()
+            {
+                @Override
+                protected void addRenderablesForSurfacePolygons(Shapefile shp, RenderableLayer layer)
+                {
+                    ShapefilePolygons shape = new ShapefilePolygons(shp)
+                    {
+                        @Override
+                        public void preRender(DrawContext dc)
+                        {
+                            preRenderCount[0]++;
+                        }
+                    };
+                    polygons.add(shape);
+                    layer.addRenderable(shape);
+                }
+            };
+
+            ShapefileLayerFactory.ViewportRenderable renderable = factory.new ViewportRenderable(file);
+            Sector region = Sector.fromDegrees(35, 60, -10, 30);
+            renderable.loadRegion(region);
+            assertEquals("Region not loaded", region, renderable.getLoadedSector());
+            assertEquals("Polygons not created", 1, polygons.size());
+
+            // The visible sector lies within the loaded region, so pre-rendering must not request another region.
+            DrawContext dc = new DrawContextImpl();
+            dc.setVisibleSector(Sector.fromDegrees(40, 50, 0, 20));
+            renderable.preRender(dc);
+            assertEquals("Polygons not pre-rendered", 1, preRenderCount[0]);
+            assertFalse("Region unexpectedly requested", renderable.loading.get());
+        }
+        finally
+        {
+            WWIO.deleteDirectory(dir);
+            dir.delete();
+        }
+    }
+
     //////////////////////////////////////////////////////////
     // Test Expected Values
     //////////////////////////////////////////////////////////
@@ -285,6 +432,71 @@ public class ShapefileTest
         assertNotNull("Record compound point buffer is null", record.getCompoundPointBuffer());
     }
 
+    private static File copyShapefile(String path, File dir) throws IOException
+    {
+        for (String suffix : new String[] {".shp", ".shx", ".dbf", ".prj"})
+        {
+            File source = new File(WWIO.replaceSuffix(path, suffix));
+            WWIO.copyFile(source, new File(dir, source.getName()));
+        }
+
+        return new File(dir, new File(path).getName());
+    }
+
+    private static Map<Integer, String> readRecords(String path, String[] attributeNames)
+    {
+        Map<Integer, String> records = new HashMap<Integer, String>();
+
+        Shapefile shapefile = new Shapefile(path);
+        while (shapefile.hasNext())
+        {
+            ShapefileRecord record = shapefile.nextRecord();
+            StringBuilder sb = new StringBuilder(record.getShapeType()).append(record.getNumberOfParts());
+            for (double[] coord : record.getCompoundPointBuffer().getCoords())
+            {
+                sb.append(';').append(coord[0]).append(',').append(coord[1]);
+            }
+            for (String name : attributeNames)
+            {
+                sb.append('|').append(record.getAttributes().getValue(name));
+            }
+            records.put(record.getRecordNumber(), sb.toString());
+        }
+        shapefile.close();
+
+        return records;
+    }
+
+    private static Map<Integer, String> visitRecords(String path, String[] attributeNames, int parallelism)
+    {
+        final Map<Integer, String> records = new ConcurrentHashMap<Integer, String>();
+
+        Shapefile shapefile = new Shapefile(path);
+        shapefile.visitRecords(attributeNames, parallelism, new ShapefileRecordVisitor()
+        {
+            @Override
+            public void visitRecord(ShapefileRecordView record)
+            {
+                double[] point = new double[2];
+                StringBuilder sb = new StringBuilder(record.getShapeType()).append(record.getNumberOfParts());
+                for (int i = 0; i < record.getNumberOfPoints(); i++)
+                {
+                    record.getPoint(i, point);
+                    sb.append(';').append(point[0]).append(',').append(point[1]);
+                }
+                for (String name : record.getAttributeNames())
+                {
+                    sb.append('|').append(record.getAttribute(name));
+                }
+                records.put(record.getRecordNumber(), sb.toString());
+            }
+        });
+        assertFalse("Shapefile has more records", shapefile.hasNext());
+        shapefile.close();
+
+        return records;
+    }
+
     public static void assertBoundingRectangleAppearsGeographic(String message, double[] coords)
     {
         assertTrue(message, Angle.isValidLatitude(coords[0]));
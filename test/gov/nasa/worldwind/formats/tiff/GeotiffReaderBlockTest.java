@@ -0,0 +1,398 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.formats.tiff;
+
+import gov.nasa.worldwind.data.*;
+import gov.nasa.worldwind.geom.Sector;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class GeotiffReaderBlockTest
+{
+    private static final int WIDTH = 40;
+    private static final int HEIGHT = 24;
+    private static final double PIXEL_SIZE = 0.1;
+
+    private final List<File> files = new ArrayList<File>();
+
+    @After
+    public void tearDown()
+    {
+        for (File file : this.files)
+        {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testTiledDeflateWithHorizontalPredictor() throws IOException
+    {
+        File file = this.writeTiff(ByteOrder.LITTLE_ENDIAN, 16, Tiff.SampleFormat.SIGNED, Tiff.Compression.DEFLATE,
+            Tiff.Predictor.HORIZONTAL_DIFFERENCING, 16, 0);
+
+        assertElevations(readRaster(file, null), 0, 0, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void testPackBitsStrips() throws IOException
+    {
+        File file = this.writeTiff(ByteOrder.BIG_ENDIAN, 16, Tiff.SampleFormat.SIGNED, Tiff.Compression.PACKBITS,
+            Tiff.Predictor.NONE, 0, 5);
+
+        assertElevations(readRaster(file, null), 0, 0, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void testTiledFloatingPointPredictor() throws IOException
+    {
+        for (ByteOrder order : new ByteOrder[] {ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN})
+        {
+            File file = this.writeTiff(order, 32, Tiff.SampleFormat.IEEEFLOAT, Tiff.Compression.DEFLATE,
+                Tiff.Predictor.FLOATING_POINT, 16, 0);
+
+            assertElevations(readRaster(file, null), 0, 0, WIDTH, HEIGHT);
+        }
+    }
+
+    @Test
+    public void testSectorWindow() throws IOException
+    {
+        File file = this.writeTiff(ByteOrder.LITTLE_ENDIAN, 16, Tiff.SampleFormat.SIGNED, Tiff.Compression.DEFLATE,
+            Tiff.Predictor.HORIZONTAL_DIFFERENCING, 16, 0);
+
+        // Columns 17 through 21 and rows 3 through 9, a window that straddles a tile boundary in each direction.
+        Sector sector = Sector.fromDegrees(50 - 9.75 * PIXEL_SIZE, 50 - 3.25 * PIXEL_SIZE,
+            10 + 17.5 * PIXEL_SIZE, 10 + 21.5 * PIXEL_SIZE);
+        ByteBufferRaster raster = readRaster(file, sector);
+
+        assertEquals("Window width incorrect ", 5, raster.getWidth());
+        assertEquals("Window height incorrect ", 7, raster.getHeight());
+        assertEquals("Window sector incorrect ", 10 + 17 * PIXEL_SIZE,
+            raster.getSector().getMinLongitude().degrees, 1e-9);
+        assertEquals("Window sector incorrect ", 50 - 3 * PIXEL_SIZE,
+            raster.getSector().getMaxLatitude().degrees, 1e-9);
+        assertElevations(raster, 17, 3, 5, 7);
+
+        assertNull("Disjoint sector should have no raster ",
+            readRaster(file, Sector.fromDegrees(-10, -5, 10, 12)));
+    }
+
+    private static ByteBufferRaster readRaster(File file, Sector sector) throws IOException
+    {
+        GeotiffReader reader = new GeotiffReader(file);
+        try
+        {
+            DataRaster raster = (sector != null) ? reader.readDataRaster(0, sector) : reader.readDataRaster(0);
+            assertTrue("Raster type incorrect ", raster == null || raster instanceof ByteBufferRaster);
+            return (ByteBufferRaster) raster;
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    private static double valueAt(int x, int y)
+    {
+        return x * 100 + y - 500;
+    }
+
+    private static void assertElevations(ByteBufferRaster raster, int x0, int y0, int width, int height)
+    {
+        assertEquals("Raster width incorrect ", width, raster.getWidth());
+        assertEquals("Raster height incorrect ", height, raster.getHeight());
+
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                assertEquals("Elevation incorrect ", valueAt(x0 + x, y0 + y), raster.getDoubleAtPosition(y, x), 0);
+            }
+        }
+    }
+
+    /**
+     * Writes a WIDTH x HEIGHT geographic elevation TIFF in tiles of <code>tileSize</code> pixels, or in strips of
+     * <code>rowsPerStrip</code> rows when <code>tileSize</code> is zero.
+     */
+    private File writeTiff(ByteOrder order, int bits, int sampleFormat, int compression, int predictor,
+        int tileSize, int rowsPerStrip) throws IOException
+    {
+        int blockWidth = (tileSize > 0) ? tileSize : WIDTH;
+        int blockHeight = (tileSize > 0) ? tileSize : rowsPerStrip;
+        int across = (WIDTH + blockWidth - 1) / blockWidth;
+        int down = (HEIGHT + blockHeight - 1) / blockHeight;
+        int sampleBytes = bits / 8;
+
+        ByteArrayOutputStream blockData = new ByteArrayOutputStream();
+        int[] offsets = new int[across * down];
+        int[] counts = new int[across * down];
+
+        for (int row = 0; row < down; row++)
+        {
+            for (int col = 0; col < across; col++)
+            {
+                int rows = (tileSize > 0) ? blockHeight : Math.min(blockHeight, HEIGHT - row * blockHeight);
+                int rowBytes = blockWidth * sampleBytes;
+                ByteBuffer block = ByteBuffer.allocate(rows * rowBytes).order(order);
+                for (int y = 0; y < rows; y++)
+                {
+                    byte[] line = encodeRow(order, bits, predictor, col * blockWidth, row * blockHeight + y,
+                        blockWidth);
+                    block.put(line);
+                }
+
+                byte[] encoded = compress(compression, block.array());
+                offsets[row * across + col] = 8 + blockData.size();
+                counts[row * across + col] = encoded.length;
+                blockData.write(encoded);
+            }
+        }
+
+        IFDWriter ifd = new IFDWriter(order, 8 + blockData.size());
+        ifd.add(Tiff.Tag.IMAGE_WIDTH, Tiff.Type.SHORT, WIDTH);
+        ifd.add(Tiff.Tag.IMAGE_LENGTH, Tiff.Type.SHORT, HEIGHT);
+        ifd.add(Tiff.Tag.BITS_PER_SAMPLE, Tiff.Type.SHORT, bits);
+        ifd.add(Tiff.Tag.COMPRESSION, Tiff.Type.SHORT, compression);
+        ifd.add(Tiff.Tag.PHOTO_INTERPRETATION, Tiff.Type.SHORT, Tiff.Photometric.Grayscale_BlackIsZero);
+        if (tileSize == 0)
+            ifd.add(Tiff.Tag.STRIP_OFFSETS, Tiff.Type.LONG, offsets);
+        ifd.add(Tiff.Tag.SAMPLES_PER_PIXEL, Tiff.Type.SHORT, 1);
+        if (tileSize == 0)
+        {
+            ifd.add(Tiff.Tag.ROWS_PER_STRIP, Tiff.Type.SHORT, rowsPerStrip);
+            ifd.add(Tiff.Tag.STRIP_BYTE_COUNTS, Tiff.Type.LONG, counts);
+        }
+        ifd.add(Tiff.Tag.PLANAR_CONFIGURATION, Tiff.Type.SHORT, Tiff.PlanarConfiguration.CHUNKY);
+        ifd.add(Tiff.Tag.TIFF_PREDICTOR, Tiff.Type.SHORT, predictor);
+        if (tileSize > 0)
+        {
+            ifd.add(Tiff.Tag.TILE_WIDTH, Tiff.Type.SHORT, tileSize);
+            ifd.add(Tiff.Tag.TILE_LENGTH, Tiff.Type.SHORT, tileSize);
+            ifd.add(Tiff.Tag.TILE_OFFSETS, Tiff.Type.LONG, offsets);
+            ifd.add(Tiff.Tag.TILE_COUNTS, Tiff.Type.LONG, counts);
+        }
+        ifd.add(Tiff.Tag.SAMPLE_FORMAT, Tiff.Type.SHORT, sampleFormat);
+        ifd.add(GeoTiff.Tag.MODEL_PIXELSCALE, new double[] {PIXEL_SIZE, PIXEL_SIZE, 0});
+        ifd.add(GeoTiff.Tag.MODEL_TIEPOINT, new double[] {0, 0, 0, 10, 50, 0});
+        ifd.add(GeoTiff.Tag.GEO_KEY_DIRECTORY, Tiff.Type.SHORT, new int[] {1, 1, 0, 3,
+            GeoTiff.GeoKey.ModelType, 0, 1, GeoTiff.ModelType.Geographic,
+            GeoTiff.GeoKey.RasterType, 0, 1, GeoTiff.RasterType.RasterPixelIsArea,
+            GeoTiff.GeoKey.GeographicType, 0, 1, GeoTiff.GCS.WGS_84});
+
+        File file = File.createTempFile("GeotiffReaderBlockTest", ".tif");
+        this.files.add(file);
+        try (FileOutputStream out = new FileOutputStream(file))
+        {
+            ByteBuffer header = ByteBuffer.allocate(8).order(order);
+            header.put((byte) (order == ByteOrder.BIG_ENDIAN ? 'M' : 'I'));
+            header.put((byte) (order == ByteOrder.BIG_ENDIAN ? 'M' : 'I'));
+            header.putShort((short) 42).putInt(8 + blockData.size());
+            out.write(header.array());
+            blockData.writeTo(out);
+            out.write(ifd.toByteArray());
+        }
+
+        return file;
+    }
+
+    private static byte[] encodeRow(ByteOrder order, int bits, int predictor, int x0, int y, int count)
+    {
+        ByteBuffer row = ByteBuffer.allocate(count * bits / 8).order(order);
+        for (int i = 0; i < count; i++)
+        {
+            // Padding outside the image is filled with zeros, as real encoders do.
+            double value = (x0 + i < WIDTH && y < HEIGHT) ? valueAt(x0 + i, y) : 0;
+            if (bits == 16)
+                row.putShort((short) value);
+            else
+                row.putFloat((float) value);
+        }
+        byte[] bytes = row.array();
+
+        if (predictor == Tiff.Predictor.HORIZONTAL_DIFFERENCING)
+        {
+            ShortBuffer samples = ByteBuffer.wrap(bytes).order(order).asShortBuffer();
+            for (int i = count - 1; i > 0; i--)
+            {
+                samples.put(i, (short) (samples.get(i) - samples.get(i - 1)));
+            }
+        }
+        else if (predictor == Tiff.Predictor.FLOATING_POINT)
+        {
+            // Split the values into byte planes, most significant first, then difference the bytes.
+            int sampleBytes = bits / 8;
+            byte[] planes = new byte[bytes.length];
+            for (int i = 0; i < count; i++)
+            {
+                for (int b = 0; b < sampleBytes; b++)
+                {
+                    int source = (order == ByteOrder.BIG_ENDIAN) ? b : sampleBytes - 1 - b;
+                    planes[b * count + i] = bytes[i * sampleBytes + source];
+                }
+            }
+            for (int i = planes.length - 1; i > 0; i--)
+            {
+                planes[i] -= planes[i - 1];
+            }
+            bytes = planes;
+        }
+
+        return bytes;
+    }
+
+    private static byte[] compress(int compression, byte[] data)
+    {
+        if (compression == Tiff.Compression.DEFLATE)
+        {
+            Deflater deflater = new Deflater();
+            deflater.setInput(data);
+            deflater.finish();
+            byte[] buffer = new byte[data.length * 2 + 64];
+            int length = deflater.deflate(buffer);
+            deflater.end();
+            return Arrays.copyOf(buffer, length);
+        }
+
+        // PackBits: runs of three or more equal bytes are replicated, everything else is copied literally.
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int i = 0;
+        while (i < data.length)
+        {
+            int run = 1;
+            while (i + run < data.length && run < 128 && data[i + run] == data[i])
+            {
+                run++;
+            }
+
+            if (run >= 3)
+            {
+                out.write(1 - run);
+                out.write(data[i]);
+                i += run;
+                continue;
+            }
+
+            int literal = Math.min(128, data.length - i);
+            out.write(literal - 1);
+            out.write(data, i, literal);
+            i += literal;
+        }
+        return out.toByteArray();
+    }
+
+    /** Collects IFD entries, which must be added in tag order, and lays them out followed by their values. */
+    private static class IFDWriter
+    {
+        private final ByteOrder order;
+        private final int offset;
+        private final List<ByteBuffer> entries = new ArrayList<ByteBuffer>();
+        private final ByteArrayOutputStream values = new ByteArrayOutputStream();
+
+        public IFDWriter(ByteOrder order, int offset)
+        {
+            this.order = order;
+            this.offset = offset;
+        }
+
+        public void add(int tag, int type, int value)
+        {
+            ByteBuffer entry = ByteBuffer.allocate(12).order(this.order);
+            entry.putShort((short) tag).putShort((short) type).putInt(1);
+            if (type == Tiff.Type.SHORT)
+                entry.putShort((short) value).putShort((short) 0);
+            else
+                entry.putInt(value);
+            this.entries.add(entry);
+        }
+
+        public void add(int tag, int type, int[] array)
+        {
+            if (array.length == 1)
+            {
+                this.add(tag, type, array[0]);
+                return;
+            }
+
+            ByteBuffer data = ByteBuffer.allocate(array.length * (type == Tiff.Type.SHORT ? 2 : 4)).order(this.order);
+            for (int value : array)
+            {
+                if (type == Tiff.Type.SHORT)
+                    data.putShort((short) value);
+                else
+                    data.putInt(value);
+            }
+            this.addValues(tag, type, array.length, data.array());
+        }
+
+        public void add(int tag, double[] array)
+        {
+            ByteBuffer data = ByteBuffer.allocate(array.length * 8).order(this.order);
+            for (double value : array)
+            {
+                data.putDouble(value);
+            }
+            this.addValues(tag, Tiff.Type.DOUBLE, array.length, data.array());
+        }
+
+        private void addValues(int tag, int type, int count, byte[] data)
+        {
+            ByteBuffer entry = ByteBuffer.allocate(12).order(this.order);
+            entry.putShort((short) tag).putShort((short) type).putInt(count);
+            entry.putInt(-1 - this.values.size()); // patched once the IFD size is known
+            this.entries.add(entry);
+            this.values.write(data, 0, data.length);
+        }
+
+        public byte[] toByteArray()
+        {
+            int valuesOffset = this.offset + 2 + 12 * this.entries.size() + 4;
+            ByteBuffer ifd = ByteBuffer.allocate(valuesOffset - this.offset + this.values.size()).order(this.order);
+            ifd.putShort((short) this.entries.size());
+            for (ByteBuffer entry : this.entries)
+            {
+                int value = entry.getInt(8);
+                if (entry.getInt(4) > 1 && value < 0)
+                    entry.putInt(8, valuesOffset - 1 - value);
+                ifd.put(entry.array());
+            }
+            ifd.putInt(0);
+            ifd.put(this.values.toByteArray());
+            return ifd.array();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.formats.tiff;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.data.*;
+import gov.nasa.worldwind.geom.Sector;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.image.BufferedImage;
+import java.io.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class GeotiffWriterCompressionTest
+{
+    private static final int WIDTH = 150;
+    private static final int HEIGHT = 90;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.file = File.createTempFile("GeotiffWriterCompressionTest", ".tif");
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.file.delete();
+    }
+
+    @Test
+    public void testElevationRoundTrip() throws IOException
+    {
+        int[][] layouts = {
+            {Tiff.Compression.DEFLATE, Tiff.Predictor.HORIZONTAL_DIFFERENCING, 64},
+            {Tiff.Compression.LZW, Tiff.Predictor.HORIZONTAL_DIFFERENCING, 0},
+            {Tiff.Compression.LZW, Tiff.Predictor.NONE, 32},
+            {Tiff.Compression.NONE, Tiff.Predictor.NONE, 16}};
+
+        for (String dataType : new String[] {AVKey.INT16, AVKey.FLOAT32})
+        {
+            ByteBufferRaster raster = createElevations(dataType);
+
+            for (int[] layout : layouts)
+            {
+                int predictor = layout[1];
+                if (predictor == Tiff.Predictor.HORIZONTAL_DIFFERENCING && AVKey.FLOAT32.equals(dataType))
+                    predictor = Tiff.Predictor.FLOATING_POINT;
+
+                GeotiffWriter writer = new GeotiffWriter(this.file);
+                try
+                {
+                    writer.setCompression(layout[0]);
+                    writer.setPredictor(predictor);
+                    writer.setTileSize(layout[2], layout[2]);
+                    writer.write(raster);
+                }
+                finally
+                {
+                    writer.close();
+                }
+
+                ByteBufferRaster result = (ByteBufferRaster) readRaster(this.file);
+                assertEquals("Width incorrect ", WIDTH, result.getWidth());
+                assertEquals("Height incorrect ", HEIGHT, result.getHeight());
+                for (int y = 0; y < HEIGHT; y++)
+                {
+                    for (int x = 0; x < WIDTH; x++)
+                    {
+                        assertEquals("Elevation incorrect ", raster.getDoubleAtPosition(y, x),
+                            result.getDoubleAtPosition(y, x), 0);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCompressionReducesSize() throws IOException
+    {
+        ByteBufferRaster raster = createElevations(AVKey.INT16);
+
+        GeotiffWriter writer = new GeotiffWriter(this.file);
+        writer.write(raster);
+        writer.close();
+        long uncompressed = this.file.length();
+
+        writer = new GeotiffWriter(this.file);
+        writer.setCompression(Tiff.Compression.DEFLATE);
+        writer.setPredictor(Tiff.Predictor.HORIZONTAL_DIFFERENCING);
+        writer.write(raster);
+        writer.close();
+
+        assertTrue("Compressed size incorrect ", this.file.length() < uncompressed / 2);
+    }
+
+    @Test
+    public void testColorImageRoundTrip() throws IOException
+    {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_3BYTE_BGR);
+        for (int y = 0; y < HEIGHT; y++)
+        {
+            for (int x = 0; x < WIDTH; x++)
+            {
+                image.setRGB(x, y, (x << 16) | (y << 8) | ((x * y) & 0xFF));
+            }
+        }
+
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.SECTOR, Sector.fromDegrees(30, 31, -100, -99));
+        params.setValue(AVKey.COORDINATE_SYSTEM, AVKey.COORDINATE_SYSTEM_GEOGRAPHIC);
+        params.setValue(AVKey.PIXEL_FORMAT, AVKey.IMAGE);
+
+        GeotiffWriter writer = new GeotiffWriter(this.file);
+        writer.setCompression(Tiff.Compression.LZW);
+        writer.setPredictor(Tiff.Predictor.HORIZONTAL_DIFFERENCING);
+        writer.setTileSize(48, 48);
+        writer.write(image, params);
+        writer.close();
+
+        BufferedImage result = ((BufferedImageRaster) readRaster(this.file)).getBufferedImage();
+        for (int y = 0; y < HEIGHT; y++)
+        {
+            for (int x = 0; x < WIDTH; x++)
+            {
+                assertEquals("Color incorrect ", image.getRGB(x, y) & 0xFFFFFF, result.getRGB(x, y) & 0xFFFFFF);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTileSize() throws IOException
+    {
+        GeotiffWriter writer = new GeotiffWriter(this.file);
+        try
+        {
+            writer.setTileSize(100, 64);
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    private static ByteBufferRaster createElevations(String dataType)
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.SECTOR, Sector.fromDegrees(30, 31, -100, -99));
+        params.setValue(AVKey.WIDTH, WIDTH);
+        params.setValue(AVKey.HEIGHT, HEIGHT);
+        params.setValue(AVKey.COORDINATE_SYSTEM, AVKey.COORDINATE_SYSTEM_GEOGRAPHIC);
+        params.setValue(AVKey.PIXEL_FORMAT, AVKey.ELEVATION);
+        params.setValue(AVKey.DATA_TYPE, dataType);
+        params.setValue(AVKey.ELEVATION_UNIT, AVKey.UNIT_METER);
+        params.setValue(AVKey.BYTE_ORDER, AVKey.BIG_ENDIAN);
+
+        ByteBufferRaster raster = (ByteBufferRaster) ByteBufferRaster.createGeoreferencedRaster(params);
+        for (int y = 0; y < HEIGHT; y++)
+        {
+            for (int x = 0; x < WIDTH; x++)
+            {
+                double value = 800 * Math.sin(x / 17.0) * Math.cos(y / 11.0) + y;
+                raster.setDoubleAtPosition(y, x, AVKey.INT16.equals(dataType) ? Math.round(value) : (float) value);
+            }
+        }
+        return raster;
+    }
+
+    private static DataRaster readRaster(File file) throws IOException
+    {
+        GeotiffReader reader = new GeotiffReader(file);
+        try
+        {
+            return reader.readDataRaster(0);
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+}
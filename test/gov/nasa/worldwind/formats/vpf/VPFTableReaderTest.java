@@ -0,0 +1,200 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.formats.vpf;
+
+import gov.nasa.worldwind.util.VecBuffer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class VPFTableReaderTest
+{
+    private static final String[] COLUMNS = {"id", "name", "node_ptr", "code", "coordinates", "value"};
+
+    @Test
+    public void testMemoryMappedTableMatchesBufferedTable() throws Exception
+    {
+        File file = writeTable(200);
+        try
+        {
+            VPFBufferedRecordData expected = new VPFTableReader().read(file);
+            VPFBufferedRecordData actual = new VPFTableReader(true).read(file);
+
+            assertEquals("Number of records not as expected", expected.getNumRecords(), actual.getNumRecords());
+
+            // Request the columns in reverse order so that columns following variable length fields are decoded first.
+            for (int col = COLUMNS.length - 1; col >= 0; col--)
+            {
+                for (int id = 1; id <= expected.getNumRecords(); id++)
+                {
+                    VPFRecord expectedRecord = expected.getRecord(id);
+                    VPFRecord actualRecord = actual.getRecord(id);
+
+                    assertEquals("Value not as expected: " + COLUMNS[col] + " " + id,
+                        describe(expectedRecord.getValue(COLUMNS[col])),
+                        describe(actualRecord.getValue(COLUMNS[col])));
+                    assertEquals("Has value not as expected: " + COLUMNS[col] + " " + id,
+                        expectedRecord.hasValue(COLUMNS[col]), actualRecord.hasValue(COLUMNS[col]));
+                }
+            }
+        }
+        finally
+        {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    private static String describe(Object value)
+    {
+        if (value instanceof VPFTripletId)
+        {
+            VPFTripletId id = (VPFTripletId) value;
+            return id.getId() + "/" + id.getTileId() + "/" + id.getExtId();
+        }
+        else if (value instanceof VecBuffer)
+        {
+            StringBuilder sb = new StringBuilder();
+            for (double[] coords : ((VecBuffer) value).getCoords())
+            {
+                sb.append(Arrays.toString(coords));
+            }
+            return sb.toString();
+        }
+
+        return String.valueOf(value);
+    }
+
+    /**
+     * Writes a table with an id column followed by a mix of variable and fixed length columns, and the record index
+     * file which locates each of its records.
+     */
+    private static File writeTable(int numRecords) throws IOException
+    {
+        String header = "L;Test table;-;"
+            + "id=I,1,P,Row id,-,-,-:"
+            + "name=T,12,N,Name,-,-,-:"
+            + "node_ptr=K,1,N,Node,-,-,-:"
+            + "code=I,1,N,Code,-,-,-:"
+            + "coordinates=C,*,N,Coordinates,-,-,-:"
+            + "value=F,1,N,Value,-,-,-:;";
+        byte[] headerBytes = header.getBytes(StandardCharsets.US_ASCII);
+
+        ByteBuffer buffer = ByteBuffer.allocate(4 + headerBytes.length + numRecords * 128);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(headerBytes.length);
+        buffer.put(headerBytes);
+
+        int[] offsets = new int[numRecords];
+        int[] lengths = new int[numRecords];
+        for (int i = 0; i < numRecords; i++)
+        {
+            offsets[i] = buffer.position();
+
+            buffer.putInt(i + 1);
+            buffer.put(String.format("%-12s", (i % 5 == 0) ? "N/A" : "name " + i).getBytes(StandardCharsets.US_ASCII));
+
+            // Vary the triplet id's field sizes between records, including a null triplet.
+            int type = (i % 7 == 0) ? 0 : (((1 + i % 3) << 6) | ((i % 4) << 4) | ((i % 2) << 2));
+            buffer.put((byte) type);
+            putTripletId(buffer, type >> 6, i);
+            putTripletId(buffer, type >> 4, i * 3);
+            putTripletId(buffer, type >> 2, i * 7);
+
+            buffer.putInt(i * 11);
+
+            int numCoords = 1 + i % 4;
+            buffer.putInt(numCoords);
+            for (int c = 0; c < numCoords; c++)
+            {
+                buffer.putFloat(i + c);
+                buffer.putFloat(-i - c);
+            }
+
+            buffer.putFloat(i * 0.5f);
+            lengths[i] = buffer.position() - offsets[i];
+        }
+
+        File file = File.createTempFile("VPFTableReaderTest", ".tbl");
+        File indexFile = new File(file.getParent(), VPFTableReader.getRecordIndexFilename(file.getName()));
+        indexFile.deleteOnExit();
+
+        writeBuffer(file, buffer);
+
+        // The coordinates column is variable length, so the table requires a record index.
+        ByteBuffer index = ByteBuffer.allocate(8 + 8 * numRecords).order(ByteOrder.LITTLE_ENDIAN);
+        index.putInt(numRecords);
+        index.putInt(headerBytes.length);
+        for (int i = 0; i < numRecords; i++)
+        {
+            index.putInt(offsets[i]);
+            index.putInt(lengths[i]);
+        }
+        writeBuffer(indexFile, index);
+
+        return file;
+    }
+
+    private static void putTripletId(ByteBuffer buffer, int bitCount, int value)
+    {
+        switch (bitCount & 3)
+        {
+            case 1:
+                buffer.put((byte) (value & 0xFF));
+                break;
+            case 2:
+                buffer.putShort((short) (value & 0xFFFF));
+                break;
+            case 3:
+                buffer.putInt(value);
+                break;
+        }
+    }
+
+    private static void writeBuffer(File file, ByteBuffer buffer) throws IOException
+    {
+        buffer.flip();
+        FileOutputStream out = new FileOutputStream(file);
+        try
+        {
+            out.getChannel().write(buffer);
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+}
@@ -28,10 +28,14 @@
 package gov.nasa.worldwind.globes;
 
 import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.projections.*;
 import org.junit.*;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import java.nio.FloatBuffer;
+import java.util.Random;
+
 import static org.junit.Assert.assertEquals;
 
 @RunWith(JUnit4.class)
@@ -340,4 +344,151 @@ public class EllipsoidalGlobeTest
             assertEquals(msg, 0, w.z, THRESHOLD);
         }
     }
+
+    @Test
+    public void testComputePointsFromGrid()
+    {
+        // Rows and columns may repeat, as they do along terrain tile skirts.
+        double[] latitudes = new double[] {-90, -30.5, -30.5, 0, 45.25, 90};
+        double[] longitudes = new double[] {-180, -97.547562, 0, 0, 120.125, 180};
+        double[] elevations = new double[latitudes.length * longitudes.length];
+        for (int i = 0; i < elevations.length; i++)
+        {
+            elevations[i] = 100 * i - 1000;
+        }
+
+        double[] points = new double[3 * elevations.length];
+        this.globe.computePointsFromGrid(latitudes, longitudes, elevations, points);
+
+        int k = 0;
+        for (double lat : latitudes)
+        {
+            for (double lon : longitudes)
+            {
+                Vec4 expected = this.globe.computePointFromPosition(Angle.fromDegrees(lat), Angle.fromDegrees(lon),
+                    elevations[k]);
+                String msg = "At " + lat + ", " + lon;
+                assertEquals(msg, expected.x, points[3 * k], 0.0);
+                assertEquals(msg, expected.y, points[3 * k + 1], 0.0);
+                assertEquals(msg, expected.z, points[3 * k + 2], 0.0);
+                k++;
+            }
+        }
+    }
+
+    @Test
+    public void testComputePointsFromPositions()
+    {
+        // Enough positions that the parallel conversion splits them into several tasks.
+        double[][] positions = makePositions(20000);
+        double[] points = new double[3 * positions[0].length];
+        this.globe.computePointsFromPositions(positions[0], positions[1], positions[2], points, true);
+
+        for (int i = 0; i < positions[0].length; i++)
+        {
+            Vec4 expected = this.globe.computePointFromPosition(Angle.fromDegrees(positions[0][i]),
+                Angle.fromDegrees(positions[1][i]), positions[2][i]);
+            String msg = "At index " + i;
+            assertEquals(msg, expected.x, points[3 * i], 0.0);
+            assertEquals(msg, expected.y, points[3 * i + 1], 0.0);
+            assertEquals(msg, expected.z, points[3 * i + 2], 0.0);
+        }
+    }
+
+    @Test
+    public void testComputePointsFromPositionsToBuffer()
+    {
+        double[][] positions = makePositions(10000);
+        Vec4 referencePoint = this.globe.computePointFromPosition(Angle.fromDegrees(12), Angle.fromDegrees(34), 0);
+
+        // Points are written from the buffer's position, and the position is left unchanged.
+        FloatBuffer buffer = FloatBuffer.allocate(3 + 3 * positions[0].length);
+        buffer.position(3);
+        this.globe.computePointsFromPositions(positions[0], positions[1], positions[2], referencePoint, buffer, true);
+        assertEquals("Buffer position", 3, buffer.position());
+
+        for (int i = 0; i < positions[0].length; i++)
+        {
+            Vec4 expected = this.globe.computePointFromPosition(Angle.fromDegrees(positions[0][i]),
+                Angle.fromDegrees(positions[1][i]), positions[2][i]).subtract3(referencePoint);
+            String msg = "At index " + i;
+            assertEquals(msg, (float) expected.x, buffer.get(3 + 3 * i), 0.0);
+            assertEquals(msg, (float) expected.y, buffer.get(3 + 3 * i + 1), 0.0);
+            assertEquals(msg, (float) expected.z, buffer.get(3 + 3 * i + 2), 0.0);
+        }
+    }
+
+    @Test
+    public void testComputePositionsFromPoints()
+    {
+        double[][] positions = makePositions(20000);
+        double[] points = new double[3 * positions[0].length];
+        this.globe.computePointsFromPositions(positions[0], positions[1], positions[2], points, false);
+
+        double[] latitudes = new double[positions[0].length];
+        double[] longitudes = new double[positions[0].length];
+        double[] elevations = new double[positions[0].length];
+        this.globe.computePositionsFromPoints(points, latitudes, longitudes, elevations, true);
+
+        for (int i = 0; i < positions[0].length; i++)
+        {
+            Position expected = this.globe.computePositionFromPoint(
+                new Vec4(points[3 * i], points[3 * i + 1], points[3 * i + 2]));
+            String msg = "At index " + i;
+            assertEquals(msg, expected.getLatitude().degrees, latitudes[i], 0.0);
+            assertEquals(msg, expected.getLongitude().degrees, longitudes[i], 0.0);
+            assertEquals(msg, expected.getElevation(), elevations[i], 0.0);
+        }
+    }
+
+    @Test
+    public void testFlatGlobeBulkConversions()
+    {
+        double[][] positions = makePositions(1000);
+        GeographicProjection[] projections = new GeographicProjection[] {new ProjectionEquirectangular(),
+            new ProjectionMercator(), new ProjectionSinusoidal()};
+
+        for (GeographicProjection projection : projections)
+        {
+            FlatGlobe flatGlobe = new EarthFlat();
+            flatGlobe.setProjection(projection);
+
+            double[] points = new double[3 * positions[0].length];
+            flatGlobe.computePointsFromPositions(positions[0], positions[1], positions[2], points, false);
+
+            double[] latitudes = new double[positions[0].length];
+            double[] longitudes = new double[positions[0].length];
+            double[] elevations = new double[positions[0].length];
+            flatGlobe.computePositionsFromPoints(points, latitudes, longitudes, elevations, false);
+
+            for (int i = 0; i < positions[0].length; i++)
+            {
+                String msg = projection.getName() + " at index " + i;
+                Vec4 expectedPoint = flatGlobe.computePointFromPosition(Angle.fromDegrees(positions[0][i]),
+                    Angle.fromDegrees(positions[1][i]), positions[2][i]);
+                assertEquals(msg, expectedPoint.x, points[3 * i], 0.0);
+                assertEquals(msg, expectedPoint.y, points[3 * i + 1], 0.0);
+                assertEquals(msg, expectedPoint.z, points[3 * i + 2], 0.0);
+
+                Position expectedPosition = flatGlobe.computePositionFromPoint(expectedPoint);
+                assertEquals(msg, expectedPosition.getLatitude().degrees, latitudes[i], 0.0);
+                assertEquals(msg, expectedPosition.getLongitude().degrees, longitudes[i], 0.0);
+                assertEquals(msg, expectedPosition.getElevation(), elevations[i], 0.0);
+            }
+        }
+    }
+
+    private static double[][] makePositions(int count)
+    {
+        double[][] positions = new double[3][count];
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++)
+        {
+            positions[0][i] = 180 * random.nextDouble() - 90;
+            positions[1][i] = 360 * random.nextDouble() - 180;
+            positions[2][i] = 10000 * random.nextDouble() - 1000;
+        }
+
+        return positions;
+    }
 }
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.retrieve;
+
+import com.sun.net.httpserver.*;
+import gov.nasa.worldwind.Configuration;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.util.WWUtil;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link BasicRetrievalService} in virtual-thread mode against a stub HTTP server on the loopback interface. On
+ * Java platforms without virtual threads the service falls back to platform threads, and the same behavior is
+ * expected.
+ */
+@RunWith(JUnit4.class)
+public class BasicRetrievalServiceTest
+{
+    private static final String[] CONFIGURATION_KEYS = {AVKey.RETRIEVAL_USE_VIRTUAL_THREADS,
+        AVKey.RETRIEVAL_VIRTUAL_THREAD_POOL_SIZE, AVKey.RETRIEVAL_POOL_SIZE};
+
+    private HttpServer server;
+    private final List<String> requestOrder = Collections.synchronizedList(new ArrayList<String>());
+    private final CountDownLatch releaseBlocked = new CountDownLatch(1);
+    private final Map<String, String> savedConfiguration = new HashMap<String, String>();
+    private BasicRetrievalService service;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.createContext("/", new HttpHandler()
+        {
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                String path = exchange.getRequestURI().getPath();
+                requestOrder.add(path);
+
+                try
+                {
+                    if (path.startsWith("/blocked"))
+                        releaseBlocked.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+
+                byte[] body = path.getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            }
+        });
+        this.server.start();
+
+        for (String key : CONFIGURATION_KEYS)
+        {
+            this.savedConfiguration.put(key, Configuration.getStringValue(key));
+        }
+        // The in-flight limit is that of platform threads when the service falls back to them.
+        Configuration.setValue(AVKey.RETRIEVAL_USE_VIRTUAL_THREADS, true);
+        Configuration.setValue(AVKey.RETRIEVAL_VIRTUAL_THREAD_POOL_SIZE, 1);
+        Configuration.setValue(AVKey.RETRIEVAL_POOL_SIZE, 1);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.releaseBlocked.countDown();
+        if (this.service != null)
+            this.service.shutdown(true);
+        this.server.stop(0);
+
+        for (String key : CONFIGURATION_KEYS)
+        {
+            if (this.savedConfiguration.get(key) != null)
+                Configuration.setValue(key, this.savedConfiguration.get(key));
+            else
+                Configuration.removeKey(key);
+        }
+    }
+
+    /** Tests that retrievals run, on virtual threads when the platform supports them. */
+    @Test
+    public void testRetrieveOnVirtualThreads() throws Exception
+    {
+        Configuration.setValue(AVKey.RETRIEVAL_VIRTUAL_THREAD_POOL_SIZE, 8);
+        Configuration.setValue(AVKey.RETRIEVAL_POOL_SIZE, 8);
+        this.service = new BasicRetrievalService();
+        assertEquals("Virtual thread mode incorrect ", WWUtil.isVirtualThreadSupported(),
+            this.service.isUsingVirtualThreads());
+        assertEquals("Pool size incorrect ", 8, this.service.getRetrieverPoolSize());
+
+        final Set<Boolean> virtualThreads = Collections.synchronizedSet(new HashSet<Boolean>());
+        List<RetrievalFuture> futures = new ArrayList<RetrievalFuture>();
+        for (int i = 0; i < 20; i++)
+        {
+            URL url = new URL("http", "127.0.0.1", this.server.getAddress().getPort(), "/tile" + i);
+            futures.add(this.service.runRetriever(new HTTPRetriever(url, new RetrievalPostProcessor()
+            {
+                public ByteBuffer run(Retriever retriever)
+                {
+                    virtualThreads.add(isVirtual(Thread.currentThread()));
+                    return retriever.getBuffer();
+                }
+            }), -i));
+        }
+
+        for (int i = 0; i < futures.size(); i++)
+        {
+            Retriever retriever = futures.get(i).get(10, TimeUnit.SECONDS);
+            assertEquals("Contents incorrect ", ByteBuffer.wrap(("/tile" + i).getBytes("UTF-8")),
+                retriever.getBuffer());
+        }
+
+        assertEquals("Retrieval threads incorrect ", Collections.singleton(this.service.isUsingVirtualThreads()),
+            virtualThreads);
+    }
+
+    /** Tests that pending retrievals run in priority order once the in-flight limit has been reached. */
+    @Test
+    public void testPriorityOrderAtInFlightLimit() throws Exception
+    {
+        this.service = new BasicRetrievalService();
+        this.service.runRetriever(this.createRetriever("/blocked"), -100);
+
+        List<RetrievalFuture> futures = new ArrayList<RetrievalFuture>();
+        futures.add(this.service.runRetriever(this.createRetriever("/c"), -3));
+        futures.add(this.service.runRetriever(this.createRetriever("/a"), -5));
+        futures.add(this.service.runRetriever(this.createRetriever("/b"), -4));
+        futures.add(this.service.runRetriever(this.createRetriever("/d"), -10));
+
+        this.releaseBlocked.countDown();
+        for (RetrievalFuture future : futures)
+        {
+            future.get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals("Retrieval order incorrect ", Arrays.asList("/blocked", "/d", "/a", "/b", "/c"),
+            this.requestOrder);
+    }
+
+    private HTTPRetriever createRetriever(String path) throws MalformedURLException
+    {
+        URL url = new URL("http", "127.0.0.1", this.server.getAddress().getPort(), path);
+        return new HTTPRetriever(url, new RetrievalPostProcessor()
+        {
+            public ByteBuffer run(Retriever retriever)
+            {
+                return retriever.getBuffer();
+            }
+        });
+    }
+
+    private static boolean isVirtual(Thread thread)
+    {
+        try
+        {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        }
+        catch (Exception e)
+        {
+            return false; // Virtual threads are not supported by this Java platform.
+        }
+    }
+}
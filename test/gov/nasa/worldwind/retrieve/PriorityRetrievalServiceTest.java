@@ -0,0 +1,212 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.retrieve;
+
+import com.sun.net.httpserver.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/** Tests {@link PriorityRetrievalService} against a stub HTTP server on the loopback interface. */
+@RunWith(JUnit4.class)
+public class PriorityRetrievalServiceTest
+{
+    private HttpServer server;
+    private final List<String> requestOrder = Collections.synchronizedList(new ArrayList<String>());
+    private final AtomicInteger concurrentRequests = new AtomicInteger();
+    private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+    private final CountDownLatch releaseBlocked = new CountDownLatch(1);
+    private volatile long responseDelay;
+    private PriorityRetrievalService service;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.createContext("/", new HttpHandler()
+        {
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                String path = exchange.getRequestURI().getPath();
+                requestOrder.add(path);
+                int concurrent = concurrentRequests.incrementAndGet();
+                synchronized (maxConcurrentRequests)
+                {
+                    maxConcurrentRequests.set(Math.max(maxConcurrentRequests.get(), concurrent));
+                }
+
+                try
+                {
+                    if (path.startsWith("/blocked"))
+                        releaseBlocked.await(10, TimeUnit.SECONDS);
+                    else if (responseDelay > 0)
+                        Thread.sleep(responseDelay);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+
+                byte[] body = path.getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                concurrentRequests.decrementAndGet();
+                exchange.close();
+            }
+        });
+        this.server.start();
+
+        this.service = new PriorityRetrievalService();
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.releaseBlocked.countDown();
+        this.service.shutdown(true);
+        this.server.stop(0);
+    }
+
+    /** Tests that submitting a retriever for a URL already queued or running returns the existing retrieval. */
+    @Test
+    public void testDuplicatesAreMerged() throws Exception
+    {
+        this.service.setRetrieverPoolSize(1);
+        RetrievalFuture blocked = this.service.runRetriever(this.createRetriever("/blocked"), 1);
+
+        RetrievalFuture first = this.service.runRetriever(this.createRetriever("/tile"), 1);
+        RetrievalFuture second = this.service.runRetriever(this.createRetriever("/tile"), 1);
+        assertSame("Duplicate not merged ", first, second);
+        assertSame("Duplicate of running retrieval not merged ", blocked,
+            this.service.runRetriever(this.createRetriever("/blocked"), 1));
+        assertEquals("Duplicate count incorrect ", 2, this.service.getNumDuplicates());
+
+        this.releaseBlocked.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        assertEquals("Duplicate requested ", Arrays.asList("/blocked", "/tile"), this.requestOrder);
+    }
+
+    /** Tests that queued retrievals run in priority order, and that re-submission changes a retrieval's priority. */
+    @Test
+    public void testPriorityOrder() throws Exception
+    {
+        this.service.setRetrieverPoolSize(1);
+        this.service.runRetriever(this.createRetriever("/blocked"), -100);
+
+        this.service.runRetriever(this.createRetriever("/c"), -3);
+        this.service.runRetriever(this.createRetriever("/a"), -5);
+        RetrievalFuture last = this.service.runRetriever(this.createRetriever("/b"), -4);
+        this.service.runRetriever(this.createRetriever("/d"), -1);
+        assertEquals("Queue depth incorrect ", 4, this.service.getQueueDepth());
+
+        // The view moved: "/d" is now the most important tile.
+        this.service.runRetriever(this.createRetriever("/d"), -10);
+
+        this.releaseBlocked.countDown();
+        last.get(10, TimeUnit.SECONDS);
+        this.waitForIdle();
+        assertEquals("Retrieval order incorrect ", Arrays.asList("/blocked", "/d", "/a", "/b", "/c"),
+            this.requestOrder);
+        assertEquals("Completed count incorrect ", 5, this.service.getNumCompleted());
+    }
+
+    /** Tests that the lowest ranked queued retrieval is cancelled when the queue is full. */
+    @Test
+    public void testQueueOverflowDiscardsLowestPriority() throws Exception
+    {
+        this.service.setRetrieverPoolSize(1);
+        this.service.setQueueSize(2);
+        this.service.runRetriever(this.createRetriever("/blocked"), -100);
+
+        RetrievalFuture low = this.service.runRetriever(this.createRetriever("/low"), -1);
+        RetrievalFuture high = this.service.runRetriever(this.createRetriever("/high"), -3);
+        RetrievalFuture middle = this.service.runRetriever(this.createRetriever("/middle"), -2);
+        assertTrue("Lowest priority retrieval not cancelled ", low.isCancelled());
+        assertNull("Lower priority retrieval accepted ", this.service.runRetriever(this.createRetriever("/lowest"), 0));
+        assertEquals("Discard count incorrect ", 2, this.service.getNumDiscarded());
+
+        this.releaseBlocked.countDown();
+        middle.get(10, TimeUnit.SECONDS);
+        assertTrue("Retrieval not completed ", high.isDone());
+        assertFalse("Cancelled retrieval requested ", this.requestOrder.contains("/low"));
+    }
+
+    /** Tests that no more than the host connection limit of retrievals run concurrently against one host. */
+    @Test
+    public void testHostConnectionLimit() throws Exception
+    {
+        this.responseDelay = 100;
+        this.service.setRetrieverPoolSize(8);
+        this.service.setHostConnectionLimit(2);
+
+        List<RetrievalFuture> futures = new ArrayList<RetrievalFuture>();
+        for (int i = 0; i < 8; i++)
+        {
+            futures.add(this.service.runRetriever(this.createRetriever("/tile" + i), i + 1));
+        }
+        for (RetrievalFuture future : futures)
+        {
+            future.get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals("Not all tiles requested ", 8, this.requestOrder.size());
+        assertTrue("Host connection limit exceeded ", this.maxConcurrentRequests.get() <= 2);
+        assertTrue("Wait time not recorded ", this.service.getAverageWaitTime() > 0);
+        assertTrue("Throughput not recorded ", this.service.getThroughput() > 0);
+    }
+
+    private HTTPRetriever createRetriever(String path) throws MalformedURLException
+    {
+        URL url = new URL("http", "127.0.0.1", this.server.getAddress().getPort(), path);
+        return new HTTPRetriever(url, new RetrievalPostProcessor()
+        {
+            public ByteBuffer run(Retriever retriever)
+            {
+                return retriever.getBuffer();
+            }
+        });
+    }
+
+    private void waitForIdle() throws InterruptedException
+    {
+        for (int i = 0; i < 1000 && this.service.getNumRetrieversPending() > 0; i++)
+        {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -29,12 +29,15 @@
 package gov.nasa.worldwind.symbology.milstd2525;
 
 import gov.nasa.worldwind.avlist.*;
-import gov.nasa.worldwind.symbology.IconRetriever;
+import gov.nasa.worldwind.symbology.*;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import java.awt.*;
 import java.awt.image.*;
+import java.util.*;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -765,6 +768,75 @@ public class MilStd2525IconRetrieverTest
         }
     }
 
+    //////////////////////////////////////////////////////////
+    // Test the icon cache.
+    //////////////////////////////////////////////////////////
+
+    @Test
+    public void testCachedIconIsCopied()
+    {
+        MilStd2525IconRetriever symGen = new MilStd2525IconRetriever(LOCAL_SYMBOLS_ZIP);
+        AVList params = new AVListImpl();
+
+        BufferedImage first = symGen.createIcon("SFAPMFQM--GIUSA", params);
+        // Modifying the returned image must not affect the icon returned by later calls.
+        first.setRGB(0, 0, 0x12345678);
+        BufferedImage second = symGen.createIcon("SFAPMFQM--GIUSA", params);
+
+        assertNotSame("Icon is a copy", first, second);
+        assertEquals("Icon width", first.getWidth(), second.getWidth());
+        assertEquals("Icon height", first.getHeight(), second.getHeight());
+        assertFalse("Icon is unmodified", second.getRGB(0, 0) == 0x12345678);
+    }
+
+    @Test
+    public void testCacheKeyIncludesParameters()
+    {
+        MilStd2525IconRetriever symGen = new MilStd2525IconRetriever(LOCAL_SYMBOLS_ZIP);
+        AVList params = new AVListImpl();
+        params.setValue(SymbologyConstants.SHOW_FILL, true);
+        params.setValue(AVKey.COLOR, new Color(255, 0, 0, 255));
+
+        AVList reordered = new AVListImpl();
+        reordered.setValue(AVKey.COLOR, new Color(255, 0, 0, 255));
+        reordered.setValue(SymbologyConstants.SHOW_FILL, true);
+
+        AVList translucent = new AVListImpl();
+        translucent.setValue(SymbologyConstants.SHOW_FILL, true);
+        translucent.setValue(AVKey.COLOR, new Color(255, 0, 0, 128));
+
+        String key = symGen.makeIconCacheKey("SFAPMFQM--GIUSA", params);
+        assertEquals("Parameter order ignored", key, symGen.makeIconCacheKey("SFAPMFQM--GIUSA", reordered));
+        assertFalse("Color alpha distinguished",
+            key.equals(symGen.makeIconCacheKey("SFAPMFQM--GIUSA", translucent)));
+        assertFalse("Retrieval path distinguished",
+            key.equals(new MilStd2525IconRetriever("other/path").makeIconCacheKey("SFAPMFQM--GIUSA", params)));
+    }
+
+    @Test
+    public void testPreloadIcons()
+    {
+        MilStd2525IconRetriever symGen = new MilStd2525IconRetriever(LOCAL_SYMBOLS_ZIP);
+        AVList params = new AVListImpl();
+
+        List<String> sidcs = new ArrayList<String>();
+        for (String s : WarfightingAirFunctionIDs)
+        {
+            sidcs.add("SFAP" + s + "-----");
+            sidcs.add("SHAP" + s + "-----");
+        }
+        sidcs.add("SUAPC");  // Invalid symbol codes are skipped.
+
+        int numLoaded = symGen.preloadIcons(sidcs, params);
+        assertEquals("Number of icons loaded", sidcs.size() - 1, numLoaded);
+
+        for (String sidc : sidcs.subList(0, sidcs.size() - 1))
+        {
+            Object icon = MilStd2525IconRetriever.getIconCache().getObject(symGen.makeIconCacheKey(sidc, params));
+            assertNotNull("Icon " + sidc + " cached", icon);
+        }
+    }
+
     //////////////////////
     // Warfighting
 
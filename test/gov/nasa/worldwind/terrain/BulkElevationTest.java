@@ -0,0 +1,171 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.util.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.net.URL;
+import java.nio.DoubleBuffer;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class BulkElevationTest
+{
+    private static final int TILE_SIZE = 9;
+
+    private BasicElevationModel model;
+
+    @Before
+    public void setUp()
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.SECTOR, Sector.fromDegrees(0, 10, 0, 10));
+        params.setValue(AVKey.TILE_ORIGIN, LatLon.fromDegrees(0, 0));
+        params.setValue(AVKey.LEVEL_ZERO_TILE_DELTA, LatLon.fromDegrees(5, 5));
+        params.setValue(AVKey.NUM_LEVELS, 2);
+        params.setValue(AVKey.TILE_WIDTH, TILE_SIZE);
+        params.setValue(AVKey.TILE_HEIGHT, TILE_SIZE);
+        params.setValue(AVKey.DATA_CACHE_NAME, "BulkElevationTest");
+        params.setValue(AVKey.DATASET_NAME, "BulkElevationTest");
+        params.setValue(AVKey.NETWORK_RETRIEVAL_ENABLED, false);
+        params.setValue(AVKey.TILE_URL_BUILDER, new TileUrlBuilder()
+        {
+            public URL getURL(Tile tile, String imageFormat)
+            {
+                return null;
+            }
+        });
+
+        this.model = new BasicElevationModel(params);
+
+        // Load every tile of the last level with a planar surface, which bilinear interpolation reproduces exactly.
+        Level level = this.model.getLevels().getLastLevel();
+        for (int row = 0; row < 4; row++)
+        {
+            for (int col = 0; col < 4; col++)
+            {
+                TileKey key = new TileKey(level.getLevelNumber(), row, col, level.getCacheName());
+                BasicElevationModel.ElevationTile tile = this.model.createTile(key);
+                Sector sector = tile.getSector();
+                double dLat = sector.getDeltaLatDegrees() / (TILE_SIZE - 1);
+                double dLon = sector.getDeltaLonDegrees() / (TILE_SIZE - 1);
+                double[] values = new double[TILE_SIZE * TILE_SIZE];
+                for (int j = 0; j < TILE_SIZE; j++)
+                {
+                    for (int i = 0; i < TILE_SIZE; i++)
+                    {
+                        double lat = sector.getMaxLatitude().degrees - j * dLat;
+                        double lon = sector.getMinLongitude().degrees + i * dLon;
+                        values[j * TILE_SIZE + i] = surface(lat, lon);
+                    }
+                }
+
+                BufferWrapper elevations = new BufferWrapper.DoubleBufferWrapper(DoubleBuffer.wrap(values));
+                tile.setElevations(elevations, this.model);
+                this.model.addTileToCache(tile, elevations);
+            }
+        }
+    }
+
+    /** Tests that bulk elevations match single location lookups, and that locations outside coverage are untouched. */
+    @Test
+    public void testBulkMatchesSingleLookups()
+    {
+        Random random = new Random(7);
+        int count = 1000;
+        double[] lats = new double[count];
+        double[] lons = new double[count];
+        for (int i = 0; i < count; i++)
+        {
+            lats[i] = random.nextDouble() * 12 - 1; // some locations fall outside the model's coverage
+            lons[i] = random.nextDouble() * 12 - 1;
+        }
+
+        double[] buffer = new double[count];
+        Arrays.fill(buffer, -1);
+        double resolution = this.model.getElevations(lats, lons, 0, buffer, false);
+
+        assertEquals("Achieved resolution incorrect ", this.model.getLevels().getLastLevel().getTexelSize(),
+            resolution, 0);
+
+        for (int i = 0; i < count; i++)
+        {
+            if (lats[i] < 0 || lats[i] > 10 || lons[i] < 0 || lons[i] > 10)
+            {
+                assertEquals("Location outside coverage modified ", -1, buffer[i], 0);
+            }
+            else
+            {
+                double expected = this.model.getUnmappedElevation(Angle.fromDegrees(lats[i]),
+                    Angle.fromDegrees(lons[i]));
+                assertEquals("Elevation incorrect ", expected, buffer[i], 1e-6);
+                assertEquals("Elevation incorrect ", surface(lats[i], lons[i]), buffer[i], 1e-6);
+            }
+        }
+    }
+
+    /** Tests that parallel bulk elevations, directly and through a compound model, match sequential ones. */
+    @Test
+    public void testParallelMatchesSequential()
+    {
+        Random random = new Random(11);
+        int count = 100000;
+        double[] lats = new double[count];
+        double[] lons = new double[count];
+        for (int i = 0; i < count; i++)
+        {
+            lats[i] = random.nextDouble() * 10;
+            lons[i] = random.nextDouble() * 10;
+        }
+
+        double[] sequential = new double[count];
+        this.model.getElevations(lats, lons, 0, sequential, false);
+
+        double[] parallel = new double[count];
+        this.model.getElevations(lats, lons, 0, parallel, true);
+        assertTrue("Parallel elevations incorrect ", Arrays.equals(sequential, parallel));
+
+        CompoundElevationModel compound = new CompoundElevationModel();
+        compound.addElevationModel(this.model);
+        double[] compoundElevations = new double[count];
+        compound.getElevations(lats, lons, 0, compoundElevations, true);
+        assertTrue("Compound elevations incorrect ", Arrays.equals(sequential, compoundElevations));
+    }
+
+    private static double surface(double lat, double lon)
+    {
+        return 100 * lat + 10 * lon;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class HighResolutionTerrainBatchTest
+{
+    private static final Sector SECTOR = Sector.fromDegrees(35, 35.2, -120, -119.8);
+    private static final int GRID_SIZE = 241;
+
+    private HighResolutionTerrain terrain;
+    private double[] positions;
+
+    @Before
+    public void setUp()
+    {
+        // A ridge running north to south through the middle of the sector.
+        ByteBuffer buffer = ByteBuffer.allocate(2 * GRID_SIZE * GRID_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (int j = 0; j < GRID_SIZE; j++)
+        {
+            for (int i = 0; i < GRID_SIZE; i++)
+            {
+                buffer.putShort((short) (Math.abs(i - GRID_SIZE / 2) < 10 ? 1000 : 100));
+            }
+        }
+        buffer.rewind();
+
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.DATA_TYPE, AVKey.INT16);
+        params.setValue(AVKey.BYTE_ORDER, AVKey.LITTLE_ENDIAN);
+        LocalElevationModel model = new LocalElevationModel();
+        model.addElevations(buffer, SECTOR, GRID_SIZE, GRID_SIZE, params);
+
+        Globe globe = new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES,
+            model);
+        this.terrain = new HighResolutionTerrain(globe, SECTOR, 100d, 1d);
+
+        // East-west lines cross the ridge; north-south lines on the west side do not.
+        Random random = new Random(5);
+        int numLines = 60;
+        this.positions = new double[6 * numLines];
+        for (int i = 0; i < numLines; i++)
+        {
+            double lat = 35.02 + 0.16 * random.nextDouble();
+            boolean crossing = i % 2 == 0;
+            this.positions[6 * i] = lat;
+            this.positions[6 * i + 1] = -119.98;
+            this.positions[6 * i + 2] = 10;
+            this.positions[6 * i + 3] = crossing ? lat : lat + 0.01;
+            this.positions[6 * i + 4] = crossing ? -119.82 : -119.98;
+            this.positions[6 * i + 5] = 10;
+        }
+    }
+
+    /** Tests that batch results match those of intersecting each line individually. */
+    @Test
+    public void testBatchMatchesSingleIntersections() throws InterruptedException
+    {
+        HighResolutionTerrain.IntersectionBatch batch = this.terrain.submitIntersections(this.positions);
+        batch.await();
+
+        assertTrue("Batch not done ", batch.isDone());
+        assertEquals("Progress incorrect ", 1d, batch.getProgress(), 0);
+        assertNull("Unexpected exception ", batch.getException());
+
+        int[] counts = batch.getIntersectionCounts();
+        double[] hits = batch.getIntersectionPositions();
+        for (int i = 0; i < batch.getNumLines(); i++)
+        {
+            int k = 6 * i;
+            Intersection[] expected = this.terrain.intersect(
+                Position.fromDegrees(this.positions[k], this.positions[k + 1], this.positions[k + 2]),
+                Position.fromDegrees(this.positions[k + 3], this.positions[k + 4], this.positions[k + 5]));
+
+            assertEquals("Intersection count incorrect ", expected != null ? expected.length : 0, counts[i]);
+            assertEquals("Crossing line not blocked ", i % 2 == 0, counts[i] > 0);
+            if (counts[i] > 0)
+            {
+                Position position = this.terrain.getGlobe().computePositionFromPoint(
+                    expected[0].getIntersectionPoint());
+                assertEquals("Intersection latitude incorrect ", position.getLatitude().degrees, hits[3 * i], 1e-9);
+                assertEquals("Intersection longitude incorrect ", position.getLongitude().degrees, hits[3 * i + 1],
+                    1e-9);
+            }
+            else
+            {
+                assertTrue("Missing intersection not NaN ", Double.isNaN(hits[3 * i]));
+            }
+        }
+    }
+
+    /** Tests that the list based method still reports every intersecting line to its callback. */
+    @Test
+    public void testCallback() throws InterruptedException
+    {
+        List<Position> list = new ArrayList<Position>();
+        for (int k = 0; k < this.positions.length; k += 3)
+        {
+            list.add(Position.fromDegrees(this.positions[k], this.positions[k + 1], this.positions[k + 2]));
+        }
+
+        final AtomicInteger numIntersecting = new AtomicInteger();
+        final AtomicInteger numExceptions = new AtomicInteger();
+        this.terrain.intersect(list, new HighResolutionTerrain.IntersectionCallback()
+        {
+            public void intersection(Position pA, Position pB, Intersection[] intersections)
+            {
+                numIntersecting.incrementAndGet();
+            }
+
+            public void exception(Exception exception)
+            {
+                numExceptions.incrementAndGet();
+            }
+        });
+
+        assertEquals("Intersecting line count incorrect ", list.size() / 4, numIntersecting.get());
+        assertEquals("Exception count incorrect ", 0, numExceptions.get());
+    }
+
+    /** Tests that a batch cancelled before it starts skips its lines. */
+    @Test
+    public void testCancel() throws InterruptedException
+    {
+        HighResolutionTerrain.IntersectionBatch batch = this.terrain.submitIntersections(this.positions);
+        batch.cancel();
+        batch.await();
+
+        assertTrue("Batch not cancelled ", batch.isCancelled());
+        assertTrue("Batch not done ", batch.isDone());
+        assertTrue("Cancelled batch completed ", batch.getNumCompleted() < batch.getNumLines());
+    }
+}
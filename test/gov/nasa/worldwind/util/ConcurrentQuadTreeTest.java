@@ -0,0 +1,176 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.geom.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ConcurrentQuadTreeTest
+{
+    /** Tests that queries return the same items as BasicQuadTree for points and regions. */
+    @Test
+    public void testQueriesMatchBasicQuadTree()
+    {
+        BasicQuadTree<Integer> expected = new BasicQuadTree<Integer>(6, Sector.FULL_SPHERE, null);
+        ConcurrentQuadTree<Integer> tree = new ConcurrentQuadTree<Integer>(6, Sector.FULL_SPHERE);
+
+        Random random = new Random(1);
+        for (int i = 0; i < 2000; i++)
+        {
+            double lat = -90 + random.nextDouble() * 180;
+            double lon = -180 + random.nextDouble() * 360;
+            double[] coords = i % 4 == 0 ? new double[] {lat, Math.min(90, lat + 5), lon, Math.min(180, lon + 5)}
+                : new double[] {lat, lon};
+            expected.add(i, coords);
+            tree.add(i, coords);
+        }
+
+        for (int i = 0; i < 100; i++)
+        {
+            double lat = -90 + random.nextDouble() * 170;
+            double lon = -180 + random.nextDouble() * 340;
+            Sector sector = Sector.fromDegrees(lat, lat + random.nextDouble() * 20, lon, lon + random.nextDouble() * 20);
+
+            assertEquals("Items in region incorrect ", expected.getItemsInRegion(sector, null),
+                tree.getItemsInRegion(sector, null));
+            assertEquals("Items at location incorrect ", expected.getItemsAtLocation(sector.getCentroid(), null),
+                tree.getItemsAtLocation(sector.getCentroid(), null));
+        }
+    }
+
+    /** Tests that moved items are found only at their new locations, and that removed items are not found. */
+    @Test
+    public void testMoveAndRemove()
+    {
+        int numItems = 1000;
+        ConcurrentQuadTree<Integer> tree = new ConcurrentQuadTree<Integer>(5, Sector.FULL_SPHERE);
+
+        for (int i = 1; i <= numItems; i++)
+        {
+            tree.add(i, new double[] {i % 90, i % 180}, Integer.toString(i));
+        }
+        assertEquals("Item count incorrect at start ", numItems, countItemsInTree(tree));
+
+        Map<Integer, double[]> moves = new HashMap<Integer, double[]>();
+        for (int i = 1; i <= numItems; i++)
+        {
+            moves.put(i, new double[] {-10 - i % 70, -10 - i % 160});
+        }
+        tree.moveAll(moves);
+        assertEquals("Item count incorrect after move ", numItems, countItemsInTree(tree));
+        assertTrue("Items found at old locations ", tree.getItemsInRegion(Sector.fromDegrees(0, 90, 0, 180),
+            null).isEmpty());
+        assertEquals("Items not found at new locations ", numItems,
+            tree.getItemsInRegion(Sector.fromDegrees(-80, -10, -170, -10), null).size());
+
+        // Remove items one at a time then verify the count.
+        for (int i = numItems; i > 0; i--)
+        {
+            if (i % 2 == 0)
+            {
+                tree.removeByName(Integer.toString(i));
+                assertNull("Item name not removed ", tree.getByName(Integer.toString(i)));
+            }
+            else
+            {
+                tree.remove(i);
+            }
+            assertEquals("Item count incorrect ", i - 1, countItemsInTree(tree));
+            assertFalse("Item not removed ", tree.contains(i));
+        }
+        assertFalse("Tree not empty ", tree.hasItems());
+    }
+
+    /** Tests that queries concurrent with batched moves see each batch entirely or not at all. */
+    @Test
+    public void testConcurrentQueriesSeeWholeBatches() throws InterruptedException
+    {
+        final int numItems = 500;
+        final ConcurrentQuadTree<Integer> tree = new ConcurrentQuadTree<Integer>(8, Sector.FULL_SPHERE);
+        final Sector west = Sector.fromDegrees(-10, 10, -50, -30);
+        final Sector east = Sector.fromDegrees(-10, 10, 30, 50);
+
+        Map<Integer, double[]> moves = new HashMap<Integer, double[]>();
+        for (int i = 0; i < numItems; i++)
+        {
+            moves.put(i, new double[] {-10 + i % 20, -50 + i % 20});
+        }
+        tree.moveAll(moves);
+
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final List<Sector> regions = Arrays.asList(west, east);
+        Thread reader = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                for (int i = 0; i < 2000 && failure.get() == null; i++)
+                {
+                    int count = tree.getItemsInRegions(regions, null).size();
+                    int westCount = tree.getItemsInRegion(west, null).size();
+                    if (count != numItems || (westCount != 0 && westCount != numItems))
+                        failure.set("Partial batch visible: " + count + ", " + westCount);
+                }
+            }
+        });
+        reader.start();
+
+        for (int batch = 0; batch < 200; batch++)
+        {
+            double lonOffset = batch % 2 == 0 ? 30 : -50;
+            for (int i = 0; i < numItems; i++)
+            {
+                moves.put(i, new double[] {-10 + i % 20, lonOffset + i % 20});
+            }
+            tree.moveAll(moves);
+        }
+
+        reader.join();
+        assertNull(failure.get(), failure.get());
+    }
+
+    private static int countItemsInTree(ConcurrentQuadTree<Integer> tree)
+    {
+        // Counts only unique items.
+        Set<Integer> items = new HashSet<Integer>();
+
+        for (Integer i : tree)
+        {
+            items.add(i);
+        }
+
+        return items.size();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.util;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ContourBuilderTest
+{
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void testClosedContourAroundPeak()
+    {
+        double[] values = {
+            0, 0, 0,
+            0, 2, 0,
+            0, 0, 0};
+
+        List<List<double[]>> lines = new ContourBuilder(3, 3, values).buildContourLines(1);
+        assertEquals("Number of contour lines not as expected", 1, lines.size());
+
+        // The contour crosses each edge adjacent to the peak at its midpoint, and returns to its starting point.
+        List<double[]> line = lines.get(0);
+        assertEquals("Number of coordinates not as expected", 5, line.size());
+        assertEquals("Contour is not closed", line.get(0)[0], line.get(line.size() - 1)[0], DELTA);
+        assertEquals("Contour is not closed", line.get(0)[1], line.get(line.size() - 1)[1], DELTA);
+
+        for (double[] coord : line)
+        {
+            assertEquals("Coordinate not on contour", 0.5, Math.abs(coord[0] - 1) + Math.abs(coord[1] - 1), DELTA);
+        }
+    }
+
+    @Test
+    public void testMultipleValuesMatchSingleValue()
+    {
+        int width = 97;
+        int height = 61;
+        double[] values = new double[width * height];
+        Random random = new Random(7);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                values[x + y * width] = Math.sin(x * 0.2) * Math.cos(y * 0.15) + random.nextDouble() * 0.3;
+            }
+        }
+
+        ContourBuilder cb = new ContourBuilder(width, height, values);
+        double[] thresholds = new double[17];
+        Map<Double, List<String>> expected = new HashMap<Double, List<String>>();
+        for (int i = 0; i < thresholds.length; i++)
+        {
+            thresholds[i] = -1.2 + i * 0.15;
+            expected.put(thresholds[i], describe(cb.buildContourLines(thresholds[i])));
+        }
+
+        final Map<Double, List<List<double[]>>> actual = new HashMap<Double, List<List<double[]>>>();
+        cb.buildContourLines(thresholds, 3, new ContourBuilder.ContourLineVisitor()
+        {
+            public void visitContourLine(double value, List<double[]> coordinates)
+            {
+                synchronized (actual)
+                {
+                    List<List<double[]>> lines = actual.get(value);
+                    if (lines == null)
+                        actual.put(value, lines = new ArrayList<List<double[]>>());
+                    lines.add(coordinates);
+                }
+            }
+        });
+
+        for (double threshold : thresholds)
+        {
+            List<List<double[]>> lines = actual.get(threshold);
+            List<String> actualLines = (lines != null) ? describe(lines) : Collections.<String>emptyList();
+            assertEquals("Contour lines not as expected for " + threshold, expected.get(threshold), actualLines);
+        }
+    }
+
+    private static List<String> describe(List<List<double[]>> lines)
+    {
+        List<String> list = new ArrayList<String>();
+        for (List<double[]> line : lines)
+        {
+            StringBuilder sb = new StringBuilder();
+            for (double[] coord : line)
+            {
+                sb.append(coord[0]).append(',').append(coord[1]).append(' ');
+            }
+            list.add(sb.toString());
+        }
+
+        return list;
+    }
+}
@@ -34,6 +34,7 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
 
@@ -282,4 +283,53 @@ public class EGM96Test
         // Ensure that they are equal
         assertEquals("interpolated matches actual longitude", manuallyCalculatedInterpolationValue, lonOffset, DELTA);
     }
+
+    /**
+     * Tests that batch offsets match offsets computed one location at a time, for both interpolations.
+     */
+    @Test
+    public void testGetOffsets_MatchesGetOffset() throws IOException
+    {
+        EGM96 egm96 = new EGM96(OFFSETS_FILE_PATH);
+        double[] latitudes = new double[] {-90, -89.9, -45.3, 0, 0.125, 38.72, 89.9, 90};
+        double[] longitudes = new double[] {-180, 179.99, -104.9, 0, 359.9, -0.01, 12.3456, 180};
+
+        for (String interpolation : new String[] {EGM96.INTERPOLATION_BILINEAR, EGM96.INTERPOLATION_BICUBIC})
+        {
+            egm96.setInterpolation(interpolation);
+
+            double[] offsets = new double[latitudes.length];
+            egm96.getOffsets(latitudes, longitudes, offsets);
+
+            double[] elevations = new double[latitudes.length];
+            Arrays.fill(elevations, 100);
+            egm96.addOffsets(latitudes, longitudes, elevations);
+
+            for (int i = 0; i < latitudes.length; i++)
+            {
+                double expected = egm96.getOffset(Angle.fromDegrees(latitudes[i]), Angle.fromDegrees(longitudes[i]));
+                assertEquals("batch offset matches single offset", expected, offsets[i], 0);
+                assertEquals("added offset matches single offset", 100 + expected, elevations[i], 0);
+            }
+        }
+    }
+
+    /**
+     * Tests that bicubic interpolation passes through the grid points and is continuous across the antimeridian.
+     */
+    @Test
+    public void testGetOffset_BicubicInterpolation() throws IOException
+    {
+        EGM96 egm96 = new EGM96(OFFSETS_FILE_PATH);
+        egm96.setInterpolation(EGM96.INTERPOLATION_BICUBIC);
+
+        // 38.75N, 105W is the grid point at row 205, column 1020.
+        double gridPointOffset = egm96.gePostOffset(205, 1020) / 100d;
+        assertEquals("interpolated matches grid point", gridPointOffset,
+            egm96.getOffset(Angle.fromDegrees(38.75), Angle.fromDegrees(-105)), DELTA);
+
+        double west = egm96.getOffset(Angle.fromDegrees(12.3), Angle.fromDegrees(-179.999999));
+        double east = egm96.getOffset(Angle.fromDegrees(12.3), Angle.fromDegrees(179.999999));
+        assertEquals("continuous across antimeridian", west, east, 1e-4);
+    }
 }
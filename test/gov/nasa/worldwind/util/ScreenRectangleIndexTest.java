@@ -0,0 +1,114 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.util;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.geom.Rectangle2D;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ScreenRectangleIndexTest
+{
+    @Test
+    public void testIntersectsMatchesLinearSearch()
+    {
+        ScreenRectangleIndex index = new ScreenRectangleIndex();
+        Random random = new Random(3);
+
+        // Fill and clear the index several times to check that it's reusable.
+        for (int frame = 0; frame < 3; frame++)
+        {
+            List<Rectangle2D> accepted = new ArrayList<Rectangle2D>();
+            index.clear();
+
+            for (int i = 0; i < 3000; i++)
+            {
+                Rectangle2D rect = randomRectangle(random);
+                Rectangle2D expected = linearSearch(accepted, rect);
+
+                assertSame("Intersecting rectangle not as expected", expected, index.intersects(rect));
+
+                // Add the rectangles that don't intersect, as a clutter filter does, and occasionally one that does.
+                if (expected == null || i % 10 == 0)
+                {
+                    accepted.add(rect);
+                    index.add(rect);
+                }
+            }
+
+            assertEquals("Index size not as expected", accepted.size(), index.size());
+        }
+    }
+
+    @Test
+    public void testEmptyIndex()
+    {
+        ScreenRectangleIndex index = new ScreenRectangleIndex();
+        assertNull("Empty index returned a rectangle", index.intersects(new Rectangle2D.Double(0, 0, 10, 10)));
+        assertNull("Null rectangle returned a rectangle", index.intersects(null));
+
+        index.add(new Rectangle2D.Double(0, 0, 10, 10));
+        index.clear();
+        assertEquals("Cleared index is not empty", 0, index.size());
+        assertNull("Cleared index returned a rectangle", index.intersects(new Rectangle2D.Double(0, 0, 10, 10)));
+    }
+
+    private static Rectangle2D randomRectangle(Random random)
+    {
+        double x = random.nextDouble() * 2000 - 100;
+        double y = random.nextDouble() * 1200 - 100;
+
+        switch (random.nextInt(20))
+        {
+            case 0: // large enough to cover many grid cells
+                return new Rectangle2D.Double(x, y, random.nextDouble() * 1500, random.nextDouble() * 900);
+            case 1: // empty
+                return new Rectangle2D.Double(x, y, 0, random.nextDouble() * 20);
+            case 2: // aligned to grid cell boundaries
+                return new Rectangle2D.Double(64 * random.nextInt(30), 64 * random.nextInt(18), 64, 64);
+            default: // label sized
+                return new Rectangle2D.Double(x, y, 10 + random.nextDouble() * 80, 8 + random.nextDouble() * 16);
+        }
+    }
+
+    private static Rectangle2D linearSearch(List<Rectangle2D> list, Rectangle2D rectangle)
+    {
+        for (Rectangle2D rect : list)
+        {
+            if (rectangle.intersects(rect))
+                return rect;
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.Configuration;
+import gov.nasa.worldwind.avlist.AVKey;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link ThreadedTaskService} in virtual-thread mode. On Java platforms without virtual threads the service falls
+ * back to platform threads, and the same behavior is expected.
+ */
+@RunWith(JUnit4.class)
+public class ThreadedTaskServiceTest
+{
+    private String savedUseVirtualThreads;
+    private ThreadedTaskService service;
+
+    @Before
+    public void setUp()
+    {
+        this.savedUseVirtualThreads = Configuration.getStringValue(AVKey.TASK_USE_VIRTUAL_THREADS);
+        Configuration.setValue(AVKey.TASK_USE_VIRTUAL_THREADS, true);
+        this.service = new ThreadedTaskService();
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.service.shutdown(true);
+
+        if (this.savedUseVirtualThreads != null)
+            Configuration.setValue(AVKey.TASK_USE_VIRTUAL_THREADS, this.savedUseVirtualThreads);
+        else
+            Configuration.removeKey(AVKey.TASK_USE_VIRTUAL_THREADS);
+    }
+
+    /** Tests that tasks run, on virtual threads when the platform supports them. */
+    @Test
+    public void testTasksRunOnVirtualThreads() throws Exception
+    {
+        final int numTasks = 10;
+        final CountDownLatch done = new CountDownLatch(numTasks);
+        final Set<Boolean> virtualThreads = Collections.synchronizedSet(new HashSet<Boolean>());
+
+        for (int i = 0; i < numTasks; i++)
+        {
+            this.service.addTask(new Runnable()
+            {
+                public void run()
+                {
+                    virtualThreads.add(isVirtual(Thread.currentThread()));
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue("Tasks did not complete ", done.await(10, TimeUnit.SECONDS));
+        assertEquals("Task threads incorrect ", Collections.singleton(WWUtil.isVirtualThreadSupported()),
+            virtualThreads);
+    }
+
+    private static boolean isVirtual(Thread thread)
+    {
+        try
+        {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        }
+        catch (Exception e)
+        {
+            return false; // Virtual threads are not supported by this Java platform.
+        }
+    }
+}